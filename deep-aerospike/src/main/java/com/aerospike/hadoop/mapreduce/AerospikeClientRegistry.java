@@ -0,0 +1,279 @@
+/* 
+ * Copyright 2014 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more
+ * contributor license agreements.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.aerospike.hadoop.mapreduce;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.Host;
+import com.aerospike.client.async.AsyncClient;
+import com.aerospike.client.async.AsyncClientPolicy;
+import com.aerospike.client.policy.ClientPolicy;
+
+/**
+ * Shares the clients of every Aerospike cluster used in the JVM.
+ * <p>
+ * Clients are keyed by their seed hosts, credentials and tuned
+ * policy settings, so jobs reading from or writing to different
+ * clusters, or with a different timeout or connection pool, get
+ * different clients. Every client obtained from the registry must be
+ * released once it is no longer used; a client without references is
+ * closed once it has been idle for the idle timeout given when it was
+ * created, so that the tasks of a stage reuse its cluster tends and
+ * pooled connections.
+ */
+public class AerospikeClientRegistry {
+
+    private static final Log log =
+        LogFactory.getLog(AerospikeClientRegistry.class);
+
+    private static final Map<ClientKey, Entry> entries =
+        new HashMap<ClientKey, Entry>();
+
+    private static final Map<AerospikeClient, Entry> clients =
+        new IdentityHashMap<AerospikeClient, Entry>();
+
+    // interval between idle client evictions, in milliseconds
+    private static final long EVICTION_INTERVAL = 1000;
+
+    private static ScheduledExecutorService evictor;
+
+    private AerospikeClientRegistry() {
+    }
+
+    // Returns the client of the cluster, connecting to it if needed.
+    // hosts is a comma separated list of seed hosts, each one with an
+    // optional port; port is used for the hosts without one.
+    public static AerospikeClient
+        getClient(ClientPolicy policy, String hosts, int port) {
+        return getClient(policy, hosts, port,
+                         AerospikeConfigUtil.DEFAULT_CLIENT_IDLE_TIMEOUT);
+    }
+
+    // Returns the client of the cluster, closed once it has been
+    // released and idle for idleTimeout milliseconds.
+    public static synchronized AerospikeClient
+        getClient(ClientPolicy policy, String hosts, int port,
+                  long idleTimeout) {
+        return acquire(policy, hosts, port, false, idleTimeout);
+    }
+
+    // Returns the asynchronous client of the cluster, connecting to it
+    // if needed.
+    public static AsyncClient
+        getAsyncClient(AsyncClientPolicy policy, String hosts, int port) {
+        return getAsyncClient(policy, hosts, port,
+                              AerospikeConfigUtil.DEFAULT_CLIENT_IDLE_TIMEOUT);
+    }
+
+    public static synchronized AsyncClient
+        getAsyncClient(AsyncClientPolicy policy, String hosts, int port,
+                       long idleTimeout) {
+        return (AsyncClient) acquire(policy, hosts, port, true, idleTimeout);
+    }
+
+    // Releases a client obtained from the registry. The client is
+    // closed once it has been idle for its idle timeout, right away if
+    // the timeout is not positive.
+    public static synchronized void release(AerospikeClient client) {
+        Entry entry = clients.get(client);
+        if (entry == null) {
+            log.warn("released client is not registered");
+            return;
+        }
+        if (--entry.references <= 0) {
+            entry.references = 0;
+            entry.lastRelease = System.currentTimeMillis();
+            if (entry.idleTimeout <= 0)
+                evict(entry);
+        }
+    }
+
+    // Returns the number of registered clients.
+    public static synchronized int size() {
+        return entries.size();
+    }
+
+    // Closes the clients without references that have been idle for
+    // longer than their idle timeout.
+    static synchronized void evictIdleClients() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : new ArrayList<Entry>(entries.values())) {
+            if (entry.references == 0
+                && now - entry.lastRelease >= entry.idleTimeout)
+                evict(entry);
+        }
+    }
+
+    private static AerospikeClient acquire(ClientPolicy policy,
+                                           String hosts, int port,
+                                           boolean async,
+                                           long idleTimeout) {
+        Host[] seeds = parseHosts(hosts, port);
+        ClientKey key = new ClientKey(seeds, policy, async);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            log.info("connecting to " + key);
+            AerospikeClient client = async
+                ? new AsyncClient((AsyncClientPolicy) policy, seeds)
+                : new AerospikeClient(policy, seeds);
+            entry = new Entry(key, client, idleTimeout);
+            entries.put(key, entry);
+            clients.put(client, entry);
+            startEvictor();
+        }
+        entry.references++;
+        return entry.client;
+    }
+
+    private static void evict(Entry entry) {
+        clients.remove(entry.client);
+        entries.remove(entry.key);
+        log.info("closing client of " + entry.key);
+        entry.client.close();
+
+        if (entries.isEmpty() && evictor != null) {
+            evictor.shutdown();
+            evictor = null;
+        }
+    }
+
+    private static void startEvictor() {
+        if (evictor != null)
+            return;
+        evictor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread =
+                        new Thread(runnable, "aerospike-client-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        evictor.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    evictIdleClients();
+                }
+            }, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    static Host[] parseHosts(String hosts, int port) {
+        List<Host> seeds = new ArrayList<Host>();
+        for (String host : hosts.split(",")) {
+            host = host.trim();
+            if (host.isEmpty())
+                continue;
+            int colon = host.lastIndexOf(':');
+            if (colon < 0)
+                seeds.add(new Host(host, port));
+            else
+                seeds.add(new Host(host.substring(0, colon),
+                                   Integer.parseInt(host.substring(colon + 1))));
+        }
+        if (seeds.isEmpty())
+            throw new IllegalArgumentException("no Aerospike hosts in '"
+                                               + hosts + "'");
+        return seeds.toArray(new Host[seeds.size()]);
+    }
+
+    private static class Entry {
+
+        final ClientKey key;
+        final AerospikeClient client;
+        final long idleTimeout;
+        int references;
+        long lastRelease;
+
+        Entry(ClientKey key, AerospikeClient client, long idleTimeout) {
+            this.key = key;
+            this.client = client;
+            this.idleTimeout = idleTimeout;
+        }
+    }
+
+    static class ClientKey {
+
+        private final List<Host> seeds;
+        private final String user;
+        private final String password;
+        private final boolean async;
+        // the tuned policy settings the client is created with
+        private final List<Integer> settings;
+
+        ClientKey(Host[] seeds, ClientPolicy policy, boolean async) {
+            // the order of the seeds does not change the cluster
+            List<Host> sorted = new ArrayList<Host>(Arrays.asList(seeds));
+            Collections.sort(sorted, new Comparator<Host>() {
+                public int compare(Host h1, Host h2) {
+                    return h1.toString().compareTo(h2.toString());
+                }
+            });
+            this.seeds = sorted;
+            this.user = policy.user == null ? "" : policy.user;
+            this.password = policy.password == null ? "" : policy.password;
+            this.async = async;
+            this.settings = Arrays.asList(
+                policy.timeout, policy.maxThreads, policy.maxSocketIdle,
+                policy.tendInterval,
+                async ? ((AsyncClientPolicy) policy).asyncMaxCommands : 0);
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ClientKey))
+                return false;
+            ClientKey other = (ClientKey) obj;
+            return seeds.equals(other.seeds) && user.equals(other.user)
+                && password.equals(other.password) && async == other.async
+                && settings.equals(other.settings);
+        }
+
+        public int hashCode() {
+            return Arrays.hashCode(new Object[] { seeds, user, password,
+                                                  async, settings });
+        }
+
+        // the password is left out on purpose
+        public String toString() {
+            return seeds + (user.isEmpty() ? "" : " as " + user)
+                + (async ? " (async)" : "");
+        }
+    }
+}
+
+// Local Variables:
+// mode: java
+// c-basic-offset: 4
+// tab-width: 4
+// indent-tabs-mode: nil
+// End:
+// vim: softtabstop=4:shiftwidth=4:expandtab
@@ -18,11 +18,17 @@
 
 package com.aerospike.hadoop.mapreduce;
 
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.hadoop.conf.Configuration;
 
+import com.aerospike.client.policy.ClientPolicy;
+import com.aerospike.client.policy.GenerationPolicy;
+import com.aerospike.client.policy.RecordExistsAction;
+
 public class AerospikeConfigUtil {
     private static final Log log = LogFactory.getLog(AerospikeConfigUtil.class);
 
@@ -42,6 +48,13 @@ public class AerospikeConfigUtil {
     public static final String INPUT_NUMRANGE_BEGIN = "aerospike.input.numrange.begin";
     public static final String INPUT_NUMRANGE_END = "aerospike.input.numrange.end";
     public static final long INVALID_LONG = 762492121482318889L;
+    public static final String INPUT_QUEUE_CAPACITY = "aerospike.input.queue.capacity";
+    public static final int DEFAULT_INPUT_QUEUE_CAPACITY = 16 * 1024;
+    public static final String INPUT_QUEUE_TIMEOUT = "aerospike.input.queue.timeout";
+    public static final long DEFAULT_INPUT_QUEUE_TIMEOUT = 0;
+    public static final String INPUT_SPLITS_PER_NODE = "aerospike.input.splits.per.node";
+    public static final int DEFAULT_INPUT_SPLITS_PER_NODE = 1;
+    public static final String INPUT_FILTERS = "aerospike.input.filters";
 
     // ---------------- OUTPUT ----------------
 
@@ -53,6 +66,16 @@ public class AerospikeConfigUtil {
     public static final String OUTPUT_SETNAME = "aerospike.output.setname";
     public static final String OUTPUT_BINNAME = "aerospike.output.binname";
     public static final String OUTPUT_KEYNAME = "aerospike.output.keyname";
+    public static final String OUTPUT_ASYNC = "aerospike.output.async";
+    public static final boolean DEFAULT_OUTPUT_ASYNC = false;
+    public static final String OUTPUT_MAX_COMMANDS = "aerospike.output.max.commands";
+    public static final int DEFAULT_OUTPUT_MAX_COMMANDS = 200;
+    public static final String OUTPUT_RECORD_EXISTS_ACTION = "aerospike.output.record.exists.action";
+    public static final String DEFAULT_OUTPUT_RECORD_EXISTS_ACTION = "UPDATE";
+    public static final String OUTPUT_GENERATION_POLICY = "aerospike.output.generation.policy";
+    public static final String DEFAULT_OUTPUT_GENERATION_POLICY = "NONE";
+    public static final String OUTPUT_EXPIRATION = "aerospike.output.expiration";
+    public static final int DEFAULT_OUTPUT_EXPIRATION = 0;
 
     // ---------------- INPUT ----------------
 
@@ -117,6 +140,26 @@ public class AerospikeConfigUtil {
             return bins.split(",");
     }
 
+    // record filters run on the nodes by the deep_filters stream UDF,
+    // see AerospikeFilters
+    public static void setInputFilters(Configuration conf,
+                                       List<List<Object>> filters) {
+        log.info("setting " + INPUT_FILTERS + " to " + filters);
+        if (filters == null || filters.isEmpty())
+            conf.unset(INPUT_FILTERS);
+        else
+            conf.set(INPUT_FILTERS, AerospikeFilters.encode(filters));
+    }
+
+    public static List<List<Object>> getInputFilters(Configuration conf) {
+        String filters = conf.get(INPUT_FILTERS);
+        if (filters == null)
+            return null;
+        List<List<Object>> result = AerospikeFilters.decode(filters);
+        log.info("using " + INPUT_FILTERS + " = " + result);
+        return result;
+    }
+
     public static void setInputOperation(Configuration conf, String operation) {
         if (!operation.equals("scan") &&
                 !operation.equals("numrange"))
@@ -175,6 +218,49 @@ public class AerospikeConfigUtil {
         return end;
     }
 
+    public static void setInputQueueCapacity(Configuration conf, int capacity) {
+        log.info("setting " + INPUT_QUEUE_CAPACITY + " to " + capacity);
+        conf.setInt(INPUT_QUEUE_CAPACITY, capacity);
+    }
+
+    public static int getInputQueueCapacity(Configuration conf) {
+        int capacity = conf.getInt(INPUT_QUEUE_CAPACITY,
+                                   DEFAULT_INPUT_QUEUE_CAPACITY);
+        log.info("using " + INPUT_QUEUE_CAPACITY + " = " + capacity);
+        return capacity;
+    }
+
+    // timeout waiting for the next record, in milliseconds; 0 waits
+    // until the scan ends
+    public static void setInputQueueTimeout(Configuration conf, long timeout) {
+        log.info("setting " + INPUT_QUEUE_TIMEOUT + " to " + timeout);
+        conf.setLong(INPUT_QUEUE_TIMEOUT, timeout);
+    }
+
+    public static long getInputQueueTimeout(Configuration conf) {
+        long timeout = conf.getLong(INPUT_QUEUE_TIMEOUT,
+                                    DEFAULT_INPUT_QUEUE_TIMEOUT);
+        log.info("using " + INPUT_QUEUE_TIMEOUT + " = " + timeout);
+        return timeout;
+    }
+
+    // numrange queries are split in this many sub-ranges on every
+    // node; scans are always read with one split per node
+    public static void setInputSplitsPerNode(Configuration conf, int splits) {
+        log.info("setting " + INPUT_SPLITS_PER_NODE + " to " + splits);
+        conf.setInt(INPUT_SPLITS_PER_NODE, splits);
+    }
+
+    public static int getInputSplitsPerNode(Configuration conf) {
+        int splits = conf.getInt(INPUT_SPLITS_PER_NODE,
+                                 DEFAULT_INPUT_SPLITS_PER_NODE);
+        if (splits < 1)
+            throw new UnsupportedOperationException
+                ("input splits per node must be at least 1");
+        log.info("using " + INPUT_SPLITS_PER_NODE + " = " + splits);
+        return splits;
+    }
+
     // ---------------- OUTPUT ----------------
 
     public static void setOutputHost(Configuration conf, String host) {
@@ -246,8 +332,128 @@ public class AerospikeConfigUtil {
         return keyname;
     }
 
+    public static void setOutputAsync(Configuration conf, boolean async) {
+        log.info("setting " + OUTPUT_ASYNC + " to " + async);
+        conf.setBoolean(OUTPUT_ASYNC, async);
+    }
+
+    public static boolean getOutputAsync(Configuration conf) {
+        boolean async = conf.getBoolean(OUTPUT_ASYNC, DEFAULT_OUTPUT_ASYNC);
+        log.info("using " + OUTPUT_ASYNC + " = " + async);
+        return async;
+    }
+
+    // maximum number of asynchronous writes waiting for their reply
+    public static void setOutputMaxCommands(Configuration conf, int max) {
+        log.info("setting " + OUTPUT_MAX_COMMANDS + " to " + max);
+        conf.setInt(OUTPUT_MAX_COMMANDS, max);
+    }
+
+    public static int getOutputMaxCommands(Configuration conf) {
+        int max = conf.getInt(OUTPUT_MAX_COMMANDS,
+                              DEFAULT_OUTPUT_MAX_COMMANDS);
+        if (max < 1)
+            throw new UnsupportedOperationException
+                ("output max commands must be at least 1");
+        log.info("using " + OUTPUT_MAX_COMMANDS + " = " + max);
+        return max;
+    }
+
+    public static void setOutputRecordExistsAction(Configuration conf,
+                                                   RecordExistsAction action) {
+        log.info("setting " + OUTPUT_RECORD_EXISTS_ACTION + " to " + action);
+        conf.set(OUTPUT_RECORD_EXISTS_ACTION, action.name());
+    }
+
+    public static RecordExistsAction
+        getOutputRecordExistsAction(Configuration conf) {
+        String action = conf.get(OUTPUT_RECORD_EXISTS_ACTION,
+                                 DEFAULT_OUTPUT_RECORD_EXISTS_ACTION);
+        log.info("using " + OUTPUT_RECORD_EXISTS_ACTION + " = " + action);
+        return RecordExistsAction.valueOf(action);
+    }
+
+    // records are written with their own generation, the write fails
+    // if the stored generation does not match
+    public static void setOutputGenerationPolicy(Configuration conf,
+                                                 GenerationPolicy policy) {
+        log.info("setting " + OUTPUT_GENERATION_POLICY + " to " + policy);
+        conf.set(OUTPUT_GENERATION_POLICY, policy.name());
+    }
+
+    public static GenerationPolicy getOutputGenerationPolicy(Configuration conf) {
+        String policy = conf.get(OUTPUT_GENERATION_POLICY,
+                                 DEFAULT_OUTPUT_GENERATION_POLICY);
+        log.info("using " + OUTPUT_GENERATION_POLICY + " = " + policy);
+        return GenerationPolicy.valueOf(policy);
+    }
+
+    // time to live of the written records in seconds, 0 for the
+    // namespace default and -1 for never
+    public static void setOutputExpiration(Configuration conf, int expiration) {
+        log.info("setting " + OUTPUT_EXPIRATION + " to " + expiration);
+        conf.setInt(OUTPUT_EXPIRATION, expiration);
+    }
+
+    public static int getOutputExpiration(Configuration conf) {
+        int expiration = conf.getInt(OUTPUT_EXPIRATION,
+                                     DEFAULT_OUTPUT_EXPIRATION);
+        log.info("using " + OUTPUT_EXPIRATION + " = " + expiration);
+        return expiration;
+    }
+
     // ---------------- COMMON ----------------
 
+    public static final String CLIENT_USER = "aerospike.client.user";
+    public static final String CLIENT_PASSWORD = "aerospike.client.password";
+    public static final String CLIENT_TIMEOUT = "aerospike.client.timeout";
+    public static final String CLIENT_MAX_THREADS = "aerospike.client.max.threads";
+    public static final String CLIENT_MAX_SOCKET_IDLE = "aerospike.client.max.socket.idle";
+    public static final String CLIENT_TEND_INTERVAL = "aerospike.client.tend.interval";
+    public static final String CLIENT_IDLE_TIMEOUT = "aerospike.client.idle.timeout";
+    public static final long DEFAULT_CLIENT_IDLE_TIMEOUT = 60000;
+
+    // Fills a client policy from the configuration, keeping the
+    // policy defaults for the missing settings. maxThreads bounds the
+    // connections pooled for every node.
+    public static <P extends ClientPolicy> P
+        getClientPolicy(Configuration conf, P policy) {
+        policy.user = conf.get(CLIENT_USER, policy.user);
+        policy.password = conf.get(CLIENT_PASSWORD, policy.password);
+        policy.timeout = conf.getInt(CLIENT_TIMEOUT, policy.timeout);
+        policy.maxThreads = conf.getInt(CLIENT_MAX_THREADS,
+                                        policy.maxThreads);
+        policy.maxSocketIdle = conf.getInt(CLIENT_MAX_SOCKET_IDLE,
+                                           policy.maxSocketIdle);
+        policy.tendInterval = conf.getInt(CLIENT_TEND_INTERVAL,
+                                          policy.tendInterval);
+        log.info(String.format("using client policy: user=%s timeout=%d "
+                               + "maxThreads=%d maxSocketIdle=%d "
+                               + "tendInterval=%d", policy.user,
+                               policy.timeout, policy.maxThreads,
+                               policy.maxSocketIdle, policy.tendInterval));
+        return policy;
+    }
+
+    public static ClientPolicy getClientPolicy(Configuration conf) {
+        return getClientPolicy(conf, new ClientPolicy());
+    }
+
+    // time in milliseconds an unreferenced client is kept open for the
+    // next task, 0 to close it as soon as it is released
+    public static void setClientIdleTimeout(Configuration conf,
+                                            long idleTimeout) {
+        log.info("setting " + CLIENT_IDLE_TIMEOUT + " to " + idleTimeout);
+        conf.setLong(CLIENT_IDLE_TIMEOUT, idleTimeout);
+    }
+
+    public static long getClientIdleTimeout(Configuration conf) {
+        long idleTimeout = conf.getLong(CLIENT_IDLE_TIMEOUT,
+                                        DEFAULT_CLIENT_IDLE_TIMEOUT);
+        log.info("using " + CLIENT_IDLE_TIMEOUT + " = " + idleTimeout);
+        return idleTimeout;
+    }
+
     public static org.apache.hadoop.mapred.JobConf asJobConf(Configuration cfg) {
         return cfg instanceof org.apache.hadoop.mapred.JobConf
             ? (org.apache.hadoop.mapred.JobConf) cfg
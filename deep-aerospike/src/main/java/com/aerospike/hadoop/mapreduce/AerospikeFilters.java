@@ -0,0 +1,195 @@
+/* 
+ * Copyright 2014 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more
+ * contributor license agreements.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.aerospike.hadoop.mapreduce;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Language;
+import com.aerospike.client.Record;
+import com.aerospike.client.Value;
+import com.aerospike.client.policy.Policy;
+import com.aerospike.client.query.Statement;
+
+/**
+ * Record filters run on the Aerospike nodes by the deep_filters
+ * stream UDF.
+ * <p>
+ * Every filter is a (bin, operation, value) list, operation being one
+ * of EQ, NEQ, GT, GTE, LT, LTE or IN, whose value is a list. Filtered
+ * scans and queries return one record per matching record, holding
+ * its key, generation, ttl and requested bins.
+ */
+public class AerospikeFilters {
+
+    private static final Log log = LogFactory.getLog(AerospikeFilters.class);
+
+    public static final String UDF_PACKAGE = "deep_filters";
+    public static final String UDF_FUNCTION = "filter_records";
+    public static final String UDF_FILE = UDF_PACKAGE + ".lua";
+
+    public static final List<String> OPERATIONS =
+        Arrays.asList("EQ", "NEQ", "GT", "GTE", "LT", "LTE", "IN");
+
+    // 2010-01-01 in seconds since the Unix epoch
+    private static final long CITRUSLEAF_EPOCH = 1262304000L;
+
+    // ttl of the records without expiration
+    private static final long NEVER_EXPIRES = 0xFFFFFFFFL;
+
+    private AerospikeFilters() {
+    }
+
+    // Registers the stream UDF on the cluster, replacing any previous
+    // version of it.
+    public static void register(AerospikeClient client) throws IOException {
+        File file = File.createTempFile(UDF_PACKAGE, ".lua");
+        try {
+            InputStream in =
+                AerospikeFilters.class.getResourceAsStream("/" + UDF_FILE);
+            if (in == null)
+                throw new IOException(UDF_FILE + " not found");
+            OutputStream out = new FileOutputStream(file);
+            try {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) > 0)
+                    out.write(buffer, 0, read);
+            }
+            finally {
+                out.close();
+                in.close();
+            }
+            log.info("registering " + UDF_FILE);
+            client.register(new Policy(), file.getAbsolutePath(), UDF_FILE,
+                            Language.LUA).waitTillComplete();
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    // Makes a statement apply the filters, returning the given bins.
+    public static void apply(Statement stmt, List<List<Object>> filters,
+                             String[] binNames) {
+        List<String> bins = binNames == null
+            ? new ArrayList<String>() : Arrays.asList(binNames);
+        stmt.setAggregateFunction(UDF_PACKAGE, UDF_FUNCTION,
+                                  new Value[] { new Value.ListValue(filters),
+                                                new Value.ListValue(bins) },
+                                  true);
+    }
+
+    // Returns the key of a record returned by a filtered scan or query.
+    @SuppressWarnings("unchecked")
+    public static Key getKey(String namespace, String setName,
+                             Record result) {
+        Map<String, Object> map = getResult(result);
+        Object userKey = map.get("key");
+        return new Key(namespace, (byte[]) map.get("digest"), setName,
+                       userKey == null ? null : Value.get(userKey));
+    }
+
+    // Returns the record of a record returned by a filtered scan or
+    // query.
+    @SuppressWarnings("unchecked")
+    public static Record getRecord(Record result) {
+        Map<String, Object> map = getResult(result);
+        return new Record((Map<String, Object>) map.get("bins"),
+                          ((Number) map.get("gen")).intValue(),
+                          getExpiration(((Number) map.get("ttl")).longValue(),
+                                        System.currentTimeMillis()));
+    }
+
+    // Returns the expiration of a record, as the server void time the
+    // unfiltered scans return, from the seconds it has left to live.
+    // The void time counts seconds since 2010-01-01 and is 0 for the
+    // records that never expire.
+    static int getExpiration(long ttl, long now) {
+        if (ttl <= 0 || ttl >= NEVER_EXPIRES)
+            return 0;
+        return (int) ((now / 1000 - CITRUSLEAF_EPOCH) + ttl);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getResult(Record result) {
+        return (Map<String, Object>) result.bins.get("SUCCESS");
+    }
+
+    // Encodes the filters to be set in a job configuration.
+    public static String encode(List<List<Object>> filters) {
+        for (List<Object> filter : filters) {
+            if (filter.size() != 3 || !OPERATIONS.contains(filter.get(1)))
+                throw new IllegalArgumentException
+                    ("invalid filter " + filter);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(new ArrayList<List<Object>>(filters));
+            out.close();
+            return Base64.encodeBase64String(bytes.toByteArray());
+        }
+        catch (IOException ex) {
+            throw new IllegalArgumentException("unable to encode filters", ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<List<Object>> decode(String filters) {
+        try {
+            ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(Base64.decodeBase64(filters)));
+            try {
+                return (List<List<Object>>) in.readObject();
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException | ClassNotFoundException ex) {
+            throw new IllegalArgumentException("unable to decode filters", ex);
+        }
+    }
+}
+
+// Local Variables:
+// mode: java
+// c-basic-offset: 4
+// tab-width: 4
+// indent-tabs-mode: nil
+// End:
+// vim: softtabstop=4:shiftwidth=4:expandtab
@@ -19,6 +19,8 @@
 package com.aerospike.hadoop.mapreduce;
 
 import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -44,7 +46,6 @@ import com.aerospike.client.AerospikeClient;
 import com.aerospike.client.AerospikeException;
 import com.aerospike.client.cluster.Node;
 import com.aerospike.client.Host;
-import com.aerospike.client.policy.ClientPolicy;
 import com.aerospike.client.policy.ScanPolicy;
 
 /**
@@ -99,16 +100,43 @@ public class AerospikeInputFormat
                                    host, port, namespace, setName));
 
             AerospikeClient client =
-                AerospikeClientSingleton.getInstance(new ClientPolicy(),
-                                                     host, port);
-            Node[] nodes = client.getNodes();
-            int nsplits = nodes.length;
-            if (nsplits == 0) {
+                AerospikeClientRegistry.getClient(
+                    AerospikeConfigUtil.getClientPolicy(job), host, port,
+                    AerospikeConfigUtil.getClientIdleTimeout(job));
+            Node[] nodes;
+            try {
+                nodes = client.getNodes();
+                // the readers filter the records with the stream UDF,
+                // registered once for all of them
+                if (AerospikeConfigUtil.getInputFilters(job) != null)
+                    AerospikeFilters.register(client);
+            }
+            finally {
+                AerospikeClientRegistry.release(client);
+            }
+            if (nodes.length == 0) {
                 throw new IOException("no Aerospike nodes found");
             }
-            log.info(String.format("found %d nodes", nsplits));
-            AerospikeSplit[] splits = new AerospikeSplit[nsplits];
-            for (int ii = 0; ii < nsplits; ii++) {
+            log.info(String.format("found %d nodes", nodes.length));
+
+            // Every node only returns the records of the partitions
+            // it owns, so a node split reads a disjoint part of the
+            // namespace. A numrange query is split further in
+            // sub-ranges; scans cannot be restricted to a subset of
+            // the partitions of a node by this client.
+            long[][] ranges;
+            int splitsPerNode = AerospikeConfigUtil.getInputSplitsPerNode(job);
+            if (oper.equals("numrange")) {
+                ranges = splitNumrange(numrangeBegin, numrangeEnd,
+                                       splitsPerNode);
+            } else {
+                if (splitsPerNode > 1)
+                    log.warn("scans are read with one split per node");
+                ranges = new long[][] { { numrangeBegin, numrangeEnd } };
+            }
+
+            List<AerospikeSplit> splits = new ArrayList<AerospikeSplit>();
+            for (int ii = 0; ii < nodes.length; ii++) {
                 Node node = nodes[ii];
                 String nodeName = node.getName();
 
@@ -126,26 +154,68 @@ public class AerospikeInputFormat
                         }
                     }
                 }
-                splits[ii] = new AerospikeSplit(oper, nodeName,
-                                                nodehost.name, nodehost.port,
-                                                namespace, setName, binNames,
-                                                numrangeBin, numrangeBegin,
-                                                numrangeEnd);
-                log.info("split: " + splits[ii]);
+                for (long[] range : ranges) {
+                    AerospikeSplit split =
+                        new AerospikeSplit(oper, nodeName,
+                                           nodehost.name, nodehost.port,
+                                           namespace, setName, binNames,
+                                           numrangeBin, range[0], range[1]);
+                    splits.add(split);
+                    log.info("split: " + split);
+                }
             }
-            return splits;
+            return splits.toArray(new AerospikeSplit[splits.size()]);
         }
         catch (Exception ex) {
             throw new IOException("exception in getSplits", ex);
         }
     }
 
+    // Splits a numrange query in sub-ranges, unless one of its bounds
+    // is open: the records of a one-sided range, as produced by a
+    // range filter, lie near its finite bound, so an even split over
+    // the whole long range would leave all but one sub-range empty.
+    static long[][] splitNumrange(long begin, long end, int nsplits) {
+        if (nsplits > 1 &&
+                (begin == Long.MIN_VALUE || end == Long.MAX_VALUE)) {
+            log.warn("numrange [" + begin + ", " + end + "] has an open" +
+                     " bound, reading it with one split per node");
+            return new long[][] { { begin, end } };
+        }
+        return splitRange(begin, end, nsplits);
+    }
+
+    // Splits the inclusive range [begin, end] in at most nsplits
+    // consecutive inclusive sub-ranges whose lengths differ by at
+    // most one.
+    static long[][] splitRange(long begin, long end, int nsplits) {
+        if (end < begin || nsplits <= 1)
+            return new long[][] { { begin, end } };
+        // The length of the range may not fit in a long.
+        BigInteger length = BigInteger.valueOf(end)
+            .subtract(BigInteger.valueOf(begin)).add(BigInteger.ONE);
+        if (length.compareTo(BigInteger.valueOf(nsplits)) < 0)
+            nsplits = length.intValue();
+        BigInteger[] sizes =
+            length.divideAndRemainder(BigInteger.valueOf(nsplits));
+        long size = sizes[0].longValue();
+        long remainder = sizes[1].longValue();
+        long[][] ranges = new long[nsplits][];
+        long lower = begin;
+        for (int ii = 0; ii < nsplits; ++ii) {
+            long upper = lower + (size - 1) + (ii < remainder ? 1 : 0);
+            ranges[ii] = new long[] { lower, upper };
+            lower = upper + 1;
+        }
+        return ranges;
+    }
+
     public org.apache.hadoop.mapred.RecordReader<AerospikeKey, AerospikeRecord>
         getRecordReader(org.apache.hadoop.mapred.InputSplit split,
                         JobConf job,
                         Reporter reporter
                         ) throws IOException {
-        return new AerospikeRecordReader((AerospikeSplit) split);
+        return new AerospikeRecordReader((AerospikeSplit) split, job);
     }
 
 }
@@ -19,15 +19,15 @@
 package com.aerospike.hadoop.mapreduce;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
 
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
@@ -42,17 +42,22 @@ import com.aerospike.client.policy.QueryPolicy;
 import com.aerospike.client.policy.ScanPolicy;
 import com.aerospike.client.query.Filter;
 import com.aerospike.client.query.RecordSet;
-import com.aerospike.client.query.ResultSet;
 import com.aerospike.client.query.Statement;
 import com.aerospike.client.Record;
 import com.aerospike.client.ScanCallback;
 
+/**
+ * Reads the records of a split. A producer thread runs the scan or query
+ * of the split and hands the records over through a bounded blocking
+ * queue; the end of the records, or the exception that stopped them, is
+ * signalled with an end marker.
+ */
 public class AerospikeRecordReader
     extends RecordReader<AerospikeKey, AerospikeRecord>
     implements org.apache.hadoop.mapred.RecordReader<AerospikeKey,
                                                          AerospikeRecord> {
 
-    private class KeyRecPair {
+    private static class KeyRecPair {
         public AerospikeKey key;
         public AerospikeRecord rec;
         public KeyRecPair(AerospikeKey key, AerospikeRecord rec) {
@@ -64,15 +69,29 @@ public class AerospikeRecordReader
     private static final Log log =
         LogFactory.getLog(AerospikeRecordReader.class);
 
-    private ASSCanReader scanReader = null;
-    private ASQueryReader queryReader = null;
+    /**
+     * Marks the end of the records of the split.
+     */
+    private static final KeyRecPair END = new KeyRecPair(null, null);
+
+    private Producer producer = null;
+
+    private BlockingQueue<KeyRecPair> queue;
+
+    private long timeout = AerospikeConfigUtil.DEFAULT_INPUT_QUEUE_TIMEOUT;
+
+    private ClientPolicy clientPolicy = new ClientPolicy();
+    private long clientIdleTimeout =
+        AerospikeConfigUtil.DEFAULT_CLIENT_IDLE_TIMEOUT;
 
-    private ArrayBlockingQueue<KeyRecPair> queue = 
-        new ArrayBlockingQueue<KeyRecPair>(16 * 1024);
+    /**
+     * Record filters run on the nodes, null if every record is read.
+     */
+    private List<List<Object>> filters = null;
 
-    private boolean isFinished = false;
-    private boolean isError = false;
-    private boolean isRunning = false;
+    private volatile boolean isFinished = false;
+    private volatile Throwable error = null;
+    private boolean isEnded = false;
     private String numrangeBin;
     private long numrangeBegin;
     private long numrangeEnd;
@@ -85,15 +104,71 @@ public class AerospikeRecordReader
         public void scanCallback(Key key, Record record)
             throws AerospikeException {
             try {
-                queue.put(new KeyRecPair(new AerospikeKey(key),
-                                         new AerospikeRecord(record)));
+                emit(key, record);
             } catch (Exception ex) {
                 throw new ScanTerminated(ex);
             }
         }
     }
 
-    public class ASSCanReader extends java.lang.Thread {
+    /**
+     * Thread reading the records of the split into the queue. The end
+     * marker is always queued when it stops, after recording the
+     * exception that stopped it, if any.
+     */
+    abstract class Producer extends java.lang.Thread {
+
+        Producer() {
+            setDaemon(true);
+        }
+
+        protected abstract void produce() throws Exception;
+
+        protected void emit(Key key, Record record)
+            throws InterruptedException {
+            AerospikeRecordReader.this.emit(key, record);
+        }
+
+        // Emits the records returned by a statement, unwrapping them
+        // from the results of the filter UDF if it is applied.
+        protected void emit(RecordSet rs, String namespace, String setName)
+            throws InterruptedException {
+            try {
+                while (rs.next()) {
+                    if (filters == null)
+                        emit(rs.getKey(), rs.getRecord());
+                    else
+                        emit(AerospikeFilters.getKey(namespace, setName,
+                                                     rs.getRecord()),
+                             AerospikeFilters.getRecord(rs.getRecord()));
+                }
+            }
+            finally {
+                rs.close();
+            }
+        }
+
+        public void run() {
+            try {
+                produce();
+            }
+            catch (Throwable ex) {
+                log.error("exception in " + getName() + ": " + ex);
+                error = ex;
+            }
+            finally {
+                isFinished = true;
+                try {
+                    queue.put(END);
+                }
+                catch (InterruptedException ex) {
+                    // the reader has been closed
+                }
+            }
+        }
+    }
+
+    public class ASSCanReader extends Producer {
 
         String node;
         String host;
@@ -112,36 +187,49 @@ public class AerospikeRecordReader
             this.binNames = binNames;
         }
 
-        public void run() {
+        protected void produce() throws Exception {
+            AerospikeClient client =
+                AerospikeClientRegistry.getClient(clientPolicy, host, port,
+                                                  clientIdleTimeout);
             try {
-                AerospikeClient client =
-                    AerospikeClientSingleton.getInstance(new ClientPolicy(),
-                                                         host, port);
-
                 log.info(String.format("scanNode %s:%d:%s:%s",
                                        host, port, namespace, setName));
+                if (filters != null) {
+                    filteredScan(client);
+                    return;
+                }
                 ScanPolicy scanPolicy = new ScanPolicy();
                 CallBack cb = new CallBack();
                 log.info("scan starting");
-                isRunning = true;
                 if (binNames != null) 
                     client.scanNode(scanPolicy, node, namespace, setName,
                                     cb, binNames);
                 else
                     client.scanNode(scanPolicy, node, namespace, setName,
                                     cb);
-                isFinished = true;
                 log.info("scan finished");
             }
-            catch (Exception ex) {
-                log.error("exception in ASSCanReader.run: " + ex);
-                isError = true;
-                return;
+            finally {
+                AerospikeClientRegistry.release(client);
             }
         }
+
+        // Scans the node with a query without index filter, so that
+        // the records are filtered and projected on the node.
+        private void filteredScan(AerospikeClient client) throws Exception {
+            Statement stmt = new Statement();
+            stmt.setNamespace(namespace);
+            stmt.setSetName(setName);
+            AerospikeFilters.apply(stmt, filters, binNames);
+            log.info("filtered scan starting");
+            emit(client.queryNode(new QueryPolicy(), stmt,
+                                  client.getNode(node)),
+                 namespace, setName);
+            log.info("filtered scan finished");
+        }
     }
 
-    public class ASQueryReader extends java.lang.Thread {
+    public class ASQueryReader extends Producer {
 
         String node;
         String host;
@@ -167,48 +255,41 @@ public class AerospikeRecordReader
             this.numrangeEnd = numrangeEnd;
         }
 
-        public void run() {
+        protected void produce() throws Exception {
+            AerospikeClient client =
+                AerospikeClientRegistry.getClient(clientPolicy, host, port,
+                                                  clientIdleTimeout);
             try {
-                AerospikeClient client =
-                    AerospikeClientSingleton.getInstance(new ClientPolicy(),
-                                                         host, port);
-                log.info(String.format("queryNode %s:%d %s:%s:%s[%d:%d]",
-                                       host, port, namespace, setName,
-                                       numrangeBin, numrangeBegin,
-                                       numrangeEnd));
-                Statement stmt = new Statement();
-                stmt.setNamespace(namespace);
-                stmt.setSetName(setName);
-                stmt.setFilters(Filter.range(numrangeBin,
-                                             numrangeBegin,
-                                             numrangeEnd));
-                if (binNames != null)
-                    stmt.setBinNames(binNames);
-                QueryPolicy queryPolicy = new QueryPolicy();
-                RecordSet rs = client.queryNode(queryPolicy,
-                                                stmt,
-                                                client.getNode(node));
-                isRunning = true;
-                try {
-                    log.info("query starting");
-                    while (rs.next()) {
-                        Key key = rs.getKey();
-                        Record record = rs.getRecord();
-                        queue.put(new KeyRecPair(new AerospikeKey(key),
-                                                 new AerospikeRecord(record)));
-                    }
-                }
-                finally {
-                    rs.close();
-                    isFinished = true;
-                    log.info("query finished");
-                }
+                query(client);
             }
-            catch (Exception ex) {
-                isError = true;
-                return;
+            finally {
+                AerospikeClientRegistry.release(client);
             }
         }
+
+        private void query(AerospikeClient client) throws Exception {
+            log.info(String.format("queryNode %s:%d %s:%s:%s[%d:%d]",
+                                   host, port, namespace, setName,
+                                   numrangeBin, numrangeBegin,
+                                   numrangeEnd));
+            Statement stmt = new Statement();
+            stmt.setNamespace(namespace);
+            stmt.setSetName(setName);
+            stmt.setFilters(Filter.range(numrangeBin,
+                                         numrangeBegin,
+                                         numrangeEnd));
+            if (filters != null)
+                AerospikeFilters.apply(stmt, filters, binNames);
+            else if (binNames != null)
+                stmt.setBinNames(binNames);
+            QueryPolicy queryPolicy = new QueryPolicy();
+            RecordSet rs = client.queryNode(queryPolicy,
+                                            stmt,
+                                            client.getNode(node));
+            log.info("query starting");
+            emit(rs, namespace, setName);
+            log.info("query finished");
+        }
     }
 
     public AerospikeRecordReader()
@@ -222,12 +303,23 @@ public class AerospikeRecordReader
         init(split);
     }
 
+    public AerospikeRecordReader(AerospikeSplit split, Configuration cfg)
+        throws IOException {
+        log.info("SPLIT CONFIG CTOR");
+        init(split, cfg);
+    }
+
     public void init(AerospikeSplit split)
+        throws IOException {
+        init(split, null);
+    }
+
+    public void init(AerospikeSplit split, Configuration cfg)
         throws IOException {
         final String type = split.getType();
         final String node = split.getNode();
-        final String host = split.getHost();
-        final int port = split.getPort();
+        String host = split.getHost();
+        int port = split.getPort();
         final String namespace = split.getNameSpace();
         final String setName = split.getSetName();
         final String[] binNames = split.getBinNames();
@@ -235,20 +327,50 @@ public class AerospikeRecordReader
         this.numrangeBegin = split.getNumRangeBegin();
         this.numrangeEnd = split.getNumRangeEnd();
 
+        configure(cfg);
+
+        // The splits of a cluster share its client, connected to the
+        // configured seed hosts rather than to the node of the split.
+        if (cfg != null && cfg.get(AerospikeConfigUtil.INPUT_HOST) != null) {
+            host = AerospikeConfigUtil.getInputHost(cfg);
+            port = AerospikeConfigUtil.getInputPort(cfg);
+            clientPolicy = AerospikeConfigUtil.getClientPolicy(cfg);
+            clientIdleTimeout = AerospikeConfigUtil.getClientIdleTimeout(cfg);
+        }
+        if (cfg != null)
+            filters = AerospikeConfigUtil.getInputFilters(cfg);
+
         if (type.equals("scan")) {
-            scanReader = new ASSCanReader(node, host, port, namespace,
-                                          setName, binNames);
-            scanReader.start();
+            start(new ASSCanReader(node, host, port, namespace,
+                                   setName, binNames));
         } else if (type.equals("numrange")) {
-            queryReader = new ASQueryReader(node, host, port, namespace,
-                                            setName, binNames, numrangeBin,
-                                            numrangeBegin, numrangeEnd);
-            queryReader.start();
+            start(new ASQueryReader(node, host, port, namespace,
+                                    setName, binNames, numrangeBin,
+                                    numrangeBegin, numrangeEnd));
         }
 
         log.info("node: " + node);
     }
 
+    void configure(Configuration cfg) {
+        int capacity = AerospikeConfigUtil.DEFAULT_INPUT_QUEUE_CAPACITY;
+        if (cfg != null) {
+            capacity = AerospikeConfigUtil.getInputQueueCapacity(cfg);
+            timeout = AerospikeConfigUtil.getInputQueueTimeout(cfg);
+        }
+        queue = new ArrayBlockingQueue<KeyRecPair>(capacity);
+    }
+
+    void start(Producer producer) {
+        this.producer = producer;
+        producer.start();
+    }
+
+    private void emit(Key key, Record record) throws InterruptedException {
+        queue.put(new KeyRecPair(new AerospikeKey(key),
+                                 new AerospikeRecord(record)));
+    }
+
     public AerospikeKey createKey() { return new AerospikeKey(); }
 
     public AerospikeRecord createValue() { return new AerospikeRecord(); }
@@ -284,48 +406,39 @@ public class AerospikeRecordReader
         return oldApiVal;
     }
 
-    public synchronized boolean next(AerospikeKey key, AerospikeRecord value)
+    public boolean next(AerospikeKey key, AerospikeRecord value)
         throws IOException {
 
-        final int waitMSec = 1000;
-        int trials = 5;
+        if (isEnded || producer == null)
+            return false;
 
+        KeyRecPair pair;
         try {
-            KeyRecPair pair;
-            while (true) {
-                if (isError)
-                    return false;
-                
-                if (!isRunning) {
-                    Thread.sleep(100);
-                    continue;
-                }
-            
-                if (!isFinished && queue.size() == 0) {
-                    if (trials == 0) {
-                        log.error("SCAN TIMEOUT");
-                        return false;
-                    }
-                    log.info("queue empty: waiting...");
-                    Thread.sleep(waitMSec);
-                    trials--;
-                } else if (isFinished && queue.size() == 0) {
-                    return false;
-                } else if (queue.size() != 0) {
-                    pair = queue.take();
-                    break;
-                }
+            if (timeout > 0) {
+                pair = queue.poll(timeout, TimeUnit.MILLISECONDS);
+                if (pair == null)
+                    throw new IOException("no record received in " + timeout
+                                          + " ms");
+            } else {
+                pair = queue.take();
             }
-
-            // log.info("key=" + pair.key + ", val=" + pair.rec);
-
-            currentKey = setCurrentKey(currentKey, key, pair.key);
-            currentValue = setCurrentValue(currentValue, value, pair.rec);
         }
-        catch (Exception ex) {
-            log.error("exception in AerospikeRecordReader.next: " + ex);
-            throw new IOException("exception in AerospikeRecordReader.next", ex);
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted in AerospikeRecordReader.next",
+                                  ex);
+        }
+
+        if (pair == END) {
+            isEnded = true;
+            if (error != null)
+                throw new IOException("exception in AerospikeRecordReader.next",
+                                      error);
+            return false;
         }
+
+        currentKey = setCurrentKey(currentKey, key, pair.key);
+        currentValue = setCurrentValue(currentValue, value, pair.rec);
         return true;
     }
 
@@ -336,30 +449,26 @@ public class AerospikeRecordReader
             return 0.0f;
     }
 
-    public synchronized long getPos() throws IOException {
+    public long getPos() throws IOException {
         return 0;
     }
 
-    public synchronized void close() throws IOException {
-        if (scanReader != null) {
+    public void close() throws IOException {
+        if (producer != null) {
             try {
-                scanReader.join();
-            }
-            catch (Exception ex) {
-                throw new IOException("exception in AerospikeRecordReader.close",
-                                      ex);
-            }
-            scanReader = null;
-        }
-        if (queryReader != null) {
-            try {
-                queryReader.join();
+                // stops a scan whose records are no longer read, making
+                // room for its end marker
+                while (producer.isAlive()) {
+                    producer.interrupt();
+                    queue.clear();
+                    producer.join(100);
+                }
             }
             catch (Exception ex) {
                 throw new IOException("exception in AerospikeRecordReader.close",
                                       ex);
             }
-            queryReader = null;
+            producer = null;
         }
     }
 
@@ -369,7 +478,7 @@ public class AerospikeRecordReader
     public void initialize(InputSplit split, TaskAttemptContext context)
         throws IOException {
         log.info("INITIALIZE");
-        init((AerospikeSplit) split);
+        init((AerospikeSplit) split, context.getConfiguration());
     }
 
     @Override
@@ -19,6 +19,8 @@
 package com.aerospike.hadoop.mapreduce;
 
 import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,9 +32,23 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.util.Progressable;
 
 import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.Bin;
+import com.aerospike.client.Key;
+import com.aerospike.client.async.AsyncClient;
+import com.aerospike.client.async.AsyncClientPolicy;
+import com.aerospike.client.async.MaxCommandAction;
+import com.aerospike.client.listener.WriteListener;
 import com.aerospike.client.policy.ClientPolicy;
+import com.aerospike.client.policy.GenerationPolicy;
 import com.aerospike.client.policy.WritePolicy;
 
+/**
+ * Writes records with the synchronous client or, if asynchronous
+ * writes are enabled, with an {@link AsyncClient} keeping up to the
+ * configured number of writes in flight. Failed asynchronous writes
+ * are logged with their key and fail the writer when it is closed.
+ */
 public abstract class AerospikeRecordWriter<KK, VV>
     extends RecordWriter<KK, VV>
     implements org.apache.hadoop.mapred.RecordWriter<KK, VV> {
@@ -45,10 +61,20 @@ public abstract class AerospikeRecordWriter<KK, VV>
     protected final Configuration cfg;
     protected boolean initialized = false;
 
-    private static String namespace;
-    private static String setName;
-    private static AerospikeClient client;
-    private static WritePolicy writePolicy;
+    private String namespace;
+    private String setName;
+    private AerospikeClient client;
+    private WritePolicy writePolicy;
+
+    private AsyncClient asyncClient;
+    private int maxCommands;
+    private Semaphore commands;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private volatile AerospikeException firstFailure;
+    private long startMillis;
 
     private Progressable progressable;
 
@@ -89,10 +115,143 @@ public abstract class AerospikeRecordWriter<KK, VV>
         policy.user = "";
         policy.password = "";
         policy.failIfNotConnected = true;
+        AerospikeConfigUtil.getClientPolicy(cfg, policy);
+
+        long idleTimeout = AerospikeConfigUtil.getClientIdleTimeout(cfg);
+        AerospikeClient client =
+            AerospikeClientRegistry.getClient(policy, host, port, idleTimeout);
+
+        AsyncClient asyncClient = null;
+        int maxCommands = 0;
+        if (AerospikeConfigUtil.getOutputAsync(cfg)) {
+            maxCommands = AerospikeConfigUtil.getOutputMaxCommands(cfg);
+            AsyncClientPolicy asyncPolicy = new AsyncClientPolicy();
+            asyncPolicy.user = "";
+            asyncPolicy.password = "";
+            asyncPolicy.failIfNotConnected = true;
+            AerospikeConfigUtil.getClientPolicy(cfg, asyncPolicy);
+            asyncPolicy.asyncMaxCommands = maxCommands;
+            asyncPolicy.asyncMaxCommandAction = MaxCommandAction.BLOCK;
+            asyncClient =
+                AerospikeClientRegistry.getAsyncClient(asyncPolicy, host, port,
+                                                       idleTimeout);
+        }
+
+        init(client, asyncClient, maxCommands);
+    }
 
-        client = AerospikeClientSingleton.getInstance(policy, host, port);
+    // Sets up the writer with its clients. asyncClient is null if the
+    // writes are synchronous.
+    void init(AerospikeClient client, AsyncClient asyncClient,
+              int maxCommands) {
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.maxCommands = maxCommands;
+        commands = asyncClient == null ? null : new Semaphore(maxCommands);
 
         writePolicy = new WritePolicy();
+        writePolicy.recordExistsAction =
+            AerospikeConfigUtil.getOutputRecordExistsAction(cfg);
+        writePolicy.generationPolicy =
+            AerospikeConfigUtil.getOutputGenerationPolicy(cfg);
+        writePolicy.expiration = AerospikeConfigUtil.getOutputExpiration(cfg);
+
+        written.set(0);
+        failed.set(0);
+        waited.set(0);
+        firstFailure = null;
+        startMillis = System.currentTimeMillis();
+    }
+
+    // Returns the policy writing a record, with the record generation
+    // if the generation is checked.
+    protected WritePolicy getWritePolicy(WritePolicy policy, int generation) {
+        if (policy.generationPolicy == GenerationPolicy.NONE)
+            return policy;
+        WritePolicy recordPolicy = new WritePolicy(policy);
+        recordPolicy.generation = generation;
+        return recordPolicy;
+    }
+
+    // Writes a record. Asynchronous writes wait until there is room
+    // for another command in flight and report their failures when
+    // the writer is closed.
+    protected void put(WritePolicy policy, Key key, Bin... bins)
+        throws IOException {
+        if (asyncClient == null) {
+            try {
+                putSync(policy, key, bins);
+            }
+            catch (AerospikeException ex) {
+                failed.incrementAndGet();
+                throw ex;
+            }
+            written.incrementAndGet();
+            return;
+        }
+
+        if (!commands.tryAcquire()) {
+            waited.incrementAndGet();
+            try {
+                commands.acquire();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted writing " + key, ex);
+            }
+        }
+        try {
+            putAsync(policy, new PutListener(key), key, bins);
+        }
+        catch (AerospikeException ex) {
+            commands.release();
+            onFailure(key, ex);
+        }
+    }
+
+    // Sends a write with the synchronous or the asynchronous client.
+    void putSync(WritePolicy policy, Key key, Bin... bins) {
+        client.put(policy, key, bins);
+    }
+
+    void putAsync(WritePolicy policy, WriteListener listener, Key key,
+                  Bin... bins) {
+        asyncClient.put(policy, listener, key, bins);
+    }
+
+    public AerospikeWriteMetrics getMetrics() {
+        int inFlight = commands == null ? 0
+            : maxCommands - commands.availablePermits();
+        long elapsed = startMillis > 0
+            ? System.currentTimeMillis() - startMillis : 0;
+        return new AerospikeWriteMetrics(written.get(), failed.get(),
+                                         inFlight, waited.get(), elapsed);
+    }
+
+    private void onFailure(Key key, AerospikeException ex) {
+        failed.incrementAndGet();
+        if (firstFailure == null)
+            firstFailure = ex;
+        log.error("unable to write " + key + ": " + ex.getMessage());
+    }
+
+    private class PutListener implements WriteListener {
+
+        private final Key key;
+
+        PutListener(Key key) {
+            this.key = key;
+        }
+
+        public void onSuccess(Key key) {
+            written.incrementAndGet();
+            commands.release();
+        }
+
+        public void onFailure(AerospikeException ex) {
+            AerospikeRecordWriter.this.onFailure(key, ex);
+            commands.release();
+        }
     }
 
     @Override
@@ -106,9 +265,34 @@ public abstract class AerospikeRecordWriter<KK, VV>
         doClose(reporter);
     }
 
-    protected void doClose(Progressable progressable) {
+    protected void doClose(Progressable progressable) throws IOException {
         log.info("doClose");
+        if (!initialized)
+            return;
         initialized = false;
+        try {
+            if (asyncClient != null) {
+                // Wait for the writes in flight.
+                commands.acquireUninterruptibly(maxCommands);
+                commands.release(maxCommands);
+            }
+        }
+        finally {
+            if (asyncClient != null) {
+                AerospikeClientRegistry.release(asyncClient);
+                asyncClient = null;
+            }
+            AerospikeClientRegistry.release(client);
+            client = null;
+        }
+        AerospikeWriteMetrics metrics = getMetrics();
+        log.info("write metrics: " + metrics);
+        if (firstFailure != null)
+            throw new IOException(metrics.getFailed() + " of "
+                                  + (metrics.getWritten()
+                                     + metrics.getFailed())
+                                  + " records could not be written",
+                                  firstFailure);
     }
 }
 
@@ -0,0 +1,89 @@
+/* 
+ * Copyright 2014 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more
+ * contributor license agreements.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.aerospike.hadoop.mapreduce;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the records written by an {@link AerospikeRecordWriter}.
+ */
+public class AerospikeWriteMetrics implements Serializable {
+
+    private static final long serialVersionUID = 5183016612489234127L;
+
+    private final long written;
+    private final long failed;
+    private final int inFlight;
+    private final long waited;
+    private final long elapsedMillis;
+
+    public AerospikeWriteMetrics(long written, long failed, int inFlight,
+                                 long waited, long elapsedMillis) {
+        this.written = written;
+        this.failed = failed;
+        this.inFlight = inFlight;
+        this.waited = waited;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // records acknowledged by the server
+    public long getWritten() {
+        return written;
+    }
+
+    // records whose write failed
+    public long getFailed() {
+        return failed;
+    }
+
+    // asynchronous writes waiting for their reply
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    // writes that had to wait for a command in flight to finish
+    public long getWaited() {
+        return waited;
+    }
+
+    // time since the writer was initialized
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // acknowledged records per second
+    public double getThroughput() {
+        return elapsedMillis > 0 ? written * 1000.0 / elapsedMillis : 0;
+    }
+
+    public String toString() {
+        return String.format("written=%d failed=%d inFlight=%d waited=%d "
+                             + "elapsed=%dms throughput=%.1f/s",
+                             written, failed, inFlight, waited,
+                             elapsedMillis, getThroughput());
+    }
+}
+
+// Local Variables:
+// mode: java
+// c-basic-offset: 4
+// tab-width: 4
+// indent-tabs-mode: nil
+// End:
+// vim: softtabstop=4:shiftwidth=4:expandtab
@@ -15,6 +15,22 @@
  */
 package com.stratio.deep.aerospike.config;
 
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_ASYNC_WRITES;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_CLIENT_IDLE_TIMEOUT;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_CLIENT_TIMEOUT;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_EXPIRATION;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_GENERATION_POLICY;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_INDEXED_BIN;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_LOOKUP_BATCH_SIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_LOOKUP_PARALLELISM;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_MAX_COMMANDS_IN_FLIGHT;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_MAX_SOCKET_IDLE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_MAX_THREADS;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_QUEUE_CAPACITY;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_QUEUE_TIMEOUT;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_RECORD_EXISTS_ACTION;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_SPLITS_PER_NODE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.AEROSPIKE_TEND_INTERVAL;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.FILTER_QUERY;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.NAMESPACE;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.SET;
@@ -22,12 +38,15 @@ import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.SET;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapred.JobConf;
 
+import com.aerospike.client.policy.GenerationPolicy;
+import com.aerospike.client.policy.RecordExistsAction;
 import com.aerospike.hadoop.mapreduce.AerospikeConfigUtil;
 import com.stratio.deep.aerospike.extractor.AerospikeCellExtractor;
 import com.stratio.deep.aerospike.extractor.AerospikeEntityExtractor;
@@ -77,6 +96,103 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
      */
     private Tuple3<String, Object, Object> numrangeFilter;
 
+    /**
+     * Record filters run on the Aerospike nodes, as (bin, operation, value) lists.
+     */
+    private List<List<Object>> recordFilters = new ArrayList<>();
+
+    /**
+     * Deep filters, split into the numrange and the record filters when the configuration is initialized.
+     */
+    private Filter[] filters;
+
+    /**
+     * Whether the operation and the numrange filter come from the Deep filters.
+     */
+    private boolean filterNumrange;
+
+    /**
+     * Number of records buffered between the scan and the reader of each split.
+     */
+    private int queueCapacity = AerospikeConfigUtil.DEFAULT_INPUT_QUEUE_CAPACITY;
+
+    /**
+     * Time the reader waits for the next scanned record, in milliseconds.
+     */
+    private long queueTimeout = AerospikeConfigUtil.DEFAULT_INPUT_QUEUE_TIMEOUT;
+
+    /**
+     * Number of splits read from every node.
+     */
+    private int splitsPerNode = AerospikeConfigUtil.DEFAULT_INPUT_SPLITS_PER_NODE;
+
+    /**
+     * Records are written with the asynchronous client.
+     */
+    private boolean asyncWrites = AerospikeConfigUtil.DEFAULT_OUTPUT_ASYNC;
+
+    /**
+     * Maximum number of asynchronous writes waiting for their reply.
+     */
+    private int maxCommandsInFlight = AerospikeConfigUtil.DEFAULT_OUTPUT_MAX_COMMANDS;
+
+    /**
+     * Action taken when a written record already exists.
+     */
+    private RecordExistsAction recordExistsAction = RecordExistsAction
+            .valueOf(AerospikeConfigUtil.DEFAULT_OUTPUT_RECORD_EXISTS_ACTION);
+
+    /**
+     * Generation check of the written records.
+     */
+    private GenerationPolicy generationPolicy = GenerationPolicy
+            .valueOf(AerospikeConfigUtil.DEFAULT_OUTPUT_GENERATION_POLICY);
+
+    /**
+     * Time to live of the written records, in seconds.
+     */
+    private int expiration = AerospikeConfigUtil.DEFAULT_OUTPUT_EXPIRATION;
+
+    /**
+     * Timeout of the client connections, in milliseconds.
+     */
+    private Integer clientTimeout;
+
+    /**
+     * Maximum number of connections the client pools for every node.
+     */
+    private Integer maxThreads;
+
+    /**
+     * Time a pooled connection can stay idle, in seconds.
+     */
+    private Integer maxSocketIdle;
+
+    /**
+     * Interval between the checks of the cluster nodes, in milliseconds.
+     */
+    private Integer tendInterval;
+
+    /**
+     * Time an unreferenced client is kept open for the next tasks, in milliseconds.
+     */
+    private long clientIdleTimeout = AerospikeConfigUtil.DEFAULT_CLIENT_IDLE_TIMEOUT;
+
+    /**
+     * Number of keys read by every batch get of a lookup.
+     */
+    private int lookupBatchSize = 500;
+
+    /**
+     * Number of batch gets run at a time by every partition of a lookup.
+     */
+    private int lookupParallelism = 4;
+
+    /**
+     * Bin with a secondary index, whose range filters are run as numrange queries.
+     */
+    private String indexedBin;
+
     /**
      * Constructor for Entity class-based configuration.
      *
@@ -200,6 +316,7 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
     @Override
     public AerospikeDeepJobConfig<T> numrangeFilter(Tuple3<String, Object, Object> filter) {
         this.numrangeFilter = filter;
+        this.filterNumrange = false;
         return this;
     }
 
@@ -212,6 +329,303 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
         return this.numrangeFilter;
     }
 
+    /**
+     * Returns the record filters run on the Aerospike nodes, as (bin, operation, value) lists.
+     *
+     * @return
+     */
+    public List<List<Object>> getRecordFilters() {
+        return this.recordFilters;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> queueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> queueTimeout(long queueTimeout) {
+        this.queueTimeout = queueTimeout;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getQueueTimeout() {
+        return this.queueTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> splitsPerNode(int splitsPerNode) {
+        this.splitsPerNode = splitsPerNode;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSplitsPerNode() {
+        return this.splitsPerNode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> asyncWrites(boolean asyncWrites) {
+        this.asyncWrites = asyncWrites;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getAsyncWrites() {
+        return this.asyncWrites;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> maxCommandsInFlight(int maxCommandsInFlight) {
+        this.maxCommandsInFlight = maxCommandsInFlight;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxCommandsInFlight() {
+        return this.maxCommandsInFlight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> recordExistsAction(RecordExistsAction recordExistsAction) {
+        this.recordExistsAction = recordExistsAction;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecordExistsAction getRecordExistsAction() {
+        return this.recordExistsAction;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> generationPolicy(GenerationPolicy generationPolicy) {
+        this.generationPolicy = generationPolicy;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GenerationPolicy getGenerationPolicy() {
+        return this.generationPolicy;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> expiration(int expiration) {
+        this.expiration = expiration;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getExpiration() {
+        return this.expiration;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> clientTimeout(Integer clientTimeout) {
+        this.clientTimeout = clientTimeout;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer getClientTimeout() {
+        return this.clientTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> maxThreads(Integer maxThreads) {
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer getMaxThreads() {
+        return this.maxThreads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> maxSocketIdle(Integer maxSocketIdle) {
+        this.maxSocketIdle = maxSocketIdle;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer getMaxSocketIdle() {
+        return this.maxSocketIdle;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> tendInterval(Integer tendInterval) {
+        this.tendInterval = tendInterval;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer getTendInterval() {
+        return this.tendInterval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> clientIdleTimeout(long clientIdleTimeout) {
+        this.clientIdleTimeout = clientIdleTimeout;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getClientIdleTimeout() {
+        return this.clientIdleTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> lookupBatchSize(int lookupBatchSize) {
+        this.lookupBatchSize = lookupBatchSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLookupBatchSize() {
+        return this.lookupBatchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> lookupParallelism(int lookupParallelism) {
+        this.lookupParallelism = lookupParallelism;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLookupParallelism() {
+        return this.lookupParallelism;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AerospikeDeepJobConfig<T> indexedBin(String indexedBin) {
+        this.indexedBin = indexedBin;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getIndexedBin() {
+        return this.indexedBin;
+    }
+
+    /**
+     * Returns the seed hosts of the cluster, as a comma separated list of host:port.
+     *
+     * @return
+     */
+    private String getSeedHosts() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < host.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(host.get(i)).append(':').append(portList.get(i));
+        }
+        return sb.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -219,10 +633,12 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
     public AerospikeDeepJobConfig<T> initialize() {
         validate();
 
+        splitFilters();
+
         configHadoop = new JobConf();
         configHadoop = new Configuration();
 
-        configHadoop.set(AerospikeConfigUtil.INPUT_HOST, getHost());
+        configHadoop.set(AerospikeConfigUtil.INPUT_HOST, getSeedHosts());
 
         configHadoop.set(AerospikeConfigUtil.INPUT_PORT, Integer.toString(getAerospikePort()));
 
@@ -238,7 +654,21 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
             configHadoop.set(AerospikeConfigUtil.INPUT_NUMRANGE_END, numrangeFilter._3().toString());
         }
 
-        configHadoop.set(AerospikeConfigUtil.OUTPUT_HOST, getHost());
+        if (!recordFilters.isEmpty()) {
+            AerospikeConfigUtil.setInputFilters(configHadoop, recordFilters);
+        }
+
+        if (inputColumns != null && inputColumns.length > 0) {
+            configHadoop.set(AerospikeConfigUtil.INPUT_BINNAMES, getBinNames());
+        }
+
+        configHadoop.setInt(AerospikeConfigUtil.INPUT_QUEUE_CAPACITY, queueCapacity);
+
+        configHadoop.setLong(AerospikeConfigUtil.INPUT_QUEUE_TIMEOUT, queueTimeout);
+
+        configHadoop.setInt(AerospikeConfigUtil.INPUT_SPLITS_PER_NODE, splitsPerNode);
+
+        configHadoop.set(AerospikeConfigUtil.OUTPUT_HOST, getSeedHosts());
 
         configHadoop.set(AerospikeConfigUtil.OUTPUT_PORT, Integer.toString(getAerospikePort()));
 
@@ -246,6 +676,42 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
 
         configHadoop.set(AerospikeConfigUtil.OUTPUT_SETNAME, table);
 
+        configHadoop.setBoolean(AerospikeConfigUtil.OUTPUT_ASYNC, asyncWrites);
+
+        configHadoop.setInt(AerospikeConfigUtil.OUTPUT_MAX_COMMANDS, maxCommandsInFlight);
+
+        configHadoop.set(AerospikeConfigUtil.OUTPUT_RECORD_EXISTS_ACTION, recordExistsAction.name());
+
+        configHadoop.set(AerospikeConfigUtil.OUTPUT_GENERATION_POLICY, generationPolicy.name());
+
+        configHadoop.setInt(AerospikeConfigUtil.OUTPUT_EXPIRATION, expiration);
+
+        if (username != null) {
+            configHadoop.set(AerospikeConfigUtil.CLIENT_USER, username);
+        }
+
+        if (password != null) {
+            configHadoop.set(AerospikeConfigUtil.CLIENT_PASSWORD, password);
+        }
+
+        if (clientTimeout != null) {
+            configHadoop.setInt(AerospikeConfigUtil.CLIENT_TIMEOUT, clientTimeout);
+        }
+
+        if (maxThreads != null) {
+            configHadoop.setInt(AerospikeConfigUtil.CLIENT_MAX_THREADS, maxThreads);
+        }
+
+        if (maxSocketIdle != null) {
+            configHadoop.setInt(AerospikeConfigUtil.CLIENT_MAX_SOCKET_IDLE, maxSocketIdle);
+        }
+
+        if (tendInterval != null) {
+            configHadoop.setInt(AerospikeConfigUtil.CLIENT_TEND_INTERVAL, tendInterval);
+        }
+
+        configHadoop.setLong(AerospikeConfigUtil.CLIENT_IDLE_TIMEOUT, clientIdleTimeout);
+
         if (operation != null) {
             configHadoop.set(AerospikeConfigUtil.INPUT_OPERATION, operation);
         }
@@ -277,6 +743,36 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
         if (host.size() != portList.size()) {
             throw new IllegalArgumentException("Host and ports cardinality must be the same");
         }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queue capacity must be greater than zero");
+        }
+        if (queueTimeout < 0) {
+            throw new IllegalArgumentException("queue timeout cannot be negative");
+        }
+        if (splitsPerNode <= 0) {
+            throw new IllegalArgumentException("splits per node must be greater than zero");
+        }
+        if (maxCommandsInFlight <= 0) {
+            throw new IllegalArgumentException("max commands in flight must be greater than zero");
+        }
+        if (recordExistsAction == null) {
+            throw new IllegalArgumentException("record exists action cannot be null");
+        }
+        if (generationPolicy == null) {
+            throw new IllegalArgumentException("generation policy cannot be null");
+        }
+        if (expiration < -1) {
+            throw new IllegalArgumentException("expiration must be -1, 0 or a number of seconds");
+        }
+        if (maxThreads != null && maxThreads <= 0) {
+            throw new IllegalArgumentException("max threads must be greater than zero");
+        }
+        if (lookupBatchSize <= 0) {
+            throw new IllegalArgumentException("lookup batch size must be greater than zero");
+        }
+        if (lookupParallelism <= 0) {
+            throw new IllegalArgumentException("lookup parallelism must be greater than zero");
+        }
 
     }
 
@@ -305,10 +801,74 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
             set(extractorConfig.getString(SET));
         }
 
+        if (values.get(AEROSPIKE_INDEXED_BIN) != null) {
+            indexedBin(extractorConfig.getString(AEROSPIKE_INDEXED_BIN));
+        }
+
         if (values.get(FILTER_QUERY) != null) {
             filterQuery(extractorConfig.getFilterArray(FILTER_QUERY));
         }
 
+        if (values.get(AEROSPIKE_QUEUE_CAPACITY) != null) {
+            queueCapacity(extractorConfig.getInteger(AEROSPIKE_QUEUE_CAPACITY));
+        }
+
+        if (values.get(AEROSPIKE_QUEUE_TIMEOUT) != null) {
+            queueTimeout(extractorConfig.getLong(AEROSPIKE_QUEUE_TIMEOUT));
+        }
+
+        if (values.get(AEROSPIKE_SPLITS_PER_NODE) != null) {
+            splitsPerNode(extractorConfig.getInteger(AEROSPIKE_SPLITS_PER_NODE));
+        }
+
+        if (values.get(AEROSPIKE_ASYNC_WRITES) != null) {
+            asyncWrites(extractorConfig.getBoolean(AEROSPIKE_ASYNC_WRITES));
+        }
+
+        if (values.get(AEROSPIKE_MAX_COMMANDS_IN_FLIGHT) != null) {
+            maxCommandsInFlight(extractorConfig.getInteger(AEROSPIKE_MAX_COMMANDS_IN_FLIGHT));
+        }
+
+        if (values.get(AEROSPIKE_RECORD_EXISTS_ACTION) != null) {
+            recordExistsAction(RecordExistsAction.valueOf(extractorConfig.getString(AEROSPIKE_RECORD_EXISTS_ACTION)));
+        }
+
+        if (values.get(AEROSPIKE_GENERATION_POLICY) != null) {
+            generationPolicy(GenerationPolicy.valueOf(extractorConfig.getString(AEROSPIKE_GENERATION_POLICY)));
+        }
+
+        if (values.get(AEROSPIKE_EXPIRATION) != null) {
+            expiration(extractorConfig.getInteger(AEROSPIKE_EXPIRATION));
+        }
+
+        if (values.get(AEROSPIKE_CLIENT_TIMEOUT) != null) {
+            clientTimeout(extractorConfig.getInteger(AEROSPIKE_CLIENT_TIMEOUT));
+        }
+
+        if (values.get(AEROSPIKE_MAX_THREADS) != null) {
+            maxThreads(extractorConfig.getInteger(AEROSPIKE_MAX_THREADS));
+        }
+
+        if (values.get(AEROSPIKE_MAX_SOCKET_IDLE) != null) {
+            maxSocketIdle(extractorConfig.getInteger(AEROSPIKE_MAX_SOCKET_IDLE));
+        }
+
+        if (values.get(AEROSPIKE_TEND_INTERVAL) != null) {
+            tendInterval(extractorConfig.getInteger(AEROSPIKE_TEND_INTERVAL));
+        }
+
+        if (values.get(AEROSPIKE_CLIENT_IDLE_TIMEOUT) != null) {
+            clientIdleTimeout(extractorConfig.getLong(AEROSPIKE_CLIENT_IDLE_TIMEOUT));
+        }
+
+        if (values.get(AEROSPIKE_LOOKUP_BATCH_SIZE) != null) {
+            lookupBatchSize(extractorConfig.getInteger(AEROSPIKE_LOOKUP_BATCH_SIZE));
+        }
+
+        if (values.get(AEROSPIKE_LOOKUP_PARALLELISM) != null) {
+            lookupParallelism(extractorConfig.getInteger(AEROSPIKE_LOOKUP_PARALLELISM));
+        }
+
         this.initialize();
 
         return this;
@@ -316,37 +876,105 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
 
     /**
      * Configure Aerospike filters with the received Deep Filter objects.
+     * <p>
+     * The first range filter with a Long value on the {@link #indexedBin(String) indexed bin} is run as a numrange
+     * query on its secondary index. The other equality, inequality, range and IN filters are run on the Aerospike
+     * nodes by a stream UDF, so that only the matching records are sent to Spark. The filters are split when the
+     * configuration is initialized, so the indexed bin may be set before or after them.
      *
      * @param filters
      * @return
      */
     public AerospikeDeepJobConfig<T> filterQuery(Filter[] filters) {
-        if (filters.length > 1) {
-            throw new UnsupportedOperationException("Aerospike currently accepts only one filter operations");
-        } else if (filters.length > 0) {
-            Filter deepFilter = filters[0];
-            if (!isValidAerospikeFilter(deepFilter)) {
-                throw new UnsupportedOperationException(
-                        "Aerospike currently supports only equality and range filter operations");
-            } else if (!deepFilter.getFilterType().equals(FilterType.EQ)) {
+        for (Filter deepFilter : filters) {
+            toRecordFilter(deepFilter);
+        }
+        this.filters = filters;
+        return this;
+    }
+
+    /**
+     * Splits the Deep filters into the numrange filter and the record filters, replacing the ones of a previous
+     * initialization.
+     */
+    private void splitFilters() {
+        if (filterNumrange) {
+            numrangeFilter(null);
+            operation(AerospikeConfigUtil.DEFAULT_INPUT_OPERATION);
+        }
+        recordFilters = new ArrayList<>();
+        if (filters == null) {
+            return;
+        }
+        for (Filter deepFilter : filters) {
+            if (numrangeFilter == null && deepFilter.getField().equals(indexedBin) && isRangeFilter(deepFilter)
+                    && deepFilter.getValue() instanceof Long) {
                 operation("numrange");
                 setAerospikeNumrange(deepFilter);
+                filterNumrange = true;
             } else {
-                operation("scan");
-                setAerospikeEqualsFilter(deepFilter);
+                recordFilters.add(toRecordFilter(deepFilter));
             }
         }
-        return this;
     }
 
-    private boolean isValidAerospikeFilter(Filter filter) {
-        return filter.getFilterType().equals(FilterType.EQ) ||
-                filter.getFilterType().equals(FilterType.LT) ||
+    private boolean isRangeFilter(Filter filter) {
+        return filter.getFilterType().equals(FilterType.LT) ||
                 filter.getFilterType().equals(FilterType.GT) ||
                 filter.getFilterType().equals(FilterType.GTE) ||
                 filter.getFilterType().equals(FilterType.LTE);
     }
 
+    private List<Object> toRecordFilter(Filter filter) {
+        Object value = filter.getValue();
+        switch (filter.getFilterType()) {
+        case EQ:
+        case NEQ:
+        case LT:
+        case GT:
+        case GTE:
+        case LTE:
+            break;
+        case IN:
+            if (value instanceof Object[]) {
+                value = new ArrayList<>(Arrays.asList((Object[]) value));
+            } else if (value instanceof Collection) {
+                value = new ArrayList<>((Collection<?>) value);
+            } else {
+                throw new UnsupportedOperationException("IN filters only accept arrays or collections as parameters");
+            }
+            break;
+        default:
+            throw new UnsupportedOperationException(
+                    "Aerospike currently supports only equality, inequality, range and IN filter operations");
+        }
+        List<Object> recordFilter = new ArrayList<>();
+        recordFilter.add(filter.getField());
+        recordFilter.add(filter.getFilterType().name());
+        recordFilter.add(value);
+        return recordFilter;
+    }
+
+    /**
+     * Returns the comma separated bins read from Aerospike: the input columns and the bin of the equality filter.
+     *
+     * @return
+     */
+    private String getBinNames() {
+        List<String> bins = new ArrayList<>(Arrays.asList(inputColumns));
+        if (equalsFilter != null && !bins.contains(equalsFilter._1())) {
+            bins.add(equalsFilter._1());
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String bin : bins) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(bin);
+        }
+        return sb.toString();
+    }
+
     private void setAerospikeNumrange(Filter filter) {
         String field = filter.getField();
         if (!filter.getValue().getClass().equals(Long.class)) {
@@ -366,9 +994,4 @@ public class AerospikeDeepJobConfig<T> extends HadoopConfig<T, AerospikeDeepJobC
         }
     }
 
-    private void setAerospikeEqualsFilter(Filter filter) {
-
-        equalsFilter(new Tuple2<String, Object>(filter.getField(), filter.getValue()));
-    }
-
 }
@@ -65,7 +65,7 @@ public class AerospikeDeepOutputFormat extends AerospikeOutputFormat<Object, Aer
                 Bin aerospikeBin = new Bin(bin.getKey(), bin.getValue());
                 bins.add(aerospikeBin);
             }
-            client.put(writePolicy, k, bins.toArray(new Bin[bins.size()]));
+            put(getWritePolicy(writePolicy, record.generation), k, bins.toArray(new Bin[bins.size()]));
         }
     }
 
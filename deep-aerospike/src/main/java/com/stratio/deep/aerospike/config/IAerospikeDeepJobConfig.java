@@ -20,6 +20,9 @@ import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 
+import com.aerospike.client.policy.GenerationPolicy;
+import com.aerospike.client.policy.RecordExistsAction;
+
 import scala.Tuple2;
 import scala.Tuple3;
 
@@ -133,4 +136,245 @@ public interface IAerospikeDeepJobConfig<T> {
      */
     Tuple3<String, Object, Object> getNumrangeFilter();
 
+    /**
+     * Sets the number of records buffered between the scan and the reader of each split.
+     *
+     * @param queueCapacity Number of buffered records.
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> queueCapacity(int queueCapacity);
+
+    /**
+     * Returns the number of records buffered between the scan and the reader of each split.
+     *
+     * @return
+     */
+    int getQueueCapacity();
+
+    /**
+     * Sets the time the reader waits for the next scanned record before failing, 0 to wait until the scan ends.
+     *
+     * @param queueTimeout Timeout, in milliseconds.
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> queueTimeout(long queueTimeout);
+
+    /**
+     * Returns the time the reader waits for the next scanned record.
+     *
+     * @return
+     */
+    long getQueueTimeout();
+
+    /**
+     * Sets the number of splits read from every node. Numrange queries are split in as many sub-ranges of the same
+     * length, scans are read with one split per node.
+     *
+     * @param splitsPerNode Number of splits per node.
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> splitsPerNode(int splitsPerNode);
+
+    /**
+     * Returns the number of splits read from every node.
+     *
+     * @return
+     */
+    int getSplitsPerNode();
+
+    /**
+     * Sets if records are written with the asynchronous client.
+     *
+     * @param asyncWrites
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> asyncWrites(boolean asyncWrites);
+
+    /**
+     * Returns if records are written with the asynchronous client.
+     *
+     * @return
+     */
+    boolean getAsyncWrites();
+
+    /**
+     * Sets the maximum number of asynchronous writes waiting for their reply.
+     *
+     * @param maxCommandsInFlight
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> maxCommandsInFlight(int maxCommandsInFlight);
+
+    /**
+     * Returns the maximum number of asynchronous writes waiting for their reply.
+     *
+     * @return
+     */
+    int getMaxCommandsInFlight();
+
+    /**
+     * Sets the action taken when a written record already exists.
+     *
+     * @param recordExistsAction
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> recordExistsAction(RecordExistsAction recordExistsAction);
+
+    /**
+     * Returns the action taken when a written record already exists.
+     *
+     * @return
+     */
+    RecordExistsAction getRecordExistsAction();
+
+    /**
+     * Sets how the generation of every written record is checked against the stored one.
+     *
+     * @param generationPolicy
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> generationPolicy(GenerationPolicy generationPolicy);
+
+    /**
+     * Returns how the generation of every written record is checked against the stored one.
+     *
+     * @return
+     */
+    GenerationPolicy getGenerationPolicy();
+
+    /**
+     * Sets the time to live of the written records, 0 for the namespace default and -1 for never.
+     *
+     * @param expiration Time to live, in seconds.
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> expiration(int expiration);
+
+    /**
+     * Returns the time to live of the written records.
+     *
+     * @return
+     */
+    int getExpiration();
+
+    /**
+     * Sets the timeout of the client connections, the client default if null.
+     *
+     * @param clientTimeout Timeout, in milliseconds.
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> clientTimeout(Integer clientTimeout);
+
+    /**
+     * Returns the timeout of the client connections.
+     *
+     * @return
+     */
+    Integer getClientTimeout();
+
+    /**
+     * Sets the maximum number of connections the client pools for every node, the client default if null.
+     *
+     * @param maxThreads
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> maxThreads(Integer maxThreads);
+
+    /**
+     * Returns the maximum number of connections the client pools for every node.
+     *
+     * @return
+     */
+    Integer getMaxThreads();
+
+    /**
+     * Sets the time a pooled connection can stay idle before it is closed, the client default if null.
+     *
+     * @param maxSocketIdle Idle time, in seconds.
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> maxSocketIdle(Integer maxSocketIdle);
+
+    /**
+     * Returns the time a pooled connection can stay idle before it is closed.
+     *
+     * @return
+     */
+    Integer getMaxSocketIdle();
+
+    /**
+     * Sets the interval between the checks of the cluster nodes, the client default if null.
+     *
+     * @param tendInterval Interval, in milliseconds.
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> tendInterval(Integer tendInterval);
+
+    /**
+     * Returns the interval between the checks of the cluster nodes.
+     *
+     * @return
+     */
+    Integer getTendInterval();
+
+    /**
+     * Sets the time a client no longer used by any task is kept open for the next ones, 0 to close it right away.
+     *
+     * @param clientIdleTimeout Idle time, in milliseconds.
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> clientIdleTimeout(long clientIdleTimeout);
+
+    /**
+     * Returns the time a client no longer used by any task is kept open for the next ones.
+     *
+     * @return
+     */
+    long getClientIdleTimeout();
+
+    /**
+     * Sets the number of keys read by every batch get of a lookup.
+     *
+     * @param lookupBatchSize
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> lookupBatchSize(int lookupBatchSize);
+
+    /**
+     * Returns the number of keys read by every batch get of a lookup.
+     *
+     * @return
+     */
+    int getLookupBatchSize();
+
+    /**
+     * Sets the number of batch gets run at a time by every partition of a lookup.
+     *
+     * @param lookupParallelism
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> lookupParallelism(int lookupParallelism);
+
+    /**
+     * Returns the number of batch gets run at a time by every partition of a lookup.
+     *
+     * @return
+     */
+    int getLookupParallelism();
+
+    /**
+     * Sets the bin with a secondary index, whose range filters are run as numrange queries.
+     *
+     * @param indexedBin
+     * @return
+     */
+    IAerospikeDeepJobConfig<T> indexedBin(String indexedBin);
+
+    /**
+     * Returns the bin with a secondary index, null if range filters are run on the nodes.
+     *
+     * @return
+     */
+    String getIndexedBin();
+
 }
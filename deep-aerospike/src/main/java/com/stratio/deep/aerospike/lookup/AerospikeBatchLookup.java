@@ -0,0 +1,305 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.aerospike.lookup;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.rdd.RDD;
+import org.apache.spark.util.TaskCompletionListener;
+
+import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.Value;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.hadoop.mapreduce.AerospikeClientRegistry;
+import com.aerospike.hadoop.mapreduce.AerospikeConfigUtil;
+import com.aerospike.hadoop.mapreduce.AerospikeKey;
+import com.aerospike.hadoop.mapreduce.AerospikeRecord;
+import com.stratio.deep.aerospike.config.AerospikeDeepJobConfig;
+import com.stratio.deep.aerospike.utils.UtilAerospike;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.commons.exception.DeepGenericException;
+
+import scala.Tuple2;
+import scala.Tuple3;
+
+/**
+ * Joins an RDD with the Aerospike records of its keys, without scanning the namespace.
+ * <p>
+ * Keys are (namespace, set, user key) tuples; a null namespace or set stands for the configured one. Every partition
+ * reads the records of its keys with batch gets of {@link AerospikeDeepJobConfig#getLookupBatchSize()} keys, running
+ * up to {@link AerospikeDeepJobConfig#getLookupParallelism()} batches at a time. Only the configured input columns are
+ * read. Records are converted to Cells or entities like the records read by the extractor, and keys without a record
+ * are left out of the result.
+ *
+ * @param <T> the type of the joined records, Cells or an entity class
+ */
+public class AerospikeBatchLookup<T> implements Serializable {
+
+    private static final long serialVersionUID = -6253290846716932805L;
+
+    /**
+     * Aerospike configuration of the looked up set.
+     */
+    private final AerospikeDeepJobConfig<T> config;
+
+    /**
+     * Instantiates a new batch lookup.
+     *
+     * @param config the Aerospike configuration of the looked up set
+     */
+    public AerospikeBatchLookup(AerospikeDeepJobConfig<T> config) {
+        this.config = config;
+    }
+
+    /**
+     * Reads the records of the given keys.
+     *
+     * @param keys the rdd of (namespace, set, user key) tuples
+     * @return the rdd of every key with a record and its record
+     */
+    public RDD<Tuple2<Tuple3<String, String, Object>, T>> lookup(RDD<Tuple3<String, String, Object>> keys) {
+        return join(keys.toJavaRDD().mapToPair(
+                new PairFunction<Tuple3<String, String, Object>, Tuple3<String, String, Object>,
+                        Tuple3<String, String, Object>>() {
+                    @Override
+                    public Tuple2<Tuple3<String, String, Object>, Tuple3<String, String, Object>> call(
+                            Tuple3<String, String, Object> key) {
+                        return new Tuple2<>(key, key);
+                    }
+                }).rdd());
+    }
+
+    /**
+     * Joins every value of the given rdd with the record of its key.
+     *
+     * @param rdd the rdd of (namespace, set, user key) tuples and their values
+     * @param <V> the type of the values
+     * @return the rdd of every value whose key has a record and its record
+     */
+    public <V> RDD<Tuple2<V, T>> join(RDD<Tuple2<Tuple3<String, String, Object>, V>> rdd) {
+        return rdd.toJavaRDD().mapPartitions(new LookupFunction<V>()).rdd();
+    }
+
+    /**
+     * Converts a tuple to the key of its record.
+     *
+     * @param key the (namespace, set, user key) tuple
+     * @return the Aerospike key
+     */
+    Key toKey(Tuple3<String, String, Object> key) {
+        String namespace = key._1() != null ? key._1() : config.getNamespace();
+        String set = key._2() != null ? key._2() : config.getSet();
+        return new Key(namespace, set, Value.get(key._3()));
+    }
+
+    /**
+     * Converts a record read by a lookup.
+     *
+     * @param key    the key of the record
+     * @param record the record
+     * @return the record as Cells or as an entity
+     */
+    @SuppressWarnings("unchecked")
+    T toResult(Key key, Record record) {
+        AerospikeRecord aerospikeRecord = new AerospikeRecord(record);
+        try {
+            if (Cells.class.isAssignableFrom(config.getEntityClass())) {
+                return (T) UtilAerospike.getCellFromAerospikeRecord(new AerospikeKey(key), aerospikeRecord, config);
+            }
+            return (T) UtilAerospike.getObjectFromAerospikeRecord(config.getEntityClass(), aerospikeRecord, config);
+        } catch (ReflectiveOperationException e) {
+            throw new DeepGenericException("Unable to convert the record of " + key, e);
+        }
+    }
+
+    /**
+     * Reads the records of the keys of a partition.
+     */
+    private class LookupFunction<V> implements FlatMapFunction<Iterator<Tuple2<Tuple3<String, String, Object>, V>>,
+            Tuple2<V, T>> {
+
+        private static final long serialVersionUID = 3175820374036195452L;
+
+        @Override
+        public Iterable<Tuple2<V, T>> call(final Iterator<Tuple2<Tuple3<String, String, Object>, V>> values) {
+            return new Iterable<Tuple2<V, T>>() {
+                @Override
+                public Iterator<Tuple2<V, T>> iterator() {
+                    return new LookupIterator<>(values);
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates over the records of a partition, reading them with a window of concurrent batch gets.
+     */
+    private class LookupIterator<V> implements Iterator<Tuple2<V, T>> {
+
+        private final Iterator<Tuple2<Tuple3<String, String, Object>, V>> values;
+
+        private final int batchSize = config.getLookupBatchSize();
+
+        private final int parallelism = config.getLookupParallelism();
+
+        private final String[] binNames = config.getInputColumns();
+
+        private final BatchPolicy policy = new BatchPolicy();
+
+        private AerospikeClient client;
+
+        private ExecutorService executor;
+
+        private Iterator<Tuple2<V, T>> window = Collections.emptyIterator();
+
+        LookupIterator(Iterator<Tuple2<Tuple3<String, String, Object>, V>> values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!window.hasNext()) {
+                if (!values.hasNext()) {
+                    close();
+                    return false;
+                }
+                window = readWindow();
+            }
+            return true;
+        }
+
+        @Override
+        public Tuple2<V, T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return window.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Reads up to parallelism batches of keys concurrently.
+         *
+         * @return the joined records of the batches, in key order
+         */
+        private Iterator<Tuple2<V, T>> readWindow() {
+            open();
+            List<List<V>> batchValues = new ArrayList<>();
+            List<Future<Record[]>> batchRecords = new ArrayList<>();
+            List<Key[]> batchKeys = new ArrayList<>();
+            while (batchRecords.size() < parallelism && values.hasNext()) {
+                List<V> batch = new ArrayList<>(batchSize);
+                final List<Key> keys = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && values.hasNext()) {
+                    Tuple2<Tuple3<String, String, Object>, V> value = values.next();
+                    keys.add(toKey(value._1()));
+                    batch.add(value._2());
+                }
+                final Key[] keyArray = keys.toArray(new Key[keys.size()]);
+                batchValues.add(batch);
+                batchKeys.add(keyArray);
+                batchRecords.add(executor.submit(new Callable<Record[]>() {
+                    @Override
+                    public Record[] call() {
+                        return binNames != null ? client.get(policy, keyArray, binNames) : client.get(policy,
+                                keyArray);
+                    }
+                }));
+            }
+
+            List<Tuple2<V, T>> result = new ArrayList<>();
+            try {
+                for (int i = 0; i < batchRecords.size(); i++) {
+                    Record[] records = batchRecords.get(i).get();
+                    for (int j = 0; j < records.length; j++) {
+                        if (records[j] != null) {
+                            result.add(new Tuple2<>(batchValues.get(i).get(j), toResult(batchKeys.get(i)[j],
+                                    records[j])));
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new DeepGenericException("Interrupted while reading Aerospike records", e);
+            } catch (ExecutionException e) {
+                close();
+                throw new DeepGenericException("Unable to read Aerospike records", e.getCause());
+            }
+            return result.iterator();
+        }
+
+        /**
+         * Gets the client and the threads of the lookup, and releases them when the task completes in case the
+         * records are not read to the end.
+         */
+        private void open() {
+            if (client != null) {
+                return;
+            }
+            Configuration conf = config.getHadoopConfiguration();
+            client = AerospikeClientRegistry.getClient(AerospikeConfigUtil.getClientPolicy(conf),
+                    AerospikeConfigUtil.getInputHost(conf), AerospikeConfigUtil.getInputPort(conf),
+                    AerospikeConfigUtil.getClientIdleTimeout(conf));
+            executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "aerospike-lookup");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            TaskContext context = TaskContext.get();
+            if (context != null) {
+                context.addTaskCompletionListener(new TaskCompletionListener() {
+                    @Override
+                    public void onTaskCompletion(TaskContext context) {
+                        close();
+                    }
+                });
+            }
+        }
+
+        private synchronized void close() {
+            if (client != null) {
+                executor.shutdownNow();
+                AerospikeClientRegistry.release(client);
+                client = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+-- Copyright 2014, Stratio.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+-- Stream filter of the Stratio Deep Aerospike extractor. Records are
+-- filtered on the nodes and only the requested bins are returned,
+-- together with the key, generation and ttl of the record.
+
+local function matches(value, op, expected)
+  if op == "IN" then
+    for candidate in list.iterator(expected) do
+      if value == candidate then
+        return true
+      end
+    end
+    return false
+  elseif op == "EQ" then
+    return value == expected
+  elseif op == "NEQ" then
+    return value ~= expected
+  end
+  -- ordering is only defined between values of the same type
+  if value == nil or type(value) ~= type(expected) then
+    return false
+  end
+  if op == "GT" then
+    return value > expected
+  elseif op == "GTE" then
+    return value >= expected
+  elseif op == "LT" then
+    return value < expected
+  elseif op == "LTE" then
+    return value <= expected
+  end
+  error("unsupported filter operation " .. tostring(op))
+end
+
+-- filters is a list of {bin, operation, value} lists, all of them must
+-- match; bins is the list of returned bins, all of them if empty.
+function filter_records(stream, filters, bins)
+
+  local function accept(rec)
+    for i = 1, list.size(filters) do
+      local filter = filters[i]
+      if not matches(rec[filter[1]], filter[2], filter[3]) then
+        return false
+      end
+    end
+    return true
+  end
+
+  local function project(rec)
+    local values = map()
+    if list.size(bins) > 0 then
+      for name in list.iterator(bins) do
+        values[name] = rec[name]
+      end
+    else
+      for _, name in ipairs(record.bin_names(rec)) do
+        values[name] = rec[name]
+      end
+    end
+    return map { digest = record.digest(rec), key = record.key(rec),
+                 gen = record.gen(rec), ttl = record.ttl(rec),
+                 bins = values }
+  end
+
+  return stream : filter(accept) : map(project)
+end
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aerospike.hadoop.mapreduce;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+
+import org.testng.annotations.Test;
+
+import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.Host;
+import com.aerospike.client.async.AsyncClientPolicy;
+import com.aerospike.client.policy.ClientPolicy;
+import com.aerospike.hadoop.mapreduce.AerospikeClientRegistry.ClientKey;
+
+/**
+ * Tests how clients are keyed and evicted by the registry.
+ */
+@Test(groups = { "UnitTests" })
+public class AerospikeClientRegistryTest {
+
+    @Test
+    public void testParseHosts() {
+        Host[] hosts = AerospikeClientRegistry.parseHosts("host1, host2:3100,", 3000);
+
+        assertEquals(hosts, new Host[] { new Host("host1", 3000), new Host("host2", 3100) });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParseNoHosts() {
+        AerospikeClientRegistry.parseHosts(" , ", 3000);
+    }
+
+    @Test
+    public void testSeedOrderIsIgnored() {
+        ClientKey key1 = new ClientKey(AerospikeClientRegistry.parseHosts("host1,host2", 3000),
+                createPolicy(null, null), false);
+        ClientKey key2 = new ClientKey(AerospikeClientRegistry.parseHosts("host2:3000,host1", 3000),
+                createPolicy("", ""), false);
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+    }
+
+    @Test
+    public void testClustersAndCredentialsAreKeyedApart() {
+        Host[] seeds = AerospikeClientRegistry.parseHosts("host1", 3000);
+        ClientKey key = new ClientKey(seeds, createPolicy("user", "password"), false);
+
+        assertNotEquals(key, new ClientKey(AerospikeClientRegistry.parseHosts("host1", 3100),
+                createPolicy("user", "password"), false));
+        assertNotEquals(key, new ClientKey(seeds, createPolicy("other", "password"), false));
+        assertNotEquals(key, new ClientKey(seeds, createPolicy("user", "other"), false));
+        assertNotEquals(key, new ClientKey(seeds, createAsyncPolicy(), true));
+    }
+
+    @Test
+    public void testPolicySettingsAreKeyedApart() {
+        Host[] seeds = AerospikeClientRegistry.parseHosts("host1", 3000);
+        ClientKey key = new ClientKey(seeds, createPolicy("user", "password"), false);
+
+        ClientPolicy timeout = createPolicy("user", "password");
+        timeout.timeout = 5000;
+        ClientPolicy maxThreads = createPolicy("user", "password");
+        maxThreads.maxThreads = 64;
+        ClientPolicy maxSocketIdle = createPolicy("user", "password");
+        maxSocketIdle.maxSocketIdle = 5;
+        ClientPolicy tendInterval = createPolicy("user", "password");
+        tendInterval.tendInterval = 100;
+
+        assertEquals(key, new ClientKey(seeds, createPolicy("user", "password"), false));
+        assertNotEquals(key, new ClientKey(seeds, timeout, false));
+        assertNotEquals(key, new ClientKey(seeds, maxThreads, false));
+        assertNotEquals(key, new ClientKey(seeds, maxSocketIdle, false));
+        assertNotEquals(key, new ClientKey(seeds, tendInterval, false));
+
+        AsyncClientPolicy maxCommands = createAsyncPolicy();
+        maxCommands.asyncMaxCommands = 50;
+        assertNotEquals(new ClientKey(seeds, createAsyncPolicy(), true), new ClientKey(seeds, maxCommands, true));
+    }
+
+    @Test
+    public void testIdleClientIsEvicted() throws InterruptedException {
+        int size = AerospikeClientRegistry.size();
+        // a client that does not need to reach its cluster
+        ClientPolicy policy = createPolicy("idle", "");
+        policy.failIfNotConnected = false;
+
+        AerospikeClient client = AerospikeClientRegistry.getClient(policy, "localhost:3999", 3000, 10);
+        assertSame(AerospikeClientRegistry.getClient(policy, "localhost:3999", 3000, 10), client);
+        AerospikeClientRegistry.release(client);
+        AerospikeClientRegistry.release(client);
+        assertEquals(AerospikeClientRegistry.size(), size + 1);
+
+        Thread.sleep(20);
+        AerospikeClientRegistry.evictIdleClients();
+        assertEquals(AerospikeClientRegistry.size(), size);
+    }
+
+    @Test
+    public void testClientIsClosedWhenReleasedWithoutIdleTimeout() {
+        int size = AerospikeClientRegistry.size();
+        ClientPolicy policy = createPolicy("no-idle", "");
+        policy.failIfNotConnected = false;
+
+        AerospikeClient client = AerospikeClientRegistry.getClient(policy, "localhost:3999", 3000, 0);
+        assertEquals(AerospikeClientRegistry.size(), size + 1);
+
+        AerospikeClientRegistry.release(client);
+        assertEquals(AerospikeClientRegistry.size(), size);
+    }
+
+    private static ClientPolicy createPolicy(String user, String password) {
+        ClientPolicy policy = new ClientPolicy();
+        policy.user = user;
+        policy.password = password;
+        return policy;
+    }
+
+    private static AsyncClientPolicy createAsyncPolicy() {
+        AsyncClientPolicy policy = new AsyncClientPolicy();
+        policy.user = "user";
+        policy.password = "password";
+        return policy;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aerospike.hadoop.mapreduce;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.testng.annotations.Test;
+
+import com.aerospike.client.policy.GenerationPolicy;
+import com.aerospike.client.policy.RecordExistsAction;
+
+/**
+ * Tests the output settings of the configuration.
+ */
+@Test(groups = { "UnitTests" })
+public class AerospikeConfigUtilTest {
+
+    @Test
+    public void testOutputDefaults() {
+        Configuration conf = new Configuration();
+
+        assertFalse(AerospikeConfigUtil.getOutputAsync(conf));
+        assertEquals(AerospikeConfigUtil.getOutputMaxCommands(conf), AerospikeConfigUtil.DEFAULT_OUTPUT_MAX_COMMANDS);
+        assertEquals(AerospikeConfigUtil.getOutputRecordExistsAction(conf), RecordExistsAction.UPDATE);
+        assertEquals(AerospikeConfigUtil.getOutputGenerationPolicy(conf), GenerationPolicy.NONE);
+        assertEquals(AerospikeConfigUtil.getOutputExpiration(conf), 0);
+    }
+
+    @Test
+    public void testOutputSettings() {
+        Configuration conf = new Configuration();
+        AerospikeConfigUtil.setOutputAsync(conf, true);
+        AerospikeConfigUtil.setOutputMaxCommands(conf, 50);
+        AerospikeConfigUtil.setOutputRecordExistsAction(conf, RecordExistsAction.REPLACE);
+        AerospikeConfigUtil.setOutputGenerationPolicy(conf, GenerationPolicy.EXPECT_GEN_EQUAL);
+        AerospikeConfigUtil.setOutputExpiration(conf, -1);
+
+        assertTrue(AerospikeConfigUtil.getOutputAsync(conf));
+        assertEquals(AerospikeConfigUtil.getOutputMaxCommands(conf), 50);
+        assertEquals(AerospikeConfigUtil.getOutputRecordExistsAction(conf), RecordExistsAction.REPLACE);
+        assertEquals(AerospikeConfigUtil.getOutputGenerationPolicy(conf), GenerationPolicy.EXPECT_GEN_EQUAL);
+        assertEquals(AerospikeConfigUtil.getOutputExpiration(conf), -1);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testOutputMaxCommandsMustBePositive() {
+        Configuration conf = new Configuration();
+        AerospikeConfigUtil.setOutputMaxCommands(conf, 0);
+
+        AerospikeConfigUtil.getOutputMaxCommands(conf);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aerospike.hadoop.mapreduce;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+
+/**
+ * Tests the filters run by the deep_filters stream UDF.
+ */
+@Test(groups = { "UnitTests" })
+public class AerospikeFiltersTest {
+
+    @Test
+    public void testFiltersAreEncoded() {
+        List<List<Object>> filters = Arrays.asList(
+            Arrays.<Object>asList("number", "GT", 4L),
+            Arrays.<Object>asList("id", "IN", Arrays.asList("a", "b")));
+
+        assertEquals(AerospikeFilters.decode(AerospikeFilters.encode(filters)),
+                     filters);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownOperationIsRejected() {
+        AerospikeFilters.encode(Arrays.asList(
+            Arrays.<Object>asList("number", "MATCH", 4L)));
+    }
+
+    @Test
+    public void testResultsAreUnwrapped() {
+        Key key = new Key("test", "set", "key");
+        Map<String, Object> bins = new HashMap<>();
+        bins.put("id", 1L);
+        Map<String, Object> result = new HashMap<>();
+        result.put("digest", key.digest);
+        result.put("key", "key");
+        result.put("gen", 2L);
+        result.put("ttl", 100L);
+        result.put("bins", bins);
+        Map<String, Object> success = new HashMap<>();
+        success.put("SUCCESS", result);
+        Record record = new Record(success, 0, 0);
+
+        Key resultKey = AerospikeFilters.getKey("test", "set", record);
+        assertEquals(resultKey, key);
+        assertEquals(resultKey.userKey.toString(), "key");
+        Record resultRecord = AerospikeFilters.getRecord(record);
+        assertEquals(resultRecord.bins, bins);
+        assertEquals(resultRecord.generation, 2);
+        assertTrue(Math.abs(resultRecord.expiration
+                - AerospikeFilters.getExpiration(100, System.currentTimeMillis())) <= 1);
+    }
+
+    @Test
+    public void testExpirationIsTheVoidTime() {
+        // 2015-01-01T00:00:00Z is 157766400 seconds after 2010-01-01
+        long now = 1420070400000L;
+
+        assertEquals(AerospikeFilters.getExpiration(3600, now), 157766400 + 3600);
+        assertEquals(AerospikeFilters.getExpiration(0, now), 0);
+        assertEquals(AerospikeFilters.getExpiration(-1, now), 0);
+        assertEquals(AerospikeFilters.getExpiration(0xFFFFFFFFL, now), 0);
+    }
+}
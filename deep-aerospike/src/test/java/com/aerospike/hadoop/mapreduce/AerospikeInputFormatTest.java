@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aerospike.hadoop.mapreduce;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the split of numrange queries in sub-ranges.
+ */
+@Test(groups = { "UnitTests" })
+public class AerospikeInputFormatTest {
+
+    @Test
+    public void testSplitRange() {
+        long[][] ranges = AerospikeInputFormat.splitRange(0, 9, 3);
+
+        assertEquals(ranges.length, 3);
+        assertEquals(ranges[0], new long[] { 0, 3 });
+        assertEquals(ranges[1], new long[] { 4, 6 });
+        assertEquals(ranges[2], new long[] { 7, 9 });
+    }
+
+    @Test
+    public void testSplitRangeShorterThanSplits() {
+        long[][] ranges = AerospikeInputFormat.splitRange(5, 6, 4);
+
+        assertEquals(ranges.length, 2);
+        assertEquals(ranges[0], new long[] { 5, 5 });
+        assertEquals(ranges[1], new long[] { 6, 6 });
+    }
+
+    @Test
+    public void testSplitWholeRange() {
+        long[][] ranges = AerospikeInputFormat.splitRange(Long.MIN_VALUE, Long.MAX_VALUE, 2);
+
+        assertEquals(ranges.length, 2);
+        assertEquals(ranges[0], new long[] { Long.MIN_VALUE, -1 });
+        assertEquals(ranges[1], new long[] { 0, Long.MAX_VALUE });
+    }
+
+    @Test
+    public void testSingleSplit() {
+        long[][] ranges = AerospikeInputFormat.splitRange(1, 100, 1);
+
+        assertEquals(ranges.length, 1);
+        assertEquals(ranges[0], new long[] { 1, 100 });
+    }
+
+    @Test
+    public void testOpenNumrangeIsNotSplit() {
+        long[][] ranges = AerospikeInputFormat.splitNumrange(10, Long.MAX_VALUE, 4);
+
+        assertEquals(ranges.length, 1);
+        assertEquals(ranges[0], new long[] { 10, Long.MAX_VALUE });
+
+        ranges = AerospikeInputFormat.splitNumrange(Long.MIN_VALUE, 10, 4);
+
+        assertEquals(ranges.length, 1);
+        assertEquals(ranges[0], new long[] { Long.MIN_VALUE, 10 });
+    }
+
+    @Test
+    public void testBoundedNumrangeIsSplit() {
+        long[][] ranges = AerospikeInputFormat.splitNumrange(0, 9, 3);
+
+        assertEquals(ranges.length, 3);
+        assertEquals(ranges[2], new long[] { 7, 9 });
+    }
+}
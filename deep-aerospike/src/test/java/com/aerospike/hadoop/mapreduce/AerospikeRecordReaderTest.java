@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aerospike.hadoop.mapreduce;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.testng.annotations.Test;
+
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+
+/**
+ * Tests the hand-off between the scan thread and the reader.
+ */
+@Test(groups = { "UnitTests" })
+public class AerospikeRecordReaderTest {
+
+    @Test
+    public void testRecordsAreReadUntilEndOfScan() throws Exception {
+        AerospikeRecordReader reader = createReader(2, 0);
+        reader.start(reader.new Producer() {
+            @Override
+            protected void produce() throws Exception {
+                for (int i = 0; i < 10; i++) {
+                    emit(new Key("test", "set", "key" + i), createRecord(i));
+                }
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(reader.nextKeyValue());
+            assertEquals(reader.getCurrentKey().userKey.toString(), "key" + i);
+            assertEquals(reader.getCurrentValue().bins.get("id"), i);
+        }
+        assertFalse(reader.nextKeyValue());
+        assertFalse(reader.nextKeyValue());
+        reader.close();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testScanExceptionIsPropagated() throws Exception {
+        AerospikeRecordReader reader = createReader(10, 0);
+        reader.start(reader.new Producer() {
+            @Override
+            protected void produce() throws Exception {
+                emit(new Key("test", "set", "key"), createRecord(0));
+                throw new IllegalStateException("node failure");
+            }
+        });
+
+        assertTrue(reader.nextKeyValue());
+        reader.nextKeyValue();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTimeoutWaitingForRecords() throws Exception {
+        AerospikeRecordReader reader = createReader(10, 50);
+        reader.start(reader.new Producer() {
+            @Override
+            protected void produce() throws Exception {
+                Thread.sleep(10000);
+            }
+        });
+
+        try {
+            reader.nextKeyValue();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testCloseStopsBlockedScan() throws Exception {
+        AerospikeRecordReader reader = createReader(1, 0);
+        reader.start(reader.new Producer() {
+            @Override
+            protected void produce() throws Exception {
+                for (int i = 0; i < 100; i++) {
+                    emit(new Key("test", "set", "key" + i), createRecord(i));
+                }
+            }
+        });
+
+        assertTrue(reader.nextKeyValue());
+        reader.close();
+    }
+
+    private AerospikeRecordReader createReader(int capacity, long timeout) throws IOException {
+        Configuration cfg = new Configuration();
+        AerospikeConfigUtil.setInputQueueCapacity(cfg, capacity);
+        AerospikeConfigUtil.setInputQueueTimeout(cfg, timeout);
+        AerospikeRecordReader reader = new AerospikeRecordReader();
+        reader.configure(cfg);
+        return reader;
+    }
+
+    private Record createRecord(int id) {
+        Map<String, Object> bins = new HashMap<>();
+        bins.put("id", id);
+        return new Record(bins, 1, 0);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aerospike.hadoop.mapreduce;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hadoop.conf.Configuration;
+import org.testng.annotations.Test;
+
+import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.Bin;
+import com.aerospike.client.Key;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.async.AsyncClient;
+import com.aerospike.client.listener.WriteListener;
+import com.aerospike.client.policy.GenerationPolicy;
+import com.aerospike.client.policy.WritePolicy;
+
+/**
+ * Tests the write policies and the asynchronous writes of the record writer.
+ */
+@Test(groups = { "UnitTests" })
+public class AerospikeRecordWriterTest {
+
+    @Test
+    public void testGenerationIsOnlySetWhenChecked() {
+        TestWriter writer = new TestWriter(new Configuration());
+
+        WritePolicy policy = new WritePolicy();
+        policy.generationPolicy = GenerationPolicy.NONE;
+        assertSame(writer.getWritePolicy(policy, 7), policy);
+
+        policy.generationPolicy = GenerationPolicy.EXPECT_GEN_EQUAL;
+        policy.expiration = 60;
+        WritePolicy recordPolicy = writer.getWritePolicy(policy, 7);
+        assertNotSame(recordPolicy, policy);
+        assertEquals(recordPolicy.generation, 7);
+        assertEquals(recordPolicy.generationPolicy, GenerationPolicy.EXPECT_GEN_EQUAL);
+        assertEquals(recordPolicy.expiration, 60);
+        assertEquals(policy.generation, 0);
+    }
+
+    @Test
+    public void testCloseWaitsForTheWritesInFlight() throws Exception {
+        final List<WriteListener> listeners = Collections.synchronizedList(new ArrayList<WriteListener>());
+        final TestWriter writer = new TestWriter(new Configuration()) {
+            @Override
+            void putAsync(WritePolicy policy, WriteListener listener, Key key, Bin... bins) {
+                listeners.add(listener);
+            }
+        };
+        init(writer, 2);
+        writer.write("key1", 1);
+        writer.write("key2", 2);
+        assertEquals(writer.getMetrics().getInFlight(), 2);
+
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread closer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    writer.doClose(null);
+                } catch (IOException e) {
+                    failure.set(e);
+                }
+            }
+        };
+        closer.start();
+        closer.join(200);
+        assertTrue(closer.isAlive(), "close should wait for the writes in flight");
+
+        for (WriteListener listener : listeners) {
+            listener.onSuccess(null);
+        }
+        closer.join(5000);
+        assertFalse(closer.isAlive());
+        assertNull(failure.get());
+
+        AerospikeWriteMetrics metrics = writer.getMetrics();
+        assertEquals(metrics.getWritten(), 2);
+        assertEquals(metrics.getFailed(), 0);
+        assertEquals(metrics.getInFlight(), 0);
+    }
+
+    @Test
+    public void testCloseFailsAfterAFailedWrite() throws Exception {
+        TestWriter writer = new TestWriter(new Configuration()) {
+            @Override
+            void putAsync(WritePolicy policy, WriteListener listener, Key key, Bin... bins) {
+                if (key.userKey.toString().equals("key2")) {
+                    listener.onFailure(new AerospikeException(ResultCode.GENERATION_ERROR));
+                } else {
+                    listener.onSuccess(key);
+                }
+            }
+        };
+        init(writer, 2);
+        writer.write("key1", 1);
+        writer.write("key2", 2);
+        writer.write("key3", 3);
+
+        try {
+            writer.doClose(null);
+            fail("close should report the failed write");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "1 of 3 records could not be written");
+            assertTrue(e.getCause() instanceof AerospikeException);
+        }
+        assertEquals(writer.getMetrics().getWritten(), 2);
+        assertEquals(writer.getMetrics().getFailed(), 1);
+    }
+
+    @Test
+    public void testSynchronousWriteFailureIsThrown() throws Exception {
+        TestWriter writer = new TestWriter(new Configuration()) {
+            @Override
+            void putSync(WritePolicy policy, Key key, Bin... bins) {
+                throw new AerospikeException(ResultCode.TIMEOUT);
+            }
+        };
+        writer.initialized = true;
+        writer.init(mock(AerospikeClient.class), null, 0);
+
+        try {
+            writer.write("key1", 1);
+            fail("the write failure should be thrown");
+        } catch (AerospikeException e) {
+            assertEquals(e.getResultCode(), ResultCode.TIMEOUT);
+        }
+        assertEquals(writer.getMetrics().getFailed(), 1);
+        assertEquals(writer.getMetrics().getWritten(), 0);
+    }
+
+    private static void init(TestWriter writer, int maxCommands) {
+        writer.initialized = true;
+        writer.init(mock(AerospikeClient.class), mock(AsyncClient.class), maxCommands);
+    }
+
+    private static class TestWriter extends AerospikeRecordWriter<String, Integer> {
+
+        TestWriter(Configuration cfg) {
+            super(cfg, null);
+        }
+
+        @Override
+        public void writeAerospike(String key, Integer value, AerospikeClient client, WritePolicy writePolicy,
+                String namespace, String setName) throws IOException {
+            put(writePolicy, new Key("test", "set", key), new Bin("value", value));
+        }
+    }
+}
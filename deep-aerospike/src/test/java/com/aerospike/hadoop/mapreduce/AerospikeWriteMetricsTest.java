@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aerospike.hadoop.mapreduce;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the throughput of the write metrics.
+ */
+@Test(groups = { "UnitTests" })
+public class AerospikeWriteMetricsTest {
+
+    @Test
+    public void testThroughput() {
+        AerospikeWriteMetrics metrics = new AerospikeWriteMetrics(3000, 5, 2, 10, 1500);
+
+        assertEquals(metrics.getThroughput(), 2000.0, 0.001);
+        assertTrue(metrics.toString().startsWith("written=3000 failed=5 inFlight=2 waited=10 elapsed=1500ms"));
+    }
+
+    @Test
+    public void testThroughputWithoutElapsedTime() {
+        assertEquals(new AerospikeWriteMetrics(10, 0, 0, 0, 0).getThroughput(), 0.0, 0.001);
+    }
+}
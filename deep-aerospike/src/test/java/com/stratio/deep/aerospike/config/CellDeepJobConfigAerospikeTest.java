@@ -17,10 +17,19 @@ package com.stratio.deep.aerospike.config;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
 import org.testng.annotations.Test;
 
+import com.aerospike.hadoop.mapreduce.AerospikeConfigUtil;
 import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.commons.filter.Filter;
+import com.stratio.deep.commons.filter.FilterType;
 
 /**
  * Created by mariomgal on 01/11/14.
@@ -38,4 +47,90 @@ public class CellDeepJobConfigAerospikeTest {
         assertEquals(cellDeepJobConfigAerospike.getEntityClass(), Cells.class, "Entity class should be Cells");
 
     }
+
+    @Test
+    public void filterQueryTest() {
+        AerospikeDeepJobConfig<Cells> config = createConfig().indexedBin("number").filterQuery(new Filter[] {
+                new Filter("number", FilterType.GTE, 4L),
+                new Filter("number", FilterType.LT, 10L),
+                new Filter("message", FilterType.NEQ, "test"),
+                new Filter("id", FilterType.IN, new String[] { "a", "b" }) }).initialize();
+
+        assertEquals(config.getOperation(), "numrange");
+        assertEquals(config.getNumrangeFilter()._2(), 4L);
+        assertEquals(config.getNumrangeFilter()._3(), Long.MAX_VALUE);
+
+        List<List<Object>> filters = AerospikeConfigUtil.getInputFilters(config.getHadoopConfiguration());
+        assertEquals(filters, Arrays.asList(
+                Arrays.<Object>asList("number", "LT", 10L),
+                Arrays.<Object>asList("message", "NEQ", "test"),
+                Arrays.<Object>asList("id", "IN", Arrays.asList("a", "b"))));
+    }
+
+    @Test
+    public void nonIndexedRangeFilterQueryTest() {
+        AerospikeDeepJobConfig<Cells> config = createConfig().indexedBin("id").filterQuery(new Filter[] {
+                new Filter("number", FilterType.GT, 5L) }).initialize();
+
+        assertEquals(config.getOperation(), "scan");
+        assertNull(config.getNumrangeFilter());
+        assertEquals(config.getRecordFilters(), Arrays.asList(Arrays.<Object>asList("number", "GT", 5L)));
+    }
+
+    @Test
+    public void equalityFilterQueryTest() {
+        AerospikeDeepJobConfig<Cells> config = createConfig().filterQuery(new Filter[] {
+                new Filter("number", FilterType.EQ, 3L) }).initialize();
+
+        assertEquals(config.getOperation(), "scan");
+        assertNull(config.getEqualsFilter());
+        assertEquals(AerospikeConfigUtil.getInputFilters(config.getHadoopConfiguration()),
+                Arrays.asList(Arrays.<Object>asList("number", "EQ", 3L)));
+    }
+
+    @Test
+    public void indexedBinAfterFilterQueryTest() {
+        AerospikeDeepJobConfig<Cells> config = createConfig().filterQuery(new Filter[] {
+                new Filter("number", FilterType.LTE, 8L) }).indexedBin("number").initialize();
+
+        assertEquals(config.getOperation(), "numrange");
+        assertEquals(config.getNumrangeFilter()._2(), Long.MIN_VALUE);
+        assertEquals(config.getNumrangeFilter()._3(), 8L);
+        assertTrue(config.getRecordFilters().isEmpty());
+    }
+
+    @Test
+    public void repeatedFilterQueryTest() {
+        AerospikeDeepJobConfig<Cells> config = createConfig().indexedBin("number").filterQuery(new Filter[] {
+                new Filter("number", FilterType.GT, 5L) }).initialize();
+        assertEquals(config.getOperation(), "numrange");
+
+        config.filterQuery(new Filter[] { new Filter("message", FilterType.EQ, "test") }).initialize();
+
+        assertEquals(config.getOperation(), "scan");
+        assertNull(config.getNumrangeFilter());
+        assertEquals(config.getRecordFilters(), Arrays.asList(Arrays.<Object>asList("message", "EQ", "test")));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void unsupportedFilterQueryTest() {
+        createConfig().filterQuery(new Filter[] { new Filter("message", FilterType.MATCH, "test") });
+    }
+
+    @Test
+    public void binProjectionTest() {
+        AerospikeDeepJobConfig<Cells> config = createConfig();
+        Configuration hadoopConfig = config.initialize().getHadoopConfiguration();
+        assertNull(AerospikeConfigUtil.getInputBinNames(hadoopConfig));
+        assertNull(AerospikeConfigUtil.getInputFilters(hadoopConfig));
+
+        config.inputColumns(new String[] { "id", "message" });
+        hadoopConfig = config.initialize().getHadoopConfiguration();
+        assertEquals(AerospikeConfigUtil.getInputBinNames(hadoopConfig), new String[] { "id", "message" });
+    }
+
+    private AerospikeDeepJobConfig<Cells> createConfig() {
+        return new AerospikeDeepJobConfig<>(Cells.class).host("localhost").port(3000).namespace("test")
+                .set("input");
+    }
 }
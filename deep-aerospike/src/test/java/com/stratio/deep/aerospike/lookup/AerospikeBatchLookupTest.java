@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.aerospike.lookup;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.stratio.deep.aerospike.config.AerospikeDeepJobConfig;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.core.entity.MessageTestEntity;
+
+import scala.Tuple3;
+
+@Test(groups = { "UnitTests" })
+public class AerospikeBatchLookupTest {
+
+    @Test
+    public void testKeysDefaultToTheConfiguredSet() {
+        AerospikeDeepJobConfig<Cells> config = new AerospikeDeepJobConfig<>(Cells.class);
+        config.catalog("test").set("books");
+        AerospikeBatchLookup<Cells> lookup = new AerospikeBatchLookup<>(config);
+
+        Key key = lookup.toKey(new Tuple3<String, String, Object>(null, null, "1"));
+        Key otherKey = lookup.toKey(new Tuple3<String, String, Object>("other", "authors", 1L));
+
+        assertEquals(key, new Key("test", "books", "1"));
+        assertEquals(otherKey, new Key("other", "authors", 1L));
+    }
+
+    @Test
+    public void testRecordsAreConvertedToCells() {
+        AerospikeDeepJobConfig<Cells> config = new AerospikeDeepJobConfig<>(Cells.class);
+        config.catalog("test").set("books").inputColumns(new String[] { "id", "message" });
+        AerospikeBatchLookup<Cells> lookup = new AerospikeBatchLookup<>(config);
+
+        Cells cells = lookup.toResult(new Key("test", "books", "1"), createRecord());
+
+        assertEquals(cells.size(), 2);
+        assertEquals(cells.getCellByName("id").getValue(), "1");
+        assertEquals(cells.getCellByName("message").getValue(), "message");
+    }
+
+    @Test
+    public void testRecordsAreConvertedToEntities() {
+        AerospikeDeepJobConfig<MessageTestEntity> config = new AerospikeDeepJobConfig<>(MessageTestEntity.class);
+        config.catalog("test").set("books");
+        AerospikeBatchLookup<MessageTestEntity> lookup = new AerospikeBatchLookup<>(config);
+
+        MessageTestEntity entity = lookup.toResult(new Key("test", "books", "1"), createRecord());
+
+        assertEquals(entity.getId(), "1");
+        assertEquals(entity.getMessage(), "message");
+    }
+
+    private Record createRecord() {
+        Map<String, Object> bins = new HashMap<>();
+        bins.put("id", "1");
+        bins.put("message", "message");
+        bins.put("number", 3L);
+        return new Record(bins, 1, 0);
+    }
+}
@@ -309,21 +309,24 @@ public class Cell implements Serializable {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (!(o instanceof Cell)) {
             return false;
         }
 
         Cell cell = (Cell) o;
+        Object value = getCellValue();
+        Object otherValue = cell.getCellValue();
 
-        return this.cellName.equals(cell.cellName) && this.cellValue.equals(cell.cellValue);
+        return this.cellName.equals(cell.cellName) && (value != null ? value.equals(otherValue) : otherValue == null);
     }
 
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
+        Object value = getCellValue();
         result = prime * result + ((cellName == null) ? 0 : cellName.hashCode());
-        result = prime * result + ((cellValue == null) ? 0 : cellValue.hashCode());
+        result = prime * result + ((value == null) ? 0 : value.hashCode());
         return result;
     }
 
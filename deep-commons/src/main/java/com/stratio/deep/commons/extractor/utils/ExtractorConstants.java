@@ -102,6 +102,115 @@ public interface ExtractorConstants {
      * Jdbc number of partitions
      */
     String JDBC_NUM_PARTITIONS = "numPartitions";
+    /**
+     * Jdbc number of rows written between commits
+     */
+    String JDBC_COMMIT_INTERVAL = "commitInterval";
+    /**
+     * Jdbc number of rows fetched from the database in each round trip
+     */
+    String JDBC_FETCH_SIZE = "fetchSize";
+    /**
+     * Jdbc SQL predicates, one per partition
+     */
+    String JDBC_PARTITION_PREDICATES = "partitionPredicates";
+    /**
+     * Jdbc partitions holding the same number of rows
+     */
+    String JDBC_BALANCED_PARTITIONS = "balancedPartitions";
+    /**
+     * Jdbc query validating pooled connections
+     */
+    String JDBC_VALIDATION_QUERY = "validationQuery";
+    /**
+     * Jdbc prepared statements cached per pooled connection
+     */
+    String JDBC_STATEMENT_CACHE_SIZE = "statementCacheSize";
+    /**
+     * Jdbc rows written with the bulk load command of the database
+     */
+    String JDBC_BULK_LOAD = "bulkLoad";
+    /**
+     * Jdbc key columns of the upserted rows
+     */
+    String JDBC_UPSERT_KEYS = "upsertKeys";
+    /**
+     * Jdbc Neo4J property whose value ranges are read by each partition
+     */
+    String JDBC_PARTITION_PROPERTY = "partitionProperty";
+    /**
+     * Jdbc Neo4J query counting the rows to be split in pages
+     */
+    String JDBC_COUNT_QUERY = "countQuery";
+    /**
+     * Jdbc Neo4J statement writing each row of an UNWIND batch
+     */
+    String JDBC_MERGE_QUERY = "mergeQuery";
+    /**
+     * Aerospike records buffered between the scan and the reader
+     */
+    String AEROSPIKE_QUEUE_CAPACITY = "queueCapacity";
+    /**
+     * Aerospike time to wait for the next scanned record
+     */
+    String AEROSPIKE_QUEUE_TIMEOUT = "queueTimeout";
+    /**
+     * Aerospike number of splits read from every node
+     */
+    String AEROSPIKE_SPLITS_PER_NODE = "splitsPerNode";
+    /**
+     * Aerospike records are written with the asynchronous client
+     */
+    String AEROSPIKE_ASYNC_WRITES = "asyncWrites";
+    /**
+     * Aerospike maximum number of asynchronous writes in flight
+     */
+    String AEROSPIKE_MAX_COMMANDS_IN_FLIGHT = "maxCommandsInFlight";
+    /**
+     * Aerospike action taken when a written record already exists
+     */
+    String AEROSPIKE_RECORD_EXISTS_ACTION = "recordExistsAction";
+    /**
+     * Aerospike generation check of the written records
+     */
+    String AEROSPIKE_GENERATION_POLICY = "generationPolicy";
+    /**
+     * Aerospike time to live of the written records, in seconds
+     */
+    String AEROSPIKE_EXPIRATION = "expiration";
+    /**
+     * Aerospike client timeout, in milliseconds
+     */
+    String AEROSPIKE_CLIENT_TIMEOUT = "clientTimeout";
+    /**
+     * Aerospike maximum number of connections pooled for every node
+     */
+    String AEROSPIKE_MAX_THREADS = "maxThreads";
+    /**
+     * Aerospike time a pooled connection can stay idle, in seconds
+     */
+    String AEROSPIKE_MAX_SOCKET_IDLE = "maxSocketIdle";
+    /**
+     * Aerospike interval between cluster tends, in milliseconds
+     */
+    String AEROSPIKE_TEND_INTERVAL = "tendInterval";
+    /**
+     * Aerospike time an unreferenced client is kept open for the next task, in milliseconds
+     */
+    String AEROSPIKE_CLIENT_IDLE_TIMEOUT = "clientIdleTimeout";
+    /**
+     * Aerospike number of keys read by every batch get of a lookup
+     */
+    String AEROSPIKE_LOOKUP_BATCH_SIZE = "lookupBatchSize";
+    /**
+     * Aerospike number of batch gets run at a time by every partition of a lookup
+     */
+    String AEROSPIKE_LOOKUP_PARALLELISM = "lookupParallelism";
+
+    /**
+     * Aerospike bin with a secondary index, whose range filters are run as numrange queries
+     */
+    String AEROSPIKE_INDEXED_BIN = "indexedBin";
     /**
      * The PORT 2.
      */
@@ -119,6 +228,41 @@ public interface ExtractorConstants {
      * The RES_PORT.for ElasticSearch
      */
     String ES_REST_PORTS = "Restful Ports";;
+
+    /**
+     * The transport port for ElasticSearch native clients.
+     */
+    String ES_TRANSPORT_PORT = "transportPort";
+
+    /**
+     * The ElasticSearch cluster name.
+     */
+    String ES_CLUSTER_NAME = "clusterName";
+
+    /**
+     * The maximum size in bytes of an ElasticSearch bulk request.
+     */
+    String ES_BULK_SIZE = "bulkSize";
+
+    /**
+     * The maximum number of ElasticSearch bulk requests in flight.
+     */
+    String ES_CONCURRENT_BULKS = "concurrentBulks";
+
+    /**
+     * The field holding the ElasticSearch routing value of each document.
+     */
+    String ES_ROUTING_FIELD = "routingField";
+
+    /**
+     * The field holding the ElasticSearch parent id of each document.
+     */
+    String ES_PARENT_FIELD = "parentField";
+
+    /**
+     * The input columns read from ElasticSearch doc values instead of the source.
+     */
+    String ES_DOC_VALUE_FIELDS = "docValueFields";
     /**
      * The COLUMN _ fAMILY.
      */
@@ -199,6 +343,61 @@ public interface ExtractorConstants {
      */
     String SPLIT_SIZE = "splitSize";
 
+    /**
+     * The SPLIT _ KEY.
+     */
+    String SPLIT_KEY = "splitKey";
+
+    /**
+     * The POOL _ SIZE.
+     */
+    String POOL_SIZE = "poolSize";
+
+    /**
+     * The MIN _ POOL _ SIZE.
+     */
+    String MIN_POOL_SIZE = "minPoolSize";
+
+    /**
+     * The IDLE _ TIMEOUT.
+     */
+    String IDLE_TIMEOUT = "idleTimeout";
+
+    /**
+     * The CONNECTION _ IDLE _ TIME.
+     */
+    String CONNECTION_IDLE_TIME = "connectionIdleTime";
+
+    /**
+     * The NO _ CURSOR _ TIMEOUT.
+     */
+    String NO_CURSOR_TIMEOUT = "noCursorTimeout";
+
+    /**
+     * The EXHAUST.
+     */
+    String EXHAUST = "exhaust";
+
+    /**
+     * The READ _ AHEAD.
+     */
+    String READ_AHEAD = "readAhead";
+
+    /**
+     * The LAZY _ DECODING.
+     */
+    String LAZY_DECODING = "lazyDecoding";
+
+    /**
+     * The MAX _ RETRIES.
+     */
+    String MAX_RETRIES = "maxRetries";
+
+    /**
+     * The RETRY _ BACKOFF.
+     */
+    String RETRY_BACKOFF = "retryBackoff";
+
     /**
      * The EQUALS _ IN _ FILTER.
      */
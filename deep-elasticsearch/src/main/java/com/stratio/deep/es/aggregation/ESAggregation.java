@@ -0,0 +1,419 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.aggregation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.rdd.RDD;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.DoubleTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.LongTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsBuilder;
+import org.elasticsearch.search.aggregations.metrics.cardinality.Cardinality;
+import org.elasticsearch.search.aggregations.metrics.stats.Stats;
+
+import com.stratio.deep.commons.entity.Cell;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.commons.filter.Filter;
+import com.stratio.deep.es.client.ESClientFactory;
+import com.stratio.deep.es.config.ESDeepJobConfig;
+import com.stratio.deep.es.utils.UtilES;
+
+/**
+ * Groups and aggregates the documents of an ES index with aggregations run by the cluster, so that only the result
+ * is brought to Spark.
+ * <p>
+ * Every group by field becomes a nested {@code terms} aggregation; the metrics of a field are computed with a single
+ * {@code stats} aggregation (count, sum, min, max, avg) or a {@code cardinality} aggregation. The result has one
+ * {@link Cells} per group, with the group by values followed by the metrics, named {@code function_field} (or
+ * {@code count} for the number of documents).
+ */
+public class ESAggregation {
+
+    /**
+     * The name of the document count metric.
+     */
+    public static final String COUNT = "count";
+
+    /**
+     * The metric functions computed from a stats aggregation.
+     */
+    private static final List<String> STATS_FUNCTIONS = Arrays.asList("sum", "min", "max", "avg");
+
+    /**
+     * The cardinality function.
+     */
+    private static final String CARDINALITY = "cardinality";
+
+    /**
+     * The prefix of the terms aggregation of each group by level.
+     */
+    private static final String GROUP = "group_";
+
+    /**
+     * The ES deep job config.
+     */
+    private final ESDeepJobConfig<?> esDeepJobConfig;
+
+    /**
+     * The group by fields.
+     */
+    private final List<String> groupBy = new ArrayList<>();
+
+    /**
+     * The metric functions by field, in order.
+     */
+    private final Map<String, Set<String>> metrics = new LinkedHashMap<>();
+
+    /**
+     * The filters, used instead of the query of the configuration if set.
+     */
+    private Filter[] filters;
+
+    /**
+     * The maximum number of groups per group by level, 0 for all.
+     */
+    private int size = 0;
+
+    /**
+     * Instantiates a new aggregation over the index and type of the configuration.
+     *
+     * @param esDeepJobConfig the ES deep job config
+     */
+    public ESAggregation(ESDeepJobConfig<?> esDeepJobConfig) {
+        this.esDeepJobConfig = esDeepJobConfig;
+    }
+
+    /**
+     * Sets the group by fields, outermost first.
+     *
+     * @param fields the fields
+     * @return this object.
+     */
+    public ESAggregation groupBy(String... fields) {
+        groupBy.clear();
+        groupBy.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Adds a metric function: "count" (no field), "sum", "min", "max", "avg" or "cardinality".
+     *
+     * @param function the function
+     * @param field    the field, null for count
+     * @return this object.
+     */
+    public ESAggregation metric(String function, String field) {
+        if (COUNT.equals(function)) {
+            return this;
+        }
+        if (!STATS_FUNCTIONS.contains(function) && !CARDINALITY.equals(function)) {
+            throw new IllegalArgumentException("aggregation function not supported: " + function);
+        }
+        if (field == null) {
+            throw new IllegalArgumentException("aggregation function " + function + " needs a field");
+        }
+
+        Set<String> functions = metrics.get(field);
+        if (functions == null) {
+            functions = new LinkedHashSet<>();
+            metrics.put(field, functions);
+        }
+        functions.add(function);
+        return this;
+    }
+
+    /**
+     * Counts the documents of each group, which is always done.
+     *
+     * @return this object.
+     */
+    public ESAggregation count() {
+        return metric(COUNT, null);
+    }
+
+    /**
+     * Sums a field in each group.
+     *
+     * @param field the field
+     * @return this object.
+     */
+    public ESAggregation sum(String field) {
+        return metric("sum", field);
+    }
+
+    /**
+     * Gets the minimum of a field in each group.
+     *
+     * @param field the field
+     * @return this object.
+     */
+    public ESAggregation min(String field) {
+        return metric("min", field);
+    }
+
+    /**
+     * Gets the maximum of a field in each group.
+     *
+     * @param field the field
+     * @return this object.
+     */
+    public ESAggregation max(String field) {
+        return metric("max", field);
+    }
+
+    /**
+     * Averages a field in each group.
+     *
+     * @param field the field
+     * @return this object.
+     */
+    public ESAggregation avg(String field) {
+        return metric("avg", field);
+    }
+
+    /**
+     * Counts the distinct values of a field in each group.
+     *
+     * @param field the field
+     * @return this object.
+     */
+    public ESAggregation cardinality(String field) {
+        return metric(CARDINALITY, field);
+    }
+
+    /**
+     * Only aggregates the documents matching the filters, instead of the query of the configuration.
+     *
+     * @param filters the filters
+     * @return this object.
+     */
+    public ESAggregation where(Filter... filters) {
+        this.filters = filters;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of groups returned per group by level, the most frequent first. 0, the default,
+     * returns every group.
+     *
+     * @param size the size
+     * @return this object.
+     */
+    public ESAggregation size(int size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Runs the aggregation.
+     *
+     * @return one cells per group
+     */
+    public List<Cells> aggregate() {
+        Client client = ESClientFactory.createClient(esDeepJobConfig);
+        try {
+            SearchRequestBuilder search = client.prepareSearch(esDeepJobConfig.getIndex())
+                    .setSearchType(SearchType.COUNT);
+
+            if (esDeepJobConfig.getType() != null) {
+                search.setTypes(esDeepJobConfig.getType());
+            }
+            if (filters != null) {
+                search.setQuery(QueryBuilders.filteredQuery(QueryBuilders.matchAllQuery(),
+                        UtilES.generateFilter(filters)));
+            } else if (esDeepJobConfig.getQuery() != null) {
+                search.setExtraSource(esDeepJobConfig.getQuery());
+            }
+            for (AbstractAggregationBuilder aggregation : buildAggregations()) {
+                search.addAggregation(aggregation);
+            }
+
+            SearchResponse response = search.get();
+
+            List<Cells> result = new ArrayList<>();
+            collect(response.getAggregations(), response.getHits().getTotalHits(), 0, new ArrayList<Cell>(), result);
+            return result;
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * Runs the aggregation, returning the result as an RDD.
+     *
+     * @param sc the spark context
+     * @return the rdd, with one cells per group
+     */
+    public RDD<Cells> aggregate(JavaSparkContext sc) {
+        return sc.parallelize(aggregate(), 1).rdd();
+    }
+
+    /**
+     * Builds the top level aggregations: the outermost terms aggregation, or the metrics if not grouping.
+     *
+     * @return the aggregations
+     */
+    List<AbstractAggregationBuilder> buildAggregations() {
+        List<AbstractAggregationBuilder> aggregations = buildMetrics();
+
+        for (int level = groupBy.size() - 1; level >= 0; level--) {
+            TermsBuilder terms = AggregationBuilders.terms(GROUP + level).field(groupBy.get(level)).size(size);
+            if (level < groupBy.size() - 1) {
+                terms.collectMode(Aggregator.SubAggCollectionMode.BREADTH_FIRST);
+            }
+            for (AbstractAggregationBuilder aggregation : aggregations) {
+                terms.subAggregation(aggregation);
+            }
+            aggregations = new ArrayList<>();
+            aggregations.add(terms);
+        }
+        return aggregations;
+    }
+
+    /**
+     * Builds the metric aggregations: one stats or cardinality aggregation per field and kind.
+     *
+     * @return the metric aggregations
+     */
+    private List<AbstractAggregationBuilder> buildMetrics() {
+        List<AbstractAggregationBuilder> aggregations = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> metric : metrics.entrySet()) {
+            String field = metric.getKey();
+            if (!Collections.disjoint(metric.getValue(), STATS_FUNCTIONS)) {
+                aggregations.add(AggregationBuilders.stats("stats_" + field).field(field));
+            }
+            if (metric.getValue().contains(CARDINALITY)) {
+                aggregations.add(AggregationBuilders.cardinality(CARDINALITY + "_" + field).field(field));
+            }
+        }
+        return aggregations;
+    }
+
+    /**
+     * Collects the groups of a level of the aggregation result.
+     *
+     * @param aggregations the aggregations of the level
+     * @param docCount     the number of documents of the enclosing group
+     * @param level        the group by level
+     * @param keys         the keys of the enclosing groups
+     * @param result       the result
+     */
+    private void collect(Aggregations aggregations, long docCount, int level, List<Cell> keys, List<Cells> result) {
+        if (level == groupBy.size()) {
+            result.add(toCells(aggregations, docCount, keys));
+            return;
+        }
+
+        Terms terms = aggregations.get(GROUP + level);
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            List<Cell> bucketKeys = new ArrayList<>(keys);
+            bucketKeys.add(Cell.create(groupBy.get(level), getKey(terms, bucket)));
+            collect(bucket.getAggregations(), bucket.getDocCount(), level + 1, bucketKeys, result);
+        }
+    }
+
+    /**
+     * Builds the cells of a group.
+     *
+     * @param aggregations the metric aggregations of the group
+     * @param docCount     the number of documents of the group
+     * @param keys         the keys of the group
+     * @return the cells
+     */
+    private Cells toCells(Aggregations aggregations, long docCount, List<Cell> keys) {
+        Cells cells = new Cells(esDeepJobConfig.getNameSpace());
+        for (Cell key : keys) {
+            cells.add(key);
+        }
+        cells.add(Cell.create(COUNT, docCount));
+
+        for (Map.Entry<String, Set<String>> metric : metrics.entrySet()) {
+            String field = metric.getKey();
+            Stats stats = aggregations != null ? aggregations.<Stats>get("stats_" + field) : null;
+
+            for (String function : metric.getValue()) {
+                Object value;
+                if (CARDINALITY.equals(function)) {
+                    Cardinality cardinality = aggregations != null ?
+                            aggregations.<Cardinality>get(CARDINALITY + "_" + field) : null;
+                    value = cardinality != null ? cardinality.getValue() : 0L;
+                } else {
+                    value = getStat(stats, function);
+                }
+                cells.add(Cell.create(function + "_" + field, value));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Gets a value of a stats aggregation, null if the group has no value for the field.
+     *
+     * @param stats    the stats
+     * @param function the function
+     * @return the value
+     */
+    private static Double getStat(Stats stats, String function) {
+        if (stats == null || stats.getCount() == 0) {
+            return "sum".equals(function) ? 0d : null;
+        }
+        switch (function) {
+        case "sum":
+            return stats.getSum();
+        case "min":
+            return stats.getMin();
+        case "max":
+            return stats.getMax();
+        default:
+            return stats.getAvg();
+        }
+    }
+
+    /**
+     * Gets the key of a bucket, as a number for numeric fields.
+     *
+     * @param terms  the terms aggregation
+     * @param bucket the bucket
+     * @return the key
+     */
+    private static Object getKey(Terms terms, Terms.Bucket bucket) {
+        if (terms instanceof LongTerms) {
+            return bucket.getKeyAsNumber().longValue();
+        } else if (terms instanceof DoubleTerms) {
+            return bucket.getKeyAsNumber().doubleValue();
+        }
+        return bucket.getKey();
+    }
+}
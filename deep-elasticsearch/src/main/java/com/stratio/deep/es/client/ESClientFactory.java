@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.client;
+
+import java.util.List;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.transport.TransportClient;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+
+import com.stratio.deep.es.config.ESDeepJobConfig;
+
+/**
+ * Creates the native clients used by the native ES extractors.
+ */
+public final class ESClientFactory {
+
+    /**
+     * Private default constructor.
+     */
+    private ESClientFactory() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates a transport client for the hosts and cluster of the configuration.
+     *
+     * @param config the ES deep job config
+     * @return the client
+     */
+    public static Client createClient(ESDeepJobConfig<?> config) {
+        return createClient(config.getHostList(), config);
+    }
+
+    /**
+     * Creates a transport client for the given hosts and the cluster of the configuration.
+     *
+     * @param hosts  the hosts, with or without the REST port
+     * @param config the ES deep job config
+     * @return the client
+     */
+    public static Client createClient(List<String> hosts, ESDeepJobConfig<?> config) {
+        TransportClient client = new TransportClient(ImmutableSettings.settingsBuilder()
+                .put("cluster.name", config.getClusterName())
+                .build());
+
+        for (String host : hosts) {
+            int portIndex = host.indexOf(':');
+            String hostName = portIndex > 0 ? host.substring(0, portIndex) : host;
+            client.addTransportAddress(new InetSocketTransportAddress(hostName, config.getTransportPort()));
+        }
+        return client;
+    }
+}
@@ -16,8 +16,19 @@
 
 package com.stratio.deep.es.config;
 
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.BATCHSIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.ES_BULK_SIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.ES_CLUSTER_NAME;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.ES_CONCURRENT_BULKS;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.ES_DOC_VALUE_FIELDS;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.ES_PARENT_FIELD;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.ES_ROUTING_FIELD;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.ES_TRANSPORT_PORT;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.FILTER_QUERY;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.INPUT_COLUMNS;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.MAX_RETRIES;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.PAGE_SIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.RETRY_BACKOFF;
 
 import java.io.Serializable;
 import java.util.Arrays;
@@ -53,6 +64,61 @@ public class ESDeepJobConfig<T> extends HadoopConfig<T, ESDeepJobConfig<T>> impl
 
     private Map<String, Serializable> customConfiguration;
 
+    /**
+     * The cluster name, used by native clients.
+     */
+    private String clusterName = "elasticsearch";
+
+    /**
+     * The transport port, used by native clients.
+     */
+    private int transportPort = 9300;
+
+    /**
+     * The number of hits fetched per shard on every scroll request.
+     */
+    private int pageSize = 100;
+
+    /**
+     * The maximum number of documents of a bulk request.
+     */
+    private int bulkActions = 1000;
+
+    /**
+     * The maximum size in bytes of a bulk request.
+     */
+    private long bulkSize = 5 * 1024 * 1024;
+
+    /**
+     * The maximum number of bulk requests in flight per writer.
+     */
+    private int concurrentBulks = 1;
+
+    /**
+     * The maximum number of retries of the documents rejected by a full bulk queue.
+     */
+    private int maxRetries = 3;
+
+    /**
+     * The wait before the first retry of rejected documents, in milliseconds; doubled on every retry.
+     */
+    private long retryBackoff = 100;
+
+    /**
+     * OPTIONAL field holding the routing value of each document.
+     */
+    private String routingField;
+
+    /**
+     * OPTIONAL field holding the parent id of each document.
+     */
+    private String parentField;
+
+    /**
+     * OPTIONAL input columns read from doc values instead of the source.
+     */
+    private String[] docValueFields;
+
     /**
      * Default constructor
      */
@@ -209,6 +275,139 @@ public class ESDeepJobConfig<T> extends HadoopConfig<T, ESDeepJobConfig<T>> impl
         return customConfiguration;
     }
 
+    @Override
+    public ESDeepJobConfig<T> clusterName(String clusterName) {
+        this.clusterName = clusterName;
+        return this;
+    }
+
+    @Override
+    public String getClusterName() {
+        return clusterName;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> transportPort(int transportPort) {
+        this.transportPort = transportPort;
+        return this;
+    }
+
+    @Override
+    public int getTransportPort() {
+        return transportPort;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> pageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    @Override
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> bulkActions(int bulkActions) {
+        this.bulkActions = bulkActions;
+        return this;
+    }
+
+    @Override
+    public int getBulkActions() {
+        return bulkActions;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> bulkSize(long bulkSize) {
+        this.bulkSize = bulkSize;
+        return this;
+    }
+
+    @Override
+    public long getBulkSize() {
+        return bulkSize;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> concurrentBulks(int concurrentBulks) {
+        if (concurrentBulks < 1) {
+            throw new IllegalArgumentException("concurrentBulks must be at least 1");
+        }
+        this.concurrentBulks = concurrentBulks;
+        return this;
+    }
+
+    @Override
+    public int getConcurrentBulks() {
+        return concurrentBulks;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> maxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> retryBackoff(long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+        return this;
+    }
+
+    @Override
+    public long getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> routingField(String routingField) {
+        this.routingField = routingField;
+        return this;
+    }
+
+    @Override
+    public String getRoutingField() {
+        return routingField;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> parentField(String parentField) {
+        this.parentField = parentField;
+        return this;
+    }
+
+    @Override
+    public String getParentField() {
+        return parentField;
+    }
+
+    @Override
+    public ESDeepJobConfig<T> docValueFields(String... docValueFields) {
+        this.docValueFields = docValueFields;
+        return this;
+    }
+
+    @Override
+    public String[] getDocValueFields() {
+        return docValueFields;
+    }
+
+    /**
+     * Gets the filter query.
+     *
+     * @return the query
+     */
+    public String getQuery() {
+        return query;
+    }
+
     @Override
     public ESDeepJobConfig<T> initialize(ExtractorConfig extractorConfig) {
         super.initialize(extractorConfig);
@@ -223,6 +422,50 @@ public class ESDeepJobConfig<T> extends HadoopConfig<T, ESDeepJobConfig<T>> impl
             filterQuery(extractorConfig.getFilterArray(FILTER_QUERY));
         }
 
+        if (values.get(ES_CLUSTER_NAME) != null) {
+            clusterName(extractorConfig.getString(ES_CLUSTER_NAME));
+        }
+
+        if (values.get(ES_TRANSPORT_PORT) != null) {
+            transportPort(extractorConfig.getInteger(ES_TRANSPORT_PORT));
+        }
+
+        if (values.get(PAGE_SIZE) != null) {
+            pageSize(extractorConfig.getInteger(PAGE_SIZE));
+        }
+
+        if (values.get(BATCHSIZE) != null) {
+            bulkActions(extractorConfig.getInteger(BATCHSIZE));
+        }
+
+        if (values.get(ES_BULK_SIZE) != null) {
+            bulkSize(extractorConfig.getLong(ES_BULK_SIZE));
+        }
+
+        if (values.get(ES_CONCURRENT_BULKS) != null) {
+            concurrentBulks(extractorConfig.getInteger(ES_CONCURRENT_BULKS));
+        }
+
+        if (values.get(MAX_RETRIES) != null) {
+            maxRetries(extractorConfig.getInteger(MAX_RETRIES));
+        }
+
+        if (values.get(RETRY_BACKOFF) != null) {
+            retryBackoff(extractorConfig.getLong(RETRY_BACKOFF));
+        }
+
+        if (values.get(ES_ROUTING_FIELD) != null) {
+            routingField(extractorConfig.getString(ES_ROUTING_FIELD));
+        }
+
+        if (values.get(ES_PARENT_FIELD) != null) {
+            parentField(extractorConfig.getString(ES_PARENT_FIELD));
+        }
+
+        if (values.get(ES_DOC_VALUE_FIELDS) != null) {
+            docValueFields(extractorConfig.getStringArray(ES_DOC_VALUE_FIELDS));
+        }
+
         this.initialize();
 
         return this;
@@ -232,7 +475,7 @@ public class ESDeepJobConfig<T> extends HadoopConfig<T, ESDeepJobConfig<T>> impl
      * @param filterArray
      */
     private ESDeepJobConfig<T> filterQuery(Filter[] filterArray) {
-        query = "{ \"query\" :".concat((UtilES.generateQuery(filterArray)).toString()).concat("}");
+        query = UtilES.generateFilteredQuery(filterArray);
         return this;
     }
 
@@ -66,4 +66,115 @@ public interface IESDeepJobConfig<T> {
 
     Map<String, Serializable> getCustomConfiguration();
 
+    /**
+     * The cluster name, used by the native extractors.
+     *
+     * @param clusterName
+     * @return this object.
+     */
+    ESDeepJobConfig<T> clusterName(String clusterName);
+
+    String getClusterName();
+
+    /**
+     * The transport port, used by the native extractors.
+     *
+     * @param transportPort
+     * @return this object.
+     */
+    ESDeepJobConfig<T> transportPort(int transportPort);
+
+    int getTransportPort();
+
+    /**
+     * The number of hits fetched per shard on every scroll request of the native extractors.
+     *
+     * @param pageSize
+     * @return this object.
+     */
+    ESDeepJobConfig<T> pageSize(int pageSize);
+
+    int getPageSize();
+
+    /**
+     * The maximum number of documents of each bulk request of the native writer.
+     *
+     * @param bulkActions
+     * @return this object.
+     */
+    ESDeepJobConfig<T> bulkActions(int bulkActions);
+
+    int getBulkActions();
+
+    /**
+     * The maximum size in bytes of each bulk request of the native writer.
+     *
+     * @param bulkSize
+     * @return this object.
+     */
+    ESDeepJobConfig<T> bulkSize(long bulkSize);
+
+    long getBulkSize();
+
+    /**
+     * The maximum number of bulk requests in flight per native writer.
+     *
+     * @param concurrentBulks
+     * @return this object.
+     */
+    ESDeepJobConfig<T> concurrentBulks(int concurrentBulks);
+
+    int getConcurrentBulks();
+
+    /**
+     * The maximum number of retries of the documents rejected by a full bulk queue.
+     *
+     * @param maxRetries
+     * @return this object.
+     */
+    ESDeepJobConfig<T> maxRetries(int maxRetries);
+
+    int getMaxRetries();
+
+    /**
+     * The wait in milliseconds before the first retry of rejected documents, doubled on every retry.
+     *
+     * @param retryBackoff
+     * @return this object.
+     */
+    ESDeepJobConfig<T> retryBackoff(long retryBackoff);
+
+    long getRetryBackoff();
+
+    /**
+     * The field holding the routing value of each written document.
+     *
+     * @param routingField
+     * @return this object.
+     */
+    ESDeepJobConfig<T> routingField(String routingField);
+
+    String getRoutingField();
+
+    /**
+     * The field holding the parent id of each written document.
+     *
+     * @param parentField
+     * @return this object.
+     */
+    ESDeepJobConfig<T> parentField(String parentField);
+
+    String getParentField();
+
+    /**
+     * The input columns the native extractors read from doc values instead of the source. Only columns mapped with
+     * doc values should be given, otherwise their field data is loaded in the heap of the nodes.
+     *
+     * @param docValueFields
+     * @return this object.
+     */
+    ESDeepJobConfig<T> docValueFields(String... docValueFields);
+
+    String[] getDocValueFields();
+
 }
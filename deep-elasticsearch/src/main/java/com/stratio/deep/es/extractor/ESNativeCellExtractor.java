@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.extractor;
+
+import java.io.IOException;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.SearchHit;
+
+import com.stratio.deep.commons.entity.Cell;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.commons.exception.DeepTransformException;
+import com.stratio.deep.es.config.ESDeepJobConfig;
+import com.stratio.deep.es.utils.UtilES;
+
+/**
+ * Native ES extractor building cells straight from the search hits.
+ */
+public class ESNativeCellExtractor extends ESNativeExtractor<Cells, ESDeepJobConfig<Cells>> {
+
+    private static final long serialVersionUID = -1284463154232640618L;
+
+    public ESNativeCellExtractor() {
+        this.esDeepJobConfig = new ESDeepJobConfig<>(Cells.class);
+    }
+
+    public ESNativeCellExtractor(Class<Cells> cellsClass) {
+        this.esDeepJobConfig = new ESDeepJobConfig<>(cellsClass);
+    }
+
+    @Override
+    protected Cells transformElement(SearchHit hit) {
+        try {
+            return decoder.decodeCells(hit, esDeepJobConfig.getNameSpace());
+        } catch (IOException e) {
+            throw new DeepTransformException("Could not transform from search hit to cells " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected XContentBuilder transformElement(Cells cells) {
+        try {
+            return UtilES.getXContentFromCell(cells);
+        } catch (IOException e) {
+            throw new DeepTransformException("Could not transform from cells to JSON " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected String getFieldValue(Cells cells, String fieldName) {
+        Cell cell = fieldName != null ? cells.getCellByName(fieldName) : null;
+        return cell != null && cell.getCellValue() != null ? cell.getCellValue().toString() : null;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.extractor;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.SearchHit;
+
+import com.stratio.deep.commons.exception.DeepTransformException;
+import com.stratio.deep.es.config.ESDeepJobConfig;
+import com.stratio.deep.es.utils.UtilES;
+
+/**
+ * Native ES extractor building entities straight from the search hits.
+ *
+ * @param <T> the type parameter
+ */
+public final class ESNativeEntityExtractor<T> extends ESNativeExtractor<T, ESDeepJobConfig<T>> {
+
+    private static final long serialVersionUID = 6423518398465498121L;
+
+    public ESNativeEntityExtractor(Class<T> t) {
+        this.esDeepJobConfig = new ESDeepJobConfig<>(t);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected T transformElement(SearchHit hit) {
+        try {
+            return (T) decoder.decodeEntity(esDeepJobConfig.getEntityClass(), hit);
+        } catch (IOException | IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            throw new DeepTransformException("Could not transform from search hit to entity " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected XContentBuilder transformElement(T entity) {
+        try {
+            return UtilES.getXContentFromObject(entity);
+        } catch (IOException | IllegalAccessException | InvocationTargetException e) {
+            throw new DeepTransformException("Could not transform from entity to JSON " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected String getFieldValue(T entity, String fieldName) {
+        if (fieldName == null) {
+            return null;
+        }
+        try {
+            Object value = UtilES.getFieldValue(entity, fieldName);
+            return value != null ? value.toString() : null;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new DeepTransformException("Could not read field " + fieldName + " " + e.getMessage(), e);
+        }
+    }
+}
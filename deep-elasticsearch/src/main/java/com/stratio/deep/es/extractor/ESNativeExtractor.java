@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.extractor;
+
+import static com.stratio.deep.commons.utils.Utils.initConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.spark.Partition;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.SearchHit;
+
+import com.stratio.deep.commons.config.BaseConfig;
+import com.stratio.deep.commons.impl.DeepPartition;
+import com.stratio.deep.commons.querybuilder.UpdateQueryBuilder;
+import com.stratio.deep.commons.rdd.DeepTokenRange;
+import com.stratio.deep.commons.rdd.IExtractor;
+import com.stratio.deep.es.client.ESClientFactory;
+import com.stratio.deep.es.config.ESDeepJobConfig;
+import com.stratio.deep.es.partition.ESPartition;
+import com.stratio.deep.es.reader.ESReader;
+import com.stratio.deep.es.utils.ESHitDecoder;
+import com.stratio.deep.es.writer.ESBulkWriter;
+
+/**
+ * Extractor reading ES through the native client: one partition per primary shard, preferably computed on the node
+ * holding the shard, read with the scan and scroll APIs. Writes are sent with bulk requests.
+ *
+ * @param <T> the type parameter
+ * @param <S> the type parameter
+ */
+public abstract class ESNativeExtractor<T, S extends BaseConfig> implements IExtractor<T, S> {
+
+    private static final long serialVersionUID = 2592357467931012236L;
+
+    /**
+     * The Reader.
+     */
+    private ESReader reader;
+
+    /**
+     * The ES deep job config.
+     */
+    protected ESDeepJobConfig<T> esDeepJobConfig;
+
+    /**
+     * The Writer.
+     */
+    private ESBulkWriter writer;
+
+    /**
+     * Decodes the hits read.
+     */
+    protected transient ESHitDecoder decoder;
+
+    @Override
+    public Partition[] getPartitions(S config) {
+        esDeepJobConfig = initConfig(config, esDeepJobConfig);
+
+        Client client = ESClientFactory.createClient(esDeepJobConfig);
+        try {
+            ClusterState state = client.admin().cluster().prepareState()
+                    .setIndices(esDeepJobConfig.getIndex()).get().getState();
+
+            List<Partition> partitions = new ArrayList<>();
+            for (IndexRoutingTable indexRouting : state.getRoutingTable()) {
+                for (IndexShardRoutingTable shardRouting : indexRouting) {
+                    ShardRouting primary = shardRouting.primaryShard();
+                    int shardId = shardRouting.shardId().id();
+
+                    List<String> replicas = new ArrayList<>();
+                    DiscoveryNode node = primary.assignedToNode() ? state.getNodes().get(primary.currentNodeId()) :
+                            null;
+                    if (node != null) {
+                        replicas.add(node.getHostName());
+                    }
+
+                    partitions.add(new ESPartition(esDeepJobConfig.getRddId(), partitions.size(),
+                            new DeepTokenRange(shardId, shardId, replicas), indexRouting.getIndex(), shardId));
+                }
+            }
+            return partitions.toArray(new Partition[partitions.size()]);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Override
+    public List<String> getPreferredLocations(Partition split) {
+        return ((DeepPartition) split).splitWrapper().getReplicas();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return reader.hasNext();
+    }
+
+    @Override
+    public T next() {
+        return transformElement(reader.next());
+    }
+
+    @Override
+    public void close() {
+        if (reader != null) {
+            reader.close();
+        }
+
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Override
+    public void initIterator(Partition dp, S config) {
+        esDeepJobConfig = initConfig(config, esDeepJobConfig);
+
+        decoder = new ESHitDecoder(esDeepJobConfig.getInputColumns());
+        reader = new ESReader(esDeepJobConfig);
+        reader.init((ESPartition) dp);
+    }
+
+    @Override
+    public void saveRDD(T t) {
+        writer.save(transformElement(t), getFieldValue(t, esDeepJobConfig.getRoutingField()),
+                getFieldValue(t, esDeepJobConfig.getParentField()));
+    }
+
+    @Override
+    public void initSave(S config, T first, UpdateQueryBuilder queryBuilder) {
+        esDeepJobConfig = initConfig(config, esDeepJobConfig);
+
+        writer = new ESBulkWriter(esDeepJobConfig);
+    }
+
+    /**
+     * Transform element.
+     *
+     * @param hit the search hit
+     * @return the t
+     */
+    protected abstract T transformElement(SearchHit hit);
+
+    /**
+     * Transform element.
+     *
+     * @param entity the entity
+     * @return the JSON document
+     */
+    protected abstract XContentBuilder transformElement(T entity);
+
+    /**
+     * Gets the value of a field of an element, as used for routing.
+     *
+     * @param entity    the entity
+     * @param fieldName the field name, may be null
+     * @return the value as a string, or null if the field is not set
+     */
+    protected abstract String getFieldValue(T entity, String fieldName);
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.partition;
+
+import com.stratio.deep.commons.impl.DeepPartition;
+import com.stratio.deep.commons.rdd.DeepTokenRange;
+
+/**
+ * Partition reading one primary shard of an index. The replicas of its range are the hosts holding the shard.
+ */
+public class ESPartition extends DeepPartition {
+
+    private static final long serialVersionUID = -3406472861238427761L;
+
+    /**
+     * The concrete index.
+     */
+    private final String index;
+
+    /**
+     * The shard id.
+     */
+    private final int shardId;
+
+    /**
+     * Instantiates a new ES partition.
+     *
+     * @param rddId   the rdd id
+     * @param idx     the idx
+     * @param range   the range
+     * @param index   the concrete index
+     * @param shardId the shard id
+     */
+    public ESPartition(int rddId, int idx, DeepTokenRange range, String index, int shardId) {
+        super(rddId, idx, range);
+        this.index = index;
+        this.shardId = shardId;
+    }
+
+    /**
+     * Gets the concrete index.
+     *
+     * @return the index
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the shard id.
+     *
+     * @return the shard id
+     */
+    public int getShardId() {
+        return shardId;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer(super.toString() + "ESPartition{");
+        sb.append("index='").append(index).append('\'');
+        sb.append(", shardId=").append(shardId);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.reader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.stratio.deep.es.client.ESClientFactory;
+import com.stratio.deep.es.config.ESDeepJobConfig;
+import com.stratio.deep.es.partition.ESPartition;
+
+/**
+ * Reads the hits of one shard with the scan and scroll APIs. Scan hits are returned unsorted and unscored, so the
+ * filter query of the configuration only selects documents.
+ */
+public class ESReader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ESReader.class);
+
+    /**
+     * How long scroll contexts are kept alive between two scroll requests.
+     */
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    /**
+     * The ES deep job config.
+     */
+    private final ESDeepJobConfig<?> esDeepJobConfig;
+
+    /**
+     * The client.
+     */
+    private Client client;
+
+    /**
+     * The current scroll id, null once every hit has been read.
+     */
+    private String scrollId;
+
+    /**
+     * The hits of the current page.
+     */
+    private Iterator<SearchHit> hits = Collections.<SearchHit>emptyList().iterator();
+
+    /**
+     * Instantiates a new ES reader.
+     *
+     * @param esDeepJobConfig the ES deep job config
+     */
+    public ESReader(ESDeepJobConfig<?> esDeepJobConfig) {
+        this.esDeepJobConfig = esDeepJobConfig;
+    }
+
+    /**
+     * Starts scrolling over the shard of the partition.
+     *
+     * @param partition the partition
+     */
+    public void init(ESPartition partition) {
+        client = ESClientFactory.createClient(esDeepJobConfig);
+
+        SearchRequestBuilder search = client.prepareSearch(partition.getIndex())
+                .setSearchType(SearchType.SCAN)
+                .setScroll(SCROLL_KEEP_ALIVE)
+                .setSize(esDeepJobConfig.getPageSize())
+                .setPreference("_shards:" + partition.getShardId() + ";_primary");
+
+        if (esDeepJobConfig.getType() != null) {
+            search.setTypes(esDeepJobConfig.getType());
+        }
+        setFields(search);
+        if (esDeepJobConfig.getQuery() != null) {
+            search.setExtraSource(esDeepJobConfig.getQuery());
+        }
+
+        LOG.debug("scrolling shard " + partition.getShardId() + " of " + partition.getIndex());
+
+        scrollId = search.get().getScrollId();
+    }
+
+    /**
+     * Restricts the hits to the input columns, if any: the columns read from doc values are fetched as field data,
+     * the others as source includes.
+     *
+     * @param search the search
+     */
+    private void setFields(SearchRequestBuilder search) {
+        String[] inputColumns = esDeepJobConfig.getInputColumns();
+        if (inputColumns == null || inputColumns.length == 0) {
+            return;
+        }
+
+        List<String> docValueFields = esDeepJobConfig.getDocValueFields() != null ?
+                Arrays.asList(esDeepJobConfig.getDocValueFields()) : Collections.<String>emptyList();
+        List<String> includes = new ArrayList<>();
+
+        for (String column : inputColumns) {
+            if (docValueFields.contains(column)) {
+                search.addFieldDataField(column);
+            } else {
+                includes.add(column);
+            }
+        }
+
+        if (includes.isEmpty()) {
+            search.setFetchSource(false);
+        } else {
+            search.setFetchSource(includes.toArray(new String[includes.size()]), null);
+        }
+    }
+
+    /**
+     * Has next.
+     *
+     * @return the boolean
+     */
+    public boolean hasNext() {
+        while (!hits.hasNext()) {
+            if (scrollId == null) {
+                return false;
+            }
+
+            SearchResponse response = client.prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).get();
+            SearchHit[] page = response.getHits().getHits();
+
+            if (page.length == 0) {
+                clearScroll();
+                return false;
+            }
+
+            scrollId = response.getScrollId();
+            hits = Arrays.asList(page).iterator();
+        }
+        return true;
+    }
+
+    /**
+     * Next hit.
+     *
+     * @return the search hit
+     */
+    public SearchHit next() {
+        return hits.next();
+    }
+
+    /**
+     * Releases the scroll context and the client.
+     */
+    @Override
+    public void close() {
+        if (client != null) {
+            clearScroll();
+            client.close();
+            client = null;
+        }
+    }
+
+    /**
+     * Releases the scroll context, if any.
+     */
+    private void clearScroll() {
+        if (scrollId != null) {
+            try {
+                client.prepareClearScroll().addScrollId(scrollId).get();
+            } catch (ElasticsearchException e) {
+                LOG.warn("could not clear scroll: " + e.getMessage());
+            }
+            scrollId = null;
+        }
+    }
+}
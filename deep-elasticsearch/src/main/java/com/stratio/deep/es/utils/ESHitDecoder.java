@@ -0,0 +1,337 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.utils;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.ClassUtils;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
+
+import com.stratio.deep.commons.entity.Cell;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.commons.entity.IDeepType;
+import com.stratio.deep.commons.utils.AnnotationUtils;
+import com.stratio.deep.commons.utils.Utils;
+
+/**
+ * Decodes the source of search hits into cells or entities in a single pass over the JSON tokens, without building an
+ * intermediate map of the document.
+ * <p>
+ * If fields are requested, only those are decoded: the other fields, and the parts of nested objects not in a
+ * requested path ("metadata.author"), are skipped by the parser. Fields loaded from doc values are added after the
+ * source fields.
+ */
+public class ESHitDecoder {
+
+    /**
+     * The requested paths, null for every field.
+     */
+    private final Map<String, Object> requested;
+
+    /**
+     * The fields of each entity class, by deep field name.
+     */
+    private final Map<Class<?>, Map<String, EntityField>> entityFields = new HashMap<>();
+
+    /**
+     * Instantiates a new hit decoder.
+     *
+     * @param fields the requested fields, dotted for nested fields; all if null or empty
+     */
+    public ESHitDecoder(String... fields) {
+        if (fields == null || fields.length == 0) {
+            requested = null;
+            return;
+        }
+
+        requested = new HashMap<>();
+        for (String field : fields) {
+            addPath(requested, field.split("\\."), 0);
+        }
+    }
+
+    /**
+     * Adds a requested path to a tree of paths, where a null child means the whole field.
+     */
+    @SuppressWarnings("unchecked")
+    private static void addPath(Map<String, Object> node, String[] path, int index) {
+        String name = path[index];
+        if (index == path.length - 1) {
+            node.put(name, null);
+            return;
+        }
+        if (node.containsKey(name) && node.get(name) == null) {
+            return;
+        }
+
+        Map<String, Object> child = (Map<String, Object>) node.get(name);
+        if (child == null) {
+            child = new HashMap<>();
+            node.put(name, child);
+        }
+        addPath(child, path, index + 1);
+    }
+
+    /**
+     * Decodes a hit into cells.
+     *
+     * @param hit       the search hit
+     * @param nameSpace the name space of the cells
+     * @return the cells
+     * @throws IOException if the source is not valid JSON
+     */
+    public Cells decodeCells(SearchHit hit, String nameSpace) throws IOException {
+        Cells cells = nameSpace != null ? new Cells(nameSpace) : new Cells();
+
+        BytesReference source = hit.sourceRef();
+        if (source != null) {
+            XContentParser parser = XContentHelper.createParser(source);
+            try {
+                parser.nextToken();
+                readCells(parser, cells, requested);
+            } finally {
+                parser.close();
+            }
+        }
+
+        Map<String, SearchHitField> fields = hit.getFields();
+        if (fields != null) {
+            for (SearchHitField field : fields.values()) {
+                cells.add(Cell.create(field.getName(), getFieldValue(field)));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Decodes a hit into an entity class with deep's annotations.
+     *
+     * @param entityClass the entity class
+     * @param hit         the search hit
+     * @param <T>         the entity type
+     * @return the entity
+     * @throws IOException               if the source is not valid JSON
+     * @throws IllegalAccessException
+     * @throws InstantiationException
+     * @throws InvocationTargetException
+     */
+    public <T> T decodeEntity(Class<T> entityClass, SearchHit hit)
+            throws IOException, IllegalAccessException, InstantiationException, InvocationTargetException {
+        T t = entityClass.newInstance();
+
+        BytesReference source = hit.sourceRef();
+        if (source != null) {
+            XContentParser parser = XContentHelper.createParser(source);
+            try {
+                parser.nextToken();
+                readEntity(parser, t, requested);
+            } finally {
+                parser.close();
+            }
+        }
+
+        Map<String, SearchHitField> fields = hit.getFields();
+        if (fields != null) {
+            for (SearchHitField field : fields.values()) {
+                EntityField entityField = getEntityFields(entityClass).get(field.getName());
+                if (entityField != null) {
+                    entityField.set(t, getFieldValue(field));
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Reads the fields of an object, the parser being on its start token.
+     */
+    @SuppressWarnings("unchecked")
+    private void readCells(XContentParser parser, Cells cells, Map<String, Object> node) throws IOException {
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+
+            if (node != null && !node.containsKey(name)) {
+                parser.skipChildren();
+                continue;
+            }
+            cells.add(Cell.create(name, readValue(parser, node != null ? (Map<String, Object>) node.get(name) : null)));
+        }
+    }
+
+    /**
+     * Reads a value as a cell value: objects become cells and arrays lists.
+     */
+    private Object readValue(XContentParser parser, Map<String, Object> node) throws IOException {
+        switch (parser.currentToken()) {
+        case START_OBJECT:
+            Cells cells = new Cells();
+            readCells(parser, cells, node);
+            return cells;
+        case START_ARRAY:
+            List<Object> list = new ArrayList<>();
+            while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                list.add(readValue(parser, node));
+            }
+            return list;
+        default:
+            return readScalar(parser);
+        }
+    }
+
+    /**
+     * Reads the fields of an entity, the parser being on its start token.
+     */
+    @SuppressWarnings("unchecked")
+    private void readEntity(XContentParser parser, Object t, Map<String, Object> node)
+            throws IOException, IllegalAccessException, InstantiationException, InvocationTargetException {
+        Map<String, EntityField> fields = getEntityFields(t.getClass());
+
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+
+            EntityField field = fields.get(name);
+            if (field == null || (node != null && !node.containsKey(name))) {
+                parser.skipChildren();
+                continue;
+            }
+
+            Map<String, Object> child = node != null ? (Map<String, Object>) node.get(name) : null;
+            field.set(t, readEntityValue(parser, field.type, field.genericType, child));
+        }
+    }
+
+    /**
+     * Reads a value of an entity field of the given type.
+     */
+    private Object readEntityValue(XContentParser parser, Class<?> type, Type genericType, Map<String, Object> node)
+            throws IOException, IllegalAccessException, InstantiationException, InvocationTargetException {
+        switch (parser.currentToken()) {
+        case START_OBJECT:
+            if (IDeepType.class.isAssignableFrom(type)) {
+                Object nested = type.newInstance();
+                readEntity(parser, nested, node);
+                return nested;
+            }
+            return parser.mapOrdered();
+        case START_ARRAY:
+            Class<?> elementClass = Object.class;
+            if (genericType instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                if (argument instanceof Class) {
+                    elementClass = (Class<?>) argument;
+                }
+            }
+
+            List<Object> list = new ArrayList<>();
+            while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                list.add(readEntityValue(parser, elementClass, null, node));
+            }
+            return Set.class.isAssignableFrom(type) ? new LinkedHashSet<>(list) : list;
+        default:
+            return readScalar(parser);
+        }
+    }
+
+    /**
+     * Reads a scalar value.
+     */
+    private static Object readScalar(XContentParser parser) throws IOException {
+        switch (parser.currentToken()) {
+        case VALUE_STRING:
+            return parser.text();
+        case VALUE_NUMBER:
+            return parser.numberValue();
+        case VALUE_BOOLEAN:
+            return parser.booleanValue();
+        case VALUE_EMBEDDED_OBJECT:
+            return parser.binaryValue();
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Gets the value of a field loaded from doc values: a single value or the list of values.
+     */
+    private static Object getFieldValue(SearchHitField field) {
+        List<Object> values = field.getValues();
+        return values.size() == 1 ? values.get(0) : values;
+    }
+
+    /**
+     * Gets the fields of an entity class, by deep field name.
+     */
+    private Map<String, EntityField> getEntityFields(Class<?> entityClass) {
+        Map<String, EntityField> fields = entityFields.get(entityClass);
+        if (fields == null) {
+            fields = new HashMap<>();
+            for (Field field : AnnotationUtils.filterDeepFields(entityClass)) {
+                fields.put(AnnotationUtils.deepFieldName(field), new EntityField(field,
+                        Utils.findSetter(field.getName(), entityClass, field.getType())));
+            }
+            entityFields.put(entityClass, fields);
+        }
+        return fields;
+    }
+
+    /**
+     * A field of an entity and its setter.
+     */
+    private static final class EntityField {
+
+        private final Class<?> type;
+
+        private final Type genericType;
+
+        private final Method setter;
+
+        private EntityField(Field field, Method setter) {
+            this.type = field.getType();
+            this.genericType = field.getGenericType();
+            this.setter = setter;
+        }
+
+        private void set(Object t, Object value) throws IllegalAccessException, InvocationTargetException {
+            if (value == null) {
+                return;
+            }
+
+            Class<?> wrapper = type.isPrimitive() ? ClassUtils.primitiveToWrapper(type) : type;
+            if (value instanceof Number && !wrapper.isInstance(value)) {
+                value = Utils.castNumberType(value, wrapper);
+            }
+            setter.invoke(t, value);
+        }
+    }
+}
@@ -20,13 +20,16 @@ package com.stratio.deep.es.utils;
  * Several utilities to work used in the Spark <=> ElasticSearch integration.
  */
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -43,8 +46,13 @@ import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.hadoop.mr.LinkedMapWritable;
+import org.elasticsearch.index.query.BoolFilterBuilder;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.RangeQueryBuilder;
@@ -390,6 +398,212 @@ public final class UtilES {
         return json;
     }
 
+    /**
+     * writes cells as a JSON document, streaming every value straight to the generator.
+     *
+     * @param cells the cells to write.
+     * @return the JSON document.
+     * @throws IOException
+     */
+    public static XContentBuilder getXContentFromCell(Cells cells) throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        writeCells(builder, cells);
+        return builder;
+    }
+
+    private static void writeCells(XContentBuilder builder, Cells cells) throws IOException {
+        builder.startObject();
+        for (Cell cell : cells) {
+            if (cell.getCellValue() != null) {
+                builder.field(cell.getCellName());
+                writeCellValue(builder, cell.getCellValue());
+            }
+        }
+        builder.endObject();
+    }
+
+    private static void writeCellValue(XContentBuilder builder, Object value) throws IOException {
+        if (value instanceof Cells) {
+            writeCells(builder, (Cells) value);
+        } else if (value instanceof Collection) {
+            builder.startArray();
+            for (Object element : (Collection) value) {
+                writeCellValue(builder, element);
+            }
+            builder.endArray();
+        } else {
+            builder.value(value);
+        }
+    }
+
+    /**
+     * writes an entity class with deep's anotations as a JSON document, streaming every value straight to the
+     * generator.
+     *
+     * @param t   an instance of an object of type T to write.
+     * @param <T> the type of the object to write.
+     * @return the JSON document.
+     * @throws IOException
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     */
+    public static <T> XContentBuilder getXContentFromObject(T t)
+            throws IOException, IllegalAccessException, InvocationTargetException {
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        writeObject(builder, t);
+        return builder;
+    }
+
+    private static void writeObject(XContentBuilder builder, Object t)
+            throws IOException, IllegalAccessException, InvocationTargetException {
+        builder.startObject();
+        for (Field field : AnnotationUtils.filterDeepFields(t.getClass())) {
+            Object object = Utils.findGetter(field.getName(), t.getClass()).invoke(t);
+            if (object != null) {
+                builder.field(AnnotationUtils.deepFieldName(field));
+                writeObjectValue(builder, object);
+            }
+        }
+        builder.endObject();
+    }
+
+    private static void writeObjectValue(XContentBuilder builder, Object value)
+            throws IOException, IllegalAccessException, InvocationTargetException {
+        if (value instanceof IDeepType) {
+            writeObject(builder, value);
+        } else if (value instanceof Collection) {
+            builder.startArray();
+            for (Object element : (Collection) value) {
+                writeObjectValue(builder, element);
+            }
+            builder.endArray();
+        } else {
+            builder.value(value);
+        }
+    }
+
+    /**
+     * returns the value of the field of an entity class with deep's anotations with the given deep field name.
+     *
+     * @param t         an instance of an object of type T.
+     * @param fieldName the deep field name.
+     * @param <T>       the type of the object.
+     * @return the value, or null if the entity has no such field.
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     */
+    public static <T> Object getFieldValue(T t, String fieldName)
+            throws IllegalAccessException, InvocationTargetException {
+        for (Field field : AnnotationUtils.filterDeepFields(t.getClass())) {
+            if (AnnotationUtils.deepFieldName(field).equals(fieldName)) {
+                return Utils.findGetter(field.getName(), t.getClass()).invoke(t);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * translates filters into a non scoring bool filter: match for EQ and NEQ on strings and term on any other value,
+     * range for the comparisons and BETWEEN, terms for IN and a match query for MATCH.
+     *
+     * @param filterArray the filters.
+     * @return the bool filter.
+     */
+    public static FilterBuilder generateFilter(Filter... filterArray) {
+        BoolFilterBuilder bool = FilterBuilders.boolFilter();
+
+        for (Filter filter : filterArray) {
+            String field = filter.getField();
+            Object value = filter.getValue();
+
+            switch (filter.getFilterType()) {
+            case EQ:
+                bool.must(equalityFilter(field, value));
+                break;
+            case NEQ:
+                bool.mustNot(equalityFilter(field, value));
+                break;
+            case LT:
+                bool.must(FilterBuilders.rangeFilter(field).lt(value));
+                break;
+            case LTE:
+                bool.must(FilterBuilders.rangeFilter(field).lte(value));
+                break;
+            case GT:
+                bool.must(FilterBuilders.rangeFilter(field).gt(value));
+                break;
+            case GTE:
+                bool.must(FilterBuilders.rangeFilter(field).gte(value));
+                break;
+            case IN:
+                bool.must(FilterBuilders.termsFilter(field, getFilterValues(filter)));
+                break;
+            case BETWEEN:
+                List<Object> bounds = getFilterValues(filter);
+                if (bounds.size() != 2) {
+                    throw new IllegalArgumentException("BETWEEN filter on " + field + " needs two bounds: " + value);
+                }
+                bool.must(FilterBuilders.rangeFilter(field).gte(bounds.get(0)).lte(bounds.get(1)));
+                break;
+            case MATCH:
+                bool.must(FilterBuilders.queryFilter(QueryBuilders.matchQuery(field, value)));
+                break;
+            default:
+                throw new UnsupportedOperationException("filter operation " + filter.getFilterType()
+                        + " is not supported");
+            }
+        }
+        return bool;
+    }
+
+    /**
+     * Builds the filter of an EQ or NEQ condition. Strings keep the match semantics of the former query so that they
+     * are analyzed like the indexed field; any other value is compared as an exact, cacheable term.
+     *
+     * @param field the field name.
+     * @param value the value to compare with.
+     * @return the filter.
+     */
+    private static FilterBuilder equalityFilter(String field, Object value) {
+        if (value instanceof CharSequence) {
+            return FilterBuilders.queryFilter(QueryBuilders.matchQuery(field, value));
+        }
+        return FilterBuilders.termFilter(field, value);
+    }
+
+    /**
+     * generates a search request body with the filters as a non scoring filtered query.
+     *
+     * @param filterArray the filters.
+     * @return the search request body.
+     */
+    public static String generateFilteredQuery(Filter... filterArray) {
+        return "{ \"query\" :".concat(QueryBuilders.filteredQuery(QueryBuilders.matchAllQuery(),
+                generateFilter(filterArray)).toString()).concat("}");
+    }
+
+    /**
+     * Returns the values of an IN or BETWEEN filter, given as a collection, an array or a comma separated string.
+     *
+     * @param filter the filter
+     * @return the values
+     */
+    private static List<Object> getFilterValues(Filter filter) {
+        Object value = filter.getValue();
+        if (value instanceof Collection) {
+            return new ArrayList<Object>((Collection<?>) value);
+        } else if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        } else if (value instanceof String) {
+            List<Object> values = new ArrayList<>();
+            for (String element : ((String) value).split(",")) {
+                values.add(element.trim());
+            }
+            return values;
+        }
+        return Collections.singletonList(value);
+    }
+
     public static QueryBuilder generateQuery(Filter... filterArray) {
         List<Filter> range = new ArrayList<>();
         List<Filter> ne = new ArrayList<>();
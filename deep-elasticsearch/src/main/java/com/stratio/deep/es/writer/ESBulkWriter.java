@@ -0,0 +1,279 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.es.writer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.stratio.deep.commons.exception.DeepGenericException;
+import com.stratio.deep.es.client.ESClientFactory;
+import com.stratio.deep.es.config.ESDeepJobConfig;
+
+/**
+ * Writes documents to ES with bulk requests.
+ * <p>
+ * A bulk request is sent once it holds the configured number of documents or bytes. At most the configured number of
+ * bulk requests are in flight; further saves block until one of them completes. Documents rejected because the bulk
+ * queue of a node is full are retried with an exponential backoff; any other failure fails the writer.
+ */
+public class ESBulkWriter implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ESBulkWriter.class);
+
+    /**
+     * The ES deep job config.
+     */
+    private final ESDeepJobConfig<?> esDeepJobConfig;
+
+    /**
+     * The client.
+     */
+    private final Client client;
+
+    /**
+     * Sends the bulk requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * One permit per bulk request that may be in flight.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The bulk request being filled.
+     */
+    private BulkRequest bulk = new BulkRequest();
+
+    /**
+     * The first failure of a bulk request, if any.
+     */
+    private volatile String failure;
+
+    /**
+     * Instantiates a new ES bulk writer.
+     *
+     * @param esDeepJobConfig the ES deep job config
+     */
+    public ESBulkWriter(ESDeepJobConfig<?> esDeepJobConfig) {
+        this(esDeepJobConfig, ESClientFactory.createClient(esDeepJobConfig));
+    }
+
+    /**
+     * Instantiates a new ES bulk writer on the given client, which is closed with the writer.
+     *
+     * @param esDeepJobConfig the ES deep job config
+     * @param client          the client
+     */
+    ESBulkWriter(ESDeepJobConfig<?> esDeepJobConfig, Client client) {
+        this.esDeepJobConfig = esDeepJobConfig;
+        this.client = client;
+        this.permits = new Semaphore(esDeepJobConfig.getConcurrentBulks());
+        this.executor = Executors.newFixedThreadPool(esDeepJobConfig.getConcurrentBulks(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "deep-es-bulk");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Adds a document to the current bulk request, sending it if full.
+     *
+     * @param source  the document
+     * @param routing the routing value, or null
+     * @param parent  the parent id, or null
+     */
+    public void save(XContentBuilder source, String routing, String parent) {
+        checkFailure();
+
+        IndexRequest request = new IndexRequest(esDeepJobConfig.getIndex(), esDeepJobConfig.getType()).source(source);
+        if (routing != null) {
+            request.routing(routing);
+        }
+        if (parent != null) {
+            request.parent(parent);
+        }
+        bulk.add(request);
+
+        if (bulk.numberOfActions() >= esDeepJobConfig.getBulkActions()
+                || bulk.estimatedSizeInBytes() >= esDeepJobConfig.getBulkSize()) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the current bulk request, waiting while the maximum number of bulk requests are in flight.
+     */
+    public void flush() {
+        if (bulk.numberOfActions() == 0) {
+            return;
+        }
+
+        final BulkRequest request = bulk;
+        bulk = new BulkRequest();
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeepGenericException(e);
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        execute(request);
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a bulk request, retrying the rejected documents.
+     *
+     * @param request the bulk request
+     */
+    void execute(BulkRequest request) {
+        long backoff = esDeepJobConfig.getRetryBackoff();
+
+        for (int attempt = 0; ; attempt++) {
+            BulkRequest rejected = new BulkRequest();
+
+            try {
+                BulkResponse response = client.bulk(request).actionGet();
+                for (BulkItemResponse item : response.getItems()) {
+                    if (!item.isFailed()) {
+                        continue;
+                    }
+                    if (isRejected(item.getFailure())) {
+                        rejected.add(request.requests().get(item.getItemId()));
+                    } else {
+                        fail(item.getFailureMessage());
+                        return;
+                    }
+                }
+            } catch (ElasticsearchException e) {
+                if (!(ExceptionsHelper.unwrapCause(e) instanceof EsRejectedExecutionException)) {
+                    fail(e.getMessage());
+                    return;
+                }
+                rejected = request;
+            }
+
+            if (rejected.numberOfActions() == 0) {
+                return;
+            }
+            if (attempt >= esDeepJobConfig.getMaxRetries()) {
+                fail(rejected.numberOfActions() + " documents still rejected after " + attempt + " retries");
+                return;
+            }
+
+            LOG.debug(rejected.numberOfActions() + " documents rejected, retrying in " + backoff + " ms");
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted while retrying rejected documents");
+                return;
+            }
+            backoff *= 2;
+            request = rejected;
+        }
+    }
+
+    /**
+     * Checks if a document was rejected because the bulk queue of the node was full.
+     *
+     * @param failure the failure
+     * @return the boolean
+     */
+    static boolean isRejected(BulkItemResponse.Failure failure) {
+        return failure.getStatus() == RestStatus.TOO_MANY_REQUESTS
+                || (failure.getMessage() != null
+                && failure.getMessage().contains(EsRejectedExecutionException.class.getSimpleName()));
+    }
+
+    /**
+     * Records a failure, keeping the first one.
+     *
+     * @param message the failure message
+     */
+    private void fail(String message) {
+        LOG.error("bulk request failed: " + message);
+        if (failure == null) {
+            failure = message;
+        }
+    }
+
+    /**
+     * Throws if a bulk request has failed.
+     */
+    private void checkFailure() {
+        if (failure != null) {
+            throw new DeepGenericException("could not write to " + esDeepJobConfig.getIndex() + ": " + failure);
+        }
+    }
+
+    /**
+     * Sends the pending documents, waits for every bulk request and releases the client.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+            executor.shutdown();
+            if (!executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                throw new DeepGenericException("timeout waiting for the bulk requests");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeepGenericException(e);
+        } finally {
+            executor.shutdownNow();
+            client.close();
+        }
+        checkFailure();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.es.aggregation;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.es.config.ESDeepJobConfig;
+
+@Test(groups = { "UnitTests" })
+public class ESAggregationTest {
+
+    private static Map<String, Object> toMap(List<AbstractAggregationBuilder> aggregations) throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        for (AbstractAggregationBuilder aggregation : aggregations) {
+            aggregation.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        }
+        builder.endObject();
+        return XContentHelper.convertToMap(builder.bytes(), true).v2();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGroupedAggregations() throws IOException {
+        ESAggregation aggregation = new ESAggregation(new ESDeepJobConfig<>(Cells.class))
+                .groupBy("host", "status").count().sum("bytes").max("bytes").cardinality("client");
+
+        Map<String, Object> outer = (Map<String, Object>) toMap(aggregation.buildAggregations()).get("group_0");
+        assertEquals(((Map) outer.get("terms")).get("field"), "host");
+        assertEquals(((Map) outer.get("terms")).get("size"), 0);
+        assertEquals(((Map) outer.get("terms")).get("collect_mode"), "breadth_first");
+
+        Map<String, Object> inner = (Map<String, Object>) ((Map) outer.get("aggregations")).get("group_1");
+        assertEquals(((Map) inner.get("terms")).get("field"), "status");
+        assertFalse(((Map) inner.get("terms")).containsKey("collect_mode"));
+
+        Map<String, Object> metrics = (Map<String, Object>) inner.get("aggregations");
+        assertEquals(metrics.size(), 2);
+        assertEquals(((Map) ((Map) metrics.get("stats_bytes")).get("stats")).get("field"), "bytes");
+        assertEquals(((Map) ((Map) metrics.get("cardinality_client")).get("cardinality")).get("field"), "client");
+    }
+
+    @Test
+    public void testUngroupedAggregations() throws IOException {
+        ESAggregation aggregation = new ESAggregation(new ESDeepJobConfig<>(Cells.class)).avg("bytes").size(10);
+
+        Map<String, Object> aggregations = toMap(aggregation.buildAggregations());
+        assertEquals(aggregations.size(), 1);
+        assertTrue(aggregations.containsKey("stats_bytes"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsupportedFunction() {
+        new ESAggregation(new ESDeepJobConfig<>(Cells.class)).metric("median", "bytes");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFunctionWithoutField() {
+        new ESAggregation(new ESDeepJobConfig<>(Cells.class)).metric("sum", null);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.es.writer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.rest.RestStatus;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.commons.exception.DeepGenericException;
+import com.stratio.deep.es.config.ESDeepJobConfig;
+
+@Test(groups = { "UnitTests" })
+public class ESBulkWriterTest {
+
+    private static final String INDEX = "book";
+
+    private static final String TYPE = "test";
+
+    private ESDeepJobConfig<Cells> createConfig() {
+        ESDeepJobConfig<Cells> config = new ESDeepJobConfig<>(Cells.class);
+        config.index(INDEX).type(TYPE);
+        config.bulkActions(2).maxRetries(2).retryBackoff(1);
+        return config;
+    }
+
+    private static BulkItemResponse indexed(int itemId) {
+        return new BulkItemResponse(itemId, "index", new IndexResponse(INDEX, TYPE, "id" + itemId, 1, true));
+    }
+
+    private static BulkItemResponse failed(int itemId, RestStatus status) {
+        return new BulkItemResponse(itemId, "index",
+                new BulkItemResponse.Failure(INDEX, TYPE, "id" + itemId, "failure " + itemId, status));
+    }
+
+    /**
+     * Mocks a client answering the given responses in order, recording the documents of every bulk request.
+     */
+    private static Client mockClient(final List<List<ActionRequest>> sent, BulkResponse... responses) {
+        final LinkedList<BulkResponse> pending = new LinkedList<>(Arrays.asList(responses));
+
+        Client client = mock(Client.class);
+        when(client.bulk(any(BulkRequest.class))).thenAnswer(new Answer<ActionFuture<BulkResponse>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public ActionFuture<BulkResponse> answer(InvocationOnMock invocation) {
+                sent.add(new ArrayList<>(((BulkRequest) invocation.getArguments()[0]).requests()));
+
+                ActionFuture<BulkResponse> future = mock(ActionFuture.class);
+                when(future.actionGet()).thenReturn(pending.poll());
+                return future;
+            }
+        });
+        return client;
+    }
+
+    private static void save(ESBulkWriter writer, String title) throws IOException {
+        writer.save(XContentFactory.jsonBuilder().startObject().field("title", title).endObject(), title, null);
+    }
+
+    @Test
+    public void testFlushByCount() throws IOException {
+        List<List<ActionRequest>> sent = new ArrayList<>();
+        Client client = mockClient(sent,
+                new BulkResponse(new BulkItemResponse[] { indexed(0), indexed(1) }, 1),
+                new BulkResponse(new BulkItemResponse[] { indexed(0) }, 1));
+
+        ESBulkWriter writer = new ESBulkWriter(createConfig(), client);
+        save(writer, "a");
+        save(writer, "b");
+        save(writer, "c");
+        writer.close();
+
+        assertEquals(sent.size(), 2);
+        assertEquals(sent.get(0).size(), 2);
+        assertEquals(sent.get(1).size(), 1);
+
+        IndexRequest first = (IndexRequest) sent.get(0).get(0);
+        assertEquals(first.index(), INDEX);
+        assertEquals(first.type(), TYPE);
+        assertEquals(first.routing(), "a");
+    }
+
+    @Test
+    public void testRetryRejected() {
+        List<List<ActionRequest>> sent = new ArrayList<>();
+        Client client = mockClient(sent,
+                new BulkResponse(new BulkItemResponse[] { indexed(0), failed(1, RestStatus.TOO_MANY_REQUESTS) }, 1),
+                new BulkResponse(new BulkItemResponse[] { indexed(0) }, 1));
+
+        BulkRequest request = new BulkRequest();
+        IndexRequest rejected = new IndexRequest(INDEX, TYPE).source("title", "b");
+        request.add(new IndexRequest(INDEX, TYPE).source("title", "a"));
+        request.add(rejected);
+
+        ESBulkWriter writer = new ESBulkWriter(createConfig(), client);
+        writer.execute(request);
+        writer.close();
+
+        assertEquals(sent.size(), 2);
+        assertEquals(sent.get(1).size(), 1);
+        assertTrue(sent.get(1).get(0) == rejected);
+    }
+
+    @Test(expectedExceptions = DeepGenericException.class)
+    public void testRetriesExhausted() {
+        List<List<ActionRequest>> sent = new ArrayList<>();
+        BulkResponse rejected = new BulkResponse(new BulkItemResponse[] { failed(0, RestStatus.TOO_MANY_REQUESTS) }, 1);
+        Client client = mockClient(sent, rejected, rejected, rejected);
+
+        BulkRequest request = new BulkRequest();
+        request.add(new IndexRequest(INDEX, TYPE).source("title", "a"));
+
+        ESBulkWriter writer = new ESBulkWriter(createConfig(), client);
+        writer.execute(request);
+        assertEquals(sent.size(), 3);
+        writer.close();
+    }
+
+    @Test(expectedExceptions = DeepGenericException.class)
+    public void testOtherFailuresNotRetried() {
+        List<List<ActionRequest>> sent = new ArrayList<>();
+        Client client = mockClient(sent,
+                new BulkResponse(new BulkItemResponse[] { failed(0, RestStatus.BAD_REQUEST) }, 1));
+
+        BulkRequest request = new BulkRequest();
+        request.add(new IndexRequest(INDEX, TYPE).source("title", "a"));
+
+        ESBulkWriter writer = new ESBulkWriter(createConfig(), client);
+        writer.execute(request);
+        assertEquals(sent.size(), 1);
+        writer.close();
+    }
+
+    @Test
+    public void testIsRejected() {
+        assertTrue(ESBulkWriter.isRejected(new BulkItemResponse.Failure(INDEX, TYPE, "1", "rejected",
+                RestStatus.TOO_MANY_REQUESTS)));
+        assertTrue(ESBulkWriter.isRejected(new BulkItemResponse.Failure(INDEX, TYPE, "1",
+                "EsRejectedExecutionException[rejected execution (queue capacity 50)]",
+                RestStatus.INTERNAL_SERVER_ERROR)));
+        assertFalse(ESBulkWriter.isRejected(new BulkItemResponse.Failure(INDEX, TYPE, "1", "MapperParsingException",
+                RestStatus.BAD_REQUEST)));
+    }
+}
@@ -35,6 +35,27 @@ public class CellDeepJobConfigESTest {
         ESDeepJobConfig<Cells> cellDeepJobConfigES = new ESDeepJobConfig(Cells.class);
         assertNotNull(cellDeepJobConfigES);
         assertEquals(cellDeepJobConfigES.getEntityClass(), Cells.class);
+        assertEquals(cellDeepJobConfigES.getClusterName(), "elasticsearch");
+        assertEquals(cellDeepJobConfigES.getTransportPort(), 9300);
+        assertEquals(cellDeepJobConfigES.getPageSize(), 100);
+    }
+
+    @Test
+    public void nativeClientTest() {
+        ESDeepJobConfig<Cells> cellDeepJobConfigES = new ESDeepJobConfig(Cells.class);
+        cellDeepJobConfigES.clusterName("deep").transportPort(9301).pageSize(500);
+
+        assertEquals(cellDeepJobConfigES.getClusterName(), "deep");
+        assertEquals(cellDeepJobConfigES.getTransportPort(), 9301);
+        assertEquals(cellDeepJobConfigES.getPageSize(), 500);
+    }
+
+    @Test
+    public void docValueFieldsTest() {
+        ESDeepJobConfig<Cells> cellDeepJobConfigES = new ESDeepJobConfig(Cells.class);
+        cellDeepJobConfigES.docValueFields("status", "bytes");
+
+        assertEquals(cellDeepJobConfigES.getDocValueFields(), new String[] { "status", "bytes" });
     }
 
 }
\ No newline at end of file
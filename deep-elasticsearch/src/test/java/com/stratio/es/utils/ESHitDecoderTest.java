@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.es.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.StringText;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.search.internal.InternalSearchHit;
+import org.elasticsearch.search.internal.InternalSearchHitField;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.core.entity.BookEntity;
+import com.stratio.deep.core.entity.CantoEntity;
+import com.stratio.deep.es.utils.ESHitDecoder;
+
+@Test(groups = { "UnitTests" })
+public class ESHitDecoderTest {
+
+    private static final String SOURCE = "{\"metadata\":{\"author\":\"ANTE ALIGHIERI\",\"title\":\"THE DIVINE COMEDY\","
+            + "\"source\":\"http://www.gutenberg.org/ebooks/8800\"},"
+            + "\"cantos\":[{\"canto\":\"Canto I\",\"text\":\"text I\"},{\"canto\":\"Canto II\",\"text\":\"text II\"}],"
+            + "\"words\":3,\"extra\":{\"nested\":[1,2,{\"deep\":true}]}}";
+
+    private static SearchHit createHit(Map<String, SearchHitField> fields) {
+        return new InternalSearchHit(0, "1", new StringText("book"), fields).sourceRef(new BytesArray(SOURCE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDecodeCells() throws Exception {
+        Cells cells = new ESHitDecoder().decodeCells(createHit(null), "book.test");
+
+        assertEquals(cells.getnameSpace(), "book.test");
+        assertEquals(cells.size(), 4);
+
+        Cells metadata = (Cells) cells.getCellByName("metadata").getCellValue();
+        assertEquals(metadata.getCellByName("author").getCellValue(), "ANTE ALIGHIERI");
+
+        List<Cells> cantos = (List<Cells>) cells.getCellByName("cantos").getCellValue();
+        assertEquals(cantos.size(), 2);
+        assertEquals(cantos.get(1).getCellByName("text").getCellValue(), "text II");
+
+        assertEquals(cells.getCellByName("words").getCellValue(), 3);
+
+        List<Object> nested = (List<Object>) ((Cells) cells.getCellByName("extra").getCellValue())
+                .getCellByName("nested").getCellValue();
+        assertEquals(nested.get(0), 1);
+        assertEquals(((Cells) nested.get(2)).getCellByName("deep").getCellValue(), true);
+    }
+
+    @Test
+    public void testDecodeRequestedCells() throws Exception {
+        Map<String, SearchHitField> fields = new HashMap<>();
+        fields.put("status", new InternalSearchHitField("status", Collections.<Object>singletonList(200L)));
+
+        Cells cells = new ESHitDecoder("metadata.title", "words", "status").decodeCells(createHit(fields), null);
+
+        assertEquals(cells.size(), 3);
+        Cells metadata = (Cells) cells.getCellByName("metadata").getCellValue();
+        assertEquals(metadata.size(), 1);
+        assertEquals(metadata.getCellByName("title").getCellValue(), "THE DIVINE COMEDY");
+        assertNull(cells.getCellByName("cantos"));
+        assertEquals(cells.getCellByName("status").getCellValue(), 200L);
+    }
+
+    @Test
+    public void testDecodeEntity() throws Exception {
+        BookEntity book = new ESHitDecoder().decodeEntity(BookEntity.class, createHit(null));
+
+        assertEquals(book.getMetadataEntity().getAuthor(), "ANTE ALIGHIERI");
+        assertEquals(book.getMetadataEntity().getSource(), "http://www.gutenberg.org/ebooks/8800");
+
+        List<CantoEntity> cantos = book.getCantoEntities();
+        assertEquals(cantos.size(), 2);
+        assertEquals(cantos.get(0).getNumber(), "Canto I");
+        assertEquals(cantos.get(1).getText(), "text II");
+    }
+
+    @Test
+    public void testDecodeRequestedEntity() throws Exception {
+        BookEntity book = new ESHitDecoder("metadata.author").decodeEntity(BookEntity.class, createHit(null));
+
+        assertEquals(book.getMetadataEntity().getAuthor(), "ANTE ALIGHIERI");
+        assertNull(book.getMetadataEntity().getTitle());
+        assertNull(book.getCantoEntities());
+    }
+}
@@ -20,17 +20,21 @@ import static com.stratio.deep.es.utils.UtilES.generateQuery;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.hadoop.io.ArrayWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.hadoop.mr.LinkedMapWritable;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.json.simple.JSONObject;
@@ -222,6 +226,82 @@ public class UtilESTest {
 
     }
 
+    private Map<String, Object> createSourceTest() {
+        Map<String, Object> source = new LinkedHashMap<>();
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("author", AUTHOR);
+        metadata.put("title", TITLE);
+        metadata.put("source", SOURCE);
+
+        Map<String, Object> cantoI = new LinkedHashMap<>();
+        cantoI.put("canto", CANTO_I);
+        cantoI.put("text", TEXT_I);
+
+        Map<String, Object> cantoII = new LinkedHashMap<>();
+        cantoII.put("canto", CANTO_II);
+        cantoII.put("text", TEXT_II);
+
+        source.put("metadata", metadata);
+        source.put("cantos", Arrays.<Object>asList(cantoI, cantoII));
+
+        return source;
+    }
+
+    @Test
+    public void testGetXContentFromCell() throws IOException {
+
+        Cells metadata = new Cells();
+        metadata.add(Cell.create("author", AUTHOR));
+        metadata.add(Cell.create("title", TITLE));
+        metadata.add(Cell.create("source", SOURCE));
+
+        Cells cantoI = new Cells();
+        cantoI.add(Cell.create("canto", CANTO_I));
+        cantoI.add(Cell.create("text", TEXT_I));
+
+        Cells cantoII = new Cells();
+        cantoII.add(Cell.create("canto", CANTO_II));
+        cantoII.add(Cell.create("text", TEXT_II));
+
+        Cells cells = new Cells("book");
+        cells.add(Cell.create("metadata", metadata));
+        cells.add(Cell.create("cantos", Arrays.asList(cantoI, cantoII)));
+
+        Map<String, Object> source = XContentHelper.convertToMap(UtilES.getXContentFromCell(cells).bytes(), true)
+                .v2();
+
+        assertEquals(source, createSourceTest());
+    }
+
+    @Test
+    public void testGetXContentFromObject()
+            throws IOException, IllegalAccessException, InvocationTargetException, InstantiationException {
+
+        MetadataEntity metadataEntity = new MetadataEntity();
+        metadataEntity.setAuthor(AUTHOR);
+        metadataEntity.setTitle(TITLE);
+        metadataEntity.setSource(SOURCE);
+
+        CantoEntity cantoI = new CantoEntity();
+        cantoI.setNumber(CANTO_I);
+        cantoI.setText(TEXT_I);
+
+        CantoEntity cantoII = new CantoEntity();
+        cantoII.setNumber(CANTO_II);
+        cantoII.setText(TEXT_II);
+
+        BookEntity bookEntity = new BookEntity();
+        bookEntity.setMetadataEntity(metadataEntity);
+        bookEntity.setCantoEntities(Arrays.asList(cantoI, cantoII));
+
+        Map<String, Object> source = XContentHelper.convertToMap(UtilES.getXContentFromObject(bookEntity).bytes(),
+                true).v2();
+
+        assertEquals(source, createSourceTest());
+        assertEquals(UtilES.getFieldValue(bookEntity, "metadata"), bookEntity.getMetadataEntity());
+    }
+
     @Test
     public void testGetBsonFromCell()
             throws UnknownHostException, NoSuchFieldException, IllegalAccessException, InvocationTargetException,
@@ -312,4 +392,56 @@ public class UtilESTest {
         assertTrue(true, "true");
     }
 
+    @Test
+    public void testGenerateFilter() throws IOException {
+
+        Filter eq = new Filter("level", FilterType.EQ, "ERROR");
+        Filter neq = new Filter("host", FilterType.NEQ, "localhost");
+        Filter gte = new Filter("bytes", FilterType.GTE, 1024);
+        Filter in = new Filter("status", FilterType.IN, new ArrayList<>(Arrays.asList(500, 503)));
+        Filter between = new Filter("timestamp", FilterType.BETWEEN, new ArrayList<>(Arrays.asList(10L, 20L)));
+        Filter match = new Filter("message", FilterType.MATCH, "timeout");
+
+        Map<String, Object> bool = (Map<String, Object>) XContentHelper.convertToMap(
+                UtilES.generateFilter(eq, neq, gte, in, between, match).buildAsBytes(), true).v2().get("bool");
+
+        List<Map<String, Object>> must = (List<Map<String, Object>>) bool.get("must");
+        assertEquals(must.size(), 5);
+        assertEquals(((Map) ((Map) ((Map) must.get(0).get("query")).get("match")).get("level")).get("query"), "ERROR");
+        assertEquals(((Map) ((Map) must.get(1).get("range")).get("bytes")).get("from"), 1024);
+        assertEquals(((Map) must.get(2).get("terms")).get("status"), Arrays.asList(500, 503));
+
+        Map<String, Object> range = (Map<String, Object>) ((Map) must.get(3).get("range")).get("timestamp");
+        assertEquals(range.get("from"), 10);
+        assertEquals(range.get("to"), 20);
+        assertEquals(range.get("include_lower"), true);
+        assertEquals(range.get("include_upper"), true);
+
+        assertTrue(((Map) must.get(4).get("query")).containsKey("match"));
+
+        Map<String, Object> mustNot = (Map<String, Object>) ((Map) ((Map) bool.get("must_not")).get("query")).get("match");
+        assertEquals(((Map) mustNot.get("host")).get("query"), "localhost");
+
+        assertTrue(UtilES.generateFilteredQuery(eq).contains("\"filtered\""));
+    }
+
+    @Test
+    public void testGenerateFilterEqualityKeepsMatchSemanticsOnStrings() throws IOException {
+
+        Map<String, Object> bool = (Map<String, Object>) XContentHelper.convertToMap(UtilES.generateFilter(
+                new Filter("title", FilterType.EQ, "Hamlet, Prince of Denmark"),
+                new Filter("year", FilterType.EQ, 1603)).buildAsBytes(), true).v2().get("bool");
+
+        List<Map<String, Object>> must = (List<Map<String, Object>>) bool.get("must");
+        assertEquals(must.size(), 2);
+        Map<String, Object> match = (Map<String, Object>) ((Map) must.get(0).get("query")).get("match");
+        assertEquals(((Map) match.get("title")).get("query"), "Hamlet, Prince of Denmark");
+        assertEquals(((Map) must.get(1).get("term")).get("year"), 1603);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testGenerateFilterBetweenNeedsTwoBounds() {
+        UtilES.generateFilter(new Filter("timestamp", FilterType.BETWEEN, 10L));
+    }
+
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.jdbc.aggregation;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.rdd.RDD;
+
+import com.stratio.deep.commons.entity.Cell;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+
+import scala.Tuple2;
+
+/**
+ * Merges the partial aggregates computed by each JDBC partition.
+ * <p>
+ * Every partition runs the aggregation over its own range, so the query returns one partial result per group and
+ * partition. Partial results of the same group are combined on the Spark side: counts and sums are added, minimums
+ * and maximums are compared, and averages are computed from their partial sums and counts.
+ */
+public class JdbcAggregateMerger implements Function2<Cells, Cells, Cells> {
+
+    private static final long serialVersionUID = 7396628317205006834L;
+
+    /**
+     * The group by columns.
+     */
+    private final List<String> groupBy;
+
+    /**
+     * The aggregations.
+     */
+    private final List<JdbcAggregation> aggregations;
+
+    /**
+     * Instantiates a new JdbcAggregateMerger.
+     * @param groupBy Group by columns.
+     * @param aggregations Aggregations.
+     */
+    public JdbcAggregateMerger(List<String> groupBy, List<JdbcAggregation> aggregations) {
+        this.groupBy = groupBy;
+        this.aggregations = aggregations;
+    }
+
+    /**
+     * Merges the partial aggregates of an RDD read with an aggregating configuration. RDDs of configurations without
+     * aggregations are returned as they are.
+     * @param rdd RDD read with the configuration.
+     * @param config JDBC Deep Job configuration.
+     * @return RDD with one element per group.
+     */
+    public static RDD<Cells> merge(RDD<Cells> rdd, JdbcDeepJobConfig<Cells> config) {
+        if (!config.isAggregated()) {
+            return rdd;
+        }
+        final JdbcAggregateMerger merger = new JdbcAggregateMerger(config.getGroupBy(), config.getAggregations());
+
+        return rdd.toJavaRDD().mapToPair(new PairFunction<Cells, List<Object>, Cells>() {
+            @Override
+            public Tuple2<List<Object>, Cells> call(Cells cells) {
+                return new Tuple2<>(merger.getGroupKey(cells), cells);
+            }
+        }).reduceByKey(merger).values().map(new Function<Cells, Cells>() {
+            @Override
+            public Cells call(Cells cells) {
+                return merger.complete(cells);
+            }
+        }).rdd();
+    }
+
+    /**
+     * Returns the values of the group by columns of a partial result.
+     * @param cells Partial result.
+     * @return Group key.
+     */
+    List<Object> getGroupKey(Cells cells) {
+        List<Object> key = new ArrayList<>(groupBy.size());
+        for (String column : groupBy) {
+            Cell cell = getCell(cells, column);
+            key.add(cell != null ? cell.getCellValue() : null);
+        }
+        return key;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cells call(Cells left, Cells right) {
+        Cells merged = new Cells(left.getnameSpace());
+        for (String column : groupBy) {
+            merged.add(getCell(left, column));
+        }
+        for (JdbcAggregation aggregation : aggregations) {
+            String alias = aggregation.getAlias();
+            switch (aggregation.getFunction()) {
+            case AVG:
+                String sum = alias + JdbcAggregation.AVG_SUM_SUFFIX;
+                String count = alias + JdbcAggregation.AVG_COUNT_SUFFIX;
+                merged.add(Cell.create(sum, add(getValue(left, sum), getValue(right, sum))));
+                merged.add(Cell.create(count, add(getValue(left, count), getValue(right, count))));
+                break;
+            default:
+                merged.add(Cell.create(alias, combine(aggregation.getFunction(), getValue(left, alias),
+                        getValue(right, alias))));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Computes the final result of a group: averages are divided and their partial columns removed.
+     * @param cells Merged partial result.
+     * @return Final result.
+     */
+    Cells complete(Cells cells) {
+        Cells result = new Cells(cells.getnameSpace());
+        for (String column : groupBy) {
+            result.add(getCell(cells, column));
+        }
+        for (JdbcAggregation aggregation : aggregations) {
+            String alias = aggregation.getAlias();
+            if (aggregation.getFunction() == JdbcAggregation.Function.AVG) {
+                Object sum = getValue(cells, alias + JdbcAggregation.AVG_SUM_SUFFIX);
+                Object count = getValue(cells, alias + JdbcAggregation.AVG_COUNT_SUFFIX);
+                result.add(Cell.create(alias, divide(sum, count)));
+            } else {
+                result.add(Cell.create(alias, getValue(cells, alias)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Combines two partial results of a function.
+     * @param function Aggregate function.
+     * @param left Left partial result.
+     * @param right Right partial result.
+     * @return Combined result.
+     */
+    static Object combine(JdbcAggregation.Function function, Object left, Object right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        switch (function) {
+        case COUNT:
+        case SUM:
+            return add(left, right);
+        case MIN:
+            return compare(left, right) <= 0 ? left : right;
+        case MAX:
+            return compare(left, right) >= 0 ? left : right;
+        default:
+            throw new IllegalArgumentException("Function " + function + " cannot be combined directly");
+        }
+    }
+
+    /**
+     * Adds two partial sums, keeping the type returned by the database.
+     */
+    private static Object add(Object left, Object right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left instanceof BigDecimal || right instanceof BigDecimal) {
+            return toDecimal(left).add(toDecimal(right));
+        }
+        if (left instanceof BigInteger || right instanceof BigInteger) {
+            return toDecimal(left).add(toDecimal(right)).toBigInteger();
+        }
+        if (left instanceof Double || left instanceof Float || right instanceof Double || right instanceof Float) {
+            return ((Number) left).doubleValue() + ((Number) right).doubleValue();
+        }
+        long sum = ((Number) left).longValue() + ((Number) right).longValue();
+        if (left instanceof Integer && right instanceof Integer && sum >= Integer.MIN_VALUE
+                && sum <= Integer.MAX_VALUE) {
+            return (int) sum;
+        }
+        return sum;
+    }
+
+    /**
+     * Divides the sum of an average by its count.
+     */
+    private static Object divide(Object sum, Object count) {
+        if (sum == null || count == null || ((Number) count).longValue() == 0) {
+            return null;
+        }
+        if (sum instanceof BigDecimal || sum instanceof BigInteger) {
+            return toDecimal(sum).divide(toDecimal(count), MathContext.DECIMAL64);
+        }
+        return ((Number) sum).doubleValue() / ((Number) count).doubleValue();
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        return BigDecimal.valueOf(((Number) value).longValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return toDecimal(left).compareTo(toDecimal(right));
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    private static Object getValue(Cells cells, String name) {
+        Cell cell = getCell(cells, name);
+        return cell != null ? cell.getCellValue() : null;
+    }
+
+    /**
+     * Gets a cell by name, ignoring case as databases may change the case of unquoted aliases.
+     */
+    private static Cell getCell(Cells cells, String name) {
+        Cell cell = cells.getCellByName(name);
+        if (cell == null) {
+            for (Cell candidate : cells.getCells()) {
+                if (name.equalsIgnoreCase(candidate.getCellName())) {
+                    return candidate;
+                }
+            }
+        }
+        return cell;
+    }
+}
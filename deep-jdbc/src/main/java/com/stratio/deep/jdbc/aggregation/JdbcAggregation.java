@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.jdbc.aggregation;
+
+import java.io.Serializable;
+
+/**
+ * Aggregate expression pushed down to the query of every JDBC partition. Only decomposable functions are supported,
+ * so that the partial results of the partitions can be merged by {@link JdbcAggregateMerger}. AVG is computed from a
+ * partial SUM and COUNT.
+ */
+public class JdbcAggregation implements Serializable {
+
+    private static final long serialVersionUID = -6203563018846270318L;
+
+    /**
+     * Suffix of the partial sum column of an average.
+     */
+    public static final String AVG_SUM_SUFFIX = "_sum";
+
+    /**
+     * Suffix of the partial count column of an average.
+     */
+    public static final String AVG_COUNT_SUFFIX = "_count";
+
+    /**
+     * Supported aggregate functions.
+     */
+    public enum Function {
+        COUNT, SUM, MIN, MAX, AVG
+    }
+
+    /**
+     * Aggregate function.
+     */
+    private final Function function;
+
+    /**
+     * Aggregated column, null for COUNT(*).
+     */
+    private final String column;
+
+    /**
+     * Name of the result column.
+     */
+    private final String alias;
+
+    /**
+     * Instantiates a new JdbcAggregation.
+     * @param function Aggregate function.
+     * @param column Aggregated column, null for COUNT(*).
+     * @param alias Name of the result column.
+     */
+    public JdbcAggregation(Function function, String column, String alias) {
+        if (function == null) {
+            throw new IllegalArgumentException("Aggregate function must be specified");
+        }
+        if (column == null && function != Function.COUNT) {
+            throw new IllegalArgumentException("Column must be specified for " + function);
+        }
+        if (alias == null || alias.isEmpty()) {
+            throw new IllegalArgumentException("Alias must be specified for " + function + "(" + column + ")");
+        }
+        this.function = function;
+        this.column = column;
+        this.alias = alias;
+    }
+
+    /**
+     * Creates a COUNT(*) aggregation.
+     * @param alias Name of the result column.
+     * @return Aggregation.
+     */
+    public static JdbcAggregation countAll(String alias) {
+        return new JdbcAggregation(Function.COUNT, null, alias);
+    }
+
+    /**
+     * Creates a COUNT aggregation of the non null values of a column.
+     * @param column Aggregated column.
+     * @param alias Name of the result column.
+     * @return Aggregation.
+     */
+    public static JdbcAggregation count(String column, String alias) {
+        return new JdbcAggregation(Function.COUNT, column, alias);
+    }
+
+    /**
+     * Creates a SUM aggregation.
+     * @param column Aggregated column.
+     * @param alias Name of the result column.
+     * @return Aggregation.
+     */
+    public static JdbcAggregation sum(String column, String alias) {
+        return new JdbcAggregation(Function.SUM, column, alias);
+    }
+
+    /**
+     * Creates a MIN aggregation.
+     * @param column Aggregated column.
+     * @param alias Name of the result column.
+     * @return Aggregation.
+     */
+    public static JdbcAggregation min(String column, String alias) {
+        return new JdbcAggregation(Function.MIN, column, alias);
+    }
+
+    /**
+     * Creates a MAX aggregation.
+     * @param column Aggregated column.
+     * @param alias Name of the result column.
+     * @return Aggregation.
+     */
+    public static JdbcAggregation max(String column, String alias) {
+        return new JdbcAggregation(Function.MAX, column, alias);
+    }
+
+    /**
+     * Creates an AVG aggregation.
+     * @param column Aggregated column.
+     * @param alias Name of the result column.
+     * @return Aggregation.
+     */
+    public static JdbcAggregation avg(String column, String alias) {
+        return new JdbcAggregation(Function.AVG, column, alias);
+    }
+
+    /**
+     * Returns the aggregate function.
+     * @return Aggregate function.
+     */
+    public Function getFunction() {
+        return function;
+    }
+
+    /**
+     * Returns the aggregated column.
+     * @return Aggregated column, null for COUNT(*).
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the name of the result column.
+     * @return Name of the result column.
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    @Override
+    public String toString() {
+        return function + "(" + (column != null ? column : "*") + ") AS " + alias;
+    }
+}
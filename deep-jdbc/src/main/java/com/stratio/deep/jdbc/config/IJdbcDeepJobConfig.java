@@ -15,9 +15,12 @@
  */
 package com.stratio.deep.jdbc.config;
 
+import java.util.List;
+
 import com.healthmarketscience.sqlbuilder.SelectQuery;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.DbColumn;
 import com.stratio.deep.commons.config.DeepJobConfig;
+import com.stratio.deep.jdbc.aggregation.JdbcAggregation;
 
 /**
  * Defines the public methods that each Stratio Deep Jdbc configuration object should implement.
@@ -79,7 +82,7 @@ public interface IJdbcDeepJobConfig<T, S extends DeepJobConfig> {
     DbColumn getSort();
 
     /**
-     * Sets the column user for partitioning. Must be a numeric value.
+     * Sets the column used for partitioning. Must be a numeric, decimal, date or timestamp column.
      * @param partitionKey Name of the column used for partitioning.
      * @return Configuration object.
      */
@@ -92,7 +95,8 @@ public interface IJdbcDeepJobConfig<T, S extends DeepJobConfig> {
     DbColumn getPartitionKey();
 
     /**
-     * Sets the upper bound used for partitioning.
+     * Sets the upper bound used for partitioning. If neither bound is set, the bounds are read from the table with
+     * MIN and MAX.
      * @param upperBound Upper bound for partitioning.
      * @return Configuration object.
      */
@@ -148,4 +152,211 @@ public interface IJdbcDeepJobConfig<T, S extends DeepJobConfig> {
      */
     boolean getQuoteSql();
 
+    /**
+     * Sets the number of rows sent to the database in each batch when writing.
+     * @param batchSize Number of rows of each batch.
+     * @return Configuration object.
+     */
+    S batchSize(int batchSize);
+
+    /**
+     * Returns the number of rows sent to the database in each batch when writing.
+     * @return Number of rows of each batch.
+     */
+    int getBatchSize();
+
+    /**
+     * Sets the number of rows written between commits.
+     * @param commitInterval Number of rows of each transaction.
+     * @return Configuration object.
+     */
+    S commitInterval(int commitInterval);
+
+    /**
+     * Returns the number of rows written between commits.
+     * @return Number of rows of each transaction.
+     */
+    int getCommitInterval();
+
+    /**
+     * Sets the number of rows fetched from the database in each round trip when reading.
+     * @param fetchSize Number of rows of each fetch, 0 for the driver default.
+     * @return Configuration object.
+     */
+    S fetchSize(int fetchSize);
+
+    /**
+     * Returns the number of rows fetched from the database in each round trip when reading.
+     * @return Number of rows of each fetch.
+     */
+    int getFetchSize();
+
+    /**
+     * Sets the SQL predicates used for partitioning, each of them defining a partition. When set, the partition key,
+     * bounds and number of partitions are ignored.
+     * @param predicates SQL predicates, as written in a WHERE clause.
+     * @return Configuration object.
+     */
+    S partitionPredicates(String... predicates);
+
+    /**
+     * Returns the SQL predicates used for partitioning.
+     * @return SQL predicates used for partitioning, null if not set.
+     */
+    String[] getPartitionPredicates();
+
+    /**
+     * Sets if partitions bounds are taken from the percentiles of the partition key, so that every partition holds
+     * the same number of rows even if the key is skewed.
+     * @param balancedPartitions True for percentile based partitions.
+     * @return Configuration object.
+     */
+    S balancedPartitions(boolean balancedPartitions);
+
+    /**
+     * Returns if partitions bounds are taken from the percentiles of the partition key.
+     * @return True for percentile based partitions.
+     */
+    boolean getBalancedPartitions();
+
+    /**
+     * Returns if the partitioning bounds have been set by the user.
+     * @return True if any of the partitioning bounds has been set.
+     */
+    boolean hasExplicitBounds();
+
+    /**
+     * Sets the maximum number of pooled connections per executor for this database and user.
+     * @param poolSize Maximum number of connections.
+     * @return Configuration object.
+     */
+    S poolSize(int poolSize);
+
+    /**
+     * Returns the maximum number of pooled connections per executor.
+     * @return Maximum number of connections.
+     */
+    int getPoolSize();
+
+    /**
+     * Sets the minimum number of pooled connections kept open per executor.
+     * @param minPoolSize Minimum number of connections.
+     * @return Configuration object.
+     */
+    S minPoolSize(int minPoolSize);
+
+    /**
+     * Returns the minimum number of pooled connections kept open per executor.
+     * @return Minimum number of connections.
+     */
+    int getMinPoolSize();
+
+    /**
+     * Sets the time after which idle pooled connections are closed.
+     * @param idleTimeout Idle timeout, in milliseconds.
+     * @return Configuration object.
+     */
+    S idleTimeout(long idleTimeout);
+
+    /**
+     * Returns the time after which idle pooled connections are closed.
+     * @return Idle timeout, in milliseconds.
+     */
+    long getIdleTimeout();
+
+    /**
+     * Sets the query used to validate pooled connections before reusing them. If not set, connections are validated
+     * with Connection.isValid.
+     * @param validationQuery Validation query.
+     * @return Configuration object.
+     */
+    S validationQuery(String validationQuery);
+
+    /**
+     * Returns the query used to validate pooled connections.
+     * @return Validation query.
+     */
+    String getValidationQuery();
+
+    /**
+     * Sets the number of prepared statements cached per pooled connection, 0 to disable the cache.
+     * @param statementCacheSize Number of cached statements.
+     * @return Configuration object.
+     */
+    S statementCacheSize(int statementCacheSize);
+
+    /**
+     * Returns the number of prepared statements cached per pooled connection.
+     * @return Number of cached statements.
+     */
+    int getStatementCacheSize();
+
+    /**
+     * Sets the columns the rows are grouped by. The grouping is pushed down to the query of every partition.
+     * @param columns Group by columns.
+     * @return Configuration object.
+     */
+    S groupBy(String... columns);
+
+    /**
+     * Returns the columns the rows are grouped by.
+     * @return Group by columns, empty if not grouping.
+     */
+    List<String> getGroupBy();
+
+    /**
+     * Sets the aggregations computed for every group. They are pushed down to the query of every partition, and the
+     * partial results must be merged with JdbcAggregateMerger.
+     * @param aggregations Aggregations.
+     * @return Configuration object.
+     */
+    S aggregations(JdbcAggregation... aggregations);
+
+    /**
+     * Returns the aggregations computed for every group.
+     * @return Aggregations, empty if not aggregating.
+     */
+    List<JdbcAggregation> getAggregations();
+
+    /**
+     * Checks if the query groups or aggregates rows.
+     * @return True if the query has group by columns or aggregations.
+     */
+    boolean isAggregated();
+
+    /**
+     * Sets if rows are written with the bulk load command of the database (COPY for PostgreSQL, LOAD DATA for MySQL,
+     * CSVREAD for H2) instead of batched inserts. Other databases fall back to batched inserts.
+     * @param bulkLoad True for bulk loading.
+     * @return Configuration object.
+     */
+    S bulkLoad(boolean bulkLoad);
+
+    /**
+     * Returns if rows are written with the bulk load command of the database.
+     * @return True for bulk loading.
+     */
+    boolean getBulkLoad();
+
+    /**
+     * Sets the key columns used to upsert rows. When set, rows whose keys already exist are updated instead of
+     * inserted (MERGE for H2, Oracle and other databases, INSERT ... ON CONFLICT for PostgreSQL and INSERT ... ON
+     * DUPLICATE KEY UPDATE for MySQL).
+     * @param keys Key columns.
+     * @return Configuration object.
+     */
+    S upsertKeys(String... keys);
+
+    /**
+     * Returns the key columns used to upsert rows.
+     * @return Key columns, empty if rows are inserted.
+     */
+    List<String> getUpsertKeys();
+
+    /**
+     * Checks if rows are upserted.
+     * @return True if upsert key columns are set.
+     */
+    boolean isUpsert();
+
 }
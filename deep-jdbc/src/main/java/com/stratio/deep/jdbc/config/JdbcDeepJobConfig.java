@@ -17,6 +17,7 @@ package com.stratio.deep.jdbc.config;
 
 import com.healthmarketscience.sqlbuilder.BinaryCondition;
 import com.healthmarketscience.sqlbuilder.ComboCondition;
+import com.healthmarketscience.sqlbuilder.FunctionCall;
 import com.healthmarketscience.sqlbuilder.SelectQuery;
 import com.healthmarketscience.sqlbuilder.dbspec.Column;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.DbColumn;
@@ -29,10 +30,13 @@ import com.stratio.deep.commons.entity.Cells;
 import com.stratio.deep.commons.exception.DeepGenericException;
 import com.stratio.deep.commons.filter.Filter;
 import com.stratio.deep.commons.filter.FilterType;
+import com.stratio.deep.jdbc.aggregation.JdbcAggregation;
 import com.stratio.deep.jdbc.extractor.JdbcNativeCellExtractor;
 import com.stratio.deep.jdbc.extractor.JdbcNativeEntityExtractor;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -84,7 +88,7 @@ public class JdbcDeepJobConfig<T> extends DeepJobConfig<T, JdbcDeepJobConfig<T>>
     private  DbColumn sort;
 
     /**
-     * Column used for partitioning (must be numeric).
+     * Column used for partitioning (numeric, decimal, date or timestamp).
      */
     private  DbColumn partitionKey;
 
@@ -108,6 +112,81 @@ public class JdbcDeepJobConfig<T> extends DeepJobConfig<T, JdbcDeepJobConfig<T>>
      */
     private boolean quoteSql;
 
+    /**
+     * Number of rows of each write batch.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Number of rows written between commits.
+     */
+    private int commitInterval = 10000;
+
+    /**
+     * Number of rows of each read fetch.
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * Partitioning bounds set by the user.
+     */
+    private boolean explicitBounds = false;
+
+    /**
+     * SQL predicates, one per partition.
+     */
+    private String[] partitionPredicates;
+
+    /**
+     * Percentile based partitioning.
+     */
+    private boolean balancedPartitions = false;
+
+    /**
+     * Maximum number of pooled connections.
+     */
+    private int poolSize = 10;
+
+    /**
+     * Minimum number of pooled connections.
+     */
+    private int minPoolSize = 0;
+
+    /**
+     * Idle timeout of pooled connections, in milliseconds.
+     */
+    private long idleTimeout = 60000;
+
+    /**
+     * Query validating pooled connections.
+     */
+    private String validationQuery;
+
+    /**
+     * Prepared statements cached per pooled connection.
+     */
+    private int statementCacheSize = 20;
+
+    /**
+     * Group by columns.
+     */
+    private List<String> groupBy = new ArrayList<>();
+
+    /**
+     * Aggregations computed for every group.
+     */
+    private List<JdbcAggregation> aggregations = new ArrayList<>();
+
+    /**
+     * Bulk load write mode.
+     */
+    private boolean bulkLoad = false;
+
+    /**
+     * Key columns of the upserted rows.
+     */
+    private List<String> upsertKeys = new ArrayList<>();
+
     /**
      * Default constructor.
      */
@@ -183,6 +262,54 @@ public class JdbcDeepJobConfig<T> extends DeepJobConfig<T, JdbcDeepJobConfig<T>>
         if (values.get(JDBC_PARTITIONS_UPPER_BOUND) != null) {
             upperBound(extractorConfig.getInteger(JDBC_PARTITIONS_UPPER_BOUND));
         }
+
+        if (values.get(BATCHSIZE) != null) {
+            batchSize(extractorConfig.getInteger(BATCHSIZE));
+        }
+
+        if (values.get(JDBC_COMMIT_INTERVAL) != null) {
+            commitInterval(extractorConfig.getInteger(JDBC_COMMIT_INTERVAL));
+        }
+
+        if (values.get(JDBC_FETCH_SIZE) != null) {
+            fetchSize(extractorConfig.getInteger(JDBC_FETCH_SIZE));
+        }
+
+        if (values.get(JDBC_PARTITION_PREDICATES) != null) {
+            partitionPredicates(extractorConfig.getStringArray(JDBC_PARTITION_PREDICATES));
+        }
+
+        if (values.get(JDBC_BALANCED_PARTITIONS) != null) {
+            balancedPartitions(extractorConfig.getBoolean(JDBC_BALANCED_PARTITIONS));
+        }
+
+        if (values.get(POOL_SIZE) != null) {
+            poolSize(extractorConfig.getInteger(POOL_SIZE));
+        }
+
+        if (values.get(MIN_POOL_SIZE) != null) {
+            minPoolSize(extractorConfig.getInteger(MIN_POOL_SIZE));
+        }
+
+        if (values.get(IDLE_TIMEOUT) != null) {
+            idleTimeout(extractorConfig.getLong(IDLE_TIMEOUT));
+        }
+
+        if (values.get(JDBC_VALIDATION_QUERY) != null) {
+            validationQuery(extractorConfig.getString(JDBC_VALIDATION_QUERY));
+        }
+
+        if (values.get(JDBC_STATEMENT_CACHE_SIZE) != null) {
+            statementCacheSize(extractorConfig.getInteger(JDBC_STATEMENT_CACHE_SIZE));
+        }
+
+        if (values.get(JDBC_BULK_LOAD) != null) {
+            bulkLoad(extractorConfig.getBoolean(JDBC_BULK_LOAD));
+        }
+
+        if (values.get(JDBC_UPSERT_KEYS) != null) {
+            upsertKeys(extractorConfig.getStringArray(JDBC_UPSERT_KEYS));
+        }
         this.initialize();
 
         return this;
@@ -208,9 +335,27 @@ public class JdbcDeepJobConfig<T> extends DeepJobConfig<T, JdbcDeepJobConfig<T>>
                 throw new IllegalArgumentException("You must specify at least one of connectionUrl or host and port properties");
             }
         }
-        if(partitionKey == null && numPartitions > 1) {
+        if(partitionKey == null && numPartitions > 1 && partitionPredicates == null) {
             throw new IllegalArgumentException("You must define a valid partition key for using more than one partition.");
         }
+        if(batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero");
+        }
+        if(commitInterval <= 0) {
+            throw new IllegalArgumentException("Commit interval must be greater than zero");
+        }
+        if(poolSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be greater than zero");
+        }
+        if(minPoolSize < 0 || minPoolSize > poolSize) {
+            throw new IllegalArgumentException("Min pool size must be between zero and the pool size");
+        }
+        if(fetchSize < 0 && fetchSize != Integer.MIN_VALUE) {
+            throw new IllegalArgumentException("Fetch size must not be negative (except Integer.MIN_VALUE for MySQL streaming)");
+        }
+        if(bulkLoad && isUpsert()) {
+            throw new IllegalArgumentException("Rows cannot be upserted in bulk load mode");
+        }
     }
 
     /**
@@ -229,7 +374,9 @@ public class JdbcDeepJobConfig<T> extends DeepJobConfig<T, JdbcDeepJobConfig<T>>
     public SelectQuery getQuery() {
         SelectQuery selectQuery = new SelectQuery();
         List<DbColumn> columns = dbTable.getColumns();
-        if(!columns.isEmpty()) {
+        if(isAggregated()) {
+            addAggregations(selectQuery);
+        } else if(!columns.isEmpty()) {
             selectQuery.addColumns(columns.toArray(new Column[columns.size()]));
         } else {
             selectQuery.addAllTableColumns(dbTable);
@@ -368,6 +515,7 @@ public class JdbcDeepJobConfig<T> extends DeepJobConfig<T, JdbcDeepJobConfig<T>>
     @Override
     public JdbcDeepJobConfig<T> upperBound(int upperBound) {
         this.upperBound = upperBound;
+        this.explicitBounds = true;
         return this;
     }
 
@@ -385,6 +533,7 @@ public class JdbcDeepJobConfig<T> extends DeepJobConfig<T, JdbcDeepJobConfig<T>>
     @Override
     public JdbcDeepJobConfig<T> lowerBound(int lowerBound) {
         this.lowerBound = lowerBound;
+        this.explicitBounds = true;
         return this;
     }
 
@@ -430,6 +579,310 @@ public class JdbcDeepJobConfig<T> extends DeepJobConfig<T, JdbcDeepJobConfig<T>>
         return this.quoteSql;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> commitInterval(int commitInterval) {
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCommitInterval() {
+        return this.commitInterval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> partitionPredicates(String... predicates) {
+        this.partitionPredicates = predicates;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getPartitionPredicates() {
+        return this.partitionPredicates;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> balancedPartitions(boolean balancedPartitions) {
+        this.balancedPartitions = balancedPartitions;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getBalancedPartitions() {
+        return this.balancedPartitions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasExplicitBounds() {
+        return this.explicitBounds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> poolSize(int poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPoolSize() {
+        return this.poolSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> minPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMinPoolSize() {
+        return this.minPoolSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> idleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getIdleTimeout() {
+        return this.idleTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> validationQuery(String validationQuery) {
+        this.validationQuery = validationQuery;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValidationQuery() {
+        return this.validationQuery;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> statementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStatementCacheSize() {
+        return this.statementCacheSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> groupBy(String... columns) {
+        this.groupBy = new ArrayList<>(Arrays.asList(columns));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getGroupBy() {
+        return this.groupBy;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> aggregations(JdbcAggregation... aggregations) {
+        this.aggregations = new ArrayList<>(Arrays.asList(aggregations));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JdbcAggregation> getAggregations() {
+        return this.aggregations;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAggregated() {
+        return !groupBy.isEmpty() || !aggregations.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> bulkLoad(boolean bulkLoad) {
+        this.bulkLoad = bulkLoad;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getBulkLoad() {
+        return this.bulkLoad;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcDeepJobConfig<T> upsertKeys(String... keys) {
+        this.upsertKeys = new ArrayList<>(Arrays.asList(keys));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getUpsertKeys() {
+        return this.upsertKeys;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isUpsert() {
+        return !upsertKeys.isEmpty();
+    }
+
+    /**
+     * Adds the group by columns and the partial aggregates to the query. Averages are computed from a partial sum
+     * and count, merged by JdbcAggregateMerger.
+     * @param query Query to aggregate.
+     */
+    private void addAggregations(SelectQuery query) {
+        for(String column:groupBy) {
+            DbColumn groupColumn = new DbColumn(dbTable, column, "",null,null);
+            query.addColumns(groupColumn);
+            query.addGroupings(groupColumn);
+        }
+        for(JdbcAggregation aggregation:aggregations) {
+            DbColumn column = aggregation.getColumn() != null ?
+                    new DbColumn(dbTable, aggregation.getColumn(), "",null,null) : null;
+            String alias = aggregation.getAlias();
+            switch (aggregation.getFunction()) {
+            case COUNT:
+                query.addAliasedColumn(column != null ? FunctionCall.count().addColumnParams(column) :
+                        FunctionCall.countAll(), alias);
+                break;
+            case SUM:
+                query.addAliasedColumn(FunctionCall.sum().addColumnParams(column), alias);
+                break;
+            case MIN:
+                query.addAliasedColumn(FunctionCall.min().addColumnParams(column), alias);
+                break;
+            case MAX:
+                query.addAliasedColumn(FunctionCall.max().addColumnParams(column), alias);
+                break;
+            case AVG:
+                query.addAliasedColumn(FunctionCall.sum().addColumnParams(column),
+                        alias + JdbcAggregation.AVG_SUM_SUFFIX);
+                query.addAliasedColumn(FunctionCall.count().addColumnParams(column),
+                        alias + JdbcAggregation.AVG_COUNT_SUFFIX);
+                break;
+            default:
+                throw new UnsupportedOperationException("Aggregate function " + aggregation.getFunction()
+                        + " is not supported");
+            }
+        }
+    }
+
     private String getJdbcUrl() {
         StringBuilder sb = new StringBuilder();
         sb.append("jdbc:");
@@ -21,14 +21,24 @@ import com.healthmarketscience.sqlbuilder.dbspec.basic.DbColumn;
 import com.stratio.deep.commons.config.DeepJobConfig;
 import com.stratio.deep.commons.config.ExtractorConfig;
 import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.jdbc.aggregation.JdbcAggregation;
 import com.stratio.deep.jdbc.extractor.JdbcNeo4JNativeCellExtractor;
 import com.stratio.deep.jdbc.extractor.JdbcNeo4JNativeEntityExtractor;
 import org.neo4j.jdbc.Driver;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.BATCHSIZE;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.JDBC_CONNECTION_URL;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.JDBC_COUNT_QUERY;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.JDBC_MERGE_QUERY;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.JDBC_NUM_PARTITIONS;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.JDBC_PARTITIONS_LOWER_BOUND;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.JDBC_PARTITIONS_UPPER_BOUND;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.JDBC_PARTITION_PROPERTY;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.JDBC_QUERY;
 
 /**
@@ -66,6 +76,31 @@ public class JdbcNeo4JDeepJobConfig<T> extends DeepJobConfig<T, JdbcNeo4JDeepJob
      */
     private int numPartitions = 1;
 
+    /**
+     * True if the partition bounds have been set by the user.
+     */
+    private boolean explicitBounds = false;
+
+    /**
+     * Property whose value ranges are read by each partition.
+     */
+    private String partitionProperty;
+
+    /**
+     * Cypher query counting the rows to be split in pages.
+     */
+    private String countQuery;
+
+    /**
+     * Cypher statement writing each row of an UNWIND batch.
+     */
+    private String mergeQuery;
+
+    /**
+     * Number of rows sent in each UNWIND batch.
+     */
+    private int batchSize = 1000;
+
     /**
      * Default public constructor.
      */
@@ -105,6 +140,27 @@ public class JdbcNeo4JDeepJobConfig<T> extends DeepJobConfig<T, JdbcNeo4JDeepJob
         if(values.get(JDBC_QUERY) != null) {
             cypherQuery(config.getString(JDBC_QUERY));
         }
+        if(values.get(JDBC_NUM_PARTITIONS) != null) {
+            numPartitions(config.getInteger(JDBC_NUM_PARTITIONS));
+        }
+        if(values.get(JDBC_PARTITIONS_LOWER_BOUND) != null) {
+            lowerBound(config.getInteger(JDBC_PARTITIONS_LOWER_BOUND));
+        }
+        if(values.get(JDBC_PARTITIONS_UPPER_BOUND) != null) {
+            upperBound(config.getInteger(JDBC_PARTITIONS_UPPER_BOUND));
+        }
+        if(values.get(JDBC_PARTITION_PROPERTY) != null) {
+            partitionProperty(config.getString(JDBC_PARTITION_PROPERTY));
+        }
+        if(values.get(JDBC_COUNT_QUERY) != null) {
+            countQuery(config.getString(JDBC_COUNT_QUERY));
+        }
+        if(values.get(JDBC_MERGE_QUERY) != null) {
+            mergeQuery(config.getString(JDBC_MERGE_QUERY));
+        }
+        if(values.get(BATCHSIZE) != null) {
+            batchSize(config.getInteger(BATCHSIZE));
+        }
         super.initialize(config);
         return this;
     }
@@ -116,6 +172,12 @@ public class JdbcNeo4JDeepJobConfig<T> extends DeepJobConfig<T, JdbcNeo4JDeepJob
         if(cypherQuery == null || cypherQuery.isEmpty()) {
             throw new IllegalArgumentException("You must specify the Cypher query to execute.");
         }
+        if(numPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be greater than zero");
+        }
+        if(batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero");
+        }
     }
 
     /**
@@ -204,7 +266,9 @@ public class JdbcNeo4JDeepJobConfig<T> extends DeepJobConfig<T, JdbcNeo4JDeepJob
      */
     @Override
     public JdbcNeo4JDeepJobConfig<T> upperBound(int upperBound) {
-        throw new UnsupportedOperationException("Cannot configure partitioning for Neo4J extractor");
+        this.upperBound = upperBound;
+        this.explicitBounds = true;
+        return this;
     }
 
     /**
@@ -225,6 +289,64 @@ public class JdbcNeo4JDeepJobConfig<T> extends DeepJobConfig<T, JdbcNeo4JDeepJob
         return this.cypherQuery;
     }
 
+    /**
+     * Sets the property whose value ranges are read by each partition, e.g. id(n) or n.id. It must be in scope in the
+     * last RETURN clause of the Cypher query. If not set, each partition reads a page of the results with SKIP and
+     * LIMIT.
+     * @param partitionProperty Partition property.
+     * @return Configuration object.
+     */
+    public JdbcNeo4JDeepJobConfig<T> partitionProperty(String partitionProperty) {
+        this.partitionProperty = partitionProperty;
+        return this;
+    }
+
+    /**
+     * Returns the property whose value ranges are read by each partition.
+     * @return Partition property, null if partitions read pages of the results.
+     */
+    public String getPartitionProperty() {
+        return this.partitionProperty;
+    }
+
+    /**
+     * Sets the Cypher query counting the rows to be split in pages. If not set, the last RETURN clause of the Cypher
+     * query is replaced with RETURN count(*).
+     * @param countQuery Count query, returning a single number.
+     * @return Configuration object.
+     */
+    public JdbcNeo4JDeepJobConfig<T> countQuery(String countQuery) {
+        this.countQuery = countQuery;
+        return this;
+    }
+
+    /**
+     * Returns the Cypher query counting the rows to be split in pages.
+     * @return Count query.
+     */
+    public String getCountQuery() {
+        return this.countQuery;
+    }
+
+    /**
+     * Sets the Cypher statement writing each saved row, which is bound to the row identifier. Rows are sent in batches
+     * of {@link #getBatchSize()} rows with UNWIND, e.g. MERGE (p:Person {id: row.id}) SET p += row.
+     * @param mergeQuery Statement writing a row.
+     * @return Configuration object.
+     */
+    public JdbcNeo4JDeepJobConfig<T> mergeQuery(String mergeQuery) {
+        this.mergeQuery = mergeQuery;
+        return this;
+    }
+
+    /**
+     * Returns the Cypher statement writing each saved row.
+     * @return Statement writing a row.
+     */
+    public String getMergeQuery() {
+        return this.mergeQuery;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -238,7 +360,8 @@ public class JdbcNeo4JDeepJobConfig<T> extends DeepJobConfig<T, JdbcNeo4JDeepJob
      */
     @Override
     public JdbcNeo4JDeepJobConfig<T> numPartitions(int numPartitions) {
-        throw new UnsupportedOperationException("Cannot configure partitioning for Neo4J extractor");
+        this.numPartitions = numPartitions;
+        return this;
     }
 
     /**
@@ -286,7 +409,258 @@ public class JdbcNeo4JDeepJobConfig<T> extends DeepJobConfig<T, JdbcNeo4JDeepJob
      */
     @Override
     public JdbcNeo4JDeepJobConfig<T> lowerBound(int lowerBound) {
+        this.lowerBound = lowerBound;
+        this.explicitBounds = true;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> commitInterval(int commitInterval) {
+        throw new UnsupportedOperationException("Cannot configure writing for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCommitInterval() {
+        throw new UnsupportedOperationException("Cannot configure writing for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> fetchSize(int fetchSize) {
+        throw new UnsupportedOperationException("Cannot configure fetch size for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFetchSize() {
+        throw new UnsupportedOperationException("Cannot configure fetch size for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> partitionPredicates(String... predicates) {
         throw new UnsupportedOperationException("Cannot configure partitioning for Neo4J extractor");
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getPartitionPredicates() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> balancedPartitions(boolean balancedPartitions) {
+        throw new UnsupportedOperationException("Cannot configure partitioning for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getBalancedPartitions() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasExplicitBounds() {
+        return this.explicitBounds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> poolSize(int poolSize) {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPoolSize() {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> minPoolSize(int minPoolSize) {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMinPoolSize() {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> idleTimeout(long idleTimeout) {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getIdleTimeout() {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> validationQuery(String validationQuery) {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValidationQuery() {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> statementCacheSize(int statementCacheSize) {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStatementCacheSize() {
+        throw new UnsupportedOperationException("Cannot configure connection pooling for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> groupBy(String... columns) {
+        throw new UnsupportedOperationException("Cannot configure aggregations for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getGroupBy() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> aggregations(JdbcAggregation... aggregations) {
+        throw new UnsupportedOperationException("Cannot configure aggregations for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JdbcAggregation> getAggregations() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAggregated() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> bulkLoad(boolean bulkLoad) {
+        throw new UnsupportedOperationException("Cannot configure bulk loading for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getBulkLoad() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcNeo4JDeepJobConfig<T> upsertKeys(String... keys) {
+        throw new UnsupportedOperationException("Cannot configure upserts for Neo4J extractor");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getUpsertKeys() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isUpsert() {
+        return false;
+    }
+
 }
@@ -23,11 +23,12 @@ import com.stratio.deep.commons.exception.DeepGenericException;
 import com.stratio.deep.commons.querybuilder.UpdateQueryBuilder;
 import com.stratio.deep.commons.rdd.IExtractor;
 import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.partition.JdbcPartitioner;
 import com.stratio.deep.jdbc.reader.IJdbcReader;
 import com.stratio.deep.jdbc.reader.JdbcReader;
+import com.stratio.deep.jdbc.writer.JdbcBulkWriter;
 import com.stratio.deep.jdbc.writer.JdbcWriter;
 import org.apache.spark.Partition;
-import org.apache.spark.rdd.JdbcPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,17 +67,11 @@ public abstract class JdbcNativeExtractor<T, S extends BaseConfig> implements IE
     public Partition[] getPartitions(S config) {
         jdbcDeepJobConfig = initConfig(config, jdbcDeepJobConfig);
 
-        int upperBound = jdbcDeepJobConfig.getUpperBound();
-        int lowerBound = jdbcDeepJobConfig.getLowerBound();
-        int numPartitions = jdbcDeepJobConfig.getNumPartitions();
-        int length = 1 + upperBound - lowerBound;
-        Partition [] result = new Partition[numPartitions];
-        for(int i=0; i<numPartitions; i++) {
-            int start = lowerBound + lowerBound + ((i * length) / numPartitions);
-            int end = lowerBound + (((i + 1) * length) / numPartitions) - 1;
-            result[i] = new JdbcPartition(i, start, end);
+        try {
+            return new JdbcPartitioner(jdbcDeepJobConfig).getPartitions();
+        } catch(Exception e) {
+            throw new DeepGenericException("Unable to compute JDBC partitions", e);
         }
-        return result;
     }
 
     /**
@@ -119,7 +114,7 @@ public abstract class JdbcNativeExtractor<T, S extends BaseConfig> implements IE
             try {
                 jdbcWriter.close();
             } catch(Exception e) {
-                LOG.error("Unable to close jdbcWriter", e);
+                throw new DeepGenericException("Unable to write pending rows and close jdbcWriter", e);
             }
         }
     }
@@ -167,7 +162,11 @@ public abstract class JdbcNativeExtractor<T, S extends BaseConfig> implements IE
         jdbcDeepJobConfig = initConfig(config, jdbcDeepJobConfig);
 
         try {
-            this.jdbcWriter = new JdbcWriter<>(jdbcDeepJobConfig);
+            if(jdbcDeepJobConfig.getBulkLoad()) {
+                this.jdbcWriter = new JdbcBulkWriter<>(jdbcDeepJobConfig);
+            } else {
+                this.jdbcWriter = new JdbcWriter<>(jdbcDeepJobConfig);
+            }
         } catch(Exception e) {
             throw new DeepGenericException(e);
         }
@@ -17,10 +17,12 @@ package com.stratio.deep.jdbc.extractor;
 
 import com.stratio.deep.commons.config.BaseConfig;
 import com.stratio.deep.commons.exception.DeepGenericException;
+import com.stratio.deep.commons.querybuilder.UpdateQueryBuilder;
 import com.stratio.deep.jdbc.config.JdbcNeo4JDeepJobConfig;
+import com.stratio.deep.jdbc.partition.JdbcNeo4JPartitioner;
 import com.stratio.deep.jdbc.reader.JdbcNeo4JReader;
+import com.stratio.deep.jdbc.writer.JdbcNeo4JWriter;
 import org.apache.spark.Partition;
-import org.apache.spark.rdd.JdbcPartition;
 
 import java.util.Map;
 
@@ -43,11 +45,13 @@ public abstract class JdbcNeo4JNativeExtractor<T, S extends BaseConfig> extends
      */
     @Override
     public Partition[] getPartitions(S config){
-        JdbcNeo4JDeepJobConfig neo4jConfig = (JdbcNeo4JDeepJobConfig)config;
-        JdbcPartition partition = new JdbcPartition(0, neo4jConfig.getLowerBound(), neo4jConfig.getUpperBound());
-        Partition [] result = new Partition[1];
-        result[0] = partition;
-        return result;
+        jdbcNeo4JDeepJobConfig = initConfig(config, jdbcNeo4JDeepJobConfig);
+
+        try {
+            return new JdbcNeo4JPartitioner(jdbcNeo4JDeepJobConfig).getPartitions();
+        } catch(Exception e) {
+            throw new DeepGenericException("Unable to compute Neo4J partitions", e);
+        }
     }
 
     /**
@@ -64,6 +68,19 @@ public abstract class JdbcNeo4JNativeExtractor<T, S extends BaseConfig> extends
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initSave(S config, T first, UpdateQueryBuilder queryBuilder) {
+        jdbcNeo4JDeepJobConfig = initConfig(config, jdbcNeo4JDeepJobConfig);
+        try {
+            this.jdbcWriter = new JdbcNeo4JWriter<>(jdbcNeo4JDeepJobConfig);
+        } catch(Exception e) {
+            throw new DeepGenericException(e);
+        }
+    }
+
     @Override
     protected abstract T transformElement(Map<String, Object> entity);
 
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.partition;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.spark.Partition;
+import org.apache.spark.rdd.JdbcPartition;
+import org.neo4j.jdbc.Driver;
+
+import com.stratio.deep.jdbc.config.JdbcNeo4JDeepJobConfig;
+
+/**
+ * Computes the partitions of a Cypher query.
+ * <p>
+ * If a partition property is configured, every partition reads a range of its values: the range between the
+ * configured bounds, or between the minimum and maximum values returned by the query, is split in ranges of the same
+ * length. Otherwise every partition reads a page of the results with SKIP and LIMIT, sized from the number of rows
+ * returned by the count query; the query must then be ordered for the pages to be disjoint.
+ */
+public class JdbcNeo4JPartitioner {
+
+    /**
+     * Last RETURN clause of a Cypher query.
+     */
+    private static final Pattern RETURN = Pattern.compile("\\bRETURN\\b(?!.*\\bRETURN\\b)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * JDBC Neo4J Deep Job configuration.
+     */
+    private final JdbcNeo4JDeepJobConfig<?> config;
+
+    /**
+     * Instantiates a new JdbcNeo4JPartitioner.
+     * @param config JDBC Neo4J Deep Job configuration.
+     */
+    public JdbcNeo4JPartitioner(JdbcNeo4JDeepJobConfig<?> config) {
+        this.config = config;
+    }
+
+    /**
+     * Computes the partitions, running the count or bounds query if needed.
+     * @return Query partitions.
+     * @throws Exception
+     */
+    public Partition[] getPartitions() throws Exception {
+        if (config.getNumPartitions() <= 1 || (config.getPartitionProperty() != null && config.hasExplicitBounds())) {
+            return getPartitions(null);
+        }
+        Class.forName(Driver.class.getCanonicalName());
+        try (Connection conn = DriverManager.getConnection(config.getConnectionUrl(), config.getUsername(),
+                config.getPassword())) {
+            return getPartitions(conn);
+        }
+    }
+
+    /**
+     * Computes the partitions using the given connection to run the count or bounds query.
+     * @param conn JDBC connection, only used if the partitions depend on the results.
+     * @return Query partitions.
+     * @throws SQLException
+     */
+    public Partition[] getPartitions(Connection conn) throws SQLException {
+        int numPartitions = config.getNumPartitions();
+        if (numPartitions <= 1) {
+            return new Partition[] { new JdbcPartition(0, config.getLowerBound(), config.getUpperBound()) };
+        }
+
+        String property = config.getPartitionProperty();
+        if (property != null) {
+            if (config.hasExplicitBounds()) {
+                return JdbcPartitioner.getRangePartitions(JdbcPartitioner.interpolate(
+                        (long) config.getLowerBound(), (long) config.getUpperBound(), numPartitions));
+            }
+            String boundsQuery = replaceReturn(config.getCypherQuery(),
+                    "RETURN min(" + property + "), max(" + property + ")");
+            try (Statement statement = conn.createStatement();
+                 ResultSet resultSet = statement.executeQuery(boundsQuery)) {
+                if (!resultSet.next() || resultSet.getObject(1) == null) {
+                    return JdbcPartitioner.getRangePartitions(new ArrayList<Serializable>());
+                }
+                return JdbcPartitioner.getRangePartitions(JdbcPartitioner.interpolate(resultSet.getObject(1),
+                        resultSet.getObject(2), numPartitions));
+            }
+        }
+
+        long count;
+        try (Statement statement = conn.createStatement(); ResultSet resultSet = statement.executeQuery(getCountQuery())) {
+            resultSet.next();
+            count = ((Number) resultSet.getObject(1)).longValue();
+        }
+        return getPagePartitions(count, numPartitions);
+    }
+
+    /**
+     * Splits the results in pages of the same size. The last page has no limit, so it also reads the rows added after
+     * counting.
+     * @param count Number of rows.
+     * @param numPartitions Number of partitions.
+     * @return Partitions holding the first (inclusive) and last (exclusive) row of every page.
+     */
+    static Partition[] getPagePartitions(long count, int numPartitions) {
+        long pageSize = (count + numPartitions - 1) / numPartitions;
+        Partition[] result = new Partition[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            long end = i == numPartitions - 1 ? Long.MAX_VALUE : (i + 1) * pageSize;
+            result[i] = new JdbcPartition(i, i * pageSize, end);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the query reading a page of the results.
+     * @param query Cypher query.
+     * @param partition Page partition.
+     * @return Paged query.
+     */
+    public static String pageQuery(String query, JdbcPartition partition) {
+        StringBuilder sb = new StringBuilder(query).append(" SKIP ").append(partition.lower());
+        if (partition.upper() != Long.MAX_VALUE) {
+            sb.append(" LIMIT ").append(partition.upper() - partition.lower());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the query reading a range of the partition property. The range is filtered before the last RETURN
+     * clause, so the property must be in scope there. Rows without the property are read by the first range.
+     * @param query Cypher query.
+     * @param property Partition property, e.g. id(n) or n.id.
+     * @param partition Range partition.
+     * @return Filtered query.
+     */
+    public static String rangeQuery(String query, String property, JdbcRangePartition partition) {
+        List<String> conditions = new ArrayList<>();
+        if (partition.getLower() != null) {
+            conditions.add(property + " > " + toCypherValue(partition.getLower()));
+        }
+        if (partition.getUpper() != null) {
+            String upper = property + " <= " + toCypherValue(partition.getUpper());
+            if (partition.getLower() == null) {
+                upper = "(" + property + " IS NULL OR " + upper + ")";
+            }
+            conditions.add(upper);
+        }
+        if (conditions.isEmpty()) {
+            return query;
+        }
+        Matcher matcher = findReturn(query);
+        StringBuilder sb = new StringBuilder(query.substring(0, matcher.start())).append("WITH * WHERE ");
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) {
+                sb.append(" AND ");
+            }
+            sb.append(conditions.get(i));
+        }
+        return sb.append(' ').append(query.substring(matcher.start())).toString();
+    }
+
+    /**
+     * Returns the query counting the results, the configured one or the Cypher query returning count(*).
+     * @return Count query.
+     */
+    private String getCountQuery() {
+        if (config.getCountQuery() != null) {
+            return config.getCountQuery();
+        }
+        return replaceReturn(config.getCypherQuery(), "RETURN count(*)");
+    }
+
+    private static String replaceReturn(String query, String returnClause) {
+        return query.substring(0, findReturn(query).start()) + returnClause;
+    }
+
+    private static Matcher findReturn(String query) {
+        Matcher matcher = RETURN.matcher(query);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Cypher query must end with a RETURN clause: " + query);
+        }
+        return matcher;
+    }
+
+    private static String toCypherValue(Serializable value) {
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        return "'" + value.toString().replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+}
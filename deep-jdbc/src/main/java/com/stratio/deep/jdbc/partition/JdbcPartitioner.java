@@ -0,0 +1,305 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.jdbc.partition;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.spark.Partition;
+import org.apache.spark.rdd.JdbcPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.healthmarketscience.sqlbuilder.dbspec.Column;
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.pool.JdbcConnectionPool;
+
+/**
+ * Computes the partitions of a JDBC table.
+ * <p>
+ * Partitions are computed, in order of preference, from:
+ * <ul>
+ * <li>the SQL predicates of the configuration, one partition per predicate;</li>
+ * <li>the bounds set by the user, split in ranges of the same length (integer keys only);</li>
+ * <li>the bounds read from the table with MIN and MAX, split in ranges of the same length, for numeric, decimal, date
+ * and timestamp keys;</li>
+ * <li>the percentiles of the partition key, so that every partition holds the same number of rows. They are read with
+ * NTILE and, if the database does not support window functions, with one LIMIT/OFFSET query per bound.</li>
+ * </ul>
+ * Automatic ranges are open on both ends, so rows outside the bounds read (or with a null key) are never lost.
+ */
+public class JdbcPartitioner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcPartitioner.class);
+
+    /**
+     * Precision of the decimal bounds.
+     */
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    /**
+     * JDBC Deep Job configuration.
+     */
+    private final JdbcDeepJobConfig<?> config;
+
+    /**
+     * Instantiates a new JdbcPartitioner.
+     * @param config JDBC Deep Job configuration.
+     */
+    public JdbcPartitioner(JdbcDeepJobConfig<?> config) {
+        this.config = config;
+    }
+
+    /**
+     * Computes the partitions, reading the table bounds if needed.
+     * @return Table partitions.
+     * @throws Exception
+     */
+    public Partition[] getPartitions() throws Exception {
+        if (!needsTableBounds()) {
+            return getPartitions(null);
+        }
+        try (Connection conn = JdbcConnectionPool.getConnection(config)) {
+            return getPartitions(conn);
+        }
+    }
+
+    /**
+     * Computes the partitions using the given connection to read the table bounds.
+     * @param conn JDBC connection, only used for automatic bounds.
+     * @return Table partitions.
+     * @throws SQLException
+     */
+    public Partition[] getPartitions(Connection conn) throws SQLException {
+        String[] predicates = config.getPartitionPredicates();
+        if (predicates != null && predicates.length > 0) {
+            Partition[] result = new Partition[predicates.length];
+            for (int i = 0; i < predicates.length; i++) {
+                result[i] = new JdbcPredicatePartition(i, predicates[i]);
+            }
+            return result;
+        }
+
+        if (!needsTableBounds()) {
+            return getFixedPartitions(config.getLowerBound(), config.getUpperBound(), config.getNumPartitions());
+        }
+
+        List<Serializable> bounds;
+        if (config.getBalancedPartitions()) {
+            bounds = readPercentiles(conn);
+        } else {
+            bounds = readInterpolatedBounds(conn);
+        }
+        return getRangePartitions(bounds);
+    }
+
+    /**
+     * Checks if the partition bounds must be read from the table.
+     * @return True if the table bounds are needed.
+     */
+    private boolean needsTableBounds() {
+        String[] predicates = config.getPartitionPredicates();
+        return (predicates == null || predicates.length == 0) && config.getNumPartitions() > 1
+                && !config.hasExplicitBounds();
+    }
+
+    /**
+     * Splits the inclusive range [lowerBound, upperBound] in partitions of the same length.
+     * @param lowerBound Inclusive lower bound.
+     * @param upperBound Inclusive upper bound.
+     * @param numPartitions Number of partitions.
+     * @return Partitions.
+     */
+    static Partition[] getFixedPartitions(long lowerBound, long upperBound, int numPartitions) {
+        long length = 1 + upperBound - lowerBound;
+        Partition[] result = new Partition[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            long start = lowerBound + ((i * length) / numPartitions);
+            long end = lowerBound + (((i + 1) * length) / numPartitions) - 1;
+            result[i] = new JdbcPartition(i, start, end);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the range partitions delimited by the given bounds: (-inf, b1], (b1, b2] ... (bn, +inf).
+     * @param bounds Sorted bounds.
+     * @return Partitions.
+     */
+    static Partition[] getRangePartitions(List<Serializable> bounds) {
+        List<Serializable> distinct = new ArrayList<>();
+        for (Serializable bound : bounds) {
+            if (bound != null && (distinct.isEmpty() || !bound.equals(distinct.get(distinct.size() - 1)))) {
+                distinct.add(bound);
+            }
+        }
+
+        Partition[] result = new Partition[distinct.size() + 1];
+        Serializable lower = null;
+        for (int i = 0; i < distinct.size(); i++) {
+            result[i] = new JdbcRangePartition(i, lower, distinct.get(i));
+            lower = distinct.get(i);
+        }
+        result[distinct.size()] = new JdbcRangePartition(distinct.size(), lower, null);
+        return result;
+    }
+
+    /**
+     * Reads MIN and MAX of the partition key and interpolates the inner bounds.
+     * @param conn JDBC connection.
+     * @return Inner bounds.
+     * @throws SQLException
+     */
+    private List<Serializable> readInterpolatedBounds(Connection conn) throws SQLException {
+        String key = getKeySql();
+        String sql = "SELECT MIN(" + key + "), MAX(" + key + ") FROM " + getTableSql();
+        try (Statement statement = conn.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            if (!resultSet.next() || resultSet.getObject(1) == null) {
+                return new ArrayList<>();
+            }
+            return interpolate(resultSet.getObject(1), resultSet.getObject(2), config.getNumPartitions());
+        }
+    }
+
+    /**
+     * Reads the percentiles of the partition key, used as inner bounds.
+     * @param conn JDBC connection.
+     * @return Inner bounds.
+     * @throws SQLException
+     */
+    private List<Serializable> readPercentiles(Connection conn) throws SQLException {
+        int numPartitions = config.getNumPartitions();
+        String key = getKeySql();
+        String table = getTableSql();
+
+        List<Serializable> bounds = new ArrayList<>();
+        String ntile = "SELECT MAX(" + key + ") FROM (SELECT " + key + ", NTILE(" + numPartitions + ") OVER (ORDER BY "
+                + key + ") AS deep_tile FROM " + table + " WHERE " + key + " IS NOT NULL) deep_tiles "
+                + "GROUP BY deep_tile ORDER BY deep_tile";
+        try (Statement statement = conn.createStatement(); ResultSet resultSet = statement.executeQuery(ntile)) {
+            while (resultSet.next()) {
+                bounds.add((Serializable) resultSet.getObject(1));
+            }
+            if (!bounds.isEmpty()) {
+                bounds.remove(bounds.size() - 1);
+            }
+            return bounds;
+        } catch (SQLException e) {
+            LOG.debug("NTILE not supported, reading percentiles with LIMIT/OFFSET: " + e.getMessage());
+        }
+
+        long count;
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(" + key + ") FROM " + table)) {
+            resultSet.next();
+            count = resultSet.getLong(1);
+        }
+        for (int i = 1; i < numPartitions; i++) {
+            long offset = (count * i) / numPartitions - 1;
+            if (offset < 0) {
+                continue;
+            }
+            String sql = "SELECT " + key + " FROM " + table + " WHERE " + key + " IS NOT NULL ORDER BY " + key
+                    + " LIMIT 1 OFFSET " + offset;
+            try (Statement statement = conn.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+                if (resultSet.next()) {
+                    bounds.add((Serializable) resultSet.getObject(1));
+                }
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Splits the range [min, max] of a numeric, decimal, date or timestamp key in ranges of the same length.
+     * @param min Minimum key value.
+     * @param max Maximum key value.
+     * @param numPartitions Number of partitions.
+     * @return The numPartitions - 1 inner bounds, of the same type as the key.
+     */
+    static List<Serializable> interpolate(Object min, Object max, int numPartitions) {
+        List<Serializable> bounds = new ArrayList<>();
+        BigDecimal lower = toDecimal(min);
+        BigDecimal step = toDecimal(max).subtract(lower).divide(BigDecimal.valueOf(numPartitions), PRECISION);
+        for (int i = 1; i < numPartitions; i++) {
+            bounds.add(fromDecimal(lower.add(step.multiply(BigDecimal.valueOf(i))), min));
+        }
+        return bounds;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        } else if (value instanceof Date) {
+            return BigDecimal.valueOf(((Date) value).getTime());
+        }
+        throw new IllegalArgumentException("Partition key of type " + value.getClass().getName()
+                + " not supported, it must be numeric, decimal, date or timestamp");
+    }
+
+    private static Serializable fromDecimal(BigDecimal value, Object type) {
+        if (type instanceof BigDecimal) {
+            return value;
+        } else if (type instanceof BigInteger) {
+            return value.toBigInteger();
+        } else if (type instanceof Double) {
+            return value.doubleValue();
+        } else if (type instanceof Float) {
+            return value.floatValue();
+        } else if (type instanceof Integer) {
+            return value.intValue();
+        } else if (type instanceof Short) {
+            return value.shortValue();
+        } else if (type instanceof Byte) {
+            return value.byteValue();
+        } else if (type instanceof Number) {
+            return value.longValue();
+        } else if (type instanceof Timestamp) {
+            return new Timestamp(value.longValue());
+        } else if (type instanceof java.sql.Date) {
+            return new java.sql.Date(value.longValue());
+        }
+        return new Date(value.longValue());
+    }
+
+    private String getKeySql() {
+        Column partitionKey = config.getPartitionKey();
+        if (partitionKey == null) {
+            throw new IllegalArgumentException("You must define a valid partition key for using more than one partition.");
+        }
+        return partitionKey.getColumnNameSQL();
+    }
+
+    private String getTableSql() {
+        return config.getPartitionKey().getTable().getTableNameSQL();
+    }
+}
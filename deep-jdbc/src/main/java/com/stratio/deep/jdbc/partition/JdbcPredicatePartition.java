@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.jdbc.partition;
+
+import org.apache.spark.Partition;
+
+/**
+ * Partition reading the rows that match a user supplied SQL predicate.
+ */
+public class JdbcPredicatePartition implements Partition {
+
+    private static final long serialVersionUID = -1862365720434385316L;
+
+    /**
+     * Partition index.
+     */
+    private final int index;
+
+    /**
+     * SQL predicate of the partition.
+     */
+    private final String predicate;
+
+    /**
+     * Instantiates a new JdbcPredicatePartition.
+     * @param index Partition index.
+     * @param predicate SQL predicate of the partition, as written in a WHERE clause.
+     */
+    public JdbcPredicatePartition(int index, String predicate) {
+        this.index = index;
+        this.predicate = predicate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int index() {
+        return index;
+    }
+
+    /**
+     * Returns the SQL predicate of the partition.
+     * @return SQL predicate.
+     */
+    public String getPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this;
+    }
+
+    @Override
+    public String toString() {
+        return "JdbcPredicatePartition{index=" + index + ", predicate='" + predicate + "'}";
+    }
+}
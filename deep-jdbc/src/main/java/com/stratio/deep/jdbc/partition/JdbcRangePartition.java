@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.jdbc.partition;
+
+import java.io.Serializable;
+
+import org.apache.spark.Partition;
+
+/**
+ * Partition reading the rows whose partition key is in the range (lower, upper]. A null lower bound means the range
+ * is open on the left and also includes the rows with a null key; a null upper bound means it is open on the right.
+ */
+public class JdbcRangePartition implements Partition {
+
+    private static final long serialVersionUID = 4093734851290744587L;
+
+    /**
+     * Partition index.
+     */
+    private final int index;
+
+    /**
+     * Exclusive lower bound, null if unbounded.
+     */
+    private final Serializable lower;
+
+    /**
+     * Inclusive upper bound, null if unbounded.
+     */
+    private final Serializable upper;
+
+    /**
+     * Instantiates a new JdbcRangePartition.
+     * @param index Partition index.
+     * @param lower Exclusive lower bound, null if unbounded.
+     * @param upper Inclusive upper bound, null if unbounded.
+     */
+    public JdbcRangePartition(int index, Serializable lower, Serializable upper) {
+        this.index = index;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int index() {
+        return index;
+    }
+
+    /**
+     * Returns the exclusive lower bound.
+     * @return Exclusive lower bound, null if unbounded.
+     */
+    public Serializable getLower() {
+        return lower;
+    }
+
+    /**
+     * Returns the inclusive upper bound.
+     * @return Inclusive upper bound, null if unbounded.
+     */
+    public Serializable getUpper() {
+        return upper;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this;
+    }
+
+    @Override
+    public String toString() {
+        return "JdbcRangePartition{index=" + index + ", lower=" + lower + ", upper=" + upper + '}';
+    }
+}
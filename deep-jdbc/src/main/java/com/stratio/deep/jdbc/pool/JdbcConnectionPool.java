@@ -0,0 +1,709 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.jdbc.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+
+/**
+ * Executor wide pool of JDBC connections, shared by readers, writers and partitioning.
+ * <p>
+ * Connections are pooled by connection URL, user and driver class. Closing a connection obtained from
+ * {@link #getConnection} returns it to its pool, after rolling back any pending transaction and restoring autocommit.
+ * Idle connections are validated before being handed out again, with the configured validation query or
+ * {@link Connection#isValid(int)}, and are closed once they have been idle for the configured idle timeout, as long as
+ * the pool keeps its minimum size. Each pooled connection caches its most recently used prepared statements; closing a
+ * cached statement only resets it. A cached statement is never shared: while it is in use, preparing the same SQL again
+ * returns a plain statement.
+ */
+public final class JdbcConnectionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcConnectionPool.class);
+
+    /**
+     * Interval between idle connection evictions, in milliseconds.
+     */
+    private static final long EVICTION_INTERVAL = 1000;
+
+    /**
+     * Maximum wait for a connection to be released, in milliseconds.
+     */
+    private static final long MAX_WAIT = 60000;
+
+    /**
+     * Timeout of connection validations, in seconds.
+     */
+    private static final int VALIDATION_TIMEOUT = 5;
+
+    /**
+     * The pools, by key.
+     */
+    private static final Map<PoolKey, Pool> POOLS = new HashMap<>();
+
+    /**
+     * The idle connection evictor.
+     */
+    private static ScheduledExecutorService evictor;
+
+    /**
+     * Private default constructor.
+     */
+    private JdbcConnectionPool() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Gets a connection from the pool of the given configuration, creating the pool if needed. The connection must be
+     * closed to return it to the pool.
+     * @param config JDBC Deep Job configuration.
+     * @return Pooled JDBC connection.
+     * @throws SQLException
+     */
+    public static Connection getConnection(JdbcDeepJobConfig<?> config) throws SQLException {
+        return getPool(config).acquire();
+    }
+
+    /**
+     * Returns the usage metrics of every pool.
+     * @return Pool metrics.
+     */
+    public static synchronized List<JdbcPoolMetrics> getMetrics() {
+        List<JdbcPoolMetrics> metrics = new ArrayList<>();
+        for (Pool pool : POOLS.values()) {
+            metrics.add(pool.getMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the usage metrics of the pool of the given configuration.
+     * @param config JDBC Deep Job configuration.
+     * @return Pool metrics, null if no connection has been requested for the configuration.
+     */
+    public static synchronized JdbcPoolMetrics getMetrics(JdbcDeepJobConfig<?> config) {
+        Pool pool = POOLS.get(new PoolKey(config));
+        return pool != null ? pool.getMetrics() : null;
+    }
+
+    /**
+     * Gets the pool of the given configuration, creating it if needed.
+     * @param config JDBC Deep Job configuration.
+     * @return Connection pool.
+     */
+    private static synchronized Pool getPool(JdbcDeepJobConfig<?> config) {
+        PoolKey key = new PoolKey(config);
+        Pool pool = POOLS.get(key);
+        if (pool == null) {
+            pool = new Pool(key, config);
+            POOLS.put(key, pool);
+            startEvictor();
+            LOG.debug("new JDBC connection pool for " + key.connectionUrl);
+        }
+        return pool;
+    }
+
+    /**
+     * Opens a new physical connection.
+     * @param key Pool key.
+     * @param password Password of the user.
+     * @return JDBC connection.
+     * @throws SQLException
+     */
+    private static Connection openConnection(PoolKey key, String password) throws SQLException {
+        try {
+            Class.forName(key.driverClass);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Driver class " + key.driverClass + " not found", e);
+        }
+        return DriverManager.getConnection(key.connectionUrl, key.username, password);
+    }
+
+    /**
+     * Closes the connections that have been idle for longer than their idle timeout, and opens the connections needed
+     * to keep the minimum size of each pool.
+     */
+    static void evictIdleConnections() {
+        List<Pool> pools;
+        synchronized (JdbcConnectionPool.class) {
+            pools = new ArrayList<>(POOLS.values());
+        }
+        for (Pool pool : pools) {
+            pool.evict();
+        }
+    }
+
+    /**
+     * Starts the idle connection evictor, if not running.
+     */
+    private static void startEvictor() {
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "deep-jdbc-pool-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            evictor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evictIdleConnections();
+                }
+            }, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Invokes a method on a target object, unwrapping the exception it throws.
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Implements equals, hashCode and toString of a proxy by identity.
+     */
+    private static Object invokeObjectMethod(Object target, Method method, Object[] args) {
+        switch (method.getName()) {
+        case "equals":
+            return target == args[0];
+        case "hashCode":
+            return System.identityHashCode(target);
+        default:
+            return target.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(target));
+        }
+    }
+
+    /**
+     * Identifies a pool: connection URL, user and driver class.
+     */
+    private static final class PoolKey {
+
+        private final String connectionUrl;
+
+        private final String username;
+
+        private final String driverClass;
+
+        private PoolKey(JdbcDeepJobConfig<?> config) {
+            this.connectionUrl = config.getConnectionUrl();
+            this.username = config.getUsername();
+            this.driverClass = config.getDriverClass();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            PoolKey that = (PoolKey) o;
+
+            return equal(connectionUrl, that.connectionUrl) && equal(username, that.username)
+                    && equal(driverClass, that.driverClass);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = connectionUrl != null ? connectionUrl.hashCode() : 0;
+            result = 31 * result + (username != null ? username.hashCode() : 0);
+            result = 31 * result + (driverClass != null ? driverClass.hashCode() : 0);
+            return result;
+        }
+
+        private static boolean equal(String a, String b) {
+            return a != null ? a.equals(b) : b == null;
+        }
+    }
+
+    /**
+     * The connections of a key.
+     */
+    private static final class Pool {
+
+        private final PoolKey key;
+
+        private final String password;
+
+        private final int maxSize;
+
+        private final int minSize;
+
+        private final long idleTimeout;
+
+        private final String validationQuery;
+
+        private final int statementCacheSize;
+
+        private final LinkedList<PooledConnection> idle = new LinkedList<>();
+
+        private int active;
+
+        private long created;
+
+        private long destroyed;
+
+        private long borrowed;
+
+        private long waited;
+
+        private long statementCacheHits;
+
+        private long statementCacheMisses;
+
+        private Pool(PoolKey key, JdbcDeepJobConfig<?> config) {
+            this.key = key;
+            this.password = config.getPassword();
+            this.maxSize = Math.max(1, config.getPoolSize());
+            this.minSize = Math.min(Math.max(0, config.getMinPoolSize()), maxSize);
+            this.idleTimeout = config.getIdleTimeout();
+            this.validationQuery = config.getValidationQuery();
+            this.statementCacheSize = Math.max(0, config.getStatementCacheSize());
+        }
+
+        /**
+         * Hands out an idle connection, or opens a new one if the pool is not full.
+         */
+        private Connection acquire() throws SQLException {
+            long deadline = System.currentTimeMillis() + MAX_WAIT;
+            boolean hasWaited = false;
+            while (true) {
+                PooledConnection pooled = null;
+                synchronized (this) {
+                    while (idle.isEmpty() && active >= maxSize) {
+                        long wait = deadline - System.currentTimeMillis();
+                        if (wait <= 0) {
+                            throw new SQLException("Timeout waiting for a connection to " + key.connectionUrl
+                                    + ", all " + maxSize + " connections are in use");
+                        }
+                        if (!hasWaited) {
+                            hasWaited = true;
+                            waited++;
+                        }
+                        try {
+                            wait(wait);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Interrupted while waiting for a connection", e);
+                        }
+                    }
+                    pooled = idle.pollFirst();
+                    active++;
+                }
+
+                if (pooled == null) {
+                    try {
+                        pooled = new PooledConnection(this, openConnection(key, password));
+                    } catch (SQLException | RuntimeException e) {
+                        release(null);
+                        throw e;
+                    }
+                    synchronized (this) {
+                        created++;
+                    }
+                } else if (!pooled.isValid()) {
+                    pooled.destroy();
+                    release(null);
+                    continue;
+                }
+
+                synchronized (this) {
+                    borrowed++;
+                }
+                return pooled.open();
+            }
+        }
+
+        /**
+         * Returns a connection to the pool. A null connection only frees its slot.
+         */
+        private void release(PooledConnection pooled) {
+            boolean close = false;
+            synchronized (this) {
+                active--;
+                if (pooled != null) {
+                    if (idleTimeout <= 0 && idle.size() >= minSize) {
+                        close = true;
+                    } else {
+                        idle.addFirst(pooled);
+                    }
+                }
+                notifyAll();
+            }
+            if (close) {
+                pooled.destroy();
+            }
+        }
+
+        /**
+         * Closes the connections idle for longer than the idle timeout, keeping the minimum size, and opens the
+         * connections missing to reach it.
+         */
+        private void evict() {
+            long now = System.currentTimeMillis();
+            List<PooledConnection> expired = new ArrayList<>();
+            int missing;
+            synchronized (this) {
+                Iterator<PooledConnection> iterator = idle.descendingIterator();
+                while (iterator.hasNext() && idle.size() + active > minSize) {
+                    PooledConnection pooled = iterator.next();
+                    if (now - pooled.lastUsed >= idleTimeout) {
+                        iterator.remove();
+                        expired.add(pooled);
+                    }
+                }
+                missing = minSize - idle.size() - active;
+            }
+            for (PooledConnection pooled : expired) {
+                pooled.destroy();
+            }
+            for (int i = 0; i < missing; i++) {
+                try {
+                    PooledConnection pooled = new PooledConnection(this, openConnection(key, password));
+                    synchronized (this) {
+                        created++;
+                        idle.addFirst(pooled);
+                        notifyAll();
+                    }
+                } catch (SQLException e) {
+                    LOG.warn("Unable to open JDBC connection to " + key.connectionUrl, e);
+                    return;
+                }
+            }
+        }
+
+        private synchronized void destroyed() {
+            destroyed++;
+        }
+
+        private synchronized void statementCacheHit(boolean hit) {
+            if (hit) {
+                statementCacheHits++;
+            } else {
+                statementCacheMisses++;
+            }
+        }
+
+        private synchronized JdbcPoolMetrics getMetrics() {
+            return new JdbcPoolMetrics(key.connectionUrl, key.username, active, idle.size(), created, destroyed,
+                    borrowed, waited, statementCacheHits, statementCacheMisses);
+        }
+    }
+
+    /**
+     * A physical connection and its statement cache.
+     */
+    private static final class PooledConnection implements InvocationHandler {
+
+        private final Pool pool;
+
+        private final Connection connection;
+
+        /**
+         * The idle cached statements, by SQL.
+         */
+        private final LinkedHashMap<String, StatementEntry> statements;
+
+        /**
+         * The cached statements in use, by SQL; they are out of the cache until their proxy is closed.
+         */
+        private final Map<String, StatementEntry> checkedOut = new HashMap<>();
+
+        private boolean destroyed = false;
+
+        private Connection proxy;
+
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(Pool pool, Connection connection) {
+            this.pool = pool;
+            this.connection = connection;
+            final int cacheSize = pool.statementCacheSize;
+            this.statements = new LinkedHashMap<String, StatementEntry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StatementEntry> eldest) {
+                    if (size() > cacheSize) {
+                        closeQuietly(eldest.getValue().statement);
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * Hands out a new proxy for this connection; closing it returns the connection to the pool.
+         */
+        private Connection open() {
+            proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+            return proxy;
+        }
+
+        /**
+         * Validates an idle connection before handing it out.
+         */
+        private boolean isValid() {
+            try {
+                if (pool.validationQuery == null || pool.validationQuery.isEmpty()) {
+                    return connection.isValid(VALIDATION_TIMEOUT);
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.setQueryTimeout(VALIDATION_TIMEOUT);
+                    statement.execute(pool.validationQuery);
+                }
+                return true;
+            } catch (SQLException e) {
+                LOG.debug("Discarding invalid JDBC connection to " + pool.key.connectionUrl + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(target, method, args);
+            }
+            if ("close".equals(name) && method.getParameterTypes().length == 0) {
+                close((Connection) target);
+                return null;
+            }
+            if ("isClosed".equals(name) && method.getParameterTypes().length == 0) {
+                return target != proxy || connection.isClosed();
+            }
+            if (target != proxy) {
+                throw new SQLException("Connection closed");
+            }
+            if ("prepareStatement".equals(name) && method.getParameterTypes().length == 1
+                    && pool.statementCacheSize > 0) {
+                return prepareStatement((String) args[0]);
+            }
+            return JdbcConnectionPool.invoke(connection, method, args);
+        }
+
+        /**
+         * Checks a prepared statement out of the cache, preparing it if not cached. If the cached statement of the
+         * same SQL is already in use, a plain statement that is not cached is prepared instead.
+         */
+        private PreparedStatement prepareStatement(String sql) throws SQLException {
+            StatementEntry entry = statements.remove(sql);
+            pool.statementCacheHit(entry != null);
+            if (entry == null) {
+                if (checkedOut.containsKey(sql)) {
+                    return connection.prepareStatement(sql);
+                }
+                entry = new StatementEntry(sql, connection.prepareStatement(sql));
+            }
+            checkedOut.put(sql, entry);
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new CachedStatement(this, entry, proxy));
+        }
+
+        /**
+         * Resets a statement whose proxy has been closed and returns it to the cache. It is closed instead if it
+         * cannot be reset or the connection has been destroyed.
+         */
+        private void release(StatementEntry entry) {
+            checkedOut.remove(entry.sql);
+            if (destroyed) {
+                closeQuietly(entry.statement);
+                return;
+            }
+            try {
+                entry.reset();
+                statements.put(entry.sql, entry);
+            } catch (SQLException e) {
+                LOG.debug("Discarding cached statement that cannot be reset: " + e.getMessage());
+                closeQuietly(entry.statement);
+            }
+        }
+
+        /**
+         * Resets the connection and returns it to the pool. The connection is destroyed if it cannot be reset.
+         */
+        private void close(Connection target) {
+            if (target != proxy) {
+                return;
+            }
+            proxy = null;
+            lastUsed = System.currentTimeMillis();
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                pool.release(this);
+            } catch (SQLException e) {
+                LOG.debug("Discarding JDBC connection that cannot be reset: " + e.getMessage());
+                destroy();
+                pool.release(null);
+            }
+        }
+
+        /**
+         * Closes the cached statements and the physical connection.
+         */
+        private void destroy() {
+            destroyed = true;
+            for (StatementEntry entry : statements.values()) {
+                closeQuietly(entry.statement);
+            }
+            statements.clear();
+            closeQuietly(connection);
+            pool.destroyed();
+        }
+
+        private static void closeQuietly(AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                LOG.debug("Error closing " + closeable, e);
+            }
+        }
+    }
+
+    /**
+     * A prepared statement of the cache, with the driver defaults of the settings a user may change.
+     */
+    private static final class StatementEntry {
+
+        private final String sql;
+
+        private final PreparedStatement statement;
+
+        private final int fetchSize;
+
+        private final int fetchDirection;
+
+        private final int maxRows;
+
+        private final int maxFieldSize;
+
+        private final int queryTimeout;
+
+        private StatementEntry(String sql, PreparedStatement statement) throws SQLException {
+            this.sql = sql;
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.fetchDirection = statement.getFetchDirection();
+            this.maxRows = statement.getMaxRows();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        /**
+         * Closes the current result set, clears the parameters and batch and restores the driver defaults, so that
+         * nothing carries over to the next user of the statement.
+         */
+        private void reset() throws SQLException {
+            ResultSet resultSet = statement.getResultSet();
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            // some drivers reject a fetch size above the max rows
+            statement.setMaxRows(maxRows);
+            statement.setFetchSize(fetchSize);
+            statement.setFetchDirection(fetchDirection);
+            statement.setMaxFieldSize(maxFieldSize);
+            statement.setQueryTimeout(queryTimeout);
+        }
+    }
+
+    /**
+     * A cached prepared statement; closing it only resets it and returns it to the cache.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+
+        private final PooledConnection owner;
+
+        private final StatementEntry entry;
+
+        private final PreparedStatement statement;
+
+        private final Connection connection;
+
+        private boolean closed = false;
+
+        private CachedStatement(PooledConnection owner, StatementEntry entry, Connection connection) {
+            this.owner = owner;
+            this.entry = entry;
+            this.statement = entry.statement;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(target, method, args);
+            }
+            if (method.getParameterTypes().length == 0) {
+                if ("close".equals(name)) {
+                    if (!closed) {
+                        closed = true;
+                        owner.release(entry);
+                    }
+                    return null;
+                }
+                if ("isClosed".equals(name)) {
+                    return closed || statement.isClosed();
+                }
+                if ("getConnection".equals(name)) {
+                    return connection;
+                }
+            }
+            if (closed) {
+                throw new SQLException("Statement closed");
+            }
+            return JdbcConnectionPool.invoke(statement, method, args);
+        }
+    }
+}
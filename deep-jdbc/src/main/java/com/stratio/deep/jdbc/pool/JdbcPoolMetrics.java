@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.deep.jdbc.pool;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the usage of a JDBC connection pool.
+ */
+public class JdbcPoolMetrics implements Serializable {
+
+    private static final long serialVersionUID = 2846195503621953604L;
+
+    private final String connectionUrl;
+
+    private final String username;
+
+    private final int active;
+
+    private final int idle;
+
+    private final long created;
+
+    private final long destroyed;
+
+    private final long borrowed;
+
+    private final long waited;
+
+    private final long statementCacheHits;
+
+    private final long statementCacheMisses;
+
+    /**
+     * Instantiates a new JdbcPoolMetrics.
+     * @param connectionUrl JDBC connection URL of the pool.
+     * @param username User of the pool.
+     * @param active Connections in use.
+     * @param idle Idle connections.
+     * @param created Connections opened since the pool was created.
+     * @param destroyed Connections closed since the pool was created.
+     * @param borrowed Connections handed out since the pool was created.
+     * @param waited Borrows that had to wait for a connection to be released.
+     * @param statementCacheHits Prepared statements served from the statement cache.
+     * @param statementCacheMisses Prepared statements not found in the statement cache.
+     */
+    public JdbcPoolMetrics(String connectionUrl, String username, int active, int idle, long created,
+                           long destroyed, long borrowed, long waited, long statementCacheHits,
+                           long statementCacheMisses) {
+        this.connectionUrl = connectionUrl;
+        this.username = username;
+        this.active = active;
+        this.idle = idle;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.borrowed = borrowed;
+        this.waited = waited;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    /**
+     * Returns the JDBC connection URL of the pool.
+     * @return JDBC connection URL.
+     */
+    public String getConnectionUrl() {
+        return connectionUrl;
+    }
+
+    /**
+     * Returns the user of the pool.
+     * @return User name.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Returns the number of connections in use.
+     * @return Connections in use.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Returns the number of idle connections.
+     * @return Idle connections.
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * Returns the number of connections opened since the pool was created.
+     * @return Opened connections.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Returns the number of connections closed since the pool was created.
+     * @return Closed connections.
+     */
+    public long getDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * Returns the number of connections handed out since the pool was created.
+     * @return Borrowed connections.
+     */
+    public long getBorrowed() {
+        return borrowed;
+    }
+
+    /**
+     * Returns the number of borrows that had to wait for a connection to be released.
+     * @return Borrows that waited.
+     */
+    public long getWaited() {
+        return waited;
+    }
+
+    /**
+     * Returns the number of prepared statements served from the statement cache.
+     * @return Statement cache hits.
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    /**
+     * Returns the number of prepared statements not found in the statement cache.
+     * @return Statement cache misses.
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    @Override
+    public String toString() {
+        return "JdbcPoolMetrics{connectionUrl='" + connectionUrl + "', username='" + username + "', active=" + active
+                + ", idle=" + idle + ", created=" + created + ", destroyed=" + destroyed + ", borrowed=" + borrowed
+                + ", waited=" + waited + ", statementCacheHits=" + statementCacheHits + ", statementCacheMisses="
+                + statementCacheMisses + '}';
+    }
+}
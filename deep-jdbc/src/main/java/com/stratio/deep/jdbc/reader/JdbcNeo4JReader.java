@@ -17,11 +17,13 @@
 package com.stratio.deep.jdbc.reader;
 
 import com.stratio.deep.jdbc.config.JdbcNeo4JDeepJobConfig;
+import com.stratio.deep.jdbc.partition.JdbcNeo4JPartitioner;
+import com.stratio.deep.jdbc.partition.JdbcRangePartition;
 import org.apache.spark.Partition;
+import org.apache.spark.rdd.JdbcPartition;
 import org.neo4j.jdbc.Driver;
 
 import java.sql.DriverManager;
-import java.sql.Statement;
 
 /**
  * Creates a new JDBC connection to Neo4J and provides methods for reading from it.
@@ -50,8 +52,14 @@ public class JdbcNeo4JReader extends JdbcReader implements IJdbcReader {
         conn = DriverManager.getConnection(jdbcNeo4JDeepJobConfig.getConnectionUrl(),
                 jdbcNeo4JDeepJobConfig.getUsername(),
                 jdbcNeo4JDeepJobConfig.getPassword());
-        Statement statement = conn.createStatement();
+        statement = conn.createStatement();
         String query = jdbcNeo4JDeepJobConfig.getCypherQuery();
+        if(p instanceof JdbcRangePartition) {
+            query = JdbcNeo4JPartitioner.rangeQuery(query, jdbcNeo4JDeepJobConfig.getPartitionProperty(),
+                    (JdbcRangePartition) p);
+        } else if(jdbcNeo4JDeepJobConfig.getNumPartitions() > 1) {
+            query = JdbcNeo4JPartitioner.pageQuery(query, (JdbcPartition) p);
+        }
         resultSet = statement.executeQuery(query);
         // Fetches first element
         this.hasNext = resultSet.next();
@@ -17,7 +17,6 @@
 package com.stratio.deep.jdbc.reader;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -26,9 +25,17 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.healthmarketscience.sqlbuilder.BinaryCondition;
+import com.healthmarketscience.sqlbuilder.ComboCondition;
+import com.healthmarketscience.sqlbuilder.Condition;
+import com.healthmarketscience.sqlbuilder.CustomCondition;
+import com.healthmarketscience.sqlbuilder.JdbcEscape;
 import com.healthmarketscience.sqlbuilder.SelectQuery;
+import com.healthmarketscience.sqlbuilder.UnaryCondition;
 import com.healthmarketscience.sqlbuilder.dbspec.Column;
 import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.partition.JdbcPredicatePartition;
+import com.stratio.deep.jdbc.partition.JdbcRangePartition;
+import com.stratio.deep.jdbc.pool.JdbcConnectionPool;
 import org.apache.spark.Partition;
 import org.apache.spark.rdd.JdbcPartition;
 
@@ -47,6 +54,11 @@ public class JdbcReader implements IJdbcReader {
      */
     protected Connection conn;
 
+    /**
+     * JDBC Statement running the query.
+     */
+    protected Statement statement;
+
     /**
      * JDBC ResultSet.
      */
@@ -57,6 +69,16 @@ public class JdbcReader implements IJdbcReader {
      */
     protected boolean hasNext = false;
 
+    /**
+     * Column names of the result set, read once per partition.
+     */
+    private String[] columnNames;
+
+    /**
+     * Initial capacity of each row, large enough to hold all the columns without rehashing.
+     */
+    private int rowCapacity;
+
     /**
      * Default constructor
      */
@@ -75,30 +97,78 @@ public class JdbcReader implements IJdbcReader {
     }
 
     /**
-     * Initialized the reader
+     * Initialized the reader. The query is executed with a forward-only, read-only cursor that fetches
+     * {@link JdbcDeepJobConfig#getFetchSize()} rows in each round trip. Autocommit is disabled when a fetch size is
+     * set, as some drivers (e.g. PostgreSQL) only stream results inside a transaction.
      * 
      * @param p
      *            Spark partition.
      * @throws Exception
      */
     public void init(Partition p) throws Exception {
-        Class.forName(jdbcDeepJobConfig.getDriverClass());
-        conn = DriverManager.getConnection(jdbcDeepJobConfig.getConnectionUrl(),
-                jdbcDeepJobConfig.getUsername(),
-                jdbcDeepJobConfig.getPassword());
-        Statement statement = conn.createStatement();
+        conn = JdbcConnectionPool.getConnection(jdbcDeepJobConfig);
+        int fetchSize = jdbcDeepJobConfig.getFetchSize();
+        if(fetchSize > 0) {
+            conn.setAutoCommit(false);
+        }
+        statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
         SelectQuery query = jdbcDeepJobConfig.getQuery();
-        JdbcPartition jdbcPartition = (JdbcPartition)p;
-        if(jdbcDeepJobConfig.getNumPartitions() > 1) {
+        if(p instanceof JdbcPredicatePartition) {
+            query.getWhereClause().addCondition(new CustomCondition(((JdbcPredicatePartition) p).getPredicate()));
+        } else if(p instanceof JdbcRangePartition) {
+            addRangeConditions(query, (JdbcRangePartition) p);
+        } else if(jdbcDeepJobConfig.getNumPartitions() > 1) {
+            JdbcPartition jdbcPartition = (JdbcPartition)p;
             Column partitionKey = jdbcDeepJobConfig.getPartitionKey();
             query.getWhereClause().addCondition(BinaryCondition.lessThan(partitionKey, jdbcPartition.upper(), true))
                     .addCondition(BinaryCondition.greaterThan(partitionKey, jdbcPartition.lower(), true));
         }
         resultSet = statement.executeQuery(query.toString());
+        readMetadata();
         // Fetches first element
         this.hasNext = resultSet.next();
     }
 
+    /**
+     * Restricts the query to the rows of a range partition. The first range also reads the rows with a null key.
+     *
+     * @param query
+     *            Query to restrict.
+     * @param partition
+     *            Range partition.
+     */
+    private void addRangeConditions(SelectQuery query, JdbcRangePartition partition) {
+        Column partitionKey = jdbcDeepJobConfig.getPartitionKey();
+        if (partition.getLower() != null) {
+            query.getWhereClause().addCondition(
+                    BinaryCondition.greaterThan(partitionKey, toSqlValue(partition.getLower()), false));
+        }
+        if (partition.getUpper() != null) {
+            Condition upper = BinaryCondition.lessThan(partitionKey, toSqlValue(partition.getUpper()), true);
+            if (partition.getLower() == null) {
+                upper = ComboCondition.or(upper, UnaryCondition.isNull(partitionKey));
+            }
+            query.getWhereClause().addCondition(upper);
+        }
+    }
+
+    /**
+     * Converts a partition bound into a SQL value, using JDBC escapes for dates and timestamps.
+     *
+     * @param value
+     *            Partition bound.
+     * @return SQL value.
+     */
+    private static Object toSqlValue(Object value) {
+        if (value instanceof java.sql.Date) {
+            return JdbcEscape.date((java.util.Date) value);
+        } else if (value instanceof java.util.Date) {
+            return JdbcEscape.timestamp((java.util.Date) value);
+        }
+        return value;
+    }
+
     /**
      * Checks if there are more results.
      * 
@@ -116,12 +186,12 @@ public class JdbcReader implements IJdbcReader {
      * @throws SQLException
      */
     public Map<String, Object> next() throws SQLException {
-        Map<String, Object> row = new HashMap<>();
-        ResultSetMetaData metadata = resultSet.getMetaData();
-        int columnsNumber = metadata.getColumnCount();
-        for (int i = 1; i <= columnsNumber; i++) {
-            String columnName = metadata.getColumnName(i);
-            row.put(columnName, resultSet.getObject(i));
+        if (columnNames == null) {
+            readMetadata();
+        }
+        Map<String, Object> row = new HashMap<>(rowCapacity);
+        for (int i = 0; i < columnNames.length; i++) {
+            row.put(columnNames[i], resultSet.getObject(i + 1));
         }
 
         this.hasNext = resultSet.next();
@@ -130,14 +200,36 @@ public class JdbcReader implements IJdbcReader {
     }
 
     /**
-     * closes the resultset and the jdbc connection.
+     * Reads the column names of the result set.
+     *
+     * @throws SQLException
+     */
+    protected void readMetadata() throws SQLException {
+        ResultSetMetaData metadata = resultSet.getMetaData();
+        int columnsNumber = metadata.getColumnCount();
+        String[] names = new String[columnsNumber];
+        for (int i = 1; i <= columnsNumber; i++) {
+            names[i - 1] = metadata.getColumnName(i);
+        }
+        rowCapacity = (int) (columnsNumber / 0.75f) + 1;
+        columnNames = names;
+    }
+
+    /**
+     * closes the resultset and the statement, and returns the jdbc connection to its pool.
      *
      * @throws java.lang.Exception
      */
     public void close() throws Exception {
         try {
-            if (resultSet != null) {
-                resultSet.close();
+            try {
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+            } finally {
+                if (statement != null) {
+                    statement.close();
+                }
             }
         } finally {
             if (conn != null) {
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.utils;
+
+/**
+ * Databases whose vendor specific SQL is used by the JDBC extractor.
+ */
+public enum JdbcDialect {
+
+    POSTGRESQL("jdbc:postgresql:"),
+    MYSQL("jdbc:mysql:"),
+    H2("jdbc:h2:"),
+    ORACLE("jdbc:oracle:"),
+    GENERIC(null);
+
+    /**
+     * Prefix of the connection urls of this database.
+     */
+    private final String urlPrefix;
+
+    JdbcDialect(String urlPrefix) {
+        this.urlPrefix = urlPrefix;
+    }
+
+    /**
+     * Returns the dialect of a database from its connection url.
+     * @param connectionUrl JDBC connection url.
+     * @return Dialect of the database, GENERIC if unknown.
+     */
+    public static JdbcDialect fromUrl(String connectionUrl) {
+        if(connectionUrl != null) {
+            String url = connectionUrl.toLowerCase();
+            for(JdbcDialect dialect:values()) {
+                if(dialect.urlPrefix != null && url.startsWith(dialect.urlPrefix)) {
+                    return dialect;
+                }
+            }
+        }
+        return GENERIC;
+    }
+}
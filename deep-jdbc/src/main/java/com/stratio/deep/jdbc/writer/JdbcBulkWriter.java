@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.writer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.postgresql.PGConnection;
+
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.utils.JdbcDialect;
+
+/**
+ * JDBC writer loading rows with the bulk load command of the database.
+ * <p>
+ * Rows are buffered as CSV and loaded every {@link JdbcDeepJobConfig#getCommitInterval()} rows, each load in its own
+ * transaction: PostgreSQL rows are streamed with COPY FROM STDIN, MySQL rows with LOAD DATA LOCAL INFILE (the
+ * connection must allow local infile, the driver default) and H2 rows are read with CSVREAD from a temporary file.
+ * Rows of other databases are written with batched inserts.
+ */
+public class JdbcBulkWriter<T> extends JdbcWriter<T> {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Columns of the buffered rows, in CSV order.
+     */
+    private List<String> columns;
+
+    /**
+     * Buffered rows, as CSV.
+     */
+    private StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Number of buffered rows.
+     */
+    private int bufferedRows = 0;
+
+    /**
+     * Instantiates a new JdbcBulkWriter.
+     * @param jdbcDeepJobConfig Deep Job configuration.
+     * @throws Exception
+     */
+    public JdbcBulkWriter(JdbcDeepJobConfig jdbcDeepJobConfig) throws Exception {
+        super(jdbcDeepJobConfig);
+    }
+
+    /**
+     * Checks if a database can be bulk loaded.
+     * @param dialect Database dialect.
+     * @return True if rows are bulk loaded, false if they are written with batched inserts.
+     */
+    public static boolean isSupported(JdbcDialect dialect) {
+        return dialect == JdbcDialect.POSTGRESQL || dialect == JdbcDialect.MYSQL || dialect == JdbcDialect.H2;
+    }
+
+    /**
+     * Adds a row to the buffer, loading the buffered rows when it is full or when the row has different columns.
+     * @param row Data structure representing a row as a Map of column_name:column_value
+     * @throws Exception
+     */
+    @Override
+    public void save(Map<String, Object> row) throws Exception {
+        if(!isSupported(dialect)) {
+            super.save(row);
+            return;
+        }
+        if(columns != null && !(row.size() == columns.size() && row.keySet().containsAll(columns))) {
+            load();
+            columns = null;
+        }
+        if(columns == null) {
+            conn.setAutoCommit(false);
+            columns = new ArrayList<>(row.keySet());
+        }
+        appendRow(row);
+        if(bufferedRows >= jdbcDeepJobConfig.getCommitInterval()) {
+            load();
+        }
+    }
+
+    /**
+     * Loads the buffered rows and returns the JDBC Connection to its pool.
+     * @throws SQLException
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if(isSupported(dialect)) {
+                load();
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * Loads and commits the buffered rows, if any. The transaction is rolled back if the rows cannot be loaded.
+     * @throws SQLException
+     */
+    private void load() throws SQLException {
+        if(bufferedRows == 0) {
+            return;
+        }
+        try {
+            switch(dialect) {
+            case POSTGRESQL:
+                copy();
+                break;
+            case MYSQL:
+                loadData();
+                break;
+            default:
+                csvRead();
+                break;
+            }
+            conn.commit();
+        } catch(SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            buffer.setLength(0);
+            bufferedRows = 0;
+        }
+    }
+
+    private void copy() throws SQLException {
+        String sql = "COPY " + getTableName() + " (" + joinColumns(columns) + ") FROM STDIN WITH CSV";
+        try {
+            conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(buffer.toString()));
+        } catch(IOException e) {
+            throw new SQLException("Unable to copy rows into " + getTableName(), e);
+        }
+    }
+
+    private void loadData() throws SQLException {
+        String sql = "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + getTableName() + " CHARACTER SET utf8"
+                + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''"
+                + " LINES TERMINATED BY '\\n' (" + joinColumns(columns) + ")";
+        Statement statement = conn.createStatement();
+        try {
+            com.mysql.jdbc.Statement mysqlStatement = statement.unwrap(com.mysql.jdbc.Statement.class);
+            mysqlStatement.setLocalInfileInputStream(new ByteArrayInputStream(buffer.toString().getBytes(UTF_8)));
+            mysqlStatement.execute(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private void csvRead() throws SQLException {
+        File file = null;
+        try {
+            file = File.createTempFile("deep-jdbc-", ".csv");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8)) {
+                writer.write(buffer.toString());
+            }
+            String path = file.getAbsolutePath().replace("'", "''");
+            StringBuilder csvColumns = new StringBuilder();
+            for(String column:columns) {
+                if(csvColumns.length() > 0) {
+                    csvColumns.append(',');
+                }
+                csvColumns.append(column.replace("'", "''"));
+            }
+            String sql = "INSERT INTO " + getTableName() + " (" + joinColumns(columns) + ") SELECT * FROM CSVREAD('"
+                    + path + "', '" + csvColumns + "', 'charset=UTF-8')";
+            Statement statement = conn.createStatement();
+            try {
+                statement.execute(sql);
+            } finally {
+                statement.close();
+            }
+        } catch(IOException e) {
+            throw new SQLException("Unable to write rows for " + getTableName(), e);
+        } finally {
+            if(file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Appends a row to the buffer as a CSV line. Values are always quoted, so that unquoted empty values (or NULL for
+     * MySQL) stand for null.
+     * @param row Row to append.
+     */
+    private void appendRow(Map<String, Object> row) {
+        boolean first = true;
+        for(String column:columns) {
+            if(!first) {
+                buffer.append(',');
+            }
+            first = false;
+            Object value = row.get(column);
+            if(value == null) {
+                if(dialect == JdbcDialect.MYSQL) {
+                    buffer.append("NULL");
+                }
+                continue;
+            }
+            buffer.append('"').append(toCsvValue(value).replace("\"", "\"\"")).append('"');
+        }
+        buffer.append('\n');
+        bufferedRows++;
+    }
+
+    private String toCsvValue(Object value) {
+        if(value instanceof byte[]) {
+            throw new IllegalArgumentException("Binary columns cannot be bulk loaded");
+        }
+        if(value instanceof Date && !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time)
+                && !(value instanceof Timestamp)) {
+            return new Timestamp(((Date) value).getTime()).toString();
+        }
+        if(value instanceof Boolean && dialect == JdbcDialect.MYSQL) {
+            return (Boolean) value ? "1" : "0";
+        }
+        return value.toString();
+    }
+}
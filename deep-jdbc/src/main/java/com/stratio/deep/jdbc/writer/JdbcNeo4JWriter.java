@@ -19,10 +19,18 @@ import com.stratio.deep.jdbc.config.JdbcNeo4JDeepJobConfig;
 import org.neo4j.jdbc.Driver;
 
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Helper for write data to Neo4J using a JDBC connection.
+ * <p>
+ * Rows are sent in batches of {@link JdbcNeo4JDeepJobConfig#getBatchSize()} rows as the parameter list of an
+ * UNWIND {1} AS row statement followed by {@link JdbcNeo4JDeepJobConfig#getMergeQuery()}, each batch in its own
+ * transaction.
  */
 public class JdbcNeo4JWriter<T> extends JdbcWriter<T> {
 
@@ -31,6 +39,16 @@ public class JdbcNeo4JWriter<T> extends JdbcWriter<T> {
      */
     private JdbcNeo4JDeepJobConfig jdbcNeo4JDeepJobConfig;
 
+    /**
+     * Prepared UNWIND statement.
+     */
+    private PreparedStatement statement;
+
+    /**
+     * Rows of the current batch.
+     */
+    private List<Map<String, Object>> rows = new ArrayList<>();
+
     /**
      * Instantiates a new JdbcNeo4JWriter using a given configuration.
      * @param config Stratio Deep configuration object.
@@ -45,11 +63,55 @@ public class JdbcNeo4JWriter<T> extends JdbcWriter<T> {
     }
 
     /**
-     * {@inheritDoc}
+     * Adds a row to the current batch, sending the batch when it is full.
+     * @param row Data structure representing a row as a Map of property_name:property_value
+     * @throws Exception
      */
     @Override
     public void save(Map<String, Object> row) throws Exception {
-        throw new UnsupportedOperationException("Saving not yet supported for Neo4J");
+        rows.add(row);
+        if(rows.size() >= jdbcNeo4JDeepJobConfig.getBatchSize()) {
+            executeBatch();
+        }
+    }
+
+    /**
+     * Sends the pending rows and closes the JDBC Connection.
+     * @throws SQLException
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            executeBatch();
+        } finally {
+            try {
+                if(statement != null) {
+                    statement.close();
+                }
+            } finally {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Sends the current batch, if any.
+     * @throws SQLException
+     */
+    private void executeBatch() throws SQLException {
+        if(rows.isEmpty()) {
+            return;
+        }
+        if(statement == null) {
+            String mergeQuery = jdbcNeo4JDeepJobConfig.getMergeQuery();
+            if(mergeQuery == null || mergeQuery.isEmpty()) {
+                throw new IllegalArgumentException("You must specify the Cypher statement writing each row.");
+            }
+            statement = conn.prepareStatement("UNWIND {1} AS row " + mergeQuery);
+        }
+        statement.setObject(1, rows);
+        statement.execute();
+        rows = new ArrayList<>();
     }
 
 }
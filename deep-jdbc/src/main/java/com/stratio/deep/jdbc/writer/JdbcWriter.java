@@ -17,6 +17,8 @@
 package com.stratio.deep.jdbc.writer;
 
 import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.pool.JdbcConnectionPool;
+import com.stratio.deep.jdbc.utils.JdbcDialect;
 import org.apache.commons.lang3.StringUtils;
 import scala.Tuple2;
 
@@ -25,19 +27,51 @@ import java.util.*;
 
 /**
  * Creates a new JDBC connection and provides methods for writing.
+ * <p>
+ * The insert statement is prepared once, from the columns of the first row, and rows are sent to the database in
+ * batches of {@link JdbcDeepJobConfig#getBatchSize()} rows. Autocommit is disabled and the transaction is committed
+ * every {@link JdbcDeepJobConfig#getCommitInterval()} rows and when the writer is closed.
+ * <p>
+ * If {@link JdbcDeepJobConfig#getUpsertKeys()} are set, the rows are upserted with the statement of the database
+ * dialect instead of inserted.
  */
 public class JdbcWriter<T> implements IJdbcWriter {
 
     /**
      * JDBC Deep Job configuration.
      */
-    private JdbcDeepJobConfig<T> jdbcDeepJobConfig;
+    protected JdbcDeepJobConfig<T> jdbcDeepJobConfig;
 
     /**
      * JDBC connection.
      */
     protected Connection conn;
 
+    /**
+     * Database dialect.
+     */
+    protected JdbcDialect dialect;
+
+    /**
+     * Prepared insert statement.
+     */
+    private PreparedStatement statement;
+
+    /**
+     * Columns of the prepared insert statement, in parameter order.
+     */
+    private List<String> columns;
+
+    /**
+     * Rows added to the current batch.
+     */
+    private int batchedRows = 0;
+
+    /**
+     * Rows written since the last commit.
+     */
+    private int uncommittedRows = 0;
+
     /**
      * Default constructor
      */
@@ -52,77 +86,230 @@ public class JdbcWriter<T> implements IJdbcWriter {
      */
     public JdbcWriter(JdbcDeepJobConfig jdbcDeepJobConfig) throws Exception {
         this.jdbcDeepJobConfig = jdbcDeepJobConfig;
-        Class.forName(jdbcDeepJobConfig.getDriverClass());
-        this.conn = DriverManager.getConnection(jdbcDeepJobConfig.getConnectionUrl(),
-                jdbcDeepJobConfig.getUsername(),
-                jdbcDeepJobConfig.getPassword());
+        this.conn = JdbcConnectionPool.getConnection(jdbcDeepJobConfig);
+        this.dialect = JdbcDialect.fromUrl(jdbcDeepJobConfig.getConnectionUrl());
     }
 
     /**
-     * Saves data.
+     * Adds a row to the current batch, sending the batch when it is full.
      * @param row Data structure representing a row as a Map of column_name:column_value
      * @throws SQLException
      */
     public void save(Map<String, Object> row) throws Exception {
-        Tuple2<List<String>, String> data = sqlFromRow(row);
-        PreparedStatement statement = conn.prepareStatement(data._2());
+        if(statement == null || !sameColumns(row)) {
+            prepare(row);
+        }
         int i = 1;
-        for(String columnName:data._1()) {
+        for(String columnName:columns) {
             statement.setObject(i, row.get(columnName));
             i++;
         }
-        statement.executeUpdate();
+        statement.addBatch();
+        batchedRows++;
+
+        if(batchedRows >= jdbcDeepJobConfig.getBatchSize()) {
+            executeBatch();
+        }
+        if(uncommittedRows >= jdbcDeepJobConfig.getCommitInterval()) {
+            conn.commit();
+            uncommittedRows = 0;
+        }
     }
 
     /**
-     * Closes the JDBC Connection.
+     * Sends the pending rows, commits and returns the JDBC Connection to its pool. The transaction is rolled back if the pending
+     * rows cannot be written.
      * @throws SQLException
      */
     public void close() throws SQLException {
-        conn.close();
+        try {
+            if(statement != null) {
+                try {
+                    executeBatch();
+                    conn.commit();
+                } catch(SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    statement.close();
+                }
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Prepares the insert statement for the columns of the given row. Rows batched with a previous statement are sent
+     * first.
+     * @param row Row whose columns will be inserted.
+     * @throws SQLException
+     */
+    private void prepare(Map<String, Object> row) throws SQLException {
+        if(statement != null) {
+            executeBatch();
+            statement.close();
+        } else {
+            conn.setAutoCommit(false);
+        }
+        Tuple2<List<String>, String> data = sqlFromRow(row);
+        columns = data._1();
+        statement = conn.prepareStatement(data._2());
+    }
+
+    /**
+     * Sends the current batch, if any.
+     * @throws SQLException
+     */
+    private void executeBatch() throws SQLException {
+        if(batchedRows > 0) {
+            statement.executeBatch();
+            uncommittedRows += batchedRows;
+            batchedRows = 0;
+        }
+    }
+
+    /**
+     * Checks if a row has the same columns as the prepared statement.
+     * @param row Row to check.
+     * @return True if the prepared statement can insert the row.
+     */
+    private boolean sameColumns(Map<String, Object> row) {
+        return row.size() == columns.size() && row.keySet().containsAll(columns);
     }
 
     private Tuple2<List<String>, String> sqlFromRow(Map<String, Object> row) {
 
-        List<String> params = new ArrayList<>();
-        for(int i=0; i<row.size(); i++) {
-            params.add("?");
+        List<String> columns = new ArrayList<>(row.keySet());
+        String sql;
+        if(jdbcDeepJobConfig.isUpsert()) {
+            sql = upsertSql(columns);
+        } else {
+            sql = "INSERT INTO " + getTableName() + "(" + joinColumns(columns) + " ) VALUES (" + params(columns.size()) + ")";
         }
-        StringBuilder sb = new StringBuilder();
-        sb.append("INSERT INTO ");
-        if(jdbcDeepJobConfig.getQuoteSql()) {
-            sb.append("\"");
+        Tuple2<List<String>, String> result = new Tuple2<>(columns, sql);
+        return result;
+    }
+
+    /**
+     * Builds the upsert statement of the database dialect for the given columns.
+     * @param columns Columns of the upserted rows, including the key columns.
+     * @return Upsert statement with a parameter per column, in column order.
+     */
+    String upsertSql(List<String> columns) {
+        List<String> keys = jdbcDeepJobConfig.getUpsertKeys();
+        if(!columns.containsAll(keys)) {
+            throw new IllegalArgumentException("Upserted rows must contain the key columns " + keys);
         }
-        sb.append(jdbcDeepJobConfig.getDatabase());
-        if(jdbcDeepJobConfig.getQuoteSql()) {
-            sb.append("\"");
+        List<String> updated = new ArrayList<>(columns);
+        updated.removeAll(keys);
+
+        StringBuilder sb = new StringBuilder();
+        switch(dialect) {
+        case H2:
+            sb.append("MERGE INTO ").append(getTableName()).append("(").append(joinColumns(columns))
+                    .append(") KEY (").append(joinColumns(keys)).append(") VALUES (").append(params(columns.size()))
+                    .append(")");
+            break;
+        case POSTGRESQL:
+            sb.append("INSERT INTO ").append(getTableName()).append("(").append(joinColumns(columns))
+                    .append(") VALUES (").append(params(columns.size())).append(") ON CONFLICT (")
+                    .append(joinColumns(keys)).append(")");
+            if(updated.isEmpty()) {
+                sb.append(" DO NOTHING");
+            } else {
+                sb.append(" DO UPDATE SET ").append(assignments(updated, "EXCLUDED.%s"));
+            }
+            break;
+        case MYSQL:
+            sb.append("INSERT INTO ").append(getTableName()).append("(").append(joinColumns(columns))
+                    .append(") VALUES (").append(params(columns.size())).append(") ON DUPLICATE KEY UPDATE ")
+                    .append(assignments(updated.isEmpty() ? keys : updated, "VALUES(%s)"));
+            break;
+        default:
+            List<String> sourceColumns = new ArrayList<>();
+            for(String column:columns) {
+                sourceColumns.add("s." + quote(column));
+            }
+            List<String> conditions = new ArrayList<>();
+            for(String key:keys) {
+                conditions.add("t." + quote(key) + " = s." + quote(key));
+            }
+            sb.append("MERGE INTO ").append(getTableName()).append(" t USING (");
+            if(dialect == JdbcDialect.ORACLE) {
+                List<String> aliasedParams = new ArrayList<>();
+                for(String column:columns) {
+                    aliasedParams.add("? " + quote(column));
+                }
+                sb.append("SELECT ").append(StringUtils.join(aliasedParams, ",")).append(" FROM dual) s");
+            } else {
+                sb.append("VALUES (").append(params(columns.size())).append(")) s (").append(joinColumns(columns))
+                        .append(")");
+            }
+            sb.append(" ON (").append(StringUtils.join(conditions, " AND ")).append(")");
+            if(!updated.isEmpty()) {
+                sb.append(" WHEN MATCHED THEN UPDATE SET ").append(assignments(updated, "s.%s"));
+            }
+            sb.append(" WHEN NOT MATCHED THEN INSERT (").append(joinColumns(columns)).append(") VALUES (")
+                    .append(StringUtils.join(sourceColumns, ",")).append(")");
+            break;
         }
-        sb.append(".");
-        if(jdbcDeepJobConfig.getQuoteSql()) {
-            sb.append("\"");
+        return sb.toString();
+    }
+
+    /**
+     * Returns the assignments of an upsert update clause.
+     * @param columns Updated columns.
+     * @param valueFormat Format of the assigned value, applied to the quoted column.
+     * @return Comma separated assignments.
+     */
+    private String assignments(List<String> columns, String valueFormat) {
+        List<String> assignments = new ArrayList<>();
+        for(String column:columns) {
+            assignments.add(quote(column) + " = " + String.format(valueFormat, quote(column)));
         }
-        sb.append(jdbcDeepJobConfig.getTable());
-        if(jdbcDeepJobConfig.getQuoteSql()) {
-            sb.append("\"");
+        return StringUtils.join(assignments, ",");
+    }
+
+    private String params(int count) {
+        List<String> params = new ArrayList<>();
+        for(int i=0; i<count; i++) {
+            params.add("?");
         }
-        sb.append("(");
-        List<String> columns = new ArrayList<>(row.keySet());
+        return StringUtils.join(params, ",");
+    }
+
+    /**
+     * Returns the qualified name of the written table, quoted if configured.
+     * @return Table name.
+     */
+    protected String getTableName() {
+        return quote(jdbcDeepJobConfig.getDatabase()) + "." + quote(jdbcDeepJobConfig.getTable());
+    }
+
+    /**
+     * Returns a comma separated list of columns, quoted if configured.
+     * @param columns Column names.
+     * @return Column list.
+     */
+    protected String joinColumns(List<String> columns) {
         List<String> quotedColumns = new ArrayList<>();
         for(String column:columns) {
-            if(jdbcDeepJobConfig.getQuoteSql()) {
-                quotedColumns.add(String.format("\"%s\"", column));
-            } else {
-                quotedColumns.add(String.format("%s", column));
-            }
+            quotedColumns.add(quote(column));
         }
-        sb.append(StringUtils.join(quotedColumns, ","));
-        sb.append(" ) VALUES (");
-        sb.append(StringUtils.join(params, ","));
-        sb.append(")");
-        Tuple2<List<String>, String> result = new Tuple2<>(columns, sb.toString());
-        return result;
+        return StringUtils.join(quotedColumns, ",");
     }
 
-
+    /**
+     * Quotes an identifier, if configured.
+     * @param identifier Table or column name.
+     * @return Identifier.
+     */
+    protected String quote(String identifier) {
+        if(jdbcDeepJobConfig.getQuoteSql()) {
+            return String.format("\"%s\"", identifier);
+        }
+        return identifier;
+    }
 
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.aggregation;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.spark.Partition;
+import org.h2.Driver;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cell;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.partition.JdbcPartitioner;
+import com.stratio.deep.jdbc.reader.JdbcReader;
+import com.stratio.deep.jdbc.utils.UtilJdbc;
+
+/**
+ * Tests the aggregation pushdown and the merge of partial aggregates against an in-memory H2 database.
+ */
+@Test(groups = { "UnitTests" })
+public class JdbcAggregateMergerTest {
+
+    private static final String CONNECTION_URL = "jdbc:h2:mem:jdbcaggregationtest;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1";
+
+    private static final String USER = "sa";
+
+    private static final String SCHEMA = "deepaggregation";
+
+    private static final String TABLE = "sales";
+
+    private static final int ROWS = 300;
+
+    private Connection conn;
+
+    @BeforeClass
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(CONNECTION_URL, USER, "");
+        Statement statement = conn.createStatement();
+        statement.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        statement.execute("CREATE TABLE " + SCHEMA + "." + TABLE
+                + "(id INT PRIMARY KEY, country VARCHAR(2), units INT, price DECIMAL(10,2))");
+        statement.close();
+
+        String[] countries = { "ES", "FR", "IT" };
+        PreparedStatement insert = conn.prepareStatement("INSERT INTO " + SCHEMA + "." + TABLE + " VALUES (?,?,?,?)");
+        for (int i = 0; i < ROWS; i++) {
+            insert.setInt(1, i);
+            insert.setString(2, countries[i % countries.length]);
+            insert.setInt(3, i % 7);
+            insert.setBigDecimal(4, new BigDecimal(i).movePointLeft(1));
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        insert.close();
+    }
+
+    @AfterClass
+    public void tearDown() throws SQLException {
+        Statement statement = conn.createStatement();
+        statement.execute("DROP TABLE " + SCHEMA + "." + TABLE);
+        statement.execute("DROP SCHEMA " + SCHEMA);
+        statement.close();
+        conn.close();
+    }
+
+    @Test
+    public void testQueryIsAggregated() {
+        String query = createConfig().getQuery().toString();
+
+        assertTrue(query.contains("GROUP BY"), query);
+        assertTrue(query.contains("SUM(") && query.contains("COUNT(*)") && query.contains("MIN("), query);
+        assertTrue(query.contains("avgPrice_sum") && query.contains("avgPrice_count"), query);
+    }
+
+    @Test
+    public void testMergedPartialAggregates() throws Exception {
+        JdbcDeepJobConfig<Cells> config = createConfig();
+        JdbcAggregateMerger merger = new JdbcAggregateMerger(config.getGroupBy(), config.getAggregations());
+
+        Partition[] partitions = new JdbcPartitioner(config).getPartitions();
+        assertEquals(partitions.length, 4);
+
+        Map<List<Object>, Cells> groups = new HashMap<>();
+        for (Partition partition : partitions) {
+            JdbcReader reader = new JdbcReader(config);
+            reader.init(partition);
+            while (reader.hasNext()) {
+                Cells partial = UtilJdbc.getCellsFromObject(reader.next(), config);
+                List<Object> key = merger.getGroupKey(partial);
+                Cells merged = groups.get(key);
+                groups.put(key, merged == null ? partial : merger.call(merged, partial));
+            }
+            reader.close();
+        }
+
+        assertEquals(groups.size(), 3);
+        for (Cells group : groups.values()) {
+            Cells result = merger.complete(group);
+            String country = (String) result.getCellByName("country").getCellValue();
+            Statement statement = conn.createStatement();
+            java.sql.ResultSet expected = statement.executeQuery("SELECT COUNT(*), SUM(units), MIN(price), "
+                    + "MAX(units), AVG(price) FROM " + SCHEMA + "." + TABLE + " WHERE country = '" + country + "'");
+            expected.next();
+
+            assertEquals(result.size(), 6);
+            assertEquals(((Number) value(result, "total")).longValue(), expected.getLong(1));
+            assertEquals(((Number) value(result, "units")).longValue(), expected.getLong(2));
+            assertEquals(((BigDecimal) value(result, "minPrice")).compareTo(expected.getBigDecimal(3)), 0);
+            assertEquals(((Number) value(result, "maxUnits")).intValue(), expected.getInt(4));
+            assertEquals(((BigDecimal) value(result, "avgPrice")).doubleValue(),
+                    expected.getBigDecimal(5).doubleValue(), 0.001);
+            statement.close();
+        }
+    }
+
+    @Test
+    public void testCombine() {
+        assertEquals(JdbcAggregateMerger.combine(JdbcAggregation.Function.SUM, 2, 3), 5);
+        assertEquals(JdbcAggregateMerger.combine(JdbcAggregation.Function.COUNT, 2L, null), 2L);
+        assertEquals(JdbcAggregateMerger.combine(JdbcAggregation.Function.MIN, 2, 3L), 2);
+        assertEquals(JdbcAggregateMerger.combine(JdbcAggregation.Function.MAX, "a", "b"), "b");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAggregationWithoutColumn() {
+        JdbcAggregation.sum(null, "total");
+    }
+
+    private Object value(Cells cells, String name) {
+        Cell cell = cells.getCellByName(name);
+        return cell.getCellValue();
+    }
+
+    private JdbcDeepJobConfig<Cells> createConfig() {
+        JdbcDeepJobConfig<Cells> config = new JdbcDeepJobConfig<>(Cells.class);
+        config.driverClass(Driver.class.getCanonicalName())
+                .connectionUrl(CONNECTION_URL)
+                .username(USER)
+                .password("")
+                .database(SCHEMA)
+                .table(TABLE)
+                .partitionKey("id")
+                .numPartitions(4)
+                .groupBy("country")
+                .aggregations(JdbcAggregation.countAll("total"), JdbcAggregation.sum("units", "units"),
+                        JdbcAggregation.min("price", "minPrice"), JdbcAggregation.max("units", "maxUnits"),
+                        JdbcAggregation.avg("price", "avgPrice"));
+        return config.initialize();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.partition;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.apache.spark.Partition;
+import org.apache.spark.rdd.JdbcPartition;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.jdbc.config.JdbcNeo4JDeepJobConfig;
+
+/**
+ * Tests the planning and the queries of the Neo4J partitions.
+ */
+@Test(groups = { "UnitTests" })
+public class JdbcNeo4JPartitionerTest {
+
+    private static final String QUERY = "MATCH (n:Person) RETURN n.name AS name ORDER BY id(n)";
+
+    @Test
+    public void testPagePartitions() throws Exception {
+        Connection conn = mockConnection("MATCH (n:Person) RETURN count(*)", 10L, null);
+
+        Partition[] partitions = new JdbcNeo4JPartitioner(createConfig(3)).getPartitions(conn);
+
+        assertEquals(partitions.length, 3);
+        assertEquals(JdbcNeo4JPartitioner.pageQuery(QUERY, (JdbcPartition) partitions[0]), QUERY + " SKIP 0 LIMIT 4");
+        assertEquals(JdbcNeo4JPartitioner.pageQuery(QUERY, (JdbcPartition) partitions[1]), QUERY + " SKIP 4 LIMIT 4");
+        assertEquals(JdbcNeo4JPartitioner.pageQuery(QUERY, (JdbcPartition) partitions[2]), QUERY + " SKIP 8");
+    }
+
+    @Test
+    public void testCountQuery() throws Exception {
+        String countQuery = "MATCH (n:Person) RETURN count(n)";
+        Connection conn = mockConnection(countQuery, 2L, null);
+
+        Partition[] partitions = new JdbcNeo4JPartitioner(createConfig(4).countQuery(countQuery)).getPartitions(conn);
+
+        assertEquals(partitions.length, 4);
+        verify(conn.createStatement()).executeQuery(countQuery);
+    }
+
+    @Test
+    public void testRangePartitionsFromQueryBounds() throws Exception {
+        Connection conn = mockConnection("MATCH (n:Person) RETURN min(id(n)), max(id(n))", 0L, 99L);
+
+        Partition[] partitions = new JdbcNeo4JPartitioner(createConfig(2).partitionProperty("id(n)"))
+                .getPartitions(conn);
+
+        assertEquals(partitions.length, 2);
+        assertEquals(JdbcNeo4JPartitioner.rangeQuery(QUERY, "id(n)", (JdbcRangePartition) partitions[0]),
+                "MATCH (n:Person) WITH * WHERE (id(n) IS NULL OR id(n) <= 49) RETURN n.name AS name ORDER BY id(n)");
+        assertEquals(JdbcNeo4JPartitioner.rangeQuery(QUERY, "id(n)", (JdbcRangePartition) partitions[1]),
+                "MATCH (n:Person) WITH * WHERE id(n) > 49 RETURN n.name AS name ORDER BY id(n)");
+    }
+
+    @Test
+    public void testRangePartitionsFromExplicitBounds() throws Exception {
+        JdbcNeo4JDeepJobConfig<Cells> config = createConfig(4).partitionProperty("n.age").lowerBound(0).upperBound(100);
+
+        Partition[] partitions = new JdbcNeo4JPartitioner(config).getPartitions();
+
+        assertEquals(partitions.length, 4);
+        assertEquals(((JdbcRangePartition) partitions[1]).getLower(), 25L);
+        assertEquals(((JdbcRangePartition) partitions[1]).getUpper(), 50L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testQueryWithoutReturn() {
+        JdbcNeo4JPartitioner.rangeQuery("MATCH (n) DELETE n", "id(n)", new JdbcRangePartition(0, 1L, 2L));
+    }
+
+    private JdbcNeo4JDeepJobConfig<Cells> createConfig(int numPartitions) {
+        JdbcNeo4JDeepJobConfig<Cells> config = new JdbcNeo4JDeepJobConfig<>(Cells.class);
+        config.connectionUrl("jdbc:neo4j://localhost:7474/").cypherQuery(QUERY).numPartitions(numPartitions);
+        return config.initialize();
+    }
+
+    private Connection mockConnection(String query, Long first, Long second) throws Exception {
+        Connection conn = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(conn.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(query)).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getObject(1)).thenReturn(first);
+        when(resultSet.getObject(2)).thenReturn(second);
+        return conn;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.partition;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.apache.spark.Partition;
+import org.apache.spark.rdd.JdbcPartition;
+import org.h2.Driver;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.reader.JdbcReader;
+
+/**
+ * Tests the JDBC partitioner against an in-memory H2 database.
+ */
+@Test(groups = { "UnitTests" })
+public class JdbcPartitionerTest {
+
+    private static final String CONNECTION_URL = "jdbc:h2:mem:jdbcpartitionertest;DB_CLOSE_DELAY=-1";
+
+    private static final String USER = "sa";
+
+    private static final String SCHEMA = "deeppartitioner";
+
+    private static final String TABLE = "events";
+
+    private static final int ROWS = 1000;
+
+    private Connection conn;
+
+    @BeforeClass
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(CONNECTION_URL, USER, "");
+        Statement statement = conn.createStatement();
+        statement.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        statement.execute("CREATE TABLE " + SCHEMA + "." + TABLE
+                + "(id BIGINT PRIMARY KEY, skewed INT, amount DECIMAL(10,2), created TIMESTAMP)");
+        statement.close();
+
+        PreparedStatement insert = conn.prepareStatement("INSERT INTO " + SCHEMA + "." + TABLE + " VALUES (?,?,?,?)");
+        for (int i = 0; i < ROWS; i++) {
+            insert.setLong(1, i);
+            // 90% of the rows share a few small keys, the rest are spread up to 1.000.000
+            insert.setObject(2, i % 10 == 0 ? Integer.valueOf(i * 1000) : (i % 10 == 1 ? null : Integer.valueOf(i % 5)));
+            insert.setBigDecimal(3, new BigDecimal(i).movePointLeft(1));
+            insert.setTimestamp(4, new Timestamp(1420070400000L + i * 60000L));
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        insert.close();
+    }
+
+    @AfterClass
+    public void tearDown() throws SQLException {
+        Statement statement = conn.createStatement();
+        statement.execute("DROP TABLE " + SCHEMA + "." + TABLE);
+        statement.execute("DROP SCHEMA " + SCHEMA);
+        statement.close();
+        conn.close();
+    }
+
+    @Test
+    public void testFixedPartitions() {
+        Partition[] partitions = JdbcPartitioner.getFixedPartitions(10, 109, 4);
+
+        assertEquals(partitions.length, 4);
+        for (int i = 0; i < partitions.length; i++) {
+            JdbcPartition partition = (JdbcPartition) partitions[i];
+            assertEquals(partition.lower(), 10 + i * 25);
+            assertEquals(partition.upper(), 10 + i * 25 + 24);
+        }
+    }
+
+    @Test
+    public void testInterpolateTypes() {
+        List<Serializable> longs = JdbcPartitioner.interpolate(0L, 100L, 4);
+        assertEquals(longs.size(), 3);
+        assertEquals(longs.get(0), 25L);
+        assertEquals(longs.get(2), 75L);
+
+        List<Serializable> decimals = JdbcPartitioner.interpolate(new BigDecimal("0.5"), new BigDecimal("1.5"), 2);
+        assertEquals(((BigDecimal) decimals.get(0)).compareTo(BigDecimal.ONE), 0);
+
+        List<Serializable> timestamps = JdbcPartitioner.interpolate(new Timestamp(0), new Timestamp(3000), 3);
+        assertEquals(timestamps.get(0), new Timestamp(1000));
+        assertEquals(timestamps.get(1), new Timestamp(2000));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInterpolateUnsupportedType() {
+        JdbcPartitioner.interpolate("a", "z", 2);
+    }
+
+    @Test
+    public void testRangePartitionsSkipDuplicatedBounds() {
+        Partition[] partitions = JdbcPartitioner.getRangePartitions(
+                java.util.Arrays.<Serializable>asList(1, 1, 1, 5));
+
+        assertEquals(partitions.length, 3);
+        assertNull(((JdbcRangePartition) partitions[0]).getLower());
+        assertEquals(((JdbcRangePartition) partitions[0]).getUpper(), 1);
+        assertEquals(((JdbcRangePartition) partitions[1]).getLower(), 1);
+        assertEquals(((JdbcRangePartition) partitions[1]).getUpper(), 5);
+        assertNull(((JdbcRangePartition) partitions[2]).getUpper());
+    }
+
+    @Test
+    public void testPredicatePartitions() throws Exception {
+        JdbcDeepJobConfig<Cells> config = createConfig("id", 5)
+                .partitionPredicates("id < 100", "id >= 100 AND id < 500", "id >= 500");
+
+        Partition[] partitions = new JdbcPartitioner(config).getPartitions();
+
+        assertEquals(partitions.length, 3);
+        assertEquals(((JdbcPredicatePartition) partitions[1]).getPredicate(), "id >= 100 AND id < 500");
+        assertEquals(readAll(config, partitions), new int[] { 100, 400, 500 });
+    }
+
+    @Test
+    public void testAutomaticBounds() throws Exception {
+        checkPartitioning(createConfig("id", 4), 4);
+        checkPartitioning(createConfig("amount", 4), 4);
+        checkPartitioning(createConfig("created", 4), 4);
+    }
+
+    @Test
+    public void testBalancedPartitions() throws Exception {
+        int[] uniform = checkPartitioning(createConfig("skewed", 4), 4);
+        // all the small keys fall in the first range
+        assertTrue(uniform[0] > 800);
+
+        int[] balanced = checkPartitioning(createConfig("skewed", 4).balancedPartitions(true), 4);
+        // bounds follow the percentiles, no range holds most of the rows
+        for (int rows : balanced) {
+            assertTrue(rows < 800);
+        }
+    }
+
+    private int[] checkPartitioning(JdbcDeepJobConfig<Cells> config, int expectedPartitions) throws Exception {
+        Partition[] partitions = new JdbcPartitioner(config).getPartitions();
+        assertEquals(partitions.length, expectedPartitions);
+
+        int[] rows = readAll(config, partitions);
+        int total = 0;
+        for (int partitionRows : rows) {
+            total += partitionRows;
+        }
+        assertEquals(total, ROWS);
+        return rows;
+    }
+
+    private int[] readAll(JdbcDeepJobConfig<Cells> config, Partition[] partitions) throws Exception {
+        int[] rows = new int[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            JdbcReader reader = new JdbcReader(config);
+            reader.init(partitions[i]);
+            while (reader.hasNext()) {
+                reader.next();
+                rows[i]++;
+            }
+            reader.close();
+        }
+        return rows;
+    }
+
+    private JdbcDeepJobConfig<Cells> createConfig(String partitionKey, int numPartitions) {
+        JdbcDeepJobConfig<Cells> config = new JdbcDeepJobConfig<>(Cells.class);
+        config.driverClass(Driver.class.getCanonicalName())
+                .connectionUrl(CONNECTION_URL)
+                .username(USER)
+                .password("")
+                .database(SCHEMA)
+                .table(TABLE)
+                .partitionKey(partitionKey)
+                .numPartitions(numPartitions);
+        return config.initialize();
+    }
+}
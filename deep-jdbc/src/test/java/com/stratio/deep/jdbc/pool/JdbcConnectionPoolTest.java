@@ -0,0 +1,200 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.pool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.h2.Driver;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+
+/**
+ * Tests the JDBC connection pool against in-memory H2 databases.
+ */
+@Test(groups = { "UnitTests" })
+public class JdbcConnectionPoolTest {
+
+    private static final String USER = "sa";
+
+    @Test
+    public void testConnectionsAreReused() throws SQLException {
+        JdbcDeepJobConfig<Cells> config = createConfig("reuse");
+
+        Connection first = JdbcConnectionPool.getConnection(config);
+        Connection second = JdbcConnectionPool.getConnection(config);
+        assertEquals(JdbcConnectionPool.getMetrics(config).getActive(), 2);
+        first.close();
+        second.close();
+        assertTrue(first.isClosed());
+
+        for (int i = 0; i < 10; i++) {
+            JdbcConnectionPool.getConnection(config).close();
+        }
+
+        JdbcPoolMetrics metrics = JdbcConnectionPool.getMetrics(config);
+        assertEquals(metrics.getCreated(), 2);
+        assertEquals(metrics.getBorrowed(), 12);
+        assertEquals(metrics.getActive(), 0);
+        assertEquals(metrics.getIdle(), 2);
+    }
+
+    @Test
+    public void testTransactionIsResetOnRelease() throws SQLException {
+        JdbcDeepJobConfig<Cells> config = createConfig("reset");
+
+        Connection conn = JdbcConnectionPool.getConnection(config);
+        conn.createStatement().execute("CREATE TABLE items(id INT PRIMARY KEY)");
+        conn.setAutoCommit(false);
+        conn.createStatement().execute("INSERT INTO items VALUES (1)");
+        conn.close();
+
+        conn = JdbcConnectionPool.getConnection(config);
+        assertTrue(conn.getAutoCommit());
+        java.sql.ResultSet resultSet = conn.createStatement().executeQuery("SELECT COUNT(*) FROM items");
+        resultSet.next();
+        assertEquals(resultSet.getInt(1), 0);
+        conn.close();
+    }
+
+    @Test
+    public void testStatementCache() throws SQLException {
+        JdbcDeepJobConfig<Cells> config = createConfig("statements");
+        String sql = "SELECT ? FROM DUAL";
+
+        for (int i = 0; i < 3; i++) {
+            Connection conn = JdbcConnectionPool.getConnection(config);
+            PreparedStatement statement = conn.prepareStatement(sql);
+            statement.setInt(1, i);
+            statement.executeQuery().close();
+            statement.close();
+            assertTrue(statement.isClosed());
+            conn.close();
+        }
+
+        JdbcPoolMetrics metrics = JdbcConnectionPool.getMetrics(config);
+        assertEquals(metrics.getStatementCacheMisses(), 1);
+        assertEquals(metrics.getStatementCacheHits(), 2);
+    }
+
+    @Test
+    public void testCachedStatementIsResetOnClose() throws SQLException {
+        JdbcDeepJobConfig<Cells> config = createConfig("statementreset");
+        String sql = "SELECT 1 FROM DUAL";
+
+        Connection conn = JdbcConnectionPool.getConnection(config);
+        PreparedStatement statement = conn.prepareStatement(sql);
+        int fetchSize = statement.getFetchSize();
+        int maxRows = statement.getMaxRows();
+        int queryTimeout = statement.getQueryTimeout();
+        statement.setFetchSize(fetchSize + 100);
+        statement.setMaxRows(maxRows + 10);
+        statement.setQueryTimeout(queryTimeout + 30);
+        java.sql.ResultSet resultSet = statement.executeQuery();
+        statement.close();
+        assertTrue(resultSet.isClosed());
+        conn.close();
+
+        conn = JdbcConnectionPool.getConnection(config);
+        statement = conn.prepareStatement(sql);
+        assertEquals(statement.getFetchSize(), fetchSize);
+        assertEquals(statement.getMaxRows(), maxRows);
+        assertEquals(statement.getQueryTimeout(), queryTimeout);
+        statement.close();
+        conn.close();
+
+        assertEquals(JdbcConnectionPool.getMetrics(config).getStatementCacheHits(), 1);
+    }
+
+    @Test
+    public void testCachedStatementInUseIsNotShared() throws SQLException {
+        JdbcDeepJobConfig<Cells> config = createConfig("statementsinuse");
+        String sql = "SELECT ? FROM DUAL";
+
+        Connection conn = JdbcConnectionPool.getConnection(config);
+        PreparedStatement first = conn.prepareStatement(sql);
+        PreparedStatement second = conn.prepareStatement(sql);
+        first.setInt(1, 1);
+        second.setInt(1, 2);
+        java.sql.ResultSet firstResult = first.executeQuery();
+        java.sql.ResultSet secondResult = second.executeQuery();
+
+        first.close();
+        assertFalse(secondResult.isClosed());
+        assertTrue(secondResult.next());
+        assertEquals(secondResult.getInt(1), 2);
+        assertTrue(firstResult.isClosed());
+        second.close();
+
+        PreparedStatement third = conn.prepareStatement(sql);
+        third.setInt(1, 3);
+        java.sql.ResultSet thirdResult = third.executeQuery();
+        assertTrue(thirdResult.next());
+        assertEquals(thirdResult.getInt(1), 3);
+        third.close();
+        conn.close();
+
+        JdbcPoolMetrics metrics = JdbcConnectionPool.getMetrics(config);
+        assertEquals(metrics.getStatementCacheMisses(), 2);
+        assertEquals(metrics.getStatementCacheHits(), 1);
+    }
+
+    @Test
+    public void testIdleConnectionsEvicted() throws SQLException {
+        JdbcDeepJobConfig<Cells> config = createConfig("eviction").idleTimeout(0).minPoolSize(1);
+
+        Connection first = JdbcConnectionPool.getConnection(config);
+        Connection second = JdbcConnectionPool.getConnection(config);
+        first.close();
+        second.close();
+        JdbcConnectionPool.evictIdleConnections();
+
+        JdbcPoolMetrics metrics = JdbcConnectionPool.getMetrics(config);
+        assertEquals(metrics.getIdle(), 1);
+        assertEquals(metrics.getDestroyed(), 1);
+    }
+
+    @Test
+    public void testValidationQuery() throws SQLException {
+        JdbcDeepJobConfig<Cells> config = createConfig("validation").validationQuery("SELECT 1 FROM DUAL");
+
+        JdbcConnectionPool.getConnection(config).close();
+        Connection conn = JdbcConnectionPool.getConnection(config);
+        assertFalse(conn.isClosed());
+        conn.close();
+
+        assertEquals(JdbcConnectionPool.getMetrics(config).getCreated(), 1);
+    }
+
+    private JdbcDeepJobConfig<Cells> createConfig(String database) {
+        JdbcDeepJobConfig<Cells> config = new JdbcDeepJobConfig<>(Cells.class);
+        config.driverClass(Driver.class.getCanonicalName())
+                .connectionUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1")
+                .username(USER)
+                .password("")
+                .database("PUBLIC")
+                .table("items");
+        return config.initialize();
+    }
+}
@@ -35,17 +35,19 @@ import com.healthmarketscience.sqlbuilder.Condition;
 import com.healthmarketscience.sqlbuilder.SelectQuery;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.DbColumn;
 import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.pool.JdbcConnectionPool;
 import org.apache.spark.Partition;
 import org.apache.spark.rdd.JdbcPartition;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({ JdbcReader.class })
+@PrepareForTest({ JdbcReader.class, JdbcConnectionPool.class })
 public class JdbcReaderTest {
 
     private static final String COLUMN_NAME1_CONSTANT = "column_name_1";
@@ -62,6 +64,8 @@ public class JdbcReaderTest {
 
     private static final int NUM_PARTITIONS = 2;
 
+    private static final int FETCH_SIZE = 500;
+
 
     @Mock
     private JdbcDeepJobConfig<?> config;
@@ -208,7 +212,8 @@ public class JdbcReaderTest {
         when(config.getPassword()).thenReturn(WHATEVER_CONSTANT);
         when(config.getQuery()).thenReturn(mock(SelectQuery.class));
         when(DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(conn);
-        when(conn.createStatement()).thenReturn(statement);
+        when(conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(statement);
+        when(resultSet.getMetaData()).thenReturn(metadata);
         when(statement.executeQuery(anyString())).thenReturn(resultSet);
         when(resultSet.next()).thenReturn(false);
 
@@ -216,6 +221,7 @@ public class JdbcReaderTest {
         JdbcReader reader = new JdbcReader(config);
 
         reader.init(partition);
+        reader.close();
 
         // Assertions
         Class<?> clazz = JdbcReader.class;
@@ -236,7 +242,8 @@ public class JdbcReaderTest {
         when(config.getPassword()).thenReturn(WHATEVER_CONSTANT);
         when(config.getQuery()).thenReturn(mock(SelectQuery.class));
         when(DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(conn);
-        when(conn.createStatement()).thenReturn(statement);
+        when(conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(statement);
+        when(resultSet.getMetaData()).thenReturn(metadata);
         when(statement.executeQuery(anyString())).thenReturn(resultSet);
         when(resultSet.next()).thenReturn(true);
 
@@ -244,6 +251,7 @@ public class JdbcReaderTest {
         JdbcReader reader = new JdbcReader(config);
 
         reader.init(partition);
+        reader.close();
 
         // Assertions
         Class<?> clazz = JdbcReader.class;
@@ -271,13 +279,15 @@ public class JdbcReaderTest {
         when(DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(conn);
         when(partition.lower()).thenReturn(0L);
         when(partition.upper()).thenReturn(100L);
-        when(conn.createStatement()).thenReturn(statement);
+        when(conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(statement);
+        when(resultSet.getMetaData()).thenReturn(metadata);
         when(statement.executeQuery(anyString())).thenReturn(resultSet);
         when(resultSet.next()).thenReturn(true);
 
         JdbcReader reader = new JdbcReader(config);
 
         reader.init(partition);
+        reader.close();
 
         verify(comboCondition, times(2)).addCondition(any((BinaryCondition.class)));
     }
@@ -296,16 +306,75 @@ public class JdbcReaderTest {
         when(config.getPassword()).thenReturn(WHATEVER_CONSTANT);
         when(config.getQuery()).thenReturn(selectQuery);
         when(DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(conn);
-        when(conn.createStatement()).thenReturn(statement);
+        when(conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(statement);
+        when(resultSet.getMetaData()).thenReturn(metadata);
         when(statement.executeQuery(anyString())).thenReturn(resultSet);
         when(resultSet.next()).thenReturn(true);
 
         JdbcReader reader = new JdbcReader(config);
 
         reader.init(partition);
+        reader.close();
 
         verify(comboCondition, times(0)).addCondition(any((BinaryCondition.class)));
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testFetchSizeAndMetadataReadOnce() throws Exception {
+        PowerMockito.mockStatic(DriverManager.class);
+
+        when(config.getDriverClass()).thenReturn(JDBC_CELL_EXTRACTOR_CLASSNAME_CONSTANT);
+        when(config.getConnectionUrl()).thenReturn(WHATEVER_CONSTANT);
+        when(config.getUsername()).thenReturn(WHATEVER_CONSTANT);
+        when(config.getPassword()).thenReturn(WHATEVER_CONSTANT);
+        when(config.getQuery()).thenReturn(mock(SelectQuery.class));
+        when(config.getFetchSize()).thenReturn(FETCH_SIZE);
+        when(DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(conn);
+        when(conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metadata);
+        when(metadata.getColumnCount()).thenReturn(1);
+        when(metadata.getColumnName(1)).thenReturn(COLUMN_NAME1_CONSTANT);
+        when(resultSet.getObject(1)).thenReturn(COLUMN_VALUE1_CONSTANT);
+        when(resultSet.next()).thenReturn(true, true, false);
+
+        JdbcReader reader = new JdbcReader(config);
+        reader.init(partition);
+        while (reader.hasNext()) {
+            assertEquals(reader.next().get(COLUMN_NAME1_CONSTANT), COLUMN_VALUE1_CONSTANT);
+        }
+        reader.close();
+
+        verify(conn, times(1)).setAutoCommit(false);
+        verify(statement, times(1)).setFetchSize(FETCH_SIZE);
+        verify(resultSet, times(1)).getMetaData();
+        verify(resultSet, times(2)).getObject(1);
+    }
+
+    @Test
+    public void testCloseReleasesResultSetAndStatement() throws Exception {
+
+        PowerMockito.mockStatic(DriverManager.class);
+
+        when(config.getDriverClass()).thenReturn(JDBC_CELL_EXTRACTOR_CLASSNAME_CONSTANT);
+        when(config.getConnectionUrl()).thenReturn(WHATEVER_CONSTANT);
+        when(config.getUsername()).thenReturn(WHATEVER_CONSTANT);
+        when(config.getPassword()).thenReturn(WHATEVER_CONSTANT);
+        when(config.getQuery()).thenReturn(mock(SelectQuery.class));
+        when(DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(conn);
+        when(conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metadata);
+        when(resultSet.next()).thenReturn(false);
+
+        JdbcReader reader = new JdbcReader(config);
+        reader.init(partition);
+        reader.close();
+
+        InOrder inOrder = inOrder(resultSet, statement);
+        inOrder.verify(resultSet).close();
+        inOrder.verify(statement).close();
+    }
+
+}
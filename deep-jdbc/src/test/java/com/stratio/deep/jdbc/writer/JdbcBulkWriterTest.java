@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.writer;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.h2.Driver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.utils.JdbcDialect;
+
+/**
+ * Tests the bulk load JDBC writer against an in-memory H2 database.
+ */
+@Test(groups = { "UnitTests" })
+public class JdbcBulkWriterTest {
+
+    private static final String CONNECTION_URL = "jdbc:h2:mem:jdbcbulkwritertest;DB_CLOSE_DELAY=-1";
+
+    private static final String USER = "sa";
+
+    private static final String SCHEMA = "deepbulk";
+
+    private static final String TABLE = "messages";
+
+    private Connection conn;
+
+    @BeforeMethod
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(CONNECTION_URL, USER, "");
+        Statement statement = conn.createStatement();
+        statement.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        statement.execute("DROP TABLE IF EXISTS " + SCHEMA + "." + TABLE);
+        statement.execute("CREATE TABLE " + SCHEMA + "." + TABLE
+                + "(id INT PRIMARY KEY, message VARCHAR(255), number BIGINT, created TIMESTAMP)");
+        statement.close();
+    }
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    public void testRowsLoadedEveryCommitInterval() throws Exception {
+        JdbcBulkWriter<Cells> writer = new JdbcBulkWriter<>(createConfig(3));
+
+        for (int i = 0; i < 7; i++) {
+            writer.save(createRow(i, "message" + i));
+        }
+        assertEquals(count(), 6);
+
+        writer.close();
+        assertEquals(count(), 7);
+    }
+
+    @Test
+    public void testValuesEscaped() throws Exception {
+        JdbcBulkWriter<Cells> writer = new JdbcBulkWriter<>(createConfig(100));
+
+        writer.save(createRow(1, "a \"quoted\", multi\nline message"));
+        writer.save(createRow(2, ""));
+        writer.save(createRow(3, null));
+        writer.close();
+
+        assertEquals(message(1), "a \"quoted\", multi\nline message");
+        assertEquals(message(2), "");
+        assertNull(message(3));
+    }
+
+    @Test
+    public void testRowsWithDifferentColumns() throws Exception {
+        JdbcBulkWriter<Cells> writer = new JdbcBulkWriter<>(createConfig(100));
+
+        writer.save(createRow(1, "message1"));
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 2);
+        row.put("message", "message2");
+        writer.save(row);
+        writer.save(createRow(3, "message3"));
+        writer.close();
+
+        assertEquals(count(), 3);
+        ResultSet resultSet = conn.createStatement().executeQuery(
+                "SELECT number, created FROM " + SCHEMA + "." + TABLE + " WHERE id = 3");
+        resultSet.next();
+        assertEquals(resultSet.getLong(1), 30L);
+        assertEquals(resultSet.getTimestamp(2), new Timestamp(3000L));
+    }
+
+    @Test(expectedExceptions = SQLException.class)
+    public void testFailedLoadIsRolledBack() throws Exception {
+        JdbcBulkWriter<Cells> writer = new JdbcBulkWriter<>(createConfig(100));
+
+        writer.save(createRow(1, "message1"));
+        writer.save(createRow(1, "duplicated"));
+        try {
+            writer.close();
+        } finally {
+            assertEquals(count(), 0);
+        }
+    }
+
+    @Test
+    public void testDialectFromUrl() {
+        assertEquals(JdbcDialect.fromUrl("jdbc:postgresql://localhost/db"), JdbcDialect.POSTGRESQL);
+        assertEquals(JdbcDialect.fromUrl("jdbc:mysql://localhost/db"), JdbcDialect.MYSQL);
+        assertEquals(JdbcDialect.fromUrl(CONNECTION_URL), JdbcDialect.H2);
+        assertEquals(JdbcDialect.fromUrl("jdbc:sqlserver://localhost"), JdbcDialect.GENERIC);
+        assertEquals(JdbcBulkWriter.isSupported(JdbcDialect.ORACLE), false);
+    }
+
+    private JdbcDeepJobConfig<Cells> createConfig(int commitInterval) {
+        JdbcDeepJobConfig<Cells> config = new JdbcDeepJobConfig<>(Cells.class);
+        config.driverClass(Driver.class.getCanonicalName())
+                .connectionUrl(CONNECTION_URL)
+                .username(USER)
+                .password("")
+                .database(SCHEMA)
+                .table(TABLE)
+                .commitInterval(commitInterval)
+                .bulkLoad(true);
+        return config.initialize();
+    }
+
+    private Map<String, Object> createRow(int id, String message) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("message", message);
+        row.put("number", (long) id * 10);
+        row.put("created", new Timestamp(id * 1000L));
+        return row;
+    }
+
+    private String message(int id) throws SQLException {
+        Statement statement = conn.createStatement();
+        ResultSet resultSet = statement.executeQuery(
+                "SELECT message FROM " + SCHEMA + "." + TABLE + " WHERE id = " + id);
+        resultSet.next();
+        String message = resultSet.getString(1);
+        statement.close();
+        return message;
+    }
+
+    private int count() throws SQLException {
+        Statement statement = conn.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + SCHEMA + "." + TABLE);
+        resultSet.next();
+        int count = resultSet.getInt(1);
+        statement.close();
+        return count;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.deep.jdbc.writer;
+
+import static org.testng.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.h2.Driver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.jdbc.config.JdbcDeepJobConfig;
+import com.stratio.deep.jdbc.utils.JdbcDialect;
+
+/**
+ * Tests the batched JDBC writer against an in-memory H2 database.
+ */
+@Test(groups = { "UnitTests" })
+public class JdbcWriterTest {
+
+    private static final String CONNECTION_URL = "jdbc:h2:mem:jdbcwritertest;DB_CLOSE_DELAY=-1";
+
+    private static final String USER = "sa";
+
+    private static final String SCHEMA = "deepwriter";
+
+    private static final String TABLE = "messages";
+
+    private Connection conn;
+
+    @BeforeMethod
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(CONNECTION_URL, USER, "");
+        Statement statement = conn.createStatement();
+        statement.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        statement.execute("DROP TABLE IF EXISTS " + SCHEMA + "." + TABLE);
+        statement.execute("CREATE TABLE " + SCHEMA + "." + TABLE
+                + "(id INT PRIMARY KEY, message VARCHAR(255), number BIGINT)");
+        statement.close();
+    }
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    public void testCommitInterval() throws Exception {
+        JdbcWriter<Cells> writer = new JdbcWriter<>(createConfig(2, 4));
+
+        for (int i = 0; i < 5; i++) {
+            writer.save(createRow(i, "message" + i));
+        }
+        assertEquals(count(), 4);
+
+        writer.close();
+        assertEquals(count(), 5);
+    }
+
+    @Test
+    public void testPendingRowsWrittenOnClose() throws Exception {
+        JdbcWriter<Cells> writer = new JdbcWriter<>(createConfig(100, 1000));
+
+        for (int i = 0; i < 10; i++) {
+            writer.save(createRow(i, "message" + i));
+        }
+        assertEquals(count(), 0);
+
+        writer.close();
+        assertEquals(count(), 10);
+    }
+
+    @Test
+    public void testRowsWithDifferentColumns() throws Exception {
+        JdbcWriter<Cells> writer = new JdbcWriter<>(createConfig(10, 10));
+
+        writer.save(createRow(1, "message1"));
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 2);
+        row.put("message", "message2");
+        writer.save(row);
+        writer.save(createRow(3, "message3"));
+        writer.close();
+
+        assertEquals(count(), 3);
+        ResultSet resultSet = conn.createStatement().executeQuery(
+                "SELECT number FROM " + SCHEMA + "." + TABLE + " WHERE id = 2");
+        resultSet.next();
+        resultSet.getLong(1);
+        assertEquals(resultSet.wasNull(), true);
+    }
+
+    @Test(expectedExceptions = SQLException.class)
+    public void testFailedBatchIsRolledBack() throws Exception {
+        JdbcWriter<Cells> writer = new JdbcWriter<>(createConfig(10, 10));
+
+        writer.save(createRow(1, "message1"));
+        writer.save(createRow(1, "duplicated"));
+        try {
+            writer.close();
+        } finally {
+            assertEquals(count(), 0);
+        }
+    }
+
+    @Test
+    public void testUpsert() throws Exception {
+        JdbcWriter<Cells> writer = new JdbcWriter<>(createConfig(2, 4).upsertKeys("id"));
+
+        for (int i = 0; i < 5; i++) {
+            writer.save(createRow(i, "message" + i));
+        }
+        writer.save(createRow(1, "updated"));
+        writer.close();
+
+        assertEquals(count(), 5);
+        ResultSet resultSet = conn.createStatement().executeQuery(
+                "SELECT message FROM " + SCHEMA + "." + TABLE + " WHERE id = 1");
+        resultSet.next();
+        assertEquals(resultSet.getString(1), "updated");
+    }
+
+    @Test
+    public void testUpsertDialects() throws Exception {
+        JdbcWriter<Cells> writer = new JdbcWriter<>(createConfig(10, 10).upsertKeys("id"));
+        List<String> columns = Arrays.asList("id", "message");
+        String table = SCHEMA + "." + TABLE;
+
+        writer.dialect = JdbcDialect.POSTGRESQL;
+        assertEquals(writer.upsertSql(columns), "INSERT INTO " + table
+                + "(id,message) VALUES (?,?) ON CONFLICT (id) DO UPDATE SET message = EXCLUDED.message");
+        writer.dialect = JdbcDialect.MYSQL;
+        assertEquals(writer.upsertSql(columns), "INSERT INTO " + table
+                + "(id,message) VALUES (?,?) ON DUPLICATE KEY UPDATE message = VALUES(message)");
+        writer.dialect = JdbcDialect.ORACLE;
+        assertEquals(writer.upsertSql(columns), "MERGE INTO " + table
+                + " t USING (SELECT ? id,? message FROM dual) s ON (t.id = s.id)"
+                + " WHEN MATCHED THEN UPDATE SET message = s.message"
+                + " WHEN NOT MATCHED THEN INSERT (id,message) VALUES (s.id,s.message)");
+        writer.close();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUpsertWithoutKeys() throws Exception {
+        JdbcWriter<Cells> writer = new JdbcWriter<>(createConfig(10, 10).upsertKeys("id"));
+        try {
+            writer.upsertSql(Arrays.asList("message"));
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBatchSize() {
+        createConfig(0, 10);
+    }
+
+    private JdbcDeepJobConfig<Cells> createConfig(int batchSize, int commitInterval) {
+        JdbcDeepJobConfig<Cells> config = new JdbcDeepJobConfig<>(Cells.class);
+        config.driverClass(Driver.class.getCanonicalName())
+                .connectionUrl(CONNECTION_URL)
+                .username(USER)
+                .password("")
+                .database(SCHEMA)
+                .table(TABLE)
+                .batchSize(batchSize)
+                .commitInterval(commitInterval);
+        return config.initialize();
+    }
+
+    private Map<String, Object> createRow(int id, String message) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("message", message);
+        row.put("number", (long) id * 10);
+        return row;
+    }
+
+    private int count() throws SQLException {
+        Statement statement = conn.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + SCHEMA + "." + TABLE);
+        resultSet.next();
+        int count = resultSet.getInt(1);
+        statement.close();
+        return count;
+    }
+}
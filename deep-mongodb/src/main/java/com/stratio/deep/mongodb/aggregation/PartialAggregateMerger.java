@@ -0,0 +1,233 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.aggregation;
+
+import static com.stratio.deep.mongodb.utils.UtilMongoDB.MONGO_DEFAULT_ID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.rdd.RDD;
+
+import com.mongodb.DBObject;
+import com.stratio.deep.commons.entity.Cell;
+import com.stratio.deep.commons.entity.Cells;
+
+import scala.Tuple2;
+
+/**
+ * Merges the partial aggregates computed by each split of an aggregation pipeline.
+ * <p>
+ * Every split runs the pipeline over its own chunk, so a {@code $group} stage returns one partial result per group
+ * and split. Partial results of the same group are combined on the Spark side according to the accumulator of each
+ * field.
+ */
+public class PartialAggregateMerger implements Function2<Cells, Cells, Cells> {
+
+    private static final long serialVersionUID = -2843162458170958521L;
+
+    /**
+     * The stages that may be pushed down to each split.
+     */
+    private static final List<String> STAGES = Arrays.asList("$match", "$project", "$group", "$unwind");
+
+    /**
+     * The accumulators whose partial results can be combined.
+     */
+    private static final List<String> ACCUMULATORS = Arrays.asList("$sum", "$min", "$max", "$push", "$addToSet");
+
+    /**
+     * The accumulator of each grouped field.
+     */
+    private final HashMap<String, String> accumulators = new HashMap<>();
+
+    /**
+     * Instantiates a new partial aggregate merger.
+     *
+     * @param group the $group stage specification
+     */
+    public PartialAggregateMerger(DBObject group) {
+        for (String field : group.keySet()) {
+            if (!MONGO_DEFAULT_ID.equals(field)) {
+                accumulators.put(field, ((DBObject) group.get(field)).keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Checks that a pipeline can run per split and that its partial results can be merged: only $match, $project,
+     * $group and $unwind stages, at most one $group which must be the last stage, and combinable accumulators.
+     *
+     * @param pipeline the pipeline
+     */
+    public static void validatePipeline(List<DBObject> pipeline) {
+        for (int i = 0; i < pipeline.size(); i++) {
+            DBObject stage = pipeline.get(i);
+            if (stage.keySet().size() != 1) {
+                throw new IllegalArgumentException("every pipeline stage must have exactly one operator: " + stage);
+            }
+
+            String operator = stage.keySet().iterator().next();
+            if (!STAGES.contains(operator)) {
+                throw new IllegalArgumentException("pipeline stage not supported: " + operator);
+            }
+
+            if ("$group".equals(operator)) {
+                if (i != pipeline.size() - 1) {
+                    throw new IllegalArgumentException("$group must be the last stage of the pipeline");
+                }
+
+                DBObject group = (DBObject) stage.get(operator);
+                for (String field : group.keySet()) {
+                    if (MONGO_DEFAULT_ID.equals(field)) {
+                        continue;
+                    }
+                    String accumulator = ((DBObject) group.get(field)).keySet().iterator().next();
+                    if (!ACCUMULATORS.contains(accumulator)) {
+                        throw new IllegalArgumentException("accumulator " + accumulator + " of field " + field
+                                + " cannot be merged across splits");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the $group stage of a pipeline.
+     *
+     * @param pipeline the pipeline
+     * @return the $group stage specification, or null if the pipeline does not group
+     */
+    public static DBObject getGroup(List<DBObject> pipeline) {
+        if (pipeline == null || pipeline.isEmpty()) {
+            return null;
+        }
+        return (DBObject) pipeline.get(pipeline.size() - 1).get("$group");
+    }
+
+    /**
+     * Merges the partial aggregates of an RDD read with the given pipeline. RDDs of pipelines without a $group stage
+     * are returned as they are.
+     *
+     * @param rdd      the rdd read with the pipeline
+     * @param pipeline the pipeline
+     * @return the rdd with one element per group
+     */
+    public static RDD<Cells> merge(RDD<Cells> rdd, List<DBObject> pipeline) {
+        DBObject group = getGroup(pipeline);
+        if (group == null) {
+            return rdd;
+        }
+
+        return rdd.toJavaRDD().mapToPair(new PairFunction<Cells, Object, Cells>() {
+            @Override
+            public Tuple2<Object, Cells> call(Cells cells) {
+                Cell id = cells.getCellByName(MONGO_DEFAULT_ID);
+                return new Tuple2<>(id != null ? id.getCellValue() : null, cells);
+            }
+        }).reduceByKey(new PartialAggregateMerger(group)).values().rdd();
+    }
+
+    @Override
+    public Cells call(Cells left, Cells right) {
+        Cells merged = new Cells(left.getnameSpace());
+
+        for (Cell cell : left.getCells()) {
+            String accumulator = accumulators.get(cell.getCellName());
+            Cell other = right.getCellByName(cell.getCellName());
+
+            if (accumulator == null || other == null) {
+                merged.add(cell);
+            } else {
+                merged.add(Cell.create(cell.getCellName(),
+                        combine(accumulator, cell.getCellValue(), other.getCellValue())));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Combines two partial results of an accumulator.
+     *
+     * @param accumulator the accumulator
+     * @param left        the left partial result
+     * @param right       the right partial result
+     * @return the combined result
+     */
+    static Object combine(String accumulator, Object left, Object right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        switch (accumulator) {
+        case "$sum":
+            return sum((Number) left, (Number) right);
+        case "$min":
+            return compare(left, right) <= 0 ? left : right;
+        case "$max":
+            return compare(left, right) >= 0 ? left : right;
+        case "$push":
+            List<Object> pushed = new ArrayList<>((List<?>) left);
+            pushed.addAll((List<?>) right);
+            return pushed;
+        case "$addToSet":
+            Set<Object> set = new LinkedHashSet<>((List<?>) left);
+            set.addAll((List<?>) right);
+            return new ArrayList<>(set);
+        default:
+            throw new IllegalArgumentException("accumulator " + accumulator + " cannot be merged across splits");
+        }
+    }
+
+    /**
+     * Adds two partial sums, keeping the narrowest type able to hold the result.
+     *
+     * @param left  the left
+     * @param right the right
+     * @return the sum
+     */
+    private static Number sum(Number left, Number right) {
+        if (left instanceof Double || left instanceof Float || right instanceof Double || right instanceof Float) {
+            return left.doubleValue() + right.doubleValue();
+        }
+
+        long sum = left.longValue() + right.longValue();
+        if (left instanceof Integer && right instanceof Integer && sum >= Integer.MIN_VALUE
+                && sum <= Integer.MAX_VALUE) {
+            return (int) sum;
+        }
+        return sum;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+}
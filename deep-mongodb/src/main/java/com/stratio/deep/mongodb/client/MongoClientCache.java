@@ -0,0 +1,334 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.client;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoCredential;
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.stratio.deep.commons.exception.DeepGenericException;
+import com.stratio.deep.mongodb.config.MongoDeepJobConfig;
+
+/**
+ * Executor wide cache of {@link MongoClient}s, shared by readers, writers and split planning.
+ * <p>
+ * Clients are keyed by host list, credentials, read preference and connection pool options, and are reference counted:
+ * every {@link #acquire} must be paired with a {@link #release}. Clients without references are closed once they have
+ * been idle for the idle timeout of the configuration that created them.
+ */
+public final class MongoClientCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MongoClientCache.class);
+
+    /**
+     * Interval between idle client evictions, in milliseconds.
+     */
+    private static final long EVICTION_INTERVAL = 1000;
+
+    /**
+     * The cached clients, by key.
+     */
+    private static final Map<ClientKey, CachedClient> CLIENTS = new HashMap<>();
+
+    /**
+     * The cached clients, by client instance.
+     */
+    private static final Map<MongoClient, CachedClient> CACHED_BY_CLIENT = new IdentityHashMap<>();
+
+    /**
+     * The idle client evictor.
+     */
+    private static ScheduledExecutorService evictor;
+
+    /**
+     * Private default constructor.
+     */
+    private MongoClientCache() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Acquires a client for the given hosts, using the read preference of the configuration.
+     *
+     * @param config the mongo deep job config
+     * @param hosts  the hosts
+     * @return the mongo client
+     */
+    public static MongoClient acquire(MongoDeepJobConfig<?> config, List<String> hosts) {
+        return acquire(config, hosts, config.getReadPreference());
+    }
+
+    /**
+     * Acquires a client for the given hosts and read preference.
+     *
+     * @param config         the mongo deep job config
+     * @param hosts          the hosts
+     * @param readPreference the read preference name
+     * @return the mongo client
+     */
+    public static synchronized MongoClient acquire(MongoDeepJobConfig<?> config, List<String> hosts,
+                                                   String readPreference) {
+
+        List<ServerAddress> addressList = getServerAddressList(hosts);
+        List<MongoCredential> credentials = getCredentials(config);
+
+        ClientKey key = new ClientKey(addressList, credentials, readPreference, config.getPoolSize(),
+                config.getMinPoolSize(), config.getConnectionIdleTime());
+        CachedClient cached = CLIENTS.get(key);
+
+        if (cached != null && cached.idleTimeout != config.getIdleTimeout()) {
+            LOG.warn("mongo client for " + addressList + " is shared with an idle timeout of " + cached.idleTimeout
+                    + " ms, ignoring the requested " + config.getIdleTimeout() + " ms");
+        }
+
+        if (cached == null) {
+            MongoClientOptions options = MongoClientOptions.builder()
+                    .connectionsPerHost(config.getPoolSize())
+                    .minConnectionsPerHost(config.getMinPoolSize())
+                    .maxConnectionIdleTime(config.getConnectionIdleTime())
+                    .readPreference(ReadPreference.valueOf(readPreference))
+                    .build();
+
+            MongoClient mongoClient = new MongoClient(addressList, credentials, options);
+            cached = new CachedClient(key, mongoClient, config.getIdleTimeout());
+
+            CLIENTS.put(key, cached);
+            CACHED_BY_CLIENT.put(mongoClient, cached);
+            startEvictor();
+
+            LOG.debug("new mongo client for " + addressList);
+        }
+
+        cached.references++;
+        return cached.client;
+    }
+
+    /**
+     * Releases a client previously acquired from this cache.
+     *
+     * @param mongoClient the mongo client
+     */
+    public static synchronized void release(MongoClient mongoClient) {
+        CachedClient cached = CACHED_BY_CLIENT.get(mongoClient);
+        if (cached == null) {
+            LOG.warn("releasing a mongo client not acquired from the cache");
+            return;
+        }
+
+        cached.references--;
+        if (cached.references <= 0) {
+            cached.references = 0;
+            cached.lastRelease = System.currentTimeMillis();
+            if (cached.idleTimeout <= 0) {
+                evict(cached);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of cached clients.
+     *
+     * @return the number of cached clients
+     */
+    public static synchronized int size() {
+        return CLIENTS.size();
+    }
+
+    /**
+     * Closes the clients without references that have been idle for longer than their idle timeout.
+     */
+    static synchronized void evictIdleClients() {
+        long now = System.currentTimeMillis();
+
+        Iterator<CachedClient> iterator = new ArrayList<>(CLIENTS.values()).iterator();
+        while (iterator.hasNext()) {
+            CachedClient cached = iterator.next();
+            if (cached.references == 0 && now - cached.lastRelease >= cached.idleTimeout) {
+                evict(cached);
+            }
+        }
+    }
+
+    /**
+     * Closes and removes a cached client.
+     *
+     * @param cached the cached client
+     */
+    private static void evict(CachedClient cached) {
+        CLIENTS.remove(cached.key);
+        CACHED_BY_CLIENT.remove(cached.client);
+        cached.client.close();
+
+        LOG.debug("closed idle mongo client for " + cached.key.addressList);
+
+        if (CLIENTS.isEmpty() && evictor != null) {
+            evictor.shutdown();
+            evictor = null;
+        }
+    }
+
+    /**
+     * Starts the idle client evictor, if not running.
+     */
+    private static void startEvictor() {
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "deep-mongodb-client-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            evictor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evictIdleClients();
+                }
+            }, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gets the credentials of the configuration.
+     *
+     * @param config the mongo deep job config
+     * @return the credentials
+     */
+    private static List<MongoCredential> getCredentials(MongoDeepJobConfig<?> config) {
+        List<MongoCredential> mongoCredentials = new ArrayList<>();
+
+        if (config.getUsername() != null && config.getPassword() != null) {
+            mongoCredentials.add(MongoCredential.createMongoCRCredential(config.getUsername(), config.getDatabase(),
+                    config.getPassword().toCharArray()));
+        }
+        return mongoCredentials;
+    }
+
+    /**
+     * Gets server address list.
+     *
+     * @param hosts the hosts
+     * @return the server address list
+     */
+    private static List<ServerAddress> getServerAddressList(List<String> hosts) {
+        List<ServerAddress> addressList = new ArrayList<>();
+        try {
+            for (String host : hosts) {
+                addressList.add(new ServerAddress(host));
+            }
+        } catch (UnknownHostException e) {
+            throw new DeepGenericException(e);
+        }
+        return addressList;
+    }
+
+    /**
+     * Identifies a client: host list, credentials, read preference and connection pool options.
+     */
+    private static final class ClientKey {
+
+        private final List<ServerAddress> addressList;
+
+        private final List<MongoCredential> credentials;
+
+        private final String readPreference;
+
+        private final int poolSize;
+
+        private final int minPoolSize;
+
+        private final int connectionIdleTime;
+
+        private ClientKey(List<ServerAddress> addressList, List<MongoCredential> credentials,
+                          String readPreference, int poolSize, int minPoolSize, int connectionIdleTime) {
+            this.addressList = addressList;
+            this.credentials = credentials;
+            this.readPreference = readPreference;
+            this.poolSize = poolSize;
+            this.minPoolSize = minPoolSize;
+            this.connectionIdleTime = connectionIdleTime;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            ClientKey that = (ClientKey) o;
+
+            return addressList.equals(that.addressList) && credentials.equals(that.credentials)
+                    && (readPreference != null ? readPreference.equals(that.readPreference) :
+                    that.readPreference == null)
+                    && poolSize == that.poolSize && minPoolSize == that.minPoolSize
+                    && connectionIdleTime == that.connectionIdleTime;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = addressList.hashCode();
+            result = 31 * result + credentials.hashCode();
+            result = 31 * result + (readPreference != null ? readPreference.hashCode() : 0);
+            result = 31 * result + poolSize;
+            result = 31 * result + minPoolSize;
+            result = 31 * result + connectionIdleTime;
+            return result;
+        }
+    }
+
+    /**
+     * A cached client and its references.
+     */
+    private static final class CachedClient {
+
+        private final ClientKey key;
+
+        private final MongoClient client;
+
+        private final long idleTimeout;
+
+        private int references;
+
+        private long lastRelease;
+
+        private CachedClient(ClientKey key, MongoClient client, long idleTimeout) {
+            this.key = key;
+            this.client = client;
+            this.idleTimeout = idleTimeout;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.stratio.deep.mongodb.config;
 
+import java.util.List;
+
 import com.mongodb.DBObject;
 import com.mongodb.QueryBuilder;
 import com.stratio.deep.commons.config.DeepJobConfig;
@@ -125,6 +127,99 @@ public interface IMongoDeepJobConfig<T, S extends DeepJobConfig> {
      */
     S inputKey(String inputKey);
 
+    /**
+     * Indexed key used to split unsharded collections. Defaults to {@code _id}. Partitions will hold roughly
+     * splitSize MB each.
+     *
+     * @param splitKey
+     * @return this object.
+     */
+    S splitKey(String splitKey);
+
+    /**
+     * Maximum number of connections per host of the mongo clients shared by each executor.
+     *
+     * @param poolSize
+     * @return this object.
+     */
+    S poolSize(int poolSize);
+
+    /**
+     * Minimum number of connections per host of the mongo clients shared by each executor.
+     *
+     * @param minPoolSize
+     * @return this object.
+     */
+    S minPoolSize(int minPoolSize);
+
+    /**
+     * Idle time, in milliseconds, after which shared clients no longer used by any task are closed.
+     *
+     * @param idleTimeout
+     * @return this object.
+     */
+    S idleTimeout(long idleTimeout);
+
+    /**
+     * Idle time, in milliseconds, after which the pooled connections of a client are closed, 0 for no limit.
+     *
+     * @param connectionIdleTime
+     * @return this object.
+     */
+    S connectionIdleTime(int connectionIdleTime);
+
+    /**
+     * Number of documents returned by the server in each cursor batch.
+     *
+     * @param batchSize
+     * @return this object.
+     */
+    S batchSize(int batchSize);
+
+    /**
+     * If use it, the server will not time out idle cursors.
+     *
+     * @param noCursorTimeout
+     * @return this object.
+     */
+    S noCursorTimeout(boolean noCursorTimeout);
+
+    /**
+     * If use it, the server streams every batch without waiting for getMore requests. Not supported through mongos.
+     *
+     * @param exhaust
+     * @return this object.
+     */
+    S exhaust(boolean exhaust);
+
+    /**
+     * If use it, the next batch is fetched by a background thread while the current one is converted.
+     *
+     * @param readAhead
+     * @return this object.
+     */
+    S readAhead(boolean readAhead);
+
+    /**
+     * If use it, documents are kept as raw BSON and each field, including nested ones, is decoded only when it is
+     * accessed.
+     *
+     * @param lazyDecoding
+     * @return this object.
+     */
+    S lazyDecoding(boolean lazyDecoding);
+
+    /**
+     * Aggregation pipeline run by every split, after a leading $match on the split bounds. Only $match, $project,
+     * $unwind and a final $group with $sum, $min, $max, $push or $addToSet accumulators are allowed, so that the
+     * partial results of every split can be merged with
+     * {@link com.stratio.deep.mongodb.aggregation.PartialAggregateMerger#merge}.
+     *
+     * @param pipeline
+     * @return this object.
+     */
+    S pipeline(List<DBObject> pipeline);
+
     /**
      * If use it, MongoDB will not return _id field.
      *
@@ -18,10 +18,20 @@ package com.stratio.deep.mongodb.config;
 
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.FILTER_QUERY;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.IGNORE_ID_FIELD;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.BATCHSIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.CONNECTION_IDLE_TIME;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.EXHAUST;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.IDLE_TIMEOUT;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.INPUT_KEY;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.LAZY_DECODING;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.MIN_POOL_SIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.NO_CURSOR_TIMEOUT;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.POOL_SIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.READ_AHEAD;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.READ_PREFERENCE;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.REPLICA_SET;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.SORT;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.SPLIT_KEY;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.SPLIT_SIZE;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.USE_CHUNKS;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.USE_SHARD;
@@ -47,10 +57,12 @@ import com.mongodb.hadoop.util.MongoConfigUtil;
 import com.stratio.deep.commons.config.ExtractorConfig;
 import com.stratio.deep.commons.config.HadoopConfig;
 import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.mongodb.aggregation.PartialAggregateMerger;
 import com.stratio.deep.commons.filter.Filter;
 import com.stratio.deep.commons.filter.FilterType;
 import com.stratio.deep.mongodb.extractor.MongoNativeCellExtractor;
 import com.stratio.deep.mongodb.extractor.MongoNativeEntityExtractor;
+import com.stratio.deep.mongodb.utils.UtilMongoDB;
 
 /**
  * The type Mongo deep job config.
@@ -117,10 +129,65 @@ public class MongoDeepJobConfig<T> extends HadoopConfig<T, MongoDeepJobConfig<T>
     private boolean splitsUseChunks = true;
 
     /**
-     * The Split size.
+     * The Split size, in MB.
      */
     private Integer splitSize = 8;
 
+    /**
+     * The indexed key used to split unsharded collections.
+     */
+    private String splitKey = UtilMongoDB.MONGO_DEFAULT_ID;
+
+    /**
+     * The maximum number of connections per host of the executor mongo clients.
+     */
+    private int poolSize = 100;
+
+    /**
+     * The minimum number of connections per host of the executor mongo clients.
+     */
+    private int minPoolSize = 0;
+
+    /**
+     * The idle time, in milliseconds, after which unused clients are closed.
+     */
+    private long idleTimeout = 60000;
+
+    /**
+     * The idle time, in milliseconds, after which pooled connections are closed, 0 for no limit.
+     */
+    private int connectionIdleTime = 0;
+
+    /**
+     * The number of documents returned in each cursor batch, 0 for the server default.
+     */
+    private int batchSize = 0;
+
+    /**
+     * Whether cursors never time out on the server.
+     */
+    private boolean noCursorTimeout = false;
+
+    /**
+     * Whether cursors use exhaust mode, streaming every batch without waiting for getMore requests.
+     */
+    private boolean exhaust = false;
+
+    /**
+     * Whether the next batch is fetched by a background thread while the current one is converted.
+     */
+    private boolean readAhead = false;
+
+    /**
+     * Whether documents are kept as raw BSON and their fields decoded only when accessed.
+     */
+    private boolean lazyDecoding = false;
+
+    /**
+     * OPTIONAL aggregation pipeline run by every split.
+     */
+    private List<DBObject> pipeline;
+
     /**
      * The Custom configuration.
      */
@@ -287,6 +354,106 @@ public class MongoDeepJobConfig<T> extends HadoopConfig<T, MongoDeepJobConfig<T>
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> splitKey(String splitKey) {
+        this.splitKey = splitKey;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> poolSize(int poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> minPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> idleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> connectionIdleTime(int connectionIdleTime) {
+        this.connectionIdleTime = connectionIdleTime;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> noCursorTimeout(boolean noCursorTimeout) {
+        this.noCursorTimeout = noCursorTimeout;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> exhaust(boolean exhaust) {
+        this.exhaust = exhaust;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> readAhead(boolean readAhead) {
+        this.readAhead = readAhead;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> lazyDecoding(boolean lazyDecoding) {
+        this.lazyDecoding = lazyDecoding;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MongoDeepJobConfig<T> pipeline(List<DBObject> pipeline) {
+        PartialAggregateMerger.validatePipeline(pipeline);
+        this.pipeline = pipeline;
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -519,6 +686,46 @@ public class MongoDeepJobConfig<T> extends HadoopConfig<T, MongoDeepJobConfig<T>
             pageSize(extractorConfig.getInteger(SPLIT_SIZE));
         }
 
+        if (values.get(SPLIT_KEY) != null) {
+            splitKey(extractorConfig.getString(SPLIT_KEY));
+        }
+
+        if (values.get(POOL_SIZE) != null) {
+            poolSize(extractorConfig.getInteger(POOL_SIZE));
+        }
+
+        if (values.get(MIN_POOL_SIZE) != null) {
+            minPoolSize(extractorConfig.getInteger(MIN_POOL_SIZE));
+        }
+
+        if (values.get(IDLE_TIMEOUT) != null) {
+            idleTimeout(extractorConfig.getLong(IDLE_TIMEOUT));
+        }
+
+        if (values.get(CONNECTION_IDLE_TIME) != null) {
+            connectionIdleTime(extractorConfig.getInteger(CONNECTION_IDLE_TIME));
+        }
+
+        if (values.get(BATCHSIZE) != null) {
+            batchSize(extractorConfig.getInteger(BATCHSIZE));
+        }
+
+        if (values.get(NO_CURSOR_TIMEOUT) != null) {
+            noCursorTimeout(extractorConfig.getBoolean(NO_CURSOR_TIMEOUT));
+        }
+
+        if (values.get(EXHAUST) != null) {
+            exhaust(extractorConfig.getBoolean(EXHAUST));
+        }
+
+        if (values.get(READ_AHEAD) != null) {
+            readAhead(extractorConfig.getBoolean(READ_AHEAD));
+        }
+
+        if (values.get(LAZY_DECODING) != null) {
+            lazyDecoding(extractorConfig.getBoolean(LAZY_DECODING));
+        }
+
         if (values.get(WRITE_MODE) != null) {
             writeConcern((WriteConcern) extractorConfig.getValue(WriteConcern.class, WRITE_MODE));
         }
@@ -653,6 +860,105 @@ public class MongoDeepJobConfig<T> extends HadoopConfig<T, MongoDeepJobConfig<T>
         this.splitSize = splitSize;
     }
 
+    /**
+     * Gets split key.
+     *
+     * @return the split key
+     */
+    public String getSplitKey() {
+        return splitKey;
+    }
+
+    /**
+     * Gets the maximum number of connections per host.
+     *
+     * @return the pool size
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Gets the minimum number of connections per host.
+     *
+     * @return the min pool size
+     */
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    /**
+     * Gets the idle timeout, in milliseconds.
+     *
+     * @return the idle timeout
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Gets the idle time of pooled connections, in milliseconds.
+     *
+     * @return the connection idle time
+     */
+    public int getConnectionIdleTime() {
+        return connectionIdleTime;
+    }
+
+    /**
+     * Gets the cursor batch size.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Is no cursor timeout.
+     *
+     * @return the boolean
+     */
+    public boolean isNoCursorTimeout() {
+        return noCursorTimeout;
+    }
+
+    /**
+     * Is exhaust.
+     *
+     * @return the boolean
+     */
+    public boolean isExhaust() {
+        return exhaust;
+    }
+
+    /**
+     * Is read ahead.
+     *
+     * @return the boolean
+     */
+    public boolean isReadAhead() {
+        return readAhead;
+    }
+
+    /**
+     * Is lazy decoding.
+     *
+     * @return the boolean
+     */
+    public boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    /**
+     * Gets the aggregation pipeline.
+     *
+     * @return the pipeline
+     */
+    public List<DBObject> getPipeline() {
+        return pipeline;
+    }
+
     /**
      * Gets query.
      *
@@ -706,6 +1012,17 @@ public class MongoDeepJobConfig<T> extends HadoopConfig<T, MongoDeepJobConfig<T>
         sb.append(", useShards=").append(useShards);
         sb.append(", splitsUseChunks=").append(splitsUseChunks);
         sb.append(", splitSize=").append(splitSize);
+        sb.append(", splitKey='").append(splitKey).append('\'');
+        sb.append(", poolSize=").append(poolSize);
+        sb.append(", minPoolSize=").append(minPoolSize);
+        sb.append(", idleTimeout=").append(idleTimeout);
+        sb.append(", connectionIdleTime=").append(connectionIdleTime);
+        sb.append(", batchSize=").append(batchSize);
+        sb.append(", noCursorTimeout=").append(noCursorTimeout);
+        sb.append(", exhaust=").append(exhaust);
+        sb.append(", readAhead=").append(readAhead);
+        sb.append(", lazyDecoding=").append(lazyDecoding);
+        sb.append(", pipeline=").append(pipeline);
         sb.append(", writeConcern=").append(writeConcern);
         sb.append(", customConfiguration=").append(customConfiguration);
         sb.append('}');
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.entity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.LazyBSONObject;
+
+import com.stratio.deep.commons.entity.Cell;
+import com.stratio.deep.mongodb.utils.UtilMongoDB;
+
+/**
+ * Cell backed by the raw bytes of a BSON document. The value is decoded the first time it is accessed; nested
+ * documents are decoded into cells that are lazy as well, so only the accessed paths of a document are ever decoded.
+ * <p>
+ * Lazy cells are serialized as plain {@link Cell}s holding the decoded value.
+ */
+public class LazyBSONCell extends Cell {
+
+    private static final long serialVersionUID = -4466851722186302465L;
+
+    /**
+     * The document holding the value, until it is decoded.
+     */
+    private transient LazyBSONObject document;
+
+    /**
+     * Instantiates a new lazy cell.
+     *
+     * @param cellName the cell name
+     * @param document the document holding the value
+     */
+    public LazyBSONCell(String cellName, LazyBSONObject document) {
+        super(cellName, null);
+        this.document = document;
+    }
+
+    /**
+     * Decodes the value, if not decoded yet.
+     *
+     * @return the value
+     */
+    private Object decode() {
+        if (document != null) {
+            cellValue = UtilMongoDB.getCellValueFromBson(document.get(cellName));
+            document = null;
+        }
+        return cellValue;
+    }
+
+    /**
+     * Checks if the value has been decoded.
+     *
+     * @return the boolean
+     */
+    public boolean isDecoded() {
+        return document == null;
+    }
+
+    @Override
+    public Object getCellValue() {
+        return decode();
+    }
+
+    @Override
+    public Object getValue() {
+        return decode();
+    }
+
+    @Override
+    public <T> T getValue(Class<T> clazz) {
+        decode();
+        return super.getValue(clazz);
+    }
+
+    @Override
+    public <T> List<T> getList(Class<T> clazz) {
+        decode();
+        return super.getList(clazz);
+    }
+
+    @Override
+    public <T> Set<T> getSet(Class<T> clazz) {
+        decode();
+        return super.getSet(clazz);
+    }
+
+    @Override
+    public <K, V> Map<K, V> getMap(Class<K> keysClass, Class<V> valuesClass) {
+        decode();
+        return super.getMap(keysClass, valuesClass);
+    }
+
+    @Override
+    public String toString() {
+        decode();
+        return super.toString();
+    }
+
+    /**
+     * Replaces the lazy cell by a plain cell with the decoded value when serialized.
+     *
+     * @return the plain cell
+     */
+    private Object writeReplace() {
+        return Cell.create(cellName, decode(), isKey, isClusterKey);
+    }
+}
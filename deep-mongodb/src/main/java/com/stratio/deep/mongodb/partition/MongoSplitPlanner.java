@@ -0,0 +1,643 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.partition;
+
+import static com.stratio.deep.mongodb.utils.UtilMongoDB.MONGO_DEFAULT_ID;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.AggregationOutput;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.CommandResult;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.stratio.deep.commons.exception.DeepGenericException;
+import com.stratio.deep.commons.rdd.DeepTokenRange;
+import com.stratio.deep.commons.utils.Pair;
+import com.stratio.deep.mongodb.client.MongoClientCache;
+import com.stratio.deep.mongodb.config.MongoDeepJobConfig;
+
+/**
+ * Computes the partitions of a MongoDB collection.
+ * <p>
+ * Unsharded collections are split with {@code splitVector} over the configured split key. When that command is not
+ * allowed, bounds are taken from a {@code $sample} of the split key (or from evenly spaced keys read through the index
+ * on servers without {@code $sample}). Sharded collections are split by chunk, and contiguous chunks living in the same
+ * shard are coalesced until they reach the configured split size. Chunk sizes start as the average chunk size of their
+ * shard; the chunks of the shards that get coalesced are then estimated one by one with {@code dataSize}.
+ */
+public class MongoSplitPlanner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MongoSplitPlanner.class);
+
+    /**
+     * The constant SPLIT_KEYS.
+     */
+    public static final String SPLIT_KEYS = "splitKeys";
+
+    /**
+     * Number of sampled keys per partition when splitVector is not available.
+     */
+    public static final int SAMPLES_PER_SPLIT = 10;
+
+    /**
+     * Bytes in a megabyte.
+     */
+    private static final long MB = 1024L * 1024L;
+
+    /**
+     * The Mongo deep job config.
+     */
+    private final MongoDeepJobConfig<?> mongoDeepJobConfig;
+
+    /**
+     * The key used to split unsharded collections.
+     */
+    private final String splitKey;
+
+    /**
+     * Target partition size, in bytes.
+     */
+    private final long targetSize;
+
+    /**
+     * Instantiates a new Mongo split planner.
+     *
+     * @param mongoDeepJobConfig the mongo deep job config
+     */
+    public MongoSplitPlanner(MongoDeepJobConfig<?> mongoDeepJobConfig) {
+        this.mongoDeepJobConfig = mongoDeepJobConfig;
+        this.splitKey = mongoDeepJobConfig.getSplitKey() != null ? mongoDeepJobConfig.getSplitKey() :
+                MONGO_DEFAULT_ID;
+        this.targetSize = Math.max(1, mongoDeepJobConfig.getSplitSize()) * MB;
+    }
+
+    /**
+     * Calculates the partitions of the given collection.
+     *
+     * @param collection the collection
+     * @return the mongo partition [ ]
+     */
+    public MongoPartition[] plan(DBCollection collection) {
+        return isShardedCollection(collection) ? calculateShardChunks(collection) : calculateSplits(collection);
+    }
+
+    /**
+     * Is sharded collection.
+     *
+     * @param collection the collection
+     * @return the boolean
+     */
+    private boolean isShardedCollection(DBCollection collection) {
+
+        DB config = collection.getDB().getMongo().getDB("config");
+        DBCollection configCollections = config.getCollection("collections");
+
+        DBObject dbObject = configCollections.findOne(new BasicDBObject(MONGO_DEFAULT_ID, collection.getFullName()));
+        return dbObject != null;
+    }
+
+    /**
+     * Gets the hosts of every shard. Sharded partitions are read directly from these hosts instead of through mongos.
+     *
+     * @param collection the collection
+     * @return the shards
+     */
+    private Map<String, String[]> getShards(DBCollection collection) {
+        DB config = collection.getDB().getSisterDB("config");
+        DBCollection configShards = config.getCollection("shards");
+
+        DBCursor cursorShards = configShards.find();
+
+        Map<String, String[]> map = new HashMap<>();
+        while (cursorShards.hasNext()) {
+            DBObject currentShard = cursorShards.next();
+            String currentHost = (String) currentShard.get("host");
+            // replica set shards are registered as "<replicaSet>/<host>,<host>", standalone ones as "<host>"
+            int slashIndex = currentHost.indexOf("/");
+            map.put((String) currentShard.get(MONGO_DEFAULT_ID),
+                    currentHost.substring(slashIndex + 1).split(","));
+        }
+        return map;
+    }
+
+    /**
+     * Gets the chunks of the collection, sorted by their lower bound.
+     *
+     * @param collection the collection
+     * @return the chunks
+     */
+    private DBCursor getChunks(DBCollection collection) {
+        DB config = collection.getDB().getSisterDB("config");
+        DBCollection configChunks = config.getCollection("chunks");
+        return configChunks.find(new BasicDBObject("ns", collection.getFullName()))
+                .sort(new BasicDBObject("min", 1));
+    }
+
+    /**
+     * Calculate splits.
+     *
+     * @param collection the collection
+     * @return the mongo partition [ ]
+     */
+    private MongoPartition[] calculateSplits(DBCollection collection) {
+
+        List<Object> bounds = getSplitData(collection);
+        List<ServerAddress> serverAddressList = collection.getDB().getMongo().getServerAddressList();
+
+        if (bounds == null) {
+            Pair<List<Object>, List<ServerAddress>> pair = getSplitDataCollectionShardEnviroment(getShards(collection),
+                    collection.getDB().getName(),
+                    collection.getName());
+            if (pair != null) {
+                bounds = pair.left;
+                serverAddressList = pair.right;
+            }
+        }
+
+        if (bounds == null) {
+            bounds = getSampledSplitData(collection);
+        }
+
+        List<String> stringHosts = new ArrayList<>();
+
+        for (ServerAddress serverAddress : serverAddressList) {
+            stringHosts.add(serverAddress.toString());
+        }
+
+        Object lastKey = null; // Lower boundary of the first min split
+        int i = 0;
+
+        MongoPartition[] partitions = new MongoPartition[bounds.size() + 1];
+
+        for (Object currentKey : bounds) {
+
+            partitions[i] = new MongoPartition(mongoDeepJobConfig.getRddId(), i, new DeepTokenRange(lastKey,
+                    currentKey, stringHosts), splitKey);
+
+            lastKey = currentKey;
+            i++;
+        }
+        partitions[i] = new MongoPartition(mongoDeepJobConfig.getRddId(), i, new DeepTokenRange(lastKey, null,
+                stringHosts), splitKey);
+        return partitions;
+    }
+
+    /**
+     * Gets split data using the splitVector command.
+     *
+     * @param collection the collection
+     * @return the split data, or null if the command was not allowed
+     */
+    private List<Object> getSplitData(DBCollection collection) {
+
+        final DBObject cmd = BasicDBObjectBuilder.start("splitVector", collection.getFullName())
+                .add("keyPattern", new BasicDBObject(splitKey, 1))
+                .add("force", false)
+                .add("maxChunkSize", mongoDeepJobConfig.getSplitSize())
+                .get();
+
+        CommandResult splitVectorResult = collection.getDB().getSisterDB("admin").command(cmd);
+
+        if (!splitVectorResult.ok()) {
+            LOG.debug("splitVector not available for " + collection.getFullName() + ": "
+                    + splitVectorResult.getErrorMessage());
+            return null;
+        }
+
+        BasicDBList splitKeys = (BasicDBList) splitVectorResult.get(SPLIT_KEYS);
+        if (splitKeys == null) {
+            return null;
+        }
+
+        List<Object> bounds = new ArrayList<>(splitKeys.size());
+        for (Object splitData : splitKeys) {
+            bounds.add(getKeyValue((DBObject) splitData, splitKey));
+        }
+        return bounds;
+    }
+
+    /**
+     * Gets split data collection shard enviroment.
+     *
+     * @param shards         the shards
+     * @param dbName         the db name
+     * @param collectionName the collection name
+     * @return the split data collection shard enviroment
+     */
+    private Pair<List<Object>, List<ServerAddress>> getSplitDataCollectionShardEnviroment(Map<String, String[]> shards,
+                                                                                       String dbName,
+                                                                                       String collectionName) {
+        try {
+            for (String[] replicas : shards.values()) {
+
+                List<ServerAddress> addressList = getServerAddressList(Arrays.asList(replicas));
+
+                MongoClient mongoClient = MongoClientCache.acquire(mongoDeepJobConfig, Arrays.asList(replicas),
+                        ReadPreference.nearest().getName());
+                List<Object> bounds;
+                try {
+                    bounds = getSplitData(mongoClient.getDB(dbName).getCollection(collectionName));
+                } finally {
+                    MongoClientCache.release(mongoClient);
+                }
+
+                if (bounds != null) {
+                    return Pair.create(bounds, addressList);
+                }
+            }
+        } catch (UnknownHostException e) {
+            throw new DeepGenericException(e);
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Gets split data from a sample of the split key. Used when splitVector is not allowed.
+     *
+     * @param collection the collection
+     * @return the split data
+     */
+    private List<Object> getSampledSplitData(DBCollection collection) {
+
+        long dataSize = getLong(collection.getStats(), "size");
+        int numSplits = (int) Math.max(1, (dataSize + targetSize - 1) / targetSize);
+
+        if (numSplits <= 1) {
+            return new ArrayList<>();
+        }
+
+        List<Object> samples;
+        try {
+            samples = getSampleKeys(collection, numSplits * SAMPLES_PER_SPLIT);
+        } catch (MongoException e) {
+            LOG.debug("$sample not available for " + collection.getFullName() + ", reading keys through the index: "
+                    + e.getMessage());
+            return getIndexSplitData(collection, numSplits);
+        }
+
+        if (samples.isEmpty()) {
+            LOG.debug("no sampled document of " + collection.getFullName() + " has the split key " + splitKey
+                    + ", reading keys through the index");
+            return getIndexSplitData(collection, numSplits);
+        }
+        return getSampleBounds(samples, numSplits);
+    }
+
+    /**
+     * Picks evenly spaced bounds from a sorted sample of the split key.
+     *
+     * @param samples   the sorted sampled keys
+     * @param numSplits the number of splits
+     * @return the distinct bounds, empty if there are no samples
+     */
+    static List<Object> getSampleBounds(List<Object> samples, int numSplits) {
+        List<Object> bounds = new ArrayList<>();
+        if (samples.isEmpty()) {
+            return bounds;
+        }
+        for (int i = 1; i < numSplits; i++) {
+            Object bound = samples.get(i * samples.size() / numSplits);
+            if (bounds.isEmpty() || !bounds.get(bounds.size() - 1).equals(bound)) {
+                bounds.add(bound);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Gets a sorted random sample of the split key.
+     *
+     * @param collection the collection
+     * @param sampleSize the sample size
+     * @return the sampled keys
+     */
+    private List<Object> getSampleKeys(DBCollection collection, int sampleSize) {
+        List<DBObject> pipeline = new ArrayList<>();
+        pipeline.add(new BasicDBObject("$sample", new BasicDBObject("size", sampleSize)));
+        pipeline.add(new BasicDBObject("$project", new BasicDBObject(splitKey, 1)));
+        pipeline.add(new BasicDBObject("$sort", new BasicDBObject(splitKey, 1)));
+
+        AggregationOutput output = collection.aggregate(pipeline);
+        output.getCommandResult().throwOnError();
+
+        List<Object> samples = new ArrayList<>();
+        for (DBObject result : output.results()) {
+            Object key = getKeyValue(result, splitKey);
+            if (key != null) {
+                samples.add(key);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Gets split data reading evenly spaced keys through the split key index.
+     *
+     * @param collection the collection
+     * @param numSplits  the number of splits
+     * @return the split data
+     */
+    private List<Object> getIndexSplitData(DBCollection collection, int numSplits) {
+        long count = collection.count();
+        long step = count / numSplits;
+
+        List<Object> bounds = new ArrayList<>();
+        if (step == 0) {
+            return bounds;
+        }
+
+        for (int i = 1; i < numSplits; i++) {
+            DBCursor cursor = collection.find(new BasicDBObject(), new BasicDBObject(splitKey, 1))
+                    .sort(new BasicDBObject(splitKey, 1))
+                    .skip((int) (i * step))
+                    .limit(1);
+            try {
+                if (cursor.hasNext()) {
+                    Object bound = getKeyValue(cursor.next(), splitKey);
+                    if (bound != null && (bounds.isEmpty() || !bounds.get(bounds.size() - 1).equals(bound))) {
+                        bounds.add(bound);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Calculates shard chunks, coalescing contiguous chunks of the same shard up to the split size.
+     *
+     * @param collection the collection
+     * @return the mongo partition [ ]
+     */
+    private MongoPartition[] calculateShardChunks(DBCollection collection) {
+
+        DBCursor chunks = getChunks(collection);
+
+        Map<String, String[]> shards = getShards(collection);
+
+        List<MongoChunk> chunkList = new ArrayList<>();
+        String key = null;
+        try {
+            while (chunks.hasNext()) {
+
+                DBObject dbObject = chunks.next();
+                if (key == null) {
+                    Set<String> keySet = ((DBObject) dbObject.get("min")).keySet();
+                    key = keySet.iterator().next();
+                }
+                chunkList.add(new MongoChunk((String) dbObject.get("shard"),
+                        ((DBObject) dbObject.get("min")).get(key),
+                        ((DBObject) dbObject.get("max")).get(key)));
+            }
+        } finally {
+            chunks.close();
+        }
+
+        estimateChunkSizes(collection, key, chunkList);
+
+        List<MongoChunk> coalesced = coalesce(chunkList, targetSize);
+
+        LOG.debug(chunkList.size() + " chunks of " + collection.getFullName() + " coalesced into "
+                + coalesced.size() + " partitions");
+
+        List<MongoPartition> mongoPartitions = new ArrayList<>(coalesced.size());
+        int i = 0;
+        for (MongoChunk chunk : coalesced) {
+            mongoPartitions.add(new MongoPartition(mongoDeepJobConfig.getRddId(), i,
+                    new DeepTokenRange(shards.get(chunk.getShard()), chunk.getMin(), chunk.getMax()), key));
+            i++;
+        }
+
+        Collections.shuffle(mongoPartitions);
+        return mongoPartitions.toArray(new MongoPartition[mongoPartitions.size()]);
+    }
+
+    /**
+     * Estimates the size in bytes of every chunk. Every chunk starts with the average chunk size of its shard, read
+     * from the collection stats with a single command. The chunks of the shards whose average is below the split size,
+     * which are the ones coalesced, are then estimated with {@code dataSize} in estimate mode, which only walks the
+     * shard key index. If the command is not available, the remaining chunks keep their shard average.
+     *
+     * @param collection the collection
+     * @param key        the shard key
+     * @param chunks     the chunks
+     */
+    void estimateChunkSizes(DBCollection collection, String key, List<MongoChunk> chunks) {
+        CommandResult stats = collection.getStats();
+        Map<String, Long> averageSizes = getAverageChunkSizes((DBObject) stats.get("shards"), chunks);
+        long collectionAverage = chunks.isEmpty() ? targetSize : getLong(stats, "size") / chunks.size();
+
+        boolean dataSizeAvailable = true;
+        for (MongoChunk chunk : chunks) {
+            Long average = averageSizes.get(chunk.getShard());
+            chunk.setSize(average != null ? average : collectionAverage);
+
+            if (dataSizeAvailable && chunk.getSize() < targetSize) {
+                DBObject cmd = BasicDBObjectBuilder.start("dataSize", collection.getFullName())
+                        .add("keyPattern", new BasicDBObject(key, 1))
+                        .add("min", new BasicDBObject(key, chunk.getMin()))
+                        .add("max", new BasicDBObject(key, chunk.getMax()))
+                        .add("estimate", true)
+                        .get();
+                CommandResult result = collection.getDB().command(cmd);
+                if (result.ok()) {
+                    chunk.setSize(getLong(result, "size"));
+                } else {
+                    LOG.debug("dataSize not available for " + collection.getFullName() + " (" + result
+                            .getErrorMessage() + "), using the average chunk size of each shard");
+                    dataSizeAvailable = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the average chunk size of each shard.
+     *
+     * @param shardStats the collection stats of every shard, may be null
+     * @param chunks     the chunks
+     * @return the average chunk size, by shard
+     */
+    static Map<String, Long> getAverageChunkSizes(DBObject shardStats, List<MongoChunk> chunks) {
+        Map<String, Long> chunksByShard = new HashMap<>();
+        for (MongoChunk chunk : chunks) {
+            Long count = chunksByShard.get(chunk.getShard());
+            chunksByShard.put(chunk.getShard(), count == null ? 1L : count + 1);
+        }
+
+        Map<String, Long> averageSizes = new HashMap<>();
+        if (shardStats != null) {
+            for (Map.Entry<String, Long> entry : chunksByShard.entrySet()) {
+                DBObject stats = (DBObject) shardStats.get(entry.getKey());
+                if (stats != null) {
+                    averageSizes.put(entry.getKey(), getLong(stats, "size") / entry.getValue());
+                }
+            }
+        }
+        return averageSizes;
+    }
+
+    /**
+     * Coalesces contiguous chunks living in the same shard while the result does not exceed the target size.
+     *
+     * @param chunks     the chunks, sorted by their lower bound
+     * @param targetSize the target size, in bytes
+     * @return the coalesced chunks
+     */
+    static List<MongoChunk> coalesce(List<MongoChunk> chunks, long targetSize) {
+        List<MongoChunk> result = new ArrayList<>();
+        MongoChunk current = null;
+
+        for (MongoChunk chunk : chunks) {
+            if (current != null && current.getShard().equals(chunk.getShard())
+                    && current.getMax() != null && current.getMax().equals(chunk.getMin())
+                    && current.getSize() + chunk.getSize() <= targetSize) {
+                current = new MongoChunk(current.getShard(), current.getMin(), chunk.getMax(),
+                        current.getSize() + chunk.getSize());
+            } else {
+                if (current != null) {
+                    result.add(current);
+                }
+                current = chunk;
+            }
+        }
+
+        if (current != null) {
+            result.add(current);
+        }
+        return result;
+    }
+
+    /**
+     * Gets a key value, following dotted paths into sub-documents.
+     *
+     * @param dbObject the db object
+     * @param key      the key
+     * @return the key value
+     */
+    private static Object getKeyValue(DBObject dbObject, String key) {
+        if (dbObject.containsField(key)) {
+            return dbObject.get(key);
+        }
+
+        Object current = dbObject;
+        for (String field : key.split("\\.")) {
+            if (!(current instanceof DBObject)) {
+                return null;
+            }
+            current = ((DBObject) current).get(field);
+        }
+        return current;
+    }
+
+    /**
+     * Gets a numeric field as a long.
+     *
+     * @param dbObject the db object
+     * @param field    the field
+     * @return the long value, or zero if not present
+     */
+    private static long getLong(DBObject dbObject, String field) {
+        Object value = dbObject.get(field);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * Gets server address list.
+     *
+     * @param addressStringList the address string list
+     * @return the server address list
+     * @throws UnknownHostException the unknown host exception
+     */
+    private List<ServerAddress> getServerAddressList(List<String> addressStringList) throws UnknownHostException {
+
+        List<ServerAddress> addressList = new ArrayList<>();
+
+        for (String addressString : addressStringList) {
+            addressList.add(new ServerAddress(addressString));
+        }
+        return addressList;
+    }
+
+    /**
+     * A range of the shard key living in a single shard.
+     */
+    static class MongoChunk {
+
+        private final String shard;
+
+        private final Object min;
+
+        private final Object max;
+
+        private long size;
+
+        MongoChunk(String shard, Object min, Object max) {
+            this(shard, min, max, 0L);
+        }
+
+        MongoChunk(String shard, Object min, Object max, long size) {
+            this.shard = shard;
+            this.min = min;
+            this.max = max;
+            this.size = size;
+        }
+
+        String getShard() {
+            return shard;
+        }
+
+        Object getMin() {
+            return min;
+        }
+
+        Object getMax() {
+            return max;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        void setSize(long size) {
+            this.size = size;
+        }
+    }
+}
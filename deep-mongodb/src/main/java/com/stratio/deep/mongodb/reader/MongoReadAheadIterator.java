@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.reader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.stratio.deep.commons.exception.DeepGenericException;
+
+/**
+ * Iterator that reads an underlying iterator ahead from a background thread, one batch at a time, so that the next
+ * batch is fetched while the current one is being consumed.
+ *
+ * @param <T> the type of the elements
+ */
+public class MongoReadAheadIterator<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * Number of batches that may be read ahead.
+     */
+    private static final int READ_AHEAD_BATCHES = 2;
+
+    /**
+     * Maximum wait for the producer thread to stop when closing, in milliseconds.
+     */
+    private static final long CLOSE_TIMEOUT = 10000;
+
+    /**
+     * Marks the end of the underlying iterator.
+     */
+    private final List<T> endOfData = Collections.emptyList();
+
+    /**
+     * The batches read ahead.
+     */
+    private final BlockingQueue<List<T>> batches = new ArrayBlockingQueue<>(READ_AHEAD_BATCHES);
+
+    /**
+     * The producer thread.
+     */
+    private final Thread producer;
+
+    /**
+     * The error thrown by the underlying iterator, if any.
+     */
+    private volatile Throwable error;
+
+    /**
+     * The batch being consumed.
+     */
+    private Iterator<T> current = Collections.<T>emptyList().iterator();
+
+    /**
+     * Whether the end of data has been reached.
+     */
+    private boolean finished = false;
+
+    /**
+     * Instantiates a new read ahead iterator and starts reading.
+     *
+     * @param source    the underlying iterator
+     * @param batchSize the number of elements of each batch
+     */
+    public MongoReadAheadIterator(final Iterator<T> source, final int batchSize) {
+        final int size = Math.max(1, batchSize);
+
+        producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    List<T> batch = new ArrayList<>(size);
+                    while (source.hasNext()) {
+                        batch.add(source.next());
+                        if (batch.size() >= size) {
+                            batches.put(batch);
+                            batch = new ArrayList<>(size);
+                        }
+                    }
+                    if (!batch.isEmpty()) {
+                        batches.put(batch);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Throwable t) {
+                    error = t;
+                }
+
+                try {
+                    batches.put(endOfData);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "deep-mongodb-read-ahead");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (finished) {
+                return false;
+            }
+
+            List<T> batch;
+            try {
+                batch = batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeepGenericException(e);
+            }
+
+            if (batch == endOfData) {
+                finished = true;
+                if (error != null) {
+                    throw new DeepGenericException(error);
+                }
+                return false;
+            }
+            current = batch.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stops reading ahead, waiting for the producer thread to leave the underlying iterator, so that it can be closed.
+     * The wait is bounded: see {@link #isReading()}.
+     */
+    @Override
+    public void close() {
+        finished = true;
+        producer.interrupt();
+        batches.clear();
+        try {
+            producer.join(CLOSE_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks if the producer thread is still reading the underlying iterator.
+     *
+     * @return true if the producer thread has not stopped
+     */
+    public boolean isReading() {
+        return producer.isAlive();
+    }
+}
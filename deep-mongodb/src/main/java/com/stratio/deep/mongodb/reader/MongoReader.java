@@ -16,26 +16,28 @@
 
 package com.stratio.deep.mongodb.reader;
 
-import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.spark.Partition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Bytes;
+import com.mongodb.Cursor;
 import com.mongodb.DB;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
+import com.mongodb.LazyDBDecoder;
 import com.mongodb.MongoClient;
-import com.mongodb.MongoCredential;
 import com.mongodb.QueryBuilder;
-import com.mongodb.ReadPreference;
-import com.mongodb.ServerAddress;
-import com.stratio.deep.commons.exception.DeepExtractorInitializationException;
 import com.stratio.deep.commons.impl.DeepPartition;
 import com.stratio.deep.commons.rdd.IDeepRecordReader;
+import com.stratio.deep.mongodb.client.MongoClientCache;
 import com.stratio.deep.mongodb.config.MongoDeepJobConfig;
 import com.stratio.deep.mongodb.partition.MongoPartition;
 
@@ -49,6 +51,11 @@ public class MongoReader<T> implements IDeepRecordReader<DBObject> {
 
     private static final Logger LOG = LoggerFactory.getLogger(MongoReader.class);
 
+    /**
+     * The number of documents read ahead at a time when no cursor batch size is configured.
+     */
+    private static final int DEFAULT_READ_AHEAD_BATCH = 1000;
+
     /**
      * The Mongo client.
      */
@@ -66,6 +73,16 @@ public class MongoReader<T> implements IDeepRecordReader<DBObject> {
      */
     private DBCursor dbCursor = null;
 
+    /**
+     * The documents of the partition, read through the cursor or read ahead from it.
+     */
+    private Iterator<DBObject> documents = null;
+
+    /**
+     * The aggregation cursor, when reading through an aggregation pipeline.
+     */
+    private Cursor aggregationCursor = null;
+
     /**
      * The Mongo deep job config.
      */
@@ -81,15 +98,28 @@ public class MongoReader<T> implements IDeepRecordReader<DBObject> {
     }
 
     /**
-     * Close void.
+     * Closes the cursor and releases the client, once the read ahead thread, if any, has stopped using them.
      */
     public void close() {
+        if (documents instanceof MongoReadAheadIterator) {
+            MongoReadAheadIterator<DBObject> readAhead = (MongoReadAheadIterator<DBObject>) documents;
+            readAhead.close();
+            if (readAhead.isReading()) {
+                LOG.warn("mongodb read ahead thread still reading, closing its cursor anyway");
+            }
+        }
+
         if (dbCursor != null) {
             dbCursor.close();
         }
 
+        if (aggregationCursor != null) {
+            aggregationCursor.close();
+        }
+
         if (mongoClient != null) {
-            mongoClient.close();
+            MongoClientCache.release(mongoClient);
+            mongoClient = null;
         }
 
     }
@@ -100,7 +130,7 @@ public class MongoReader<T> implements IDeepRecordReader<DBObject> {
      * @return the boolean
      */
     public boolean hasNext() {
-        return dbCursor.hasNext();
+        return documents.hasNext();
     }
 
     /**
@@ -109,7 +139,7 @@ public class MongoReader<T> implements IDeepRecordReader<DBObject> {
      * @return the cells
      */
     public DBObject next() {
-        return dbCursor.next();
+        return documents.next();
     }
 
     /**
@@ -118,36 +148,64 @@ public class MongoReader<T> implements IDeepRecordReader<DBObject> {
      * @param partition the partition
      */
     public void init(Partition partition) {
-        try {
-
-            List<ServerAddress> addressList = new ArrayList<>();
+        mongoClient = MongoClientCache.acquire(mongoDeepJobConfig,
+                (List<String>) ((DeepPartition) partition).splitWrapper().getReplicas());
+        db = mongoClient.getDB(mongoDeepJobConfig.getDatabase());
+        collection = db.getCollection(mongoDeepJobConfig.getCollection());
+
+        Iterator<DBObject> source;
+        if (mongoDeepJobConfig.getPipeline() != null) {
+            source = aggregate((MongoPartition) partition);
+        } else {
+            dbCursor = collection.find(generateFilterQuery((MongoPartition) partition),
+                    mongoDeepJobConfig.getDBFields());
 
-            for (String s : (List<String>) ((DeepPartition) partition).splitWrapper().getReplicas()) {
-                addressList.add(new ServerAddress(s));
+            if (mongoDeepJobConfig.getBatchSize() > 0) {
+                dbCursor.batchSize(mongoDeepJobConfig.getBatchSize());
             }
-
-            //Credentials
-            List<MongoCredential> mongoCredentials = new ArrayList<>();
-
-            if (mongoDeepJobConfig.getUsername() != null && mongoDeepJobConfig.getPassword() != null) {
-                MongoCredential credential = MongoCredential.createMongoCRCredential(mongoDeepJobConfig.getUsername(),
-                        mongoDeepJobConfig.getDatabase(),
-                        mongoDeepJobConfig.getPassword().toCharArray());
-                mongoCredentials.add(credential);
-
+            if (mongoDeepJobConfig.isNoCursorTimeout()) {
+                dbCursor.addOption(Bytes.QUERYOPTION_NOTIMEOUT);
             }
+            if (mongoDeepJobConfig.isExhaust()) {
+                dbCursor.addOption(Bytes.QUERYOPTION_EXHAUST);
+            }
+            if (mongoDeepJobConfig.isLazyDecoding()) {
+                dbCursor.setDecoderFactory(LazyDBDecoder.FACTORY);
+            }
+            source = dbCursor;
+        }
 
-            mongoClient = new MongoClient(addressList, mongoCredentials);
-            mongoClient.setReadPreference(ReadPreference.valueOf(mongoDeepJobConfig.getReadPreference()));
-            db = mongoClient.getDB(mongoDeepJobConfig.getDatabase());
-            collection = db.getCollection(mongoDeepJobConfig.getCollection());
-
-            dbCursor = collection.find(generateFilterQuery((MongoPartition) partition),
-                    mongoDeepJobConfig.getDBFields());
+        if (mongoDeepJobConfig.isReadAhead()) {
+            int batchSize = mongoDeepJobConfig.getBatchSize() > 0 ? mongoDeepJobConfig.getBatchSize() :
+                    DEFAULT_READ_AHEAD_BATCH;
+            documents = new MongoReadAheadIterator<>(source, batchSize);
+        } else {
+            documents = source;
+        }
+    }
 
-        } catch (UnknownHostException e) {
-            throw new DeepExtractorInitializationException(e);
+    /**
+     * Runs the configured aggregation pipeline over the partition, preceded by a $match on the partition bounds.
+     *
+     * @param partition the partition
+     * @return the aggregation cursor
+     */
+    private Cursor aggregate(MongoPartition partition) {
+        List<DBObject> pipeline = new ArrayList<>();
+        pipeline.add(new BasicDBObject("$match", generateFilterQuery(partition)));
+        pipeline.addAll(mongoDeepJobConfig.getPipeline());
+
+        AggregationOptions.Builder options = AggregationOptions.builder()
+                .outputMode(AggregationOptions.OutputMode.CURSOR)
+                .allowDiskUse(true);
+        if (mongoDeepJobConfig.getBatchSize() > 0) {
+            options.batchSize(mongoDeepJobConfig.getBatchSize());
         }
+
+        LOG.debug("mongodb pipeline " + pipeline);
+
+        aggregationCursor = collection.aggregate(pipeline, options.build());
+        return aggregationCursor;
     }
 
     /**
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.streaming;
+
+import static com.stratio.deep.mongodb.utils.UtilMongoDB.MONGO_DEFAULT_ID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.spark.storage.StorageLevel;
+import org.apache.spark.streaming.receiver.Receiver;
+import org.bson.types.BSONTimestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.Bytes;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.mongodb.client.MongoClientCache;
+import com.stratio.deep.mongodb.config.MongoDeepJobConfig;
+import com.stratio.deep.mongodb.utils.UtilMongoDB;
+
+/**
+ * Spark Streaming receiver that tails the oplog of a replica set and emits every matching entry as {@link Cells}.
+ * <p>
+ * Entries are filtered by namespace (by default the database and collection of the configuration) and operation
+ * type ("i", "u", "d"...). Entries are stored in batches, each one when the batch read from the cursor is drained or
+ * full. If a resume collection is set, the timestamp of the last stored entry is saved there and tailing resumes from it
+ * after a restart; otherwise tailing starts at the end of the oplog.
+ */
+public class MongoOplogReceiver extends Receiver<Cells> {
+
+    private static final long serialVersionUID = 3263514209376845402L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MongoOplogReceiver.class);
+
+    /**
+     * The oplog database.
+     */
+    public static final String OPLOG_DATABASE = "local";
+
+    /**
+     * The oplog collection.
+     */
+    public static final String OPLOG_COLLECTION = "oplog.rs";
+
+    /**
+     * The oplog entry timestamp field.
+     */
+    public static final String TIMESTAMP = "ts";
+
+    /**
+     * The oplog entry namespace field.
+     */
+    public static final String NAMESPACE = "ns";
+
+    /**
+     * The oplog entry operation field.
+     */
+    public static final String OPERATION = "op";
+
+    /**
+     * Minimum interval between resume timestamp saves, in milliseconds.
+     */
+    private static final long SAVE_INTERVAL = 1000;
+
+    /**
+     * Wait before reopening a dead tailable cursor, in milliseconds.
+     */
+    private static final long REOPEN_WAIT = 1000;
+
+    /**
+     * Maximum number of entries stored at once.
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * The mongo deep job config.
+     */
+    private final MongoDeepJobConfig<Cells> mongoDeepJobConfig;
+
+    /**
+     * The namespaces to receive.
+     */
+    private final Set<String> namespaces = new LinkedHashSet<>();
+
+    /**
+     * The operations to receive, all if empty.
+     */
+    private final Set<String> operations = new LinkedHashSet<>();
+
+    /**
+     * The database of the resume collection.
+     */
+    private String resumeDatabase;
+
+    /**
+     * The collection where the resume timestamp is saved.
+     */
+    private String resumeCollection;
+
+    /**
+     * The identifier of this receiver in the resume collection.
+     */
+    private String receiverId;
+
+    /**
+     * The tailing thread.
+     */
+    private transient Thread tailer;
+
+    /**
+     * Instantiates a new oplog receiver for the database and collection of the configuration.
+     *
+     * @param mongoDeepJobConfig the mongo deep job config
+     */
+    public MongoOplogReceiver(MongoDeepJobConfig<Cells> mongoDeepJobConfig) {
+        super(StorageLevel.MEMORY_AND_DISK_2());
+        this.mongoDeepJobConfig = mongoDeepJobConfig;
+        this.receiverId = mongoDeepJobConfig.getDatabase() + "." + mongoDeepJobConfig.getCollection();
+        if (mongoDeepJobConfig.getCollection() != null) {
+            namespaces.add(receiverId);
+        }
+    }
+
+    /**
+     * Sets the namespaces ("database.collection") to receive.
+     *
+     * @param namespaces the namespaces
+     * @return this object.
+     */
+    public MongoOplogReceiver namespaces(String... namespaces) {
+        this.namespaces.clear();
+        this.namespaces.addAll(Arrays.asList(namespaces));
+        return this;
+    }
+
+    /**
+     * Sets the operations ("i", "u", "d", "c", "n") to receive.
+     *
+     * @param operations the operations
+     * @return this object.
+     */
+    public MongoOplogReceiver operations(String... operations) {
+        this.operations.clear();
+        this.operations.addAll(Arrays.asList(operations));
+        return this;
+    }
+
+    /**
+     * Sets the collection where the resume timestamp of this receiver is saved.
+     *
+     * @param database   the database
+     * @param collection the collection
+     * @param receiverId the identifier of this receiver in the collection
+     * @return this object.
+     */
+    public MongoOplogReceiver resumeFrom(String database, String collection, String receiverId) {
+        this.resumeDatabase = database;
+        this.resumeCollection = collection;
+        this.receiverId = receiverId;
+        return this;
+    }
+
+    @Override
+    public void onStart() {
+        tailer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                tail();
+            }
+        }, "deep-mongodb-oplog-" + receiverId);
+        tailer.setDaemon(true);
+        tailer.start();
+    }
+
+    @Override
+    public void onStop() {
+        if (tailer != null) {
+            tailer.interrupt();
+            tailer = null;
+        }
+    }
+
+    /**
+     * Tails the oplog until the receiver is stopped.
+     */
+    private void tail() {
+        MongoClient mongoClient = MongoClientCache.acquire(mongoDeepJobConfig, mongoDeepJobConfig.getHostList());
+        DBCursor cursor = null;
+        try {
+            DBCollection oplog = mongoClient.getDB(OPLOG_DATABASE).getCollection(OPLOG_COLLECTION);
+            DBCollection resume = resumeCollection != null ?
+                    mongoClient.getDB(resumeDatabase).getCollection(resumeCollection) : null;
+
+            BSONTimestamp lastTimestamp = resume != null ? loadTimestamp(resume) : null;
+            if (lastTimestamp == null) {
+                lastTimestamp = getLastTimestamp(oplog);
+            }
+            long lastSave = System.currentTimeMillis();
+            List<Cells> batch = new ArrayList<>();
+
+            while (!isStopped()) {
+                cursor = oplog.find(buildQuery(lastTimestamp))
+                        .addOption(Bytes.QUERYOPTION_TAILABLE)
+                        .addOption(Bytes.QUERYOPTION_AWAITDATA)
+                        .addOption(Bytes.QUERYOPTION_OPLOGREPLAY)
+                        .addOption(Bytes.QUERYOPTION_NOTIMEOUT);
+
+                BSONTimestamp batchTimestamp = lastTimestamp;
+                while (!isStopped() && cursor.hasNext()) {
+                    DBObject entry = cursor.next();
+                    batch.add(toCells(entry));
+                    batchTimestamp = (BSONTimestamp) entry.get(TIMESTAMP);
+
+                    // hasNext blocks until new entries are written, so the batch is stored before asking for them
+                    if (batch.size() >= MAX_BATCH_SIZE || isDrained(cursor)) {
+                        lastTimestamp = storeBatch(batch, batchTimestamp);
+                        if (resume != null && System.currentTimeMillis() - lastSave >= SAVE_INTERVAL) {
+                            saveTimestamp(resume, lastTimestamp);
+                            lastSave = System.currentTimeMillis();
+                        }
+                    }
+                }
+                if (!isStopped() && !batch.isEmpty()) {
+                    lastTimestamp = storeBatch(batch, batchTimestamp);
+                }
+
+                cursor.close();
+                cursor = null;
+
+                if (!isStopped()) {
+                    LOG.debug("oplog cursor of " + receiverId + " is dead, reopening from " + lastTimestamp);
+                    Thread.sleep(REOPEN_WAIT);
+                }
+            }
+
+            if (resume != null && lastTimestamp != null) {
+                saveTimestamp(resume, lastTimestamp);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            if (!isStopped()) {
+                restart("error tailing the oplog of " + receiverId, e);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            MongoClientCache.release(mongoClient);
+        }
+    }
+
+    /**
+     * Stores a batch of entries, blocking until Spark has stored them, and clears it.
+     *
+     * @param batch     the entries
+     * @param timestamp the timestamp of the last entry of the batch
+     * @return the timestamp, which tailing can now resume from
+     */
+    private BSONTimestamp storeBatch(List<Cells> batch, BSONTimestamp timestamp) {
+        store(batch.iterator());
+        batch.clear();
+        return timestamp;
+    }
+
+    /**
+     * Checks if every entry received by a cursor has been read, so that the next hasNext call goes to the server.
+     *
+     * @param cursor the cursor
+     * @return true if the entries received by the cursor have been read
+     */
+    static boolean isDrained(DBCursor cursor) {
+        int received = 0;
+        for (int size : cursor.getSizes()) {
+            received += size;
+        }
+        return cursor.numSeen() >= received;
+    }
+
+    /**
+     * Builds the oplog query: entries after the given timestamp, for the receiver namespaces and operations.
+     *
+     * @param lastTimestamp the timestamp of the last received entry, null to receive the whole oplog
+     * @return the query
+     */
+    DBObject buildQuery(BSONTimestamp lastTimestamp) {
+        BasicDBObject query = new BasicDBObject();
+
+        query.put(TIMESTAMP, new BasicDBObject("$gt", lastTimestamp != null ? lastTimestamp : new BSONTimestamp()));
+        if (!namespaces.isEmpty()) {
+            query.put(NAMESPACE, new BasicDBObject("$in", namespaces.toArray()));
+        }
+        if (!operations.isEmpty()) {
+            query.put(OPERATION, new BasicDBObject("$in", operations.toArray()));
+        }
+        return query;
+    }
+
+    /**
+     * Converts an oplog entry, with its namespace as the cells namespace.
+     *
+     * @param entry the oplog entry
+     * @return the cells
+     */
+    Cells toCells(DBObject entry) {
+        return UtilMongoDB.getCellFromBson(entry, (String) entry.get(NAMESPACE));
+    }
+
+    /**
+     * Gets the timestamp of the newest oplog entry.
+     *
+     * @param oplog the oplog
+     * @return the timestamp, or null if the oplog is empty
+     */
+    private BSONTimestamp getLastTimestamp(DBCollection oplog) {
+        DBCursor last = oplog.find().sort(new BasicDBObject("$natural", -1)).limit(1);
+        try {
+            return last.hasNext() ? (BSONTimestamp) last.next().get(TIMESTAMP) : null;
+        } finally {
+            last.close();
+        }
+    }
+
+    /**
+     * Loads the saved resume timestamp of this receiver.
+     *
+     * @param resume the resume collection
+     * @return the timestamp, or null if never saved
+     */
+    private BSONTimestamp loadTimestamp(DBCollection resume) {
+        DBObject saved = resume.findOne(new BasicDBObject(MONGO_DEFAULT_ID, receiverId));
+        return saved != null ? (BSONTimestamp) saved.get(TIMESTAMP) : null;
+    }
+
+    /**
+     * Saves the resume timestamp of this receiver.
+     *
+     * @param resume    the resume collection
+     * @param timestamp the timestamp
+     */
+    private void saveTimestamp(DBCollection resume, BSONTimestamp timestamp) {
+        resume.update(new BasicDBObject(MONGO_DEFAULT_ID, receiverId),
+                new BasicDBObject("$set", new BasicDBObject(TIMESTAMP, timestamp)), true, false);
+    }
+}
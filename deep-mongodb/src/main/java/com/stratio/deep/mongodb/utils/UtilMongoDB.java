@@ -30,6 +30,7 @@ import java.util.Set;
 
 import org.bson.BSONObject;
 import org.bson.BasicBSONObject;
+import org.bson.LazyBSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +41,7 @@ import com.stratio.deep.commons.entity.Cells;
 import com.stratio.deep.commons.entity.IDeepType;
 import com.stratio.deep.commons.utils.AnnotationUtils;
 import com.stratio.deep.commons.utils.Utils;
+import com.stratio.deep.mongodb.entity.LazyBSONCell;
 
 /**
  * Several utilities to work used in the Spark <=> MongoDB integration.
@@ -218,6 +220,10 @@ public final class UtilMongoDB {
      */
     public static Cells getCellFromBson(BSONObject bsonObject, String tableName) {
 
+        if (bsonObject instanceof LazyBSONObject && !(bsonObject instanceof List)) {
+            return getLazyCellFromBson((LazyBSONObject) bsonObject, tableName);
+        }
+
         Cells cells = tableName != null ? new Cells(tableName) : new Cells();
 
         Map<String, Object> map = bsonObject.toMap();
@@ -226,24 +232,7 @@ public final class UtilMongoDB {
 
         for (Map.Entry<String, Object> entry : entryBson) {
             try {
-
-                if (List.class.isAssignableFrom(entry.getValue().getClass())) {
-                    List innerCell = new ArrayList<>();
-                    for (Object innerBson : (List)entry.getValue()) {
-                        if(innerBson instanceof DBObject){
-                            innerCell.add(getCellFromBson((DBObject)innerBson, null));
-                        }else{
-                            innerCell.add(innerBson);
-                        }
-
-                    }
-                    cells.add(Cell.create(entry.getKey(), innerCell));
-                } else if (BSONObject.class.isAssignableFrom(entry.getValue().getClass())) {
-                    Cells innerCells = getCellFromBson((BSONObject) entry.getValue(), null);
-                    cells.add(Cell.create(entry.getKey(), innerCells));
-                } else {
-                    cells.add(Cell.create(entry.getKey(), entry.getValue()));
-                }
+                cells.add(Cell.create(entry.getKey(), getCellValueFromBson(entry.getValue())));
             } catch (IllegalArgumentException e) {
                 LOG.error("impossible to create a java cell from Bson field:" + entry.getKey() + ", type:" + entry
                         .getValue().getClass() + ", value:" + entry.getValue());
@@ -253,6 +242,49 @@ public final class UtilMongoDB {
         return cells;
     }
 
+    /**
+     * converts from a lazy BsonObject to cell class, decoding the value of every cell only when it is accessed
+     *
+     * @param bsonObject the lazy bson object
+     * @param tableName  the table name
+     * @return cell from bson
+     */
+    public static Cells getLazyCellFromBson(LazyBSONObject bsonObject, String tableName) {
+
+        Cells cells = tableName != null ? new Cells(tableName) : new Cells();
+
+        for (String key : bsonObject.keySet()) {
+            cells.add(new LazyBSONCell(key, bsonObject));
+        }
+        return cells;
+    }
+
+    /**
+     * converts a Bson value to a cell value: nested documents become cells and nested documents inside arrays become
+     * lists of cells
+     *
+     * @param value the bson value
+     * @return the cell value
+     */
+    public static Object getCellValueFromBson(Object value) {
+
+        if (value instanceof List) {
+            List innerCell = new ArrayList<>();
+            for (Object innerBson : (List) value) {
+                if (innerBson instanceof DBObject) {
+                    innerCell.add(getCellFromBson((DBObject) innerBson, null));
+                } else {
+                    innerCell.add(innerBson);
+                }
+
+            }
+            return innerCell;
+        } else if (value instanceof BSONObject) {
+            return getCellFromBson((BSONObject) value, null);
+        }
+        return value;
+    }
+
 
     /**
      * converts from and entity class with deep's anotations to BsonObject
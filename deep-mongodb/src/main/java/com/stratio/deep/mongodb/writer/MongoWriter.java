@@ -16,13 +16,12 @@
 
 package com.stratio.deep.mongodb.writer;
 
-import java.util.List;
-
 import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
-import com.mongodb.ServerAddress;
 import com.mongodb.WriteConcern;
+import com.stratio.deep.mongodb.client.MongoClientCache;
+import com.stratio.deep.mongodb.config.MongoDeepJobConfig;
 
 /**
  * Created by rcrespo on 5/11/14.
@@ -42,20 +41,16 @@ public class MongoWriter implements AutoCloseable {
 
 
     /**
-     * Instantiates a new Mongo writer.
+     * Instantiates a new Mongo writer, using the executor shared client for the configured hosts.
      * 
-     * @param serverAddresses
-     *            the server addresses
-     * @param databaseName
-     *            the database name
-     * @param collectionName
-     *            the collection name
+     * @param mongoDeepJobConfig
+     *            the mongo deep job config
      */
-    public MongoWriter(List<ServerAddress> serverAddresses, String databaseName, String collectionName,
-            WriteConcern writeConcern) {
-        mongoClient = new MongoClient(serverAddresses);
-        dbCollection = mongoClient.getDB(databaseName).getCollection(collectionName);
-        this.writeConcern = writeConcern;
+    public MongoWriter(MongoDeepJobConfig<?> mongoDeepJobConfig) {
+        mongoClient = MongoClientCache.acquire(mongoDeepJobConfig, mongoDeepJobConfig.getHostList());
+        dbCollection = mongoClient.getDB(mongoDeepJobConfig.getDatabase())
+                .getCollection(mongoDeepJobConfig.getCollection());
+        this.writeConcern = mongoDeepJobConfig.getWriteConcern();
     }
 
     /**
@@ -73,7 +68,8 @@ public class MongoWriter implements AutoCloseable {
      */
     public void close() {
         if (mongoClient != null) {
-            mongoClient.close();
+            MongoClientCache.release(mongoClient);
+            mongoClient = null;
         }
     }
 
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.aggregation;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.stratio.deep.commons.entity.Cell;
+import com.stratio.deep.commons.entity.Cells;
+
+@Test(groups = { "UnitTests" })
+public class PartialAggregateMergerTest {
+
+    private DBObject group() {
+        return new BasicDBObject("_id", "$country")
+                .append("total", new BasicDBObject("$sum", "$amount"))
+                .append("lowest", new BasicDBObject("$min", "$amount"))
+                .append("tags", new BasicDBObject("$addToSet", "$tag"));
+    }
+
+    @Test
+    public void testMergePartialAggregates() throws Exception {
+        PartialAggregateMerger merger = new PartialAggregateMerger(group());
+
+        Cells left = new Cells(Cell.create("_id", "ES"), Cell.create("total", 10), Cell.create("lowest", 3),
+                Cell.create("tags", Arrays.<Object>asList("a", "b")));
+        Cells right = new Cells(Cell.create("_id", "ES"), Cell.create("total", 5L), Cell.create("lowest", 1),
+                Cell.create("tags", Arrays.<Object>asList("b", "c")));
+
+        Cells merged = merger.call(left, right);
+
+        assertEquals(merged.getCellByName("_id").getCellValue(), "ES");
+        assertEquals(merged.getCellByName("total").getCellValue(), 15L);
+        assertEquals(merged.getCellByName("lowest").getCellValue(), 1);
+        assertEquals(merged.getCellByName("tags").getCellValue(), Arrays.<Object>asList("a", "b", "c"));
+    }
+
+    @Test
+    public void testSumKeepsIntegers() {
+        assertEquals(PartialAggregateMerger.combine("$sum", 1, 2), 3);
+        assertEquals(PartialAggregateMerger.combine("$sum", 1, 2.5), 3.5);
+        assertEquals(PartialAggregateMerger.combine("$max", null, 2), 2);
+    }
+
+    @Test
+    public void testValidPipeline() {
+        List<DBObject> pipeline = Arrays.<DBObject>asList(
+                new BasicDBObject("$match", new BasicDBObject("status", "A")),
+                new BasicDBObject("$unwind", "$tags"),
+                new BasicDBObject("$group", group()));
+
+        PartialAggregateMerger.validatePipeline(pipeline);
+        assertEquals(PartialAggregateMerger.getGroup(pipeline), group());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAverageCannotBeMerged() {
+        PartialAggregateMerger.validatePipeline(Arrays.<DBObject>asList(new BasicDBObject("$group",
+                new BasicDBObject("_id", "$country").append("avg", new BasicDBObject("$avg", "$amount")))));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testGroupMustBeLastStage() {
+        PartialAggregateMerger.validatePipeline(Arrays.<DBObject>asList(
+                new BasicDBObject("$group", group()),
+                new BasicDBObject("$project", new BasicDBObject("total", 1))));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsupportedStage() {
+        PartialAggregateMerger.validatePipeline(Arrays.<DBObject>asList(new BasicDBObject("$sort",
+                new BasicDBObject("total", -1))));
+    }
+}
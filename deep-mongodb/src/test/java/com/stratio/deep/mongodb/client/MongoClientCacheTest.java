@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.client;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.mongodb.MongoClient;
+import com.mongodb.ReadPreference;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.mongodb.config.MongoDeepJobConfig;
+
+@Test(groups = { "UnitTests" })
+public class MongoClientCacheTest {
+
+    private static final List<String> HOSTS = Collections.singletonList("localhost:27890");
+
+    @Test
+    public void testClientIsSharedAndClosedWhenReleased() {
+        MongoDeepJobConfig<Cells> config = new MongoDeepJobConfig<>(Cells.class).idleTimeout(0);
+        int size = MongoClientCache.size();
+
+        MongoClient first = MongoClientCache.acquire(config, HOSTS);
+        MongoClient second = MongoClientCache.acquire(config, HOSTS);
+
+        assertSame(first, second);
+        assertEquals(MongoClientCache.size(), size + 1);
+
+        MongoClientCache.release(first);
+        assertEquals(MongoClientCache.size(), size + 1);
+
+        MongoClientCache.release(second);
+        assertEquals(MongoClientCache.size(), size);
+    }
+
+    @Test
+    public void testClientsAreKeyedByReadPreference() {
+        MongoDeepJobConfig<Cells> config = new MongoDeepJobConfig<>(Cells.class).idleTimeout(0);
+
+        MongoClient nearest = MongoClientCache.acquire(config, HOSTS, ReadPreference.nearest().getName());
+        MongoClient primary = MongoClientCache.acquire(config, HOSTS, ReadPreference.primary().getName());
+
+        assertNotSame(nearest, primary);
+
+        MongoClientCache.release(nearest);
+        MongoClientCache.release(primary);
+    }
+
+    @Test
+    public void testClientsAreKeyedByPoolOptions() {
+        MongoDeepJobConfig<Cells> config = new MongoDeepJobConfig<>(Cells.class).idleTimeout(0);
+        MongoDeepJobConfig<Cells> bigPool = new MongoDeepJobConfig<>(Cells.class).idleTimeout(0).poolSize(200);
+        MongoDeepJobConfig<Cells> idleConnections = new MongoDeepJobConfig<>(Cells.class).idleTimeout(0)
+                .connectionIdleTime(1000);
+
+        MongoClient client = MongoClientCache.acquire(config, HOSTS);
+        MongoClient bigPoolClient = MongoClientCache.acquire(bigPool, HOSTS);
+        MongoClient idleConnectionsClient = MongoClientCache.acquire(idleConnections, HOSTS);
+
+        assertNotSame(client, bigPoolClient);
+        assertNotSame(client, idleConnectionsClient);
+        assertEquals(bigPoolClient.getMongoClientOptions().getConnectionsPerHost(), 200);
+        assertEquals(idleConnectionsClient.getMongoClientOptions().getMaxConnectionIdleTime(), 1000);
+
+        MongoClientCache.release(client);
+        MongoClientCache.release(bigPoolClient);
+        MongoClientCache.release(idleConnectionsClient);
+    }
+
+    @Test
+    public void testIdleClientIsEvicted() throws InterruptedException {
+        MongoDeepJobConfig<Cells> config = new MongoDeepJobConfig<>(Cells.class).idleTimeout(10);
+        int size = MongoClientCache.size();
+
+        MongoClientCache.release(MongoClientCache.acquire(config, HOSTS));
+        assertEquals(MongoClientCache.size(), size + 1);
+
+        Thread.sleep(20);
+        MongoClientCache.evictIdleClients();
+        assertEquals(MongoClientCache.size(), size);
+    }
+}
@@ -16,11 +16,20 @@
 
 package com.stratio.deep.mongodb.config;
 
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.BATCHSIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.EXHAUST;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.FILTER_QUERY;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.IDLE_TIMEOUT;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.INPUT_KEY;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.LAZY_DECODING;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.MIN_POOL_SIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.NO_CURSOR_TIMEOUT;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.POOL_SIZE;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.READ_AHEAD;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.READ_PREFERENCE;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.REPLICA_SET;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.SORT;
+import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.SPLIT_KEY;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.SPLIT_SIZE;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.USE_CHUNKS;
 import static com.stratio.deep.commons.extractor.utils.ExtractorConstants.USE_SHARD;
@@ -54,6 +63,15 @@ public class MongoDeepJobConfigTest {
     private boolean useSplits = true;
     private boolean useChunks = true;
     private int splitSize = 20;
+    private String splitKey = "splitKey";
+    private int poolSize = 10;
+    private int minPoolSize = 2;
+    private long idleTimeout = 5000;
+    private int batchSize = 500;
+    private boolean noCursorTimeout = true;
+    private boolean exhaust = true;
+    private boolean readAhead = true;
+    private boolean lazyDecoding = true;
     private WriteConcern writeMode = WriteConcern.JOURNAL_SAFE;
 
     @Test
@@ -76,6 +94,15 @@ public class MongoDeepJobConfigTest {
         assertEquals(mongoDeepJobConfig.isCreateInputSplit(), useSplits);
         assertEquals(mongoDeepJobConfig.isSplitsUseChunks(), useChunks);
         assertEquals(mongoDeepJobConfig.getSplitSize().intValue(), splitSize);
+        assertEquals(mongoDeepJobConfig.getSplitKey(), splitKey);
+        assertEquals(mongoDeepJobConfig.getPoolSize(), poolSize);
+        assertEquals(mongoDeepJobConfig.getMinPoolSize(), minPoolSize);
+        assertEquals(mongoDeepJobConfig.getIdleTimeout(), idleTimeout);
+        assertEquals(mongoDeepJobConfig.getBatchSize(), batchSize);
+        assertEquals(mongoDeepJobConfig.isNoCursorTimeout(), noCursorTimeout);
+        assertEquals(mongoDeepJobConfig.isExhaust(), exhaust);
+        assertEquals(mongoDeepJobConfig.isReadAhead(), readAhead);
+        assertEquals(mongoDeepJobConfig.isLazyDecoding(), lazyDecoding);
         assertEquals(mongoDeepJobConfig.getWriteConcern(), writeMode);
     }
 
@@ -97,6 +124,15 @@ public class MongoDeepJobConfigTest {
         extractorConfig.putValue(USE_SPLITS, useSplits);
         extractorConfig.putValue(USE_CHUNKS, useChunks);
         extractorConfig.putValue(SPLIT_SIZE, splitSize);
+        extractorConfig.putValue(SPLIT_KEY, splitKey);
+        extractorConfig.putValue(POOL_SIZE, poolSize);
+        extractorConfig.putValue(MIN_POOL_SIZE, minPoolSize);
+        extractorConfig.putValue(IDLE_TIMEOUT, idleTimeout);
+        extractorConfig.putValue(BATCHSIZE, batchSize);
+        extractorConfig.putValue(NO_CURSOR_TIMEOUT, noCursorTimeout);
+        extractorConfig.putValue(EXHAUST, exhaust);
+        extractorConfig.putValue(READ_AHEAD, readAhead);
+        extractorConfig.putValue(LAZY_DECODING, lazyDecoding);
         extractorConfig.putValue(WRITE_MODE, writeMode);
 
         return extractorConfig;
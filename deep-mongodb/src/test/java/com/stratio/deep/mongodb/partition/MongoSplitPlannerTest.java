@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.partition;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.CommandResult;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.mongodb.config.MongoDeepJobConfig;
+
+import com.stratio.deep.mongodb.partition.MongoSplitPlanner.MongoChunk;
+
+@Test(groups = { "UnitTests" })
+public class MongoSplitPlannerTest {
+
+    private static final long TARGET_SIZE = 100;
+
+    private static final long MB = 1024L * 1024L;
+
+    @Test
+    public void testCoalesceContiguousChunksOfSameShard() {
+        List<MongoChunk> chunks = new ArrayList<>();
+        chunks.add(new MongoChunk("shard1", 0, 10, 30));
+        chunks.add(new MongoChunk("shard1", 10, 20, 30));
+        chunks.add(new MongoChunk("shard1", 20, 30, 30));
+        chunks.add(new MongoChunk("shard1", 30, 40, 30));
+
+        List<MongoChunk> coalesced = MongoSplitPlanner.coalesce(chunks, TARGET_SIZE);
+
+        assertEquals(coalesced.size(), 2);
+        assertEquals(coalesced.get(0).getMin(), 0);
+        assertEquals(coalesced.get(0).getMax(), 30);
+        assertEquals(coalesced.get(0).getSize(), 90);
+        assertEquals(coalesced.get(1).getMin(), 30);
+        assertEquals(coalesced.get(1).getMax(), 40);
+    }
+
+    @Test
+    public void testCoalesceDoesNotMergeAcrossShards() {
+        List<MongoChunk> chunks = new ArrayList<>();
+        chunks.add(new MongoChunk("shard1", 0, 10, 10));
+        chunks.add(new MongoChunk("shard2", 10, 20, 10));
+        chunks.add(new MongoChunk("shard1", 20, 30, 10));
+
+        List<MongoChunk> coalesced = MongoSplitPlanner.coalesce(chunks, TARGET_SIZE);
+
+        assertEquals(coalesced.size(), 3);
+    }
+
+    @Test
+    public void testCoalesceKeepsBigChunks() {
+        List<MongoChunk> chunks = new ArrayList<>();
+        chunks.add(new MongoChunk("shard1", 0, 10, 150));
+        chunks.add(new MongoChunk("shard1", 10, 20, 10));
+
+        List<MongoChunk> coalesced = MongoSplitPlanner.coalesce(chunks, TARGET_SIZE);
+
+        assertEquals(coalesced.size(), 2);
+        assertEquals(coalesced.get(0).getSize(), 150);
+    }
+
+    @Test
+    public void testSampleBoundsAreEvenlySpaced() {
+        List<Object> samples = Arrays.<Object>asList(1, 2, 3, 4, 5, 6, 7, 8);
+
+        assertEquals(MongoSplitPlanner.getSampleBounds(samples, 4), Arrays.<Object>asList(3, 5, 7));
+    }
+
+    @Test
+    public void testNoSampleBoundsWithoutSamples() {
+        assertEquals(MongoSplitPlanner.getSampleBounds(Collections.emptyList(), 4), Collections.emptyList());
+    }
+
+    @Test
+    public void testAverageChunkSizeOfEachShard() {
+        List<MongoChunk> chunks = new ArrayList<>();
+        chunks.add(new MongoChunk("shard1", 0, 10, 0));
+        chunks.add(new MongoChunk("shard1", 10, 20, 0));
+        chunks.add(new MongoChunk("shard2", 20, 30, 0));
+        BasicDBObject shardStats = new BasicDBObject("shard1", new BasicDBObject("size", 300L))
+                .append("shard2", new BasicDBObject("size", 50));
+
+        Map<String, Long> averageSizes = MongoSplitPlanner.getAverageChunkSizes(shardStats, chunks);
+
+        assertEquals(averageSizes.get("shard1"), Long.valueOf(150));
+        assertEquals(averageSizes.get("shard2"), Long.valueOf(50));
+        assertEquals(MongoSplitPlanner.getAverageChunkSizes(null, chunks).size(), 0);
+    }
+
+    @Test
+    public void testChunksOfCoalescedShardsAreEstimatedWithDataSize() {
+        List<MongoChunk> chunks = new ArrayList<>();
+        chunks.add(new MongoChunk("shard1", 0, 10));
+        chunks.add(new MongoChunk("shard1", 10, 20));
+        chunks.add(new MongoChunk("shard2", 20, 30));
+
+        CommandResult dataSize = mockResult(true, 1000L);
+        DBCollection collection = mockCollection(new BasicDBObject("shard1", new BasicDBObject("size", 4 * MB))
+                .append("shard2", new BasicDBObject("size", 20 * MB)), dataSize);
+
+        new MongoSplitPlanner(new MongoDeepJobConfig<>(Cells.class)).estimateChunkSizes(collection, "_id", chunks);
+
+        assertEquals(chunks.get(0).getSize(), 1000L);
+        assertEquals(chunks.get(1).getSize(), 1000L);
+        assertEquals(chunks.get(2).getSize(), 20 * MB);
+        verify(collection.getDB(), times(2)).command(any(DBObject.class));
+    }
+
+    @Test
+    public void testShardAverageIsKeptWithoutDataSize() {
+        List<MongoChunk> chunks = new ArrayList<>();
+        chunks.add(new MongoChunk("shard1", 0, 10));
+        chunks.add(new MongoChunk("shard1", 10, 20));
+
+        DBCollection collection = mockCollection(new BasicDBObject("shard1", new BasicDBObject("size", 4 * MB)),
+                mockResult(false, 0L));
+
+        new MongoSplitPlanner(new MongoDeepJobConfig<>(Cells.class)).estimateChunkSizes(collection, "_id", chunks);
+
+        assertEquals(chunks.get(0).getSize(), 2 * MB);
+        assertEquals(chunks.get(1).getSize(), 2 * MB);
+        verify(collection.getDB(), times(1)).command(any(DBObject.class));
+    }
+
+    private static DBCollection mockCollection(DBObject shardStats, CommandResult dataSize) {
+        CommandResult stats = mock(CommandResult.class);
+        when(stats.get("shards")).thenReturn(shardStats);
+        DB db = mock(DB.class);
+        when(db.command(any(DBObject.class))).thenReturn(dataSize);
+        DBCollection collection = mock(DBCollection.class);
+        when(collection.getStats()).thenReturn(stats);
+        when(collection.getDB()).thenReturn(db);
+        when(collection.getFullName()).thenReturn("test.collection");
+        return collection;
+    }
+
+    private static CommandResult mockResult(boolean ok, long size) {
+        CommandResult result = mock(CommandResult.class);
+        when(result.ok()).thenReturn(ok);
+        when(result.get("size")).thenReturn(size);
+        return result;
+    }
+}
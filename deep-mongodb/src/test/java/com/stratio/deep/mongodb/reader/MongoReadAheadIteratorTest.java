@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.reader;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+
+import com.stratio.deep.commons.exception.DeepGenericException;
+
+@Test(groups = { "UnitTests" })
+public class MongoReadAheadIteratorTest {
+
+    @Test
+    public void testReadsEveryElementInOrder() {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            source.add(i);
+        }
+
+        MongoReadAheadIterator<Integer> iterator = new MongoReadAheadIterator<>(source.iterator(), 10);
+
+        List<Integer> read = new ArrayList<>();
+        while (iterator.hasNext()) {
+            read.add(iterator.next());
+        }
+        iterator.close();
+
+        assertEquals(read, source);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expectedExceptions = DeepGenericException.class)
+    public void testPropagatesSourceErrors() {
+        Iterator<Integer> failing = new Iterator<Integer>() {
+            private int count = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (count++ == 5) {
+                    throw new IllegalStateException("cursor killed");
+                }
+                return count;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        MongoReadAheadIterator<Integer> iterator = new MongoReadAheadIterator<>(failing, 2);
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testCloseWaitsForTheProducer() throws InterruptedException {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final AtomicBoolean left = new AtomicBoolean(false);
+        Iterator<Integer> blocking = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                reading.countDown();
+                // a cursor read is not interruptible
+                long end = System.currentTimeMillis() + 200;
+                while (System.currentTimeMillis() < end) {
+                    Thread.yield();
+                }
+                left.set(true);
+                return false;
+            }
+
+            @Override
+            public Integer next() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        MongoReadAheadIterator<Integer> iterator = new MongoReadAheadIterator<>(blocking, 2);
+        reading.await();
+        iterator.close();
+
+        assertTrue(left.get());
+        assertFalse(iterator.isReading());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014, Stratio.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.stratio.deep.mongodb.streaming;
+
+import static org.testng.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.bson.types.BSONTimestamp;
+import org.testng.annotations.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.stratio.deep.commons.entity.Cells;
+import com.stratio.deep.mongodb.config.MongoDeepJobConfig;
+
+@Test(groups = { "UnitTests" })
+public class MongoOplogReceiverTest {
+
+    private MongoDeepJobConfig<Cells> config() {
+        return new MongoDeepJobConfig<>(Cells.class).host("localhost").database("book").collection("input");
+    }
+
+    @Test
+    public void testQueryFiltersByConfiguredNamespace() {
+        BSONTimestamp timestamp = new BSONTimestamp(1400000000, 3);
+
+        DBObject query = new MongoOplogReceiver(config()).buildQuery(timestamp);
+
+        assertEquals(query.get(MongoOplogReceiver.TIMESTAMP), new BasicDBObject("$gt", timestamp));
+        assertEquals(Arrays.asList((Object[]) ((DBObject) query.get(MongoOplogReceiver.NAMESPACE)).get("$in")),
+                Arrays.<Object>asList("book.input"));
+        assertFalse(query.containsField(MongoOplogReceiver.OPERATION));
+    }
+
+    @Test
+    public void testQueryFiltersByNamespacesAndOperations() {
+        DBObject query = new MongoOplogReceiver(config()).namespaces("book.input", "book.output")
+                .operations("i", "u").buildQuery(new BSONTimestamp(1400000000, 3));
+
+        assertEquals(Arrays.asList((Object[]) ((DBObject) query.get(MongoOplogReceiver.NAMESPACE)).get("$in")),
+                Arrays.<Object>asList("book.input", "book.output"));
+        assertEquals(Arrays.asList((Object[]) ((DBObject) query.get(MongoOplogReceiver.OPERATION)).get("$in")),
+                Arrays.<Object>asList("i", "u"));
+    }
+
+    @Test
+    public void testEntryToCells() {
+        DBObject entry = new BasicDBObject(MongoOplogReceiver.TIMESTAMP, new BSONTimestamp(1400000000, 3))
+                .append(MongoOplogReceiver.OPERATION, "i")
+                .append(MongoOplogReceiver.NAMESPACE, "book.input")
+                .append("o", new BasicDBObject("_id", 1).append("title", "Inferno"));
+
+        Cells cells = new MongoOplogReceiver(config()).toCells(entry);
+
+        assertEquals(cells.getnameSpace(), "book.input");
+        assertEquals(cells.getCellByName(MongoOplogReceiver.OPERATION).getCellValue(), "i");
+        assertEquals(((Cells) cells.getCellByName("o").getCellValue()).getCellByName("title").getCellValue(),
+                "Inferno");
+    }
+
+    @Test
+    public void testCursorIsDrainedWhenEveryReceivedEntryIsRead() {
+        DBCursor cursor = mock(DBCursor.class);
+        when(cursor.getSizes()).thenReturn(Arrays.asList(101, 20));
+
+        when(cursor.numSeen()).thenReturn(120);
+        assertFalse(MongoOplogReceiver.isDrained(cursor));
+
+        when(cursor.numSeen()).thenReturn(121);
+        assertTrue(MongoOplogReceiver.isDrained(cursor));
+    }
+}
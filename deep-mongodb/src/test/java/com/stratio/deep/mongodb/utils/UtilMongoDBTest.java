@@ -17,6 +17,7 @@
 package com.stratio.deep.mongodb.utils;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
@@ -28,18 +29,23 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.bson.BSON;
 import org.bson.BSONObject;
 import org.bson.BasicBSONObject;
+import org.bson.LazyBSONObject;
 import org.testng.annotations.Test;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
+import com.mongodb.LazyDBCallback;
+import com.mongodb.LazyDBObject;
 import com.stratio.deep.commons.entity.Cell;
 import com.stratio.deep.commons.entity.Cells;
 import com.stratio.deep.core.entity.BookEntity;
 import com.stratio.deep.core.entity.CantoEntity;
 import com.stratio.deep.core.entity.MetadataEntity;
 import com.stratio.deep.core.entity.WordCount;
+import com.stratio.deep.mongodb.entity.LazyBSONCell;
 import com.stratio.deep.mongodb.testentity.MongoDBTestEntity;
 
 /**
@@ -219,6 +225,29 @@ public class UtilMongoDBTest {
 
     }
 
+    @Test
+    public void testGetLazyCellFromBson() throws UnknownHostException {
+
+        DBObject bson = createBsonTest();
+        LazyBSONObject lazyBson = new LazyDBObject(BSON.encode(bson), new LazyDBCallback(null));
+
+        Cells cells = UtilMongoDB.getCellFromBson(lazyBson, "book");
+
+        LazyBSONCell metadata = (LazyBSONCell) cells.getCellByName("metadata");
+        assertFalse(metadata.isDecoded());
+
+        Cells metadataCells = (Cells) metadata.getCellValue();
+        assertTrue(metadata.isDecoded());
+        assertFalse(((LazyBSONCell) metadataCells.getCellByName("source")).isDecoded());
+        assertFalse(((LazyBSONCell) cells.getCellByName("cantos")).isDecoded());
+
+        assertEquals(metadataCells.getCellByName("title").getCellValue(),
+                ((DBObject) bson.get("metadata")).get("title"));
+
+        assertTrue(UtilMongoDB.getCellFromBson(bson, "book").equals(cells));
+        assertTrue(cells.equals(UtilMongoDB.getCellFromBson(bson, "book")));
+    }
+
 
     @Test(expectedExceptions = InvocationTargetException.class)
     public void testConstructorIsPrivate()